@@ -0,0 +1,162 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.benchmarks;
+
+import com.jn.sqlhelper.common.resultset.BeanRowMapper;
+import com.jn.sqlhelper.common.resultset.ResultSetDescription;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maps a row of a mocked {@link ResultSet}, the mock is a dynamic proxy, so its cost is a part of the result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BeanRowMapperBenchmark {
+    private static final String[] COLUMNS = {"id", "name", "age", "email_address", "create_time"};
+    private static final int[] TYPES = {Types.BIGINT, Types.VARCHAR, Types.INTEGER, Types.VARCHAR, Types.TIMESTAMP};
+    private static final Object[] VALUES = {1024L, "sqlhelper", 18, "sqlhelper@example.com", new Timestamp(1577836800000L)};
+
+    private BeanRowMapper<User> mapper;
+    private ResultSet resultSet;
+    private ResultSetDescription description;
+
+    @Setup
+    public void setup() throws Exception {
+        mapper = new BeanRowMapper<User>(User.class);
+        final ResultSetMetaData metaData = proxy(ResultSetMetaData.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                String name = method.getName();
+                if ("getColumnCount".equals(name)) {
+                    return COLUMNS.length;
+                }
+                if ("getColumnName".equals(name) || "getColumnLabel".equals(name)) {
+                    return COLUMNS[(Integer) args[0] - 1];
+                }
+                if ("getColumnType".equals(name)) {
+                    return TYPES[(Integer) args[0] - 1];
+                }
+                if ("getColumnClassName".equals(name)) {
+                    return VALUES[(Integer) args[0] - 1].getClass().getName();
+                }
+                return defaultValue(method.getReturnType());
+            }
+        });
+        resultSet = proxy(ResultSet.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                String name = method.getName();
+                if ("getMetaData".equals(name)) {
+                    return metaData;
+                }
+                if ("wasNull".equals(name)) {
+                    return false;
+                }
+                if (name.startsWith("get") && args != null && args.length == 1 && args[0] instanceof Integer) {
+                    Object value = VALUES[(Integer) args[0] - 1];
+                    if ("getInt".equals(name) || "getLong".equals(name)) {
+                        return method.getReturnType() == int.class ? ((Number) value).intValue() : ((Number) value).longValue();
+                    }
+                    return value;
+                }
+                return defaultValue(method.getReturnType());
+            }
+        });
+        description = new ResultSetDescription(metaData);
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(BeanRowMapperBenchmark.class.getClassLoader(), new Class[]{type}, handler);
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+
+    @Benchmark
+    public User mapping() {
+        return mapper.mapping(resultSet, 0, description);
+    }
+
+    public static class User {
+        private long id;
+        private String name;
+        private int age;
+        private String emailAddress;
+        private Timestamp createTime;
+
+        public long getId() {
+            return id;
+        }
+
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getAge() {
+            return age;
+        }
+
+        public void setAge(int age) {
+            this.age = age;
+        }
+
+        public String getEmailAddress() {
+            return emailAddress;
+        }
+
+        public void setEmailAddress(String emailAddress) {
+            this.emailAddress = emailAddress;
+        }
+
+        public Timestamp getCreateTime() {
+            return createTime;
+        }
+
+        public void setCreateTime(Timestamp createTime) {
+            this.createTime = createTime;
+        }
+    }
+}
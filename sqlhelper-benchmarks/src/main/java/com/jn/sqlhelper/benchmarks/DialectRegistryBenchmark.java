@@ -0,0 +1,64 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.benchmarks;
+
+import com.jn.sqlhelper.dialect.Dialect;
+import com.jn.sqlhelper.dialect.DialectRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.DatabaseMetaData;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finds the dialect of the database metadata, it is resolved once for a product name, then it is read from the registry.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DialectRegistryBenchmark {
+    @Param({"MySQL", "Oracle", "PostgreSQL", "Microsoft SQL Server"})
+    private String productName;
+
+    private DialectRegistry registry;
+    private DatabaseMetaData metaData;
+
+    @Setup
+    public void setup() {
+        registry = DialectRegistry.getInstance();
+        metaData = (DatabaseMetaData) Proxy.newProxyInstance(DialectRegistryBenchmark.class.getClassLoader(), new Class[]{DatabaseMetaData.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if ("getDatabaseProductName".equals(method.getName())) {
+                    return productName;
+                }
+                if ("getDatabaseProductVersion".equals(method.getName())) {
+                    return "14.00.1000";
+                }
+                return null;
+            }
+        });
+    }
+
+    @Benchmark
+    public Dialect getDialectByDatabaseMetadata() {
+        return registry.getDialectByDatabaseMetadata(metaData);
+    }
+}
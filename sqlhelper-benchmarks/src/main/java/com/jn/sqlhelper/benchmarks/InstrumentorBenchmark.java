@@ -0,0 +1,99 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.benchmarks;
+
+import com.jn.sqlhelper.dialect.Dialect;
+import com.jn.sqlhelper.dialect.DialectRegistry;
+import com.jn.sqlhelper.dialect.instrument.SQLInstrumentorConfig;
+import com.jn.sqlhelper.dialect.instrument.SQLStatementInstrumentor;
+import com.jn.sqlhelper.dialect.orderby.OrderBy;
+import com.jn.sqlhelper.dialect.orderby.SqlStyleOrderByBuilder;
+import com.jn.sqlhelper.dialect.pagination.RowSelection;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Instruments every sql of the {@link SqlCorpus} in an operation.
+ * The instrumented sql cache and the parsed sql cache are switched by parameters:
+ * without the instrumented sql cache the sqls are transformed in every operation,
+ * without both caches they are parsed in every operation too.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InstrumentorBenchmark {
+    @Param({"mysql", "oracle", "postgresql", "sqlserver"})
+    private String dialect;
+    @Param({"true", "false"})
+    private boolean cacheInstrumentedSql;
+    @Param({"true", "false"})
+    private boolean cacheParsedSql;
+
+    private SQLStatementInstrumentor instrumentor;
+    private Dialect dialectInstance;
+    private OrderBy orderBy;
+    private RowSelection firstPage;
+    private RowSelection nthPage;
+
+    @Setup
+    public void setup() {
+        SQLInstrumentorConfig config = new SQLInstrumentorConfig();
+        config.setName("benchmark");
+        config.setDialect(dialect);
+        config.setCacheInstrumentedSql(cacheInstrumentedSql);
+        config.setCacheParsedSql(cacheParsedSql);
+        instrumentor = new SQLStatementInstrumentor();
+        instrumentor.setConfig(config);
+        instrumentor.init();
+        dialectInstance = DialectRegistry.getInstance().getDialectByName(dialect);
+        orderBy = SqlStyleOrderByBuilder.DEFAULT.build("id desc, name asc");
+        firstPage = newRowSelection(0, 10);
+        nthPage = newRowSelection(1000, 20);
+    }
+
+    private static RowSelection newRowSelection(long offset, int limit) {
+        RowSelection selection = new RowSelection();
+        selection.setOffset(offset);
+        selection.setLimit(limit);
+        return selection;
+    }
+
+    @Benchmark
+    public void instrumentLimitSql(Blackhole blackhole) {
+        for (String sql : SqlCorpus.SELECTS) {
+            blackhole.consume(instrumentor.instrumentLimitSql(dialectInstance, sql, firstPage));
+            blackhole.consume(instrumentor.instrumentLimitSql(dialectInstance, sql, nthPage));
+        }
+    }
+
+    @Benchmark
+    public void countSql(Blackhole blackhole) {
+        for (String sql : SqlCorpus.SELECTS) {
+            blackhole.consume(instrumentor.countSql(sql));
+        }
+    }
+
+    @Benchmark
+    public void instrumentOrderBySql(Blackhole blackhole) {
+        for (String sql : SqlCorpus.SELECTS) {
+            blackhole.consume(instrumentor.instrumentOrderBySql(sql, orderBy));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.benchmarks;
+
+import com.jn.langx.util.struct.Pair;
+import com.jn.sqlhelper.dialect.likeescaper.LikeEscaper;
+import com.jn.sqlhelper.dialect.likeescaper.LikeEscapers;
+import com.jn.sqlhelper.dialect.likeescaper.SlashStyleEscaper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LikeEscapersBenchmark {
+    private LikeEscaper escaper;
+    private List<List<Integer>> slots;
+
+    @Setup
+    public void setup() {
+        escaper = new SlashStyleEscaper();
+        slots = new ArrayList<List<Integer>>();
+        for (String sql : SqlCorpus.LIKES) {
+            slots.add(LikeEscapers.findEscapedSlots(sql).getValue());
+        }
+    }
+
+    @Benchmark
+    public void findEscapedSlots(Blackhole blackhole) {
+        for (String sql : SqlCorpus.LIKES) {
+            Pair<List<Integer>, List<Integer>> pair = LikeEscapers.findEscapedSlots(sql);
+            blackhole.consume(pair);
+        }
+    }
+
+    @Benchmark
+    public void insertLikeEscapeDeclares(Blackhole blackhole) {
+        for (int i = 0; i < SqlCorpus.LIKES.length; i++) {
+            blackhole.consume(LikeEscapers.insertLikeEscapeDeclares(SqlCorpus.LIKES[i], slots.get(i), escaper));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.benchmarks;
+
+import com.jn.langx.util.function.Predicate;
+import com.jn.sqlhelper.dialect.orderby.SqlStyleOrderByBuilder;
+import com.jn.sqlhelper.dialect.pagination.MemoryPaginations;
+import com.jn.sqlhelper.dialect.pagination.PagingRequest;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pages a list in memory with a filter and an order by, the request is created in every operation since it is changed by the paging.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MemoryPaginationsBenchmark {
+    @Param({"1000", "100000"})
+    private int size;
+
+    private List<BeanRowMapperBenchmark.User> users;
+    private Predicate<BeanRowMapperBenchmark.User> adult;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(size);
+        users = new ArrayList<BeanRowMapperBenchmark.User>(size);
+        for (int i = 0; i < size; i++) {
+            BeanRowMapperBenchmark.User user = new BeanRowMapperBenchmark.User();
+            user.setId(i);
+            user.setName("name_" + random.nextInt(size));
+            user.setAge(random.nextInt(100));
+            users.add(user);
+        }
+        adult = new Predicate<BeanRowMapperBenchmark.User>() {
+            @Override
+            public boolean test(BeanRowMapperBenchmark.User user) {
+                return user.getAge() >= 18;
+            }
+        };
+    }
+
+    @Benchmark
+    public List<BeanRowMapperBenchmark.User> paging() {
+        PagingRequest<Object, BeanRowMapperBenchmark.User> request = new PagingRequest<Object, BeanRowMapperBenchmark.User>();
+        request.limit(3, 20);
+        request.setOrderBy(SqlStyleOrderByBuilder.DEFAULT.build("name asc, age desc"));
+        return MemoryPaginations.paging(users, request, adult);
+    }
+}
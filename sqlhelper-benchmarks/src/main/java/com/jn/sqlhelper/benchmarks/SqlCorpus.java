@@ -0,0 +1,50 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.benchmarks;
+
+/**
+ * The sqls of the benchmarks, they are shaped like the ones of the business applications:
+ * the single table queries, the joins, the sub queries, the aggregations and the unions.
+ */
+public final class SqlCorpus {
+    public static final String[] SELECTS = {
+            "select id, name, age from user where id = ?",
+            "select * from user where name like ? and age > ? order by create_time desc",
+            "select u.id, u.name, d.name as dept_name from user u left join dept d on u.dept_id = d.id where u.status = ? order by u.id",
+            "select o.id, o.amount, c.name from orders o inner join customer c on o.customer_id = c.id left join coupon p on o.coupon_id = p.id where o.create_time between ? and ? and c.level in (?, ?, ?)",
+            "select dept_id, count(*) as cnt, avg(salary) as avg_salary from employee where hire_date > ? group by dept_id having count(*) > ? order by cnt desc",
+            "select * from product where category_id in (select id from category where parent_id = ?) and price < ? order by price",
+            "select a.id, a.title, (select count(1) from comment c where c.article_id = a.id) as comments from article a where a.author_id = ? and a.deleted = 0",
+            "select id, name from user where status = 1 union all select id, name from user_archive where status = 1",
+            "select t.* from (select id, name, row_number() over (partition by dept_id order by salary desc) as rn from employee) t where t.rn <= ?",
+            "select distinct o.customer_id from orders o where exists (select 1 from order_item i where i.order_id = o.id and i.sku = ?) and o.status <> ?",
+            "select u.id, u.name, r.name as role_name, p.code from user u join user_role ur on ur.user_id = u.id join role r on r.id = ur.role_id left join permission p on p.role_id = r.id left join audit_log l on l.user_id = u.id where u.tenant_id = ? and (u.name like ? or u.email like ?) order by u.id desc",
+            "select * from event where type = ? and payload is not null and created_at >= ? order by created_at, id"
+    };
+
+    /**
+     * The sqls which declare the like clauses, for the like escapers
+     */
+    public static final String[] LIKES = {
+            "select * from user where name like ?",
+            "select * from user where name like ? and email not like ? order by id",
+            "select * from user where name like 'a%' and (email like ? or phone like ?) and status = ? limit ?",
+            "select u.* from user u join dept d on u.dept_id = d.id where d.name like ? and u.name like concat(?, '%') group by u.id",
+            "select * from article where title like ? escape '\\' and content like ? union select * from article_archive where title like ?"
+    };
+
+    private SqlCorpus() {
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.benchmarks;
+
+import com.jn.sqlhelper.jsqlparser.utils.CCJSqlParsers;
+import com.jn.sqlhelper.jsqlparser.utils.JSqlParsers;
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.statement.Statement;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares copying the parsed statements of the {@link SqlCorpus} with parsing them again,
+ * the parsed sql cache of the instrumentor hands out a copy of the cached statement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatementCopyBenchmark {
+    private Statement[] statements;
+
+    @Setup
+    public void setup() throws JSQLParserException {
+        statements = new Statement[SqlCorpus.SELECTS.length];
+        for (int i = 0; i < SqlCorpus.SELECTS.length; i++) {
+            statements[i] = CCJSqlParsers.parse(SqlCorpus.SELECTS[i]);
+        }
+    }
+
+    @Benchmark
+    public void copy(Blackhole blackhole) {
+        for (Statement statement : statements) {
+            blackhole.consume(JSqlParsers.copy(statement));
+        }
+    }
+
+    @Benchmark
+    public void reparse(Blackhole blackhole) throws JSQLParserException {
+        for (String sql : SqlCorpus.SELECTS) {
+            blackhole.consume(CCJSqlParsers.parse(sql));
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.common.cache;
+
+/**
+ * An immutable snapshot of the statistics of a cache
+ */
+public class CacheStats {
+    public static final CacheStats EMPTY = new CacheStats(0, 0, 0, 0, 0, 0, 0, 0);
+
+    private final long hitCount;
+    private final long missCount;
+    private final long loadCount;
+    private final long totalLoadTime; // unit: ns
+    private final long evictionCount;
+    private final long rejectionCount;
+    private final int size;
+    private final long weight;
+
+    public CacheStats(long hitCount, long missCount, long loadCount, long totalLoadTime, long evictionCount, long rejectionCount, int size, long weight) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.loadCount = loadCount;
+        this.totalLoadTime = totalLoadTime;
+        this.evictionCount = evictionCount;
+        this.rejectionCount = rejectionCount;
+        this.size = size;
+        this.weight = weight;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getRequestCount() {
+        return hitCount + missCount;
+    }
+
+    public double getHitRate() {
+        long requestCount = getRequestCount();
+        return requestCount == 0 ? 1.0D : (double) hitCount / requestCount;
+    }
+
+    public long getLoadCount() {
+        return loadCount;
+    }
+
+    /**
+     * @return the total time spent in loading new values, unit: ns
+     */
+    public long getTotalLoadTime() {
+        return totalLoadTime;
+    }
+
+    /**
+     * @return the average time spent in loading a new value, unit: ns
+     */
+    public double getAverageLoadPenalty() {
+        return loadCount == 0 ? 0.0D : (double) totalLoadTime / loadCount;
+    }
+
+    /**
+     * @return the count of the entries that were evicted because of the size or the weight limit, or were expired
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * @return the count of the new entries that were not admitted into the cache
+     */
+    public long getRejectionCount() {
+        return rejectionCount;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public long getWeight() {
+        return weight;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{" +
+                "hitCount=" + hitCount +
+                ", missCount=" + missCount +
+                ", loadCount=" + loadCount +
+                ", totalLoadTime=" + totalLoadTime +
+                ", evictionCount=" + evictionCount +
+                ", rejectionCount=" + rejectionCount +
+                ", size=" + size +
+                ", weight=" + weight +
+                '}';
+    }
+}
@@ -0,0 +1,415 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.common.cache;
+
+import com.jn.langx.annotation.NonNull;
+import com.jn.langx.annotation.Nullable;
+import com.jn.langx.util.Preconditions;
+import com.jn.langx.util.function.Supplier;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A cache which is limited by the total weight of the entries and the count of the entries.
+ * <p>
+ * It uses a TinyLFU admission policy: when the cache is full, a new entry is admitted only if its estimated access
+ * frequency is greater than the frequency of the least recently used entry (the victim), otherwise the new entry is rejected.
+ * So a burst of one-off keys can't flush the hot entries out of the cache.
+ * <p>
+ * A read doesn't take a lock: the entries are read from a {@link ConcurrentHashMap}, and the access is recorded into
+ * a read buffer of the thread's stripe. The buffers are drained into the frequency sketch and the LRU list under the lock,
+ * when a buffer is half full and the lock is free, or before an entry is added. A buffer is lossy, an access may be
+ * dropped under contention, it only makes the frequency and the LRU order a little less accurate.
+ * Only the writes, the admission and the eviction take the lock.
+ * <p>
+ * If the weight of a cached value changes, set it again to update the weight, the update is not counted as an access.
+ */
+public class WeightedCache<K, V> {
+    private static final int READ_BUFFER_SIZE = 64;
+    private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+    private static final int DRAIN_THRESHOLD_MASK = READ_BUFFER_SIZE / 2 - 1;
+    private static final int MAX_STRIPES = 16;
+
+    private final long maxWeight;
+    private final int maxCapacity;
+    private final long expireAfterReadInMillis;
+    private final Weigher<K, V> weigher;
+    private final ConcurrentHashMap<K, Node<K, V>> map = new ConcurrentHashMap<K, Node<K, V>>();
+    private final ReadStripe[] stripes;
+    private final int stripeMask;
+
+    /**
+     * the lock of the frequency sketch, the LRU list and the weight
+     */
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final FrequencySketch sketch;
+    /**
+     * the sentinel of the LRU list, head.next is the least recently used entry
+     */
+    private final Node<K, V> head = new Node<K, V>(null, null, 0, 0);
+    private int count = 0;
+    private volatile long weight = 0;
+
+    private volatile long loadCount;
+    private volatile long totalLoadTime;
+    private volatile long evictionCount;
+    private volatile long rejectionCount;
+
+    /**
+     * @param maxWeight               the max total weight
+     * @param maxCapacity             the max count of the entries
+     * @param expireAfterReadInMillis an entry will be expired if it has not been read in the duration, 0 or negative number: never expire
+     * @param weigher                 compute the weight of an entry
+     */
+    public WeightedCache(long maxWeight, int maxCapacity, long expireAfterReadInMillis, @NonNull Weigher<K, V> weigher) {
+        Preconditions.checkTrue(maxWeight > 0, "the max weight must be positive");
+        Preconditions.checkTrue(maxCapacity > 0, "the max capacity must be positive");
+        Preconditions.checkNotNull(weigher, "the weigher is null");
+        this.maxWeight = maxWeight;
+        this.maxCapacity = maxCapacity;
+        this.expireAfterReadInMillis = expireAfterReadInMillis;
+        this.weigher = weigher;
+        this.sketch = new FrequencySketch((int) Math.min(maxCapacity, Math.max(16L, maxWeight / 1024)));
+        int stripeCount = 1;
+        while (stripeCount < Runtime.getRuntime().availableProcessors() && stripeCount < MAX_STRIPES) {
+            stripeCount <<= 1;
+        }
+        this.stripes = new ReadStripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReadStripe();
+        }
+        this.stripeMask = stripeCount - 1;
+        head.prev = head;
+        head.next = head;
+    }
+
+    @Nullable
+    public V getIfPresent(@NonNull K key) {
+        ReadStripe stripe = stripes[(int) Thread.currentThread().getId() & stripeMask];
+        Node<K, V> node = map.get(key);
+        if (node != null && expireAfterReadInMillis > 0) {
+            long now = System.currentTimeMillis();
+            if (isExpired(node, now)) {
+                expire(node);
+                node = null;
+            } else {
+                node.lastAccessTime = now;
+            }
+        }
+        if (node == null) {
+            stripe.missCount.incrementAndGet();
+            // the frequency of a missed key is recorded too, it is used when the key is loaded
+            afterRead(stripe, key);
+            return null;
+        }
+        stripe.hitCount.incrementAndGet();
+        afterRead(stripe, node);
+        return node.value;
+    }
+
+    /**
+     * get the value, load it with the loader if absent.
+     * The loaded value is returned even though it is not admitted into the cache.
+     */
+    public V get(@NonNull K key, @NonNull Supplier<K, V> loader) {
+        V value = getIfPresent(key);
+        if (value != null) {
+            return value;
+        }
+        long start = System.nanoTime();
+        value = loader.get(key);
+        long loadTime = System.nanoTime() - start;
+        evictionLock.lock();
+        try {
+            loadCount++;
+            totalLoadTime += loadTime;
+            if (value == null) {
+                return null;
+            }
+            Node<K, V> existing = map.get(key);
+            if (existing != null) {
+                // another thread loaded it
+                return existing.value;
+            }
+            put(key, value);
+        } finally {
+            evictionLock.unlock();
+        }
+        return value;
+    }
+
+    /**
+     * add a value, or update the value and its weight. Adding a value is counted as an access of the key, updating is not.
+     *
+     * @return whether the value is in the cache after the call
+     */
+    public boolean set(@NonNull K key, @NonNull V value) {
+        Preconditions.checkNotNull(key);
+        Preconditions.checkNotNull(value);
+        evictionLock.lock();
+        try {
+            if (!map.containsKey(key)) {
+                sketch.increment(key);
+            }
+            return put(key, value);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    @Nullable
+    public V remove(@NonNull K key) {
+        evictionLock.lock();
+        try {
+            Node<K, V> node = map.get(key);
+            if (node == null) {
+                return null;
+            }
+            removeNode(node);
+            return node.value;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public void clean() {
+        evictionLock.lock();
+        try {
+            for (Node<K, V> node = head.next; node != head; ) {
+                Node<K, V> next = node.next;
+                node.prev = null;
+                node.next = null;
+                node = next;
+            }
+            head.prev = head;
+            head.next = head;
+            map.clear();
+            count = 0;
+            weight = 0;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    public long weight() {
+        return weight;
+    }
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    public CacheStats stats() {
+        long hitCount = 0;
+        long missCount = 0;
+        for (ReadStripe stripe : stripes) {
+            hitCount += stripe.hitCount.get();
+            missCount += stripe.missCount.get();
+        }
+        return new CacheStats(hitCount, missCount, loadCount, totalLoadTime, evictionCount, rejectionCount, map.size(), weight);
+    }
+
+    /**
+     * @return a snapshot of the cached entries, ordered from the least recently used to the most recently used
+     */
+    public Map<K, V> toMap() {
+        evictionLock.lock();
+        try {
+            drainReadBuffers();
+            Map<K, V> result = new LinkedHashMap<K, V>(count);
+            for (Node<K, V> node = head.next; node != head; node = node.next) {
+                result.put(node.key, node.value);
+            }
+            return result;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void afterRead(ReadStripe stripe, Object keyOrNode) {
+        long index = stripe.writes.getAndIncrement();
+        stripe.buffer.lazySet((int) index & READ_BUFFER_MASK, keyOrNode);
+        if ((index & DRAIN_THRESHOLD_MASK) == DRAIN_THRESHOLD_MASK && evictionLock.tryLock()) {
+            try {
+                drainReadBuffers();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * record the buffered accesses into the frequency sketch and the LRU list, it is called with the lock held
+     */
+    @SuppressWarnings("unchecked")
+    private void drainReadBuffers() {
+        for (ReadStripe stripe : stripes) {
+            for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+                Object keyOrNode = stripe.buffer.getAndSet(i, null);
+                if (keyOrNode == null) {
+                    continue;
+                }
+                if (keyOrNode instanceof Node) {
+                    Node<K, V> node = (Node<K, V>) keyOrNode;
+                    sketch.increment(node.key);
+                    if (node.next != null) {
+                        // it is still in the cache
+                        unlink(node);
+                        linkLast(node);
+                    }
+                } else {
+                    sketch.increment(keyOrNode);
+                }
+            }
+        }
+    }
+
+    private void expire(Node<K, V> node) {
+        evictionLock.lock();
+        try {
+            if (node.next != null) {
+                removeNode(node);
+                evictionCount++;
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * it is called with the lock held
+     */
+    private boolean put(K key, V value) {
+        drainReadBuffers();
+        long entryWeight = weigher.weigh(key, value);
+        Node<K, V> old = map.get(key);
+        if (entryWeight > maxWeight) {
+            if (old != null) {
+                removeNode(old);
+                evictionCount++;
+            } else {
+                rejectionCount++;
+            }
+            return false;
+        }
+        if (old != null) {
+            // a weight update, the entry keeps its position in the LRU list
+            weight += entryWeight - old.weight;
+            old.weight = entryWeight;
+            old.value = value;
+            return evictIfNecessary(old, false);
+        }
+        Node<K, V> node = new Node<K, V>(key, value, entryWeight, System.currentTimeMillis());
+        map.put(key, node);
+        linkLast(node);
+        count++;
+        weight += entryWeight;
+        return evictIfNecessary(node, true);
+    }
+
+    /**
+     * @param candidate  the entry which was put just now
+     * @param isNewEntry whether the candidate is a new entry, a new entry may be rejected by the admission policy
+     * @return whether the candidate is still in the cache
+     */
+    private boolean evictIfNecessary(Node<K, V> candidate, boolean isNewEntry) {
+        long now = System.currentTimeMillis();
+        Node<K, V> victim = head.next;
+        while ((weight > maxWeight || count > maxCapacity) && victim != head) {
+            Node<K, V> next = victim.next;
+            if (victim == candidate) {
+                victim = next;
+                continue;
+            }
+            boolean evictVictim = !isNewEntry
+                    || isExpired(victim, now)
+                    || sketch.frequency(candidate.key) > sketch.frequency(victim.key);
+            if (evictVictim) {
+                removeNode(victim);
+                evictionCount++;
+            } else {
+                removeNode(candidate);
+                rejectionCount++;
+                return false;
+            }
+            victim = next;
+        }
+        return true;
+    }
+
+    private void removeNode(Node<K, V> node) {
+        map.remove(node.key, node);
+        unlink(node);
+        node.prev = null;
+        node.next = null;
+        count--;
+        weight -= node.weight;
+    }
+
+    private void linkLast(Node<K, V> node) {
+        Node<K, V> last = head.prev;
+        node.prev = last;
+        node.next = head;
+        last.next = node;
+        head.prev = node;
+    }
+
+    private static <K, V> void unlink(Node<K, V> node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+    }
+
+    private boolean isExpired(Node<K, V> node, long now) {
+        return expireAfterReadInMillis > 0 && now - node.lastAccessTime > expireAfterReadInMillis;
+    }
+
+    /**
+     * a cache entry, the links of the LRU list are guarded by the lock, they are null if the entry is removed
+     */
+    private static class Node<K, V> {
+        private final K key;
+        private volatile V value;
+        private long weight;
+        private volatile long lastAccessTime;
+        private Node<K, V> prev;
+        private Node<K, V> next;
+
+        Node(K key, V value, long weight, long lastAccessTime) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.lastAccessTime = lastAccessTime;
+        }
+    }
+
+    /**
+     * the read buffer and the read statistics of the threads of a stripe
+     */
+    private static class ReadStripe {
+        private final AtomicLong writes = new AtomicLong();
+        private final AtomicReferenceArray<Object> buffer = new AtomicReferenceArray<Object>(READ_BUFFER_SIZE);
+        private final AtomicLong hitCount = new AtomicLong();
+        private final AtomicLong missCount = new AtomicLong();
+    }
+}
@@ -171,4 +171,16 @@ public class SQLs {
         }
     }
 
+    /**
+     * a 64 bits FNV-1a hash of the sql, it is used as a key instead of the sql itself when the sql is not needed any more
+     */
+    public static long fingerprint(String sql) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < sql.length(); i++) {
+            hash ^= sql.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
 }
@@ -15,6 +15,7 @@
 package com.jn.sqlhelper.common.tests;
 
 import com.jn.sqlhelper.common.utils.SQLs;
+import org.junit.Assert;
 import org.junit.Test;
 
 public class SqlsTests {
@@ -33,4 +34,12 @@ public class SqlsTests {
         sql = "select \t count(1) from t";
         System.out.println(sql + ",\t" + SQLs.isSelectCountStatement(sql));
     }
+
+    @Test
+    public void testFingerprint() {
+        Assert.assertEquals(0xcbf29ce484222325L, SQLs.fingerprint(""));
+        Assert.assertEquals(SQLs.fingerprint("select * from t"), SQLs.fingerprint(new String("select * from t")));
+        // the same String.hashCode()
+        Assert.assertNotEquals(SQLs.fingerprint("select Aa"), SQLs.fingerprint("select BB"));
+    }
 }
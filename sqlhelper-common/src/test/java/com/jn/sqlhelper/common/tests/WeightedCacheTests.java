@@ -0,0 +1,127 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.common.tests;
+
+import com.jn.langx.util.function.Supplier;
+import com.jn.sqlhelper.common.cache.CacheStats;
+import com.jn.sqlhelper.common.cache.Weigher;
+import com.jn.sqlhelper.common.cache.WeightedCache;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class WeightedCacheTests {
+    private static final Weigher<String, String> WEIGHER = new Weigher<String, String>() {
+        @Override
+        public long weigh(String key, String value) {
+            return key.length() + value.length();
+        }
+    };
+
+    @Test
+    public void testWeightLimit() {
+        WeightedCache<String, String> cache = new WeightedCache<String, String>(100, Integer.MAX_VALUE, 0, WEIGHER);
+        for (int i = 0; i < 100; i++) {
+            cache.set("key" + i, "0123456789");
+            Assert.assertTrue(cache.weight() <= 100);
+        }
+        // too heavy
+        Assert.assertFalse(cache.set("big", "0123456789012345678901234567890123456789012345678901234567890123456789012345678901234567890123456789"));
+        Assert.assertNull(cache.getIfPresent("big"));
+    }
+
+    @Test
+    public void testHotEntriesAreKept() {
+        WeightedCache<String, String> cache = new WeightedCache<String, String>(1000, 10, 0, WEIGHER);
+        for (int i = 0; i < 10; i++) {
+            cache.set("hot" + i, "v");
+        }
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 10; i++) {
+                Assert.assertNotNull(cache.getIfPresent("hot" + i));
+            }
+        }
+        // a scan of one-off keys can't flush the hot entries
+        for (int i = 0; i < 100; i++) {
+            cache.set("once" + i, "v");
+        }
+        for (int i = 0; i < 10; i++) {
+            Assert.assertNotNull(cache.getIfPresent("hot" + i));
+        }
+        CacheStats stats = cache.stats();
+        Assert.assertEquals(10, stats.getSize());
+        Assert.assertEquals(100, stats.getRejectionCount());
+        System.out.println(stats);
+    }
+
+    @Test
+    public void testStats() {
+        WeightedCache<String, String> cache = new WeightedCache<String, String>(1000, 100, 0, WEIGHER);
+        Supplier<String, String> loader = new Supplier<String, String>() {
+            @Override
+            public String get(String key) {
+                return key.toUpperCase();
+            }
+        };
+        Assert.assertEquals("A", cache.get("a", loader));
+        Assert.assertEquals("A", cache.get("a", loader));
+        CacheStats stats = cache.stats();
+        Assert.assertEquals(1, stats.getHitCount());
+        Assert.assertEquals(1, stats.getMissCount());
+        Assert.assertEquals(1, stats.getLoadCount());
+        Assert.assertEquals(2, stats.getWeight());
+    }
+
+    @Test
+    public void testWeightUpdateIsNotAccess() {
+        WeightedCache<String, String> cache = new WeightedCache<String, String>(1000, 2, 0, WEIGHER);
+        cache.set("a", "v");
+        cache.set("b", "v");
+        for (int i = 0; i < 10; i++) {
+            // the weight of a is updated, its frequency is not increased
+            cache.set("a", "value" + i);
+        }
+        Assert.assertNull(cache.getIfPresent("c"));
+        Assert.assertNull(cache.getIfPresent("c"));
+        Assert.assertTrue(cache.set("c", "v"));
+        Assert.assertNull(cache.getIfPresent("a"));
+        Assert.assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testConcurrentReads() throws Exception {
+        final WeightedCache<String, String> cache = new WeightedCache<String, String>(100000, 100, 0, WEIGHER);
+        for (int i = 0; i < 100; i++) {
+            cache.set("key" + i, "v");
+        }
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 100000; i++) {
+                        Assert.assertEquals("v", cache.getIfPresent("key" + (i % 100)));
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        CacheStats stats = cache.stats();
+        Assert.assertEquals(800000, stats.getHitCount());
+        Assert.assertEquals(100, cache.toMap().size());
+    }
+}
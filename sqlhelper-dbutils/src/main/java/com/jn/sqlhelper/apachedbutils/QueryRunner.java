@@ -24,6 +24,8 @@ import com.jn.sqlhelper.dialect.pagination.RowSelection;
 import com.jn.sqlhelper.dialect.instrument.SQLInstrumentorProvider;
 import com.jn.sqlhelper.dialect.instrument.SQLStatementInstrumentor;
 import com.jn.sqlhelper.dialect.instrument.SQLInstrumentorConfig;
+import com.jn.sqlhelper.dialect.metrics.MetricNames;
+import com.jn.sqlhelper.dialect.metrics.SqlHelperMetrics;
 import com.jn.sqlhelper.dialect.pagination.*;
 import com.jn.sqlhelper.dialect.parameter.ArrayBasedQueryParameters;
 import org.apache.commons.dbutils.ResultSetHandler;
@@ -411,7 +413,9 @@ public class QueryRunner extends org.apache.commons.dbutils.QueryRunner {
                 boolean needQuery = true;
                 if (needCountInPagingRequest(request)) {
                     String countSql = instrumentor.countSql(sql, request.getCountColumn());
+                    long startTime = SqlHelperMetrics.startTimer();
                     int count = this.query(conn, false, countSql, new SelectCountResultSetHandler(), params);
+                    SqlHelperMetrics.stopTimer(MetricNames.PAGINATION_COUNT, null, SqlHelperMetrics.getDialectTag(instrumentor.getCurrentDialect()), startTime);
                     if (count <= 0) {
                         needQuery = false;
                     }
@@ -419,6 +423,7 @@ public class QueryRunner extends org.apache.commons.dbutils.QueryRunner {
                     int maxPageCount = result.getMaxPage();
                     if (maxPageCount >= 0) {
                         if (requestPageNo > maxPageCount) {
+                            SqlHelperMetrics.count(MetricNames.PAGINATION_PAGE_OUT, null, SqlHelperMetrics.getDialectTag(instrumentor.getCurrentDialect()), 1);
                             if (isUseLastPageIfPageNoOut(request)) {
                                 request.setPageNo(maxPageCount);
                                 result.setPageNo(maxPageCount);
@@ -484,8 +489,15 @@ public class QueryRunner extends org.apache.commons.dbutils.QueryRunner {
                     PagedPreparedStatementSetter parameterSetter = new PagedPreparedStatementSetter(new DbutilsOriginalPreparedStatementSetter(params));
                     instrumentor.bindParameters(ps, parameterSetter, queryParameters, true);
                     // execute
+                    long startTime = SqlHelperMetrics.startTimer();
                     ResultSet resultSet = this.wrap(ps.executeQuery());
-                    items.addAll((List) rsh.handle(resultSet));
+                    List rows = (List) rsh.handle(resultSet);
+                    items.addAll(rows);
+                    if (SqlHelperMetrics.isEnabled()) {
+                        String dialect = SqlHelperMetrics.getDialectTag(instrumentor.getCurrentDialect());
+                        SqlHelperMetrics.stopTimer(MetricNames.PAGINATION_PAGE, null, dialect, startTime);
+                        SqlHelperMetrics.count(MetricNames.PAGINATION_ROWS, null, dialect, rows == null ? 0 : rows.size());
+                    }
                 }
                 request.setPageNo(requestPageNo);
                 result.setPageNo(request.getPageNo());
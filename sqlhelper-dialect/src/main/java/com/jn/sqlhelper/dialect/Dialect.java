@@ -15,7 +15,10 @@
 package com.jn.sqlhelper.dialect;
 
 import com.jn.langx.annotation.NonNull;
+import com.jn.langx.annotation.Nullable;
 import com.jn.sqlhelper.common.ddl.model.DatabaseDescription;
+import com.jn.sqlhelper.dialect.estimate.RowCountEstimator;
+import com.jn.sqlhelper.dialect.internal.limit.LimitPlan;
 import com.jn.sqlhelper.dialect.internal.urlparser.UrlParser;
 import com.jn.sqlhelper.dialect.likeescaper.LikeEscaper;
 import com.jn.sqlhelper.dialect.pagination.RowSelection;
@@ -79,6 +82,16 @@ public interface Dialect extends LikeEscaper {
      */
     String getLimitSql(String query, RowSelection rowSelection);
 
+    /**
+     * Precompile the limit sql of the query, the plan can be cached and rendered for every request with the same offset kind.
+     *
+     * @param query     The query to which to apply the limit.
+     * @param hasOffset whether the offset is greater than 0
+     * @return the plan, null if the limit sql can't be precompiled
+     */
+    @Nullable
+    LimitPlan getLimitPlan(String query, boolean hasOffset);
+
     /**
      * Whether bind parameter in reverse or not.
      * <p>
@@ -141,6 +154,39 @@ public interface Dialect extends LikeEscaper {
      */
     boolean isSupportsDistinct();
 
+    /**
+     * Whether supports the row value comparison, e.g. (a, b) &gt; (?, ?)
+     * <p>
+     * It is used by the keyset pagination, if not supported, the condition will be expanded to:
+     * a &gt; ? OR (a = ? AND b &gt; ?)
+     */
+    boolean isSupportsRowValueComparison();
+
+    /**
+     * Whether supports the window function, e.g. count(*) over ()
+     */
+    boolean isSupportsWindowFunction();
+
+    /**
+     * Whether supports the MySQL style SQL_CALC_FOUND_ROWS and FOUND_ROWS()
+     */
+    boolean isSupportsFoundRows();
+
+    /**
+     * Whether a deep offset page query can be rewritten to a deferred join:
+     * the primary keys of the page are limited in a derived table, then the rows are joined with them.
+     */
+    boolean isSupportsDeferredJoin();
+
+    /**
+     * The fetch size which makes the driver stream the rows of a result set rather than read all of them into memory,
+     * it is used by the cursor queries.
+     *
+     * @return the fetch size, null if the driver default is used
+     */
+    @Nullable
+    Integer getStreamingFetchSize();
+
     boolean isSupportsBatchUpdates();
 
     boolean isSupportsBatchSql();
@@ -148,4 +194,10 @@ public interface Dialect extends LikeEscaper {
     String generateTableDDL(@NonNull DatabaseDescription database, String catalog, String schema, @NonNull String tableName) throws SQLException;
 
     UrlParser getUrlParser();
+
+    /**
+     * @return the row count estimator, null if the database has no cheap way to estimate the row count of a query
+     */
+    @Nullable
+    RowCountEstimator getRowCountEstimator();
 }
@@ -20,39 +20,209 @@ import com.jn.langx.annotation.Nullable;
 import com.jn.langx.text.StringTemplates;
 import com.jn.langx.util.Emptys;
 import com.jn.langx.util.Strings;
+import com.jn.langx.util.collection.ConcurrentReferenceHashMap;
 import com.jn.langx.util.collection.Pipeline;
 import com.jn.langx.util.function.Predicate;
 import com.jn.langx.util.reflect.Reflects;
+import com.jn.langx.util.reflect.reference.ReferenceType;
 import com.jn.langx.util.struct.Holder;
 import com.jn.sqlhelper.common.ddl.SQLSyntaxCompatTable;
+import com.jn.sqlhelper.dialect.annotation.DialectIndex;
 import com.jn.sqlhelper.dialect.annotation.Driver;
 import com.jn.sqlhelper.dialect.annotation.SyntaxCompat;
 import com.jn.sqlhelper.dialect.internal.*;
+import com.jn.sqlhelper.dialect.metrics.MetricNames;
+import com.jn.sqlhelper.dialect.metrics.SqlHelperMetrics;
+import com.jn.sqlhelper.dialect.urlparser.JdbcUrlParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.sql.DataSource;
+import java.io.BufferedReader;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.*;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+@DialectIndex({
+        AccessDialect.class,
+        ActorDBDialect.class,
+        AgensGraphDialect.class,
+        AltibaseDialect.class,
+        AntDBDialect.class,
+        AuroraDialect.class,
+        AzureDialect.class,
+
+        BigObjectDialect.class,
+        BrytlytDialect.class,
+
+        CacheDialect.class,
+        CirroDBDialect.class,
+        CitusDialect.class,
+        ClickHouseDialect.class,
+        ClustrixDialect.class,
+        CobolDialect.class,
+        CockroachDialect.class,
+        ComDB2Dialect.class,
+        CovenantSQLDialect.class,
+        CrateDialect.class,
+        CTreeDialect.class,
+        CubridDialect.class,
+
+        DB2Dialect.class,
+        DbfDialect.class,
+        DerbyDialect.class,
+        DmDialect.class,
+        DorisDialect.class,
+        DrillDialect.class,
+
+        ElasticsearchDialect.class,
+        EsgynDBDialect.class,
+
+        FileMakerDialect.class,
+        FirebirdDialect.class,
+
+        GaussDbDialect.class,
+        GBaseDialect.class,
+        GoldenDBDialect.class,
+        GreenplumDialect.class,
+
+        H2Dialect.class,
+        HANADialect.class,
+        HawqDialect.class,
+        HerdDBDialect.class,
+        HhDbDialect.class,
+        HighGoDialect.class,
+        HiveDialect.class,
+        HSQLDialect.class,
+
+        IgniteDialect.class,
+        ImpalaDialect.class,
+        InformixDialect.class,
+        IngresDialect.class,
+        InterbaseDialect.class,
+        IrisDialect.class,
+
+        JDataStoreDialect.class,
+
+        KarelDBDialect.class,
+        KDBDialect.class,
+        KingbaseDialect.class,
+        KineticaDialect.class,
+        KognitioDialect.class,
+
+        LeanXcaleDialect.class,
+        LinterDialect.class,
+
+        MariaDBDialect.class,
+        MaxComputeDialect.class,
+        MaxDBDialect.class,
+        MckoiDialect.class,
+        MemSQLDialect.class,
+        MimerSQLDialect.class,
+        MonetDialect.class,
+        MSQLDialect.class,
+        MySQLDialect.class,
+
+        Neo4jDialect.class,
+        NetezzaDialect.class,
+        NexusDBDialect.class,
+        NuodbDialect.class,
+
+        OBaseDialect.class,
+        OmnisciDialect.class,
+        OpenbaseDialect.class,
+        OpenEdgeDialect.class,
+        OracleDialect.class,
+        OrientDBDialect.class,
+        OscarDialect.class,
+
+        ParadoxDialect.class,
+        PerconaMysqlDialect.class,
+        PhoenixDialect.class,
+        PointbaseDialect.class,
+        PostgreSQLDialect.class,
+        PrestoDialect.class,
+
+        RadonDBDialect.class,
+        RaimaDialect.class,
+        RBaseDialect.class,
+        RDMSOS2200Dialect.class,
+        RedshiftDialect.class,
+
+        SadasDialect.class,
+        SequoiaDBDialect.class,
+        SinoDBDialect.class,
+        SmallDialect.class,
+        SnappyDataDialect.class,
+        SnowflakeDialect.class,
+        SpliceMachineDialect.class,
+        SQLiteDialect.class,
+        SQLServerDialect.class,
+        SQLServerDialect.SQLServer2000Dialect.class,
+        SQLServerDialect.SQLServer2005Dialect.class,
+        SQLServerDialect.SQLServer2008Dialect.class,
+        SQLServerDialect.SQLServer2012Dialect.class,
+        SQLServerDialect.SQLServer2014Dialect.class,
+        SQLServerDialect.SQLServer2016Dialect.class,
+        SQLServerDialect.SQLServer2017Dialect.class,
+        SQReamDialect.class,
+
+        TajoDialect.class,
+        TeradataDialect.class,
+        TiDBDialect.class,
+        TimesTenDialect.class,
+        TrafodionDialect.class,
+        TransbaseDialect.class,
+
+        UxDBDialect.class,
+
+        ValentinaDialect.class,
+        VerticaDialect.class,
+        VirtuosoDialect.class,
+        VistaDBDialect.class,
+        VoltDBDialect.class,
+
+        XtremeSQLDialect.class,
+
+        YaacomoDialect.class,
+        YugabyteDBDialect.class
+})
 public class DialectRegistry {
 
     private static final Logger logger = LoggerFactory.getLogger(DialectRegistry.class);
-    private static final Map<String, Dialect> nameToDialectMap = new TreeMap<String, Dialect>();
+    // the instantiated dialects
+    private static final Map<String, Dialect> nameToDialectMap = new ConcurrentSkipListMap<String, Dialect>();
+    // the indexed dialects which are not instantiated, a dialect is instantiated when it is used at the first time
+    private static final ConcurrentMap<String, IndexedDialect> nameToIndexedDialectMap = new ConcurrentHashMap<String, IndexedDialect>();
     private static final Map<String, String> classNameToNameMap = new TreeMap<String, String>();
-    // key:DatabaseMetaData.getProduceName() + getDriver();
-    private static final Map<String, Holder<Dialect>> dbToDialectMap = new HashMap<String, Holder<Dialect>>();
+    // key:DatabaseMetaData.getProduceName() + getDriver(); value: an empty holder if the database is unknown
+    private static final ConcurrentMap<String, Holder<Dialect>> dbToDialectMap = new ConcurrentHashMap<String, Holder<Dialect>>();
+    // key: the jdbc url, it is learned from the database metadata
+    private static final ConcurrentMap<String, Dialect> urlToDialectMap = new ConcurrentHashMap<String, Dialect>();
+    // key: the jdbc url, value: the dialect guessed with the url schemas, an empty holder if no dialect is guessed
+    private static final ConcurrentMap<String, Holder<Dialect>> urlToGuessedDialectMap = new ConcurrentHashMap<String, Holder<Dialect>>();
+    // key: the data source, it is compared by identity and is weakly referenced, so a closed data source can be collected
+    private static final ConcurrentMap<DataSource, Dialect> dataSourceToDialectMap = new ConcurrentReferenceHashMap<DataSource, Dialect>(16, 0.75f, Runtime.getRuntime().availableProcessors(), ReferenceType.WEAK, ReferenceType.STRONG, EnumSet.of(ConcurrentReferenceHashMap.Option.IDENTITY_COMPARISONS));
+    private static final String[] DATASOURCE_URL_GETTERS = {"getJdbcUrl", "getUrl", "getURL"};
     private static final Properties vendorDatabaseIdMappings = new Properties();
     private static final DialectRegistry registry = new DialectRegistry();
 
     static {
+        long startTime = System.currentTimeMillis();
         loadDatabaseIdMappings();
         registerBuiltinDialects();
         loadCustomDialects();
+        logger.info("The dialect registry is initialized in {} ms, {} dialects are instantiated", System.currentTimeMillis() - startTime, nameToDialectMap.size());
     }
 
     private DialectRegistry() {
@@ -62,10 +232,6 @@ public class DialectRegistry {
         return registry;
     }
 
-    private static String databaseIdStringLowerCase(DatabaseMetaData databaseMetaData) {
-        return databaseIdString(databaseMetaData).toLowerCase();
-    }
-
     private static String databaseIdString(DatabaseMetaData databaseMetaData) {
         try {
             return databaseMetaData.getDatabaseProductName();
@@ -97,158 +263,90 @@ public class DialectRegistry {
 
     private static void registerBuiltinDialects() {
         logger.info("Start to register builtin dialects");
+        List<IndexedDialect> indexedDialects = loadDialectIndex();
+        if (indexedDialects != null) {
+            for (IndexedDialect indexedDialect : indexedDialects) {
+                registerIndexedDialect(indexedDialect);
+            }
+        } else {
+            logger.warn("Can't find the dialect index {}, all the builtin dialects will be instantiated", DialectIndex.LOCATION);
+            for (Class<? extends Dialect> clazz : DialectRegistry.class.getAnnotation(DialectIndex.class).value()) {
+                registerDialectByClass(clazz, null);
+            }
+        }
 
-        final Class<? extends Dialect>[] dialects = (Class<? extends Dialect>[]) new Class[]{
-
-                AccessDialect.class,
-                ActorDBDialect.class,
-                AgensGraphDialect.class,
-                AltibaseDialect.class,
-                AntDBDialect.class,
-                AuroraDialect.class,
-                AzureDialect.class,
-
-                BigObjectDialect.class,
-                BrytlytDialect.class,
-
-                CacheDialect.class,
-                CirroDBDialect.class,
-                CitusDialect.class,
-                ClickHouseDialect.class,
-                ClustrixDialect.class,
-                CobolDialect.class,
-                CockroachDialect.class,
-                ComDB2Dialect.class,
-                CovenantSQLDialect.class,
-                CrateDialect.class,
-                CTreeDialect.class,
-                CubridDialect.class,
-
-                DB2Dialect.class,
-                DbfDialect.class,
-                DerbyDialect.class,
-                DmDialect.class,
-                DorisDialect.class,
-                DrillDialect.class,
-
-                ElasticsearchDialect.class,
-                EsgynDBDialect.class,
-
-                FileMakerDialect.class,
-                FirebirdDialect.class,
-
-                GaussDbDialect.class,
-                GBaseDialect.class,
-                GoldenDBDialect.class,
-                GreenplumDialect.class,
-
-                H2Dialect.class,
-                HANADialect.class,
-                HawqDialect.class,
-                HerdDBDialect.class,
-                HhDbDialect.class,
-                HighGoDialect.class,
-                HiveDialect.class,
-                HSQLDialect.class,
-
-                IgniteDialect.class,
-                ImpalaDialect.class,
-                InformixDialect.class,
-                IngresDialect.class,
-                InterbaseDialect.class,
-                IrisDialect.class,
-
-                JDataStoreDialect.class,
-
-                KarelDBDialect.class,
-                KDBDialect.class,
-                KingbaseDialect.class,
-                KineticaDialect.class,
-                KognitioDialect.class,
-
-                LeanXcaleDialect.class,
-                LinterDialect.class,
-
-                MariaDBDialect.class,
-                MaxComputeDialect.class,
-                MaxDBDialect.class,
-                MckoiDialect.class,
-                MemSQLDialect.class,
-                MimerSQLDialect.class,
-                MonetDialect.class,
-                MSQLDialect.class,
-                MySQLDialect.class,
-
-                Neo4jDialect.class,
-                NetezzaDialect.class,
-                NexusDBDialect.class,
-                NuodbDialect.class,
-
-                OBaseDialect.class,
-                OmnisciDialect.class,
-                OpenbaseDialect.class,
-                OpenEdgeDialect.class,
-                OracleDialect.class,
-                OrientDBDialect.class,
-                OscarDialect.class,
-
-                ParadoxDialect.class,
-                PerconaMysqlDialect.class,
-                PhoenixDialect.class,
-                PointbaseDialect.class,
-                PostgreSQLDialect.class,
-                PrestoDialect.class,
-
-                RadonDBDialect.class,
-                RaimaDialect.class,
-                RBaseDialect.class,
-                RDMSOS2200Dialect.class,
-                RedshiftDialect.class,
-
-                SadasDialect.class,
-                SequoiaDBDialect.class,
-                SinoDBDialect.class,
-                SmallDialect.class,
-                SnappyDataDialect.class,
-                SnowflakeDialect.class,
-                SpliceMachineDialect.class,
-                SQLiteDialect.class,
-                SQLServerDialect.class,
-                SQLServerDialect.SQLServer2000Dialect.class,
-                SQLServerDialect.SQLServer2005Dialect.class,
-                SQLServerDialect.SQLServer2008Dialect.class,
-                SQLServerDialect.SQLServer2012Dialect.class,
-                SQLServerDialect.SQLServer2014Dialect.class,
-                SQLServerDialect.SQLServer2016Dialect.class,
-                SQLServerDialect.SQLServer2017Dialect.class,
-                SQReamDialect.class,
-
-                TajoDialect.class,
-                TeradataDialect.class,
-                TiDBDialect.class,
-                TimesTenDialect.class,
-                TrafodionDialect.class,
-                TransbaseDialect.class,
-
-                UxDBDialect.class,
-
-                ValentinaDialect.class,
-                VerticaDialect.class,
-                VirtuosoDialect.class,
-                VistaDBDialect.class,
-                VoltDBDialect.class,
-
-                XtremeSQLDialect.class,
-
-                YaacomoDialect.class,
-                YugabyteDBDialect.class
-        };
-
-        for (Class<? extends Dialect> clazz : Arrays.asList(dialects)) {
-            registerDialectByClass(clazz, null);
-        }
-
-        logger.info("Registered dialects: {}", nameToDialectMap.keySet());
+        Set<String> names = new TreeSet<String>(nameToDialectMap.keySet());
+        names.addAll(nameToIndexedDialectMap.keySet());
+        logger.info("Registered dialects: {}", names);
+    }
+
+    /**
+     * @return the indexed dialects in the order of the {@link DialectIndex}, null if the index is not found
+     */
+    private static List<IndexedDialect> loadDialectIndex() {
+        InputStream inputStream = DialectRegistry.class.getResourceAsStream("/" + DialectIndex.LOCATION);
+        if (inputStream == null) {
+            return null;
+        }
+        List<IndexedDialect> indexedDialects = new ArrayList<IndexedDialect>();
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, "UTF-8"));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                int index = line.indexOf('=');
+                String[] segments = line.substring(index + 1).split(";", -1);
+                String[] compats = segments[2].isEmpty() ? new String[0] : segments[2].split(",");
+                indexedDialects.add(new IndexedDialect(line.substring(0, index), segments[0], Strings.isBlank(segments[1]) ? null : segments[1], compats));
+            }
+        } catch (Throwable ex) {
+            logger.error("Load the dialect index fail: {}", ex.getMessage(), ex);
+            return null;
+        } finally {
+            try {
+                inputStream.close();
+            } catch (Throwable ex) {
+                // Ignore it
+            }
+        }
+        return indexedDialects;
+    }
+
+    /**
+     * Register the name, the class name and the syntax compat of a dialect, the dialect is instantiated by {@link #getDialectByName(String)}
+     */
+    private static void registerIndexedDialect(IndexedDialect indexedDialect) {
+        String name = indexedDialect.name;
+        nameToIndexedDialectMap.put(name, indexedDialect);
+        // the canonical name of a nested class
+        classNameToNameMap.put(indexedDialect.className.replace('$', '.'), name);
+        setDatabaseId(name, name);
+        if (Emptys.isNotEmpty(indexedDialect.syntaxCompats)) {
+            SQLSyntaxCompatTable.getInstance().register(name, indexedDialect.syntaxCompats);
+        }
+    }
+
+    private static Dialect instantiate(IndexedDialect indexedDialect) {
+        synchronized (indexedDialect) {
+            String name = indexedDialect.name;
+            Dialect dialect = nameToDialectMap.get(name);
+            if (dialect == null && nameToIndexedDialectMap.get(name) == indexedDialect) {
+                try {
+                    dialect = newDialect(loadDialectClass(indexedDialect.className), name, indexedDialect.driverClassName);
+                } catch (Throwable ex) {
+                    logger.error("Register dialect {} fail: {}", name, ex.getMessage(), ex);
+                }
+                if (dialect != null) {
+                    nameToDialectMap.put(name, dialect);
+                }
+                nameToIndexedDialectMap.remove(name, indexedDialect);
+                logger.debug("Instantiated the dialect {}", name);
+            }
+            return dialect;
+        }
     }
 
     private static void loadDatabaseIdMappings() {
@@ -275,6 +373,17 @@ public class DialectRegistry {
 
     public static void setDatabaseId(String keywordsInDriver, String databaseId) {
         vendorDatabaseIdMappings.setProperty(keywordsInDriver, databaseId);
+        clearResolvedDialects();
+    }
+
+    /**
+     * The resolved dialects are cached, they are resolved again after the dialects or the database id mappings are changed.
+     */
+    private static void clearResolvedDialects() {
+        dbToDialectMap.clear();
+        urlToDialectMap.clear();
+        urlToGuessedDialectMap.clear();
+        dataSourceToDialectMap.clear();
     }
 
     /**
@@ -343,68 +452,14 @@ public class DialectRegistry {
         }
         if (dialect == null) {
             final Driver driverAnno = (Driver) Reflects.getAnnotation(clazz, Driver.class);
-            Class<? extends java.sql.Driver> driverClass = null;
-            Constructor<? extends Dialect> driverConstructor = null;
-            if (driverAnno != null) {
-                final String driverClassName = driverAnno.value();
-                if (Strings.isBlank(driverClassName)) {
-                    throw new IllegalStateException("@Driver is empty in class" + Reflects.getFQNClassName(clazz));
-                }
-                try {
-                    driverClass = loadDriverClass(driverClassName);
-                    try {
-                        driverConstructor = clazz.getDeclaredConstructor(java.sql.Driver.class);
-                    } catch (Throwable ex) {
-                        logger.info("Can't find the driver based constructor for dialect {}", (Object) name);
-                    }
-                } catch (Throwable ex) {
-                    logger.info("Can't find driver class {} for {} dialect", (Object) driverClassName, (Object) name);
-                }
-            }
-            if (driverClass == null || driverConstructor == null) {
-                try {
-                    try {
-                        dialect = clazz.newInstance();
-                    } catch (InstantiationException e2) {
-                        final String error = StringTemplates.formatWithPlaceholder("Class {}  need a <init>()", Reflects.getFQNClassName(clazz));
-                        throw new ClassFormatError(error);
-                    } catch (IllegalAccessException e3) {
-                        final String error = StringTemplates.formatWithPlaceholder("Class {}  need a <init>()", Reflects.getFQNClassName(clazz));
-                        throw new ClassFormatError(error);
-                    }
-                } catch (Throwable ex) {
-                    logger.error("Register dialect {} fail: {}", name, ex.getMessage(), ex);
-                }
-            } else {
-                try {
-                    try {
-                        final Class<? extends java.sql.Driver> expectDriverClass = driverClass;
-                        java.sql.Driver driver = Pipeline.<java.sql.Driver>of(DriverManager.getDrivers()).findFirst(new Predicate<java.sql.Driver>() {
-                            @Override
-                            public boolean test(java.sql.Driver d) {
-                                return expectDriverClass.isInstance(d);
-                            }
-                        });
-                        if (driver != null) {
-                            driverConstructor.setAccessible(true);
-                            dialect = driverConstructor.newInstance(driver);
-                        }
-                    } catch (InstantiationException e2) {
-                        final String error = StringTemplates.formatWithPlaceholder("Class {}  need a <init>(Driver)", Reflects.getFQNClassName(clazz));
-                        throw new ClassFormatError(error);
-                    } catch (IllegalAccessException e3) {
-                        final String error = StringTemplates.formatWithPlaceholder("Class {} need a public <init>(Driver", Reflects.getFQNClassName(clazz));
-                        throw new ClassFormatError(error);
-                    } catch (InvocationTargetException e) {
-                        logger.error("Register dialect {} fail: {}", name, e.getMessage(), e);
-                    }
-                } catch (Throwable ex) {
-                    logger.error("Register dialect {} fail: {}", name, ex.getMessage(), ex);
-                }
+            if (driverAnno != null && Strings.isBlank(driverAnno.value())) {
+                throw new IllegalStateException("@Driver is empty in class" + Reflects.getFQNClassName(clazz));
             }
+            dialect = newDialect(clazz, name, driverAnno == null ? null : driverAnno.value());
         }
         if (dialect != null) {
             DialectRegistry.nameToDialectMap.put(name, dialect);
+            DialectRegistry.nameToIndexedDialectMap.remove(name);
             DialectRegistry.classNameToNameMap.put(clazz.getCanonicalName(), name);
             setDatabaseId(name, name);
         }
@@ -422,7 +477,73 @@ public class DialectRegistry {
         return dialect;
     }
 
+    private static Dialect newDialect(@NonNull final Class<? extends Dialect> clazz, String name, @Nullable String driverClassName) {
+        Dialect dialect = null;
+        Class<? extends java.sql.Driver> driverClass = null;
+        Constructor<? extends Dialect> driverConstructor = null;
+        if (driverClassName != null) {
+            try {
+                driverClass = loadDriverClass(driverClassName);
+                try {
+                    driverConstructor = clazz.getDeclaredConstructor(java.sql.Driver.class);
+                } catch (Throwable ex) {
+                    logger.info("Can't find the driver based constructor for dialect {}", (Object) name);
+                }
+            } catch (Throwable ex) {
+                logger.info("Can't find driver class {} for {} dialect", (Object) driverClassName, (Object) name);
+            }
+        }
+        if (driverClass == null || driverConstructor == null) {
+            try {
+                try {
+                    dialect = clazz.newInstance();
+                } catch (InstantiationException e2) {
+                    final String error = StringTemplates.formatWithPlaceholder("Class {}  need a <init>()", Reflects.getFQNClassName(clazz));
+                    throw new ClassFormatError(error);
+                } catch (IllegalAccessException e3) {
+                    final String error = StringTemplates.formatWithPlaceholder("Class {}  need a <init>()", Reflects.getFQNClassName(clazz));
+                    throw new ClassFormatError(error);
+                }
+            } catch (Throwable ex) {
+                logger.error("Register dialect {} fail: {}", name, ex.getMessage(), ex);
+            }
+        } else {
+            try {
+                try {
+                    final Class<? extends java.sql.Driver> expectDriverClass = driverClass;
+                    java.sql.Driver driver = Pipeline.<java.sql.Driver>of(DriverManager.getDrivers()).findFirst(new Predicate<java.sql.Driver>() {
+                        @Override
+                        public boolean test(java.sql.Driver d) {
+                            return expectDriverClass.isInstance(d);
+                        }
+                    });
+                    if (driver != null) {
+                        driverConstructor.setAccessible(true);
+                        dialect = driverConstructor.newInstance(driver);
+                    }
+                } catch (InstantiationException e2) {
+                    final String error = StringTemplates.formatWithPlaceholder("Class {}  need a <init>(Driver)", Reflects.getFQNClassName(clazz));
+                    throw new ClassFormatError(error);
+                } catch (IllegalAccessException e3) {
+                    final String error = StringTemplates.formatWithPlaceholder("Class {} need a public <init>(Driver", Reflects.getFQNClassName(clazz));
+                    throw new ClassFormatError(error);
+                } catch (InvocationTargetException e) {
+                    logger.error("Register dialect {} fail: {}", name, e.getMessage(), e);
+                }
+            } catch (Throwable ex) {
+                logger.error("Register dialect {} fail: {}", name, ex.getMessage(), ex);
+            }
+        }
+        return dialect;
+    }
+
+    /**
+     * All the indexed dialects are instantiated by it, so it is not used to find a dialect.
+     */
     public Collection<Dialect> getDialects() {
+        for (IndexedDialect indexedDialect : nameToIndexedDialectMap.values()) {
+            instantiate(indexedDialect);
+        }
         return nameToDialectMap.values();
     }
 
@@ -435,51 +556,206 @@ public class DialectRegistry {
     }
 
     public Dialect getDialectByName(final String databaseId) {
-        return DialectRegistry.nameToDialectMap.get(databaseId);
+        if (databaseId == null) {
+            return null;
+        }
+        Dialect dialect = DialectRegistry.nameToDialectMap.get(databaseId);
+        if (dialect == null) {
+            IndexedDialect indexedDialect = nameToIndexedDialectMap.get(databaseId);
+            if (indexedDialect != null) {
+                dialect = instantiate(indexedDialect);
+            }
+        }
+        return dialect;
     }
 
     public Dialect getDialectByDatabaseMetadata(final DatabaseMetaData databaseMetaData) {
+        if (databaseMetaData == null) {
+            return null;
+        }
+        String databaseIdString = databaseIdString(databaseMetaData);
+        Holder<Dialect> holder = dbToDialectMap.get(databaseIdString);
+        if (holder == null) {
+            Dialect dialect = resolveDialect(databaseIdString.toLowerCase(), databaseMetaData);
+            holder = new Holder<Dialect>(dialect);
+            Holder<Dialect> existing = dbToDialectMap.putIfAbsent(databaseIdString, holder);
+            if (existing != null) {
+                holder = existing;
+            }
+        }
+        return holder.get();
+    }
+
+    private Dialect resolveDialect(String databaseIdString, DatabaseMetaData databaseMetaData) {
         Dialect dialect = null;
-        if (databaseMetaData != null) {
-            String databaseIdString = databaseIdStringLowerCase(databaseMetaData);
+        Enumeration<String> keys = (Enumeration<String>) vendorDatabaseIdMappings.propertyNames();
+        while (keys.hasMoreElements()) {
+            String key = keys.nextElement();
+            if (databaseIdString.contains(key.toLowerCase())) {
+                dialect = getDialectByName(vendorDatabaseIdMappings.getProperty(key));
+                if (dialect != null) {
+                    return dialect;
+                }
+            }
+        }
+
+        // sqlserver
+        if (Strings.containsAny(databaseIdString, "sql server") || Strings.containsAny(databaseIdString, "sqlserver")) {
             try {
-                dialect = ((Holder<Dialect>) DialectRegistry.dbToDialectMap.get(databaseIdString)).get();
-            } catch (NullPointerException ex) {
-                // ignore
+                String productionVersion = databaseMetaData.getDatabaseProductVersion();
+                String tmpDatabaseId = SQLServerDialect.guessDatabaseId(productionVersion);
+                if (Emptys.isNotEmpty(tmpDatabaseId)) {
+                    dialect = getDialectByName(vendorDatabaseIdMappings.getProperty(tmpDatabaseId));
+                }
+            } catch (Throwable ex) {
+                // ignore it
             }
-            if (dialect == null) {
-                Enumeration<String> keys = (Enumeration<String>) vendorDatabaseIdMappings.propertyNames();
-                while (keys.hasMoreElements()) {
-                    String key = keys.nextElement();
-                    if (databaseIdString.contains(key.toLowerCase())) {
-                        dialect = getDialectByName(vendorDatabaseIdMappings.getProperty(key));
-                        if (dialect != null) {
-                            dbToDialectMap.put(databaseIdString, new Holder<Dialect>(dialect));
-                            break;
-                        }
-                    }
+        }
+        return dialect;
+    }
+
+    /**
+     * Find the dialect of a data source without a round trip to the database if it has been resolved once.
+     * <pre>
+     * 1. the dialect of the data source
+     * 2. the dialect of the jdbc url of the data source, the jdbc url is got by the getJdbcUrl(), getUrl() or getURL() method
+     * 3. the dialect of the database metadata of the connection, then it is cached for the data source and the jdbc url
+     * 4. guess it with the url schemas of the {@link com.jn.sqlhelper.dialect.internal.urlparser.UrlParser}s
+     * </pre>
+     *
+     * @param dataSource the data source, null if it is unknown
+     * @param connection a connection of the data source, it is used only if the dialect of the data source is not resolved
+     * @return the dialect, null if it is not found
+     */
+    public Dialect getDialect(@Nullable DataSource dataSource, @Nullable Connection connection) {
+        Dialect dialect = dataSource == null ? null : dataSourceToDialectMap.get(dataSource);
+        if (dialect != null) {
+            return dialect;
+        }
+        long startTime = SqlHelperMetrics.startTimer();
+        dialect = resolveDialect(dataSource, connection);
+        SqlHelperMetrics.stopTimer(MetricNames.DIALECT_RESOLVE, null, SqlHelperMetrics.getDialectTag(dialect), startTime);
+        return dialect;
+    }
+
+    private Dialect resolveDialect(@Nullable DataSource dataSource, @Nullable Connection connection) {
+        Dialect dialect = null;
+        String url = dataSource == null ? null : getUrl(dataSource);
+        if (url != null) {
+            dialect = urlToDialectMap.get(url);
+        }
+        if (dialect == null && connection != null) {
+            try {
+                DatabaseMetaData databaseMetaData = connection.getMetaData();
+                dialect = getDialectByDatabaseMetadata(databaseMetaData);
+                if (url == null && dialect != null) {
+                    url = databaseMetaData.getURL();
+                }
+            } catch (SQLException ex) {
+                logger.warn("Can't find the dialect by the database metadata, error: {}", ex.getMessage(), ex);
+            }
+            if (dialect != null && url != null) {
+                urlToDialectMap.put(url, dialect);
+            }
+        }
+        if (dialect == null) {
+            // a guess is cached apart from the learned dialects, the metadata is preferred when a connection is given
+            return url == null ? null : guessDialectByUrl(url);
+        }
+        if (dataSource != null && !isRoutingDataSource(dataSource)) {
+            dataSourceToDialectMap.put(dataSource, dialect);
+        }
+        return dialect;
+    }
+
+    /**
+     * @return the dialect of the jdbc url, it is learned from the database metadata or guessed with the url schemas
+     */
+    public Dialect getDialectByUrl(@Nullable String url) {
+        if (Strings.isBlank(url)) {
+            return null;
+        }
+        Dialect dialect = urlToDialectMap.get(url);
+        return dialect != null ? dialect : guessDialectByUrl(url);
+    }
+
+    private Dialect guessDialectByUrl(String url) {
+        Holder<Dialect> holder = urlToGuessedDialectMap.get(url);
+        if (holder == null) {
+            holder = new Holder<Dialect>(new JdbcUrlParser().findDialect(url));
+            Holder<Dialect> existing = urlToGuessedDialectMap.putIfAbsent(url, holder);
+            if (existing != null) {
+                holder = existing;
+            }
+        }
+        return holder.get();
+    }
+
+    /**
+     * Find the dialects which may parse a jdbc url without instantiating all the dialects.
+     * A segment of the url subprotocol is matched with the dialect names and the database id mappings,
+     * e.g. oracle of jdbc:oracle:thin:@localhost:1521:orcl, informix of jdbc:informix-sqli://localhost:9088/test
+     *
+     * @return the candidate dialects, their url schemas are not checked
+     */
+    public List<Dialect> getDialectsByUrlSubprotocol(@NonNull String url) {
+        List<Dialect> dialects = new ArrayList<Dialect>();
+        // the host, the database and the properties follow the subprotocol
+        String subprotocol = url.toLowerCase().split("[/@?;]", 2)[0];
+        for (String segment : subprotocol.split("[^a-z0-9]+")) {
+            if (segment.isEmpty() || "jdbc".equals(segment)) {
+                continue;
+            }
+            addDialect(dialects, getDialectByName(segment));
+            Enumeration<String> keys = (Enumeration<String>) vendorDatabaseIdMappings.propertyNames();
+            while (keys.hasMoreElements()) {
+                String key = keys.nextElement();
+                if (segment.contains(key.toLowerCase())) {
+                    addDialect(dialects, getDialectByName(vendorDatabaseIdMappings.getProperty(key)));
                 }
             }
+        }
+        return dialects;
+    }
 
-            // sqlserver
-            if (dialect == null) {
-                if (Strings.containsAny(databaseIdString.toLowerCase(), "sql server") || Strings.containsAny(databaseIdString.toLowerCase(), "sqlserver")) {
-                    try {
-                        String productionVersion = databaseMetaData.getDatabaseProductVersion();
-                        String tmpDatabaseId = SQLServerDialect.guessDatabaseId(productionVersion);
-                        if (Emptys.isNotEmpty(tmpDatabaseId)) {
-                            dialect = getDialectByName(vendorDatabaseIdMappings.getProperty(tmpDatabaseId));
-                            if (dialect != null) {
-                                dbToDialectMap.put(databaseIdString, new Holder<Dialect>(dialect));
-                            }
-                        }
-                    } catch (Throwable ex) {
-                        // ignore it
+    private static void addDialect(List<Dialect> dialects, Dialect dialect) {
+        if (dialect != null && !dialects.contains(dialect)) {
+            dialects.add(dialect);
+        }
+    }
+
+    private static String getUrl(DataSource dataSource) {
+        for (String getter : DATASOURCE_URL_GETTERS) {
+            try {
+                Method method = dataSource.getClass().getMethod(getter);
+                if (method.getReturnType() == String.class) {
+                    String url = (String) method.invoke(dataSource);
+                    if (Strings.isNotBlank(url)) {
+                        return url;
                     }
                 }
+            } catch (NoSuchMethodException ex) {
+                // try the next one
+            } catch (Throwable ex) {
+                logger.debug("Can't get the jdbc url of the data source {}, error: {}", Reflects.getFQNClassName(dataSource.getClass()), ex.getMessage());
             }
         }
-        return dialect;
+        return null;
+    }
+
+    /**
+     * A routing data source, e.g. the spring AbstractRoutingDataSource, selects a target data source for every connection,
+     * so its dialect is not cached.
+     */
+    private static boolean isRoutingDataSource(DataSource dataSource) {
+        Class clazz = dataSource.getClass();
+        while (clazz != null && clazz != Object.class) {
+            if (clazz.getSimpleName().contains("RoutingDataSource")) {
+                return true;
+            }
+            clazz = clazz.getSuperclass();
+        }
+        return false;
     }
 
     public void registerDialectByClassName(final String className) throws ClassNotFoundException {
@@ -493,10 +769,23 @@ public class DialectRegistry {
             if (!Strings.isBlank(dialectName) && dialect != null) {
                 DialectRegistry.nameToDialectMap.put(dialectName, dialect);
             }
+            clearResolvedDialects();
         } catch (Throwable ex) {
             DialectRegistry.logger.info(ex.getMessage(), ex);
         }
     }
 
-
+    private static final class IndexedDialect {
+        private final String name;
+        private final String className;
+        private final String driverClassName;
+        private final String[] syntaxCompats;
+
+        private IndexedDialect(String name, String className, String driverClassName, String[] syntaxCompats) {
+            this.name = name;
+            this.className = className;
+            this.driverClassName = driverClassName;
+            this.syntaxCompats = syntaxCompats;
+        }
+    }
 }
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.dialect.annotation;
+
+import com.jn.sqlhelper.dialect.Dialect;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.TYPE;
+
+/**
+ * The builtin dialects. The {@link DialectIndexProcessor} writes an index of them at build time, it has the name,
+ * the class, the driver and the syntax compat of every dialect, so a dialect class is loaded only when it is used.
+ * <p>
+ * The dialects are read from this annotation only if the index is not found, e.g. the annotation processor is not run in an IDE.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({TYPE})
+public @interface DialectIndex {
+    /**
+     * every line is: name=class name;driver class name;compat database ids
+     */
+    String LOCATION = "META-INF/sqlhelper/dialects.index";
+
+    Class<? extends Dialect>[] value();
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.dialect.annotation;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes the index of the dialects of a {@link DialectIndex} at build time, it is not registered as a service,
+ * the sqlhelper-dialect module runs it by the maven-compiler-plugin.
+ * <p>
+ * The dialects are read with the language model, so none of them is loaded while compiling.
+ */
+@SupportedAnnotationTypes("com.jn.sqlhelper.dialect.annotation.DialectIndex")
+public class DialectIndexProcessor extends AbstractProcessor {
+    private static final String NAME_ANNOTATION = "com.jn.langx.annotation.Name";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(DialectIndex.class)) {
+            List<AnnotationValue> dialects = (List<AnnotationValue>) getValue(element, DialectIndex.class.getName());
+            StringBuilder index = new StringBuilder("# generated by ").append(getClass().getSimpleName()).append(", don't edit it\n");
+            for (AnnotationValue dialect : dialects) {
+                TypeElement dialectElement = (TypeElement) ((DeclaredType) dialect.getValue()).asElement();
+                index.append(getName(dialectElement)).append('=')
+                        .append(processingEnv.getElementUtils().getBinaryName(dialectElement)).append(';');
+                String driver = (String) getValue(dialectElement, Driver.class.getName());
+                if (driver != null) {
+                    index.append(driver);
+                }
+                index.append(';');
+                List<AnnotationValue> compats = (List<AnnotationValue>) getValue(dialectElement, SyntaxCompat.class.getName());
+                if (compats != null) {
+                    for (int i = 0; i < compats.size(); i++) {
+                        index.append(i == 0 ? "" : ",").append(compats.get(i).getValue());
+                    }
+                }
+                index.append('\n');
+            }
+            write(element, index.toString());
+        }
+        return true;
+    }
+
+    /**
+     * the same as the name which is resolved by the DialectRegistry
+     */
+    private String getName(TypeElement dialect) {
+        String name = (String) getValue(dialect, NAME_ANNOTATION);
+        if (name == null) {
+            name = dialect.getSimpleName().toString().toLowerCase().replaceAll("dialect", "");
+        }
+        return name;
+    }
+
+    /**
+     * @return the value of the annotation, a list if it is an array, null if the element has not the annotation
+     */
+    private Object getValue(Element element, String annotationType) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            if (((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationType)) {
+                for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : annotation.getElementValues().entrySet()) {
+                    if (entry.getKey().getSimpleName().contentEquals("value")) {
+                        return entry.getValue().getValue();
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private void write(Element element, String index) {
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", DialectIndex.LOCATION, element);
+            Writer writer = file.openWriter();
+            try {
+                writer.write(index);
+            } finally {
+                writer.close();
+            }
+        } catch (IOException ex) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Can't write the dialect index: " + ex.getMessage(), element);
+        }
+    }
+}
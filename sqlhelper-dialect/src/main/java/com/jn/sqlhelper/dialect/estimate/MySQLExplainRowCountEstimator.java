@@ -0,0 +1,73 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.dialect.estimate;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * The EXPLAIN output has a row for every table of the query. The rows of the outermost select are joined,
+ * so the estimate is the product of their rows * filtered%:
+ * <pre>
+ * +----+-------------+-------+------+------+----------+
+ * | id | select_type | table | type | rows | filtered |
+ * +----+-------------+-------+------+------+----------+
+ * |  1 | SIMPLE      | u     | ALL  | 1000 |    10.00 |
+ * |  1 | SIMPLE      | o     | ref  |    5 |   100.00 |
+ * +----+-------------+-------+------+------+----------+
+ * </pre>
+ * The filtered column is absent in the MySQL before 5.7 and the MariaDB, the rows are used only.
+ */
+public class MySQLExplainRowCountEstimator implements RowCountEstimator {
+
+    @Override
+    public String getEstimateSql(String sql) {
+        return "EXPLAIN " + sql;
+    }
+
+    @Override
+    public long getEstimatedRowCount(ResultSet resultSet) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        boolean hasFiltered = false;
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            if ("filtered".equalsIgnoreCase(metaData.getColumnLabel(i))) {
+                hasFiltered = true;
+                break;
+            }
+        }
+        double estimate = -1;
+        while (resultSet.next()) {
+            String selectType = resultSet.getString("select_type");
+            if (!"SIMPLE".equalsIgnoreCase(selectType) && !"PRIMARY".equalsIgnoreCase(selectType)) {
+                continue;
+            }
+            long rows = resultSet.getLong("rows");
+            if (resultSet.wasNull()) {
+                // no table is used, or an impossible where
+                continue;
+            }
+            double filtered = hasFiltered ? resultSet.getDouble("filtered") : 100;
+            if (resultSet.wasNull()) {
+                filtered = 100;
+            }
+            estimate = (estimate < 0 ? 1 : estimate) * rows * filtered / 100;
+        }
+        if (estimate < 0) {
+            return -1;
+        }
+        return estimate >= Long.MAX_VALUE ? Long.MAX_VALUE : Math.round(estimate);
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.dialect.estimate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The first line of the EXPLAIN output is the root node of the plan:
+ * <pre>
+ *     Hash Join  (cost=1.09..2.24 rows=8 width=36)
+ * </pre>
+ * Its rows is the estimated row count of the query.
+ */
+public class PostgreSQLExplainRowCountEstimator implements RowCountEstimator {
+    private static final Pattern ROWS_PATTERN = Pattern.compile("\\brows=(\\d+)");
+
+    @Override
+    public String getEstimateSql(String sql) {
+        return "EXPLAIN " + sql;
+    }
+
+    @Override
+    public long getEstimatedRowCount(ResultSet resultSet) throws SQLException {
+        if (!resultSet.next()) {
+            return -1;
+        }
+        String plan = resultSet.getString(1);
+        if (plan == null) {
+            return -1;
+        }
+        Matcher matcher = ROWS_PATTERN.matcher(plan);
+        return matcher.find() ? Long.parseLong(matcher.group(1)) : -1;
+    }
+}
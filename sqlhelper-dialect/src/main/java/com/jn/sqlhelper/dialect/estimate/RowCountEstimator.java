@@ -0,0 +1,44 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.dialect.estimate;
+
+import com.jn.langx.annotation.NonNull;
+import com.jn.langx.annotation.Nullable;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Estimate the row count of a query with the statistics of the database, rather than counting the rows.
+ * <p>
+ * The estimate sql is executed in the same way of the count sql, so it must have the same parameters as the query sql.
+ *
+ * @see com.jn.sqlhelper.dialect.Dialect#getRowCountEstimator()
+ * @see com.jn.sqlhelper.dialect.pagination.CountMode
+ */
+public interface RowCountEstimator {
+    /**
+     * @param sql the query sql
+     * @return the sql which returns the estimate of the query, null if the query can't be estimated
+     */
+    @Nullable
+    String getEstimateSql(@NonNull String sql);
+
+    /**
+     * @param resultSet the result set of the estimate sql
+     * @return the estimated row count, -1 if it is unknown
+     */
+    long getEstimatedRowCount(@NonNull ResultSet resultSet) throws SQLException;
+}
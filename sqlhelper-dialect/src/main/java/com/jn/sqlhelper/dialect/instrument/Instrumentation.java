@@ -2,6 +2,8 @@ package com.jn.sqlhelper.dialect.instrument;
 
 import com.jn.langx.annotation.Singleton;
 import com.jn.langx.lifecycle.Initializable;
+import com.jn.sqlhelper.dialect.instrument.count.CountTransformer;
+import com.jn.sqlhelper.dialect.instrument.deferredjoin.DeferredJoinTransformer;
 import com.jn.sqlhelper.dialect.instrument.groupby.GroupByTransformer;
 import com.jn.sqlhelper.dialect.instrument.orderby.OrderByTransformer;
 import com.jn.sqlhelper.dialect.instrument.where.WhereTransformer;
@@ -18,6 +20,12 @@ public interface Instrumentation<Statement, SQL extends SqlStatementWrapper<Stat
 
     GroupByTransformer<Statement> getGroupByTransformer();
 
+    CountTransformer<Statement> getCountTransformer();
+
+    TableNamesExtractor<Statement> getTableNamesExtractor();
+
+    DeferredJoinTransformer<Statement> getDeferredJoinTransformer();
+
     boolean isEnabled();
 
     void setEnabled(boolean enabled);
@@ -84,7 +84,10 @@ public class InstrumentationRegistry implements Initializable {
         return findInstrumentation(name, true);
     }
 
-    private Instrumentation findInstrumentation(@Nullable String name, final boolean enabled) {
+    /**
+     * @param enabled whether a disabled instrumentation is ignored
+     */
+    public Instrumentation findInstrumentation(@Nullable String name, final boolean enabled) {
         if (name == null) {
             return Collects.findFirst(instrumentationMap.values(), new Predicate<Instrumentation>() {
                 @Override
@@ -0,0 +1,345 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.dialect.instrument;
+
+import com.jn.langx.annotation.Nullable;
+import com.jn.langx.util.io.IOs;
+import com.jn.sqlhelper.common.utils.SQLs;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * A file of the instrumented statements, it is written when the application stops and loaded when it starts again,
+ * so the sqls are not parsed again after a restart.
+ * <pre>
+ *     header: magic, format version, sqlhelper version, config key, entry count, crc32 of the index
+ *     index:  (fingerprint, offset, length, crc32 of the entry) * entry count, sorted by the fingerprint
+ *     entries
+ * </pre>
+ * The file is memory mapped, only the header and the index are read when it is loaded,
+ * an entry is checked and decoded when its sql is looked up. A file of another format, sqlhelper version or config key is ignored,
+ * since the instrumented sqls may be different.
+ *
+ * @see InstrumentedStatement#writeTo(DataOutput)
+ */
+public final class InstrumentedSqlSnapshot {
+    private static final Logger logger = LoggerFactory.getLogger(InstrumentedSqlSnapshot.class);
+    private static final int MAGIC = 0x53514853;
+    private static final int FORMAT_VERSION = 2;
+    private static final int INDEX_ENTRY_LENGTH = 8 + 4 + 4 + 4;
+    private static final String VERSION = findVersion();
+
+    private final ByteBuffer entries;
+    private final long[] fingerprints;
+    private final int[] offsets;
+    private final int[] lengths;
+    private final int[] checksums;
+
+    private InstrumentedSqlSnapshot(ByteBuffer entries, long[] fingerprints, int[] offsets, int[] lengths, int[] checksums) {
+        this.entries = entries;
+        this.fingerprints = fingerprints;
+        this.offsets = offsets;
+        this.lengths = lengths;
+        this.checksums = checksums;
+    }
+
+    public int size() {
+        return fingerprints.length;
+    }
+
+    /**
+     * @return the statement of the sql, null if it is not in the snapshot
+     */
+    @Nullable
+    public InstrumentedStatement get(String sql) {
+        long fingerprint = SQLs.fingerprint(sql);
+        int index = Arrays.binarySearch(fingerprints, fingerprint);
+        if (index < 0) {
+            return null;
+        }
+        // the same fingerprint of different sqls
+        while (index > 0 && fingerprints[index - 1] == fingerprint) {
+            index--;
+        }
+        for (; index < fingerprints.length && fingerprints[index] == fingerprint; index++) {
+            InstrumentedStatement statement = read(index);
+            if (statement != null && sql.equals(statement.getOriginalSql())) {
+                return statement;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return all the statements, the ones which can't be decoded are skipped
+     */
+    public List<InstrumentedStatement> getAll() {
+        List<InstrumentedStatement> statements = new ArrayList<InstrumentedStatement>(fingerprints.length);
+        for (int i = 0; i < fingerprints.length; i++) {
+            InstrumentedStatement statement = read(i);
+            if (statement != null) {
+                statements.add(statement);
+            }
+        }
+        return statements;
+    }
+
+    private InstrumentedStatement read(int index) {
+        try {
+            ByteBuffer buffer = entries.duplicate();
+            buffer.position(offsets[index]);
+            buffer.limit(offsets[index] + lengths[index]);
+            if ((int) checksum(buffer.slice()) != checksums[index]) {
+                logger.warn("Ignore the statement {} of the instrumented sql snapshot, its checksum doesn't match", index);
+                return null;
+            }
+            return InstrumentedStatement.readFrom(new DataInputStream(new ByteBufferInputStream(buffer)));
+        } catch (Throwable ex) {
+            logger.warn("Can't read the statement {} of the instrumented sql snapshot, error: {}", index, ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @param configKey the configurations which decide the instrumented sqls, a snapshot of another key is not loaded
+     * @return the snapshot, null if the file doesn't exist, or it can't be used
+     * @see #getConfigKey(SQLInstrumentorConfig)
+     */
+    @Nullable
+    public static InstrumentedSqlSnapshot load(File file, String configKey) {
+        if (!file.isFile()) {
+            return null;
+        }
+        RandomAccessFile randomAccessFile = null;
+        try {
+            randomAccessFile = new RandomAccessFile(file, "r");
+            FileChannel channel = randomAccessFile.getChannel();
+            // the mapping is valid after the channel is closed
+            return load(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), file.toString(), configKey);
+        } catch (Throwable ex) {
+            logger.warn("Can't load the instrumented sql snapshot {}, error: {}", file, ex.getMessage());
+            return null;
+        } finally {
+            IOs.close(randomAccessFile);
+        }
+    }
+
+    /**
+     * Load a snapshot in the classpath, e.g. the one which is generated when the application is built,
+     * it is read into the heap since an entry of a jar can't be mapped.
+     */
+    @Nullable
+    public static InstrumentedSqlSnapshot load(URL url, String configKey) {
+        InputStream in = null;
+        try {
+            in = url.openStream();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] chunk = new byte[8192];
+            int length;
+            while ((length = in.read(chunk)) != -1) {
+                bytes.write(chunk, 0, length);
+            }
+            return load(ByteBuffer.wrap(bytes.toByteArray()), url.toString(), configKey);
+        } catch (Throwable ex) {
+            logger.warn("Can't load the instrumented sql snapshot {}, error: {}", url, ex.getMessage());
+            return null;
+        } finally {
+            IOs.close(in);
+        }
+    }
+
+    private static InstrumentedSqlSnapshot load(ByteBuffer buffer, String source, String configKey) throws IOException {
+        DataInputStream header = new DataInputStream(new ByteBufferInputStream(buffer));
+        if (header.readInt() != MAGIC || header.readInt() != FORMAT_VERSION) {
+            logger.warn("Ignore the instrumented sql snapshot {}, it is not a snapshot or its format is changed", source);
+            return null;
+        }
+        String version = header.readUTF();
+        String key = header.readUTF();
+        if (!VERSION.equals(version) || !configKey.equals(key)) {
+            logger.info("Ignore the instrumented sql snapshot {}, it is written by sqlhelper {} with the config: {}", source, version, key);
+            return null;
+        }
+        int count = header.readInt();
+        long checksum = header.readLong();
+        ByteBuffer body = buffer.slice();
+        ByteBuffer index = body.duplicate();
+        index.limit(count * INDEX_ENTRY_LENGTH);
+        // the entries are checked when they are read, the file may be large
+        if (checksum(index.duplicate()) != checksum) {
+            logger.warn("Ignore the instrumented sql snapshot {}, its checksum doesn't match", source);
+            return null;
+        }
+        long[] fingerprints = new long[count];
+        int[] offsets = new int[count];
+        int[] lengths = new int[count];
+        int[] checksums = new int[count];
+        for (int i = 0; i < count; i++) {
+            fingerprints[i] = index.getLong();
+            offsets[i] = index.getInt();
+            lengths[i] = index.getInt();
+            checksums[i] = index.getInt();
+        }
+        body.position(count * INDEX_ENTRY_LENGTH);
+        InstrumentedSqlSnapshot snapshot = new InstrumentedSqlSnapshot(body.slice(), fingerprints, offsets, lengths, checksums);
+        logger.info("Load the instrumented sql snapshot {}, {} statements", source, count);
+        return snapshot;
+    }
+
+    /**
+     * @return the configurations which decide the instrumented sqls in a snapshot. The dialect is not a part of it,
+     * the sqls of a dialect are stored with the dialect
+     */
+    public static String getConfigKey(SQLInstrumentorConfig config) {
+        return config.getInstrumentation() + "|" + config.isTransformCountSql() + "|" + config.isCountSqlRemoveUnreferencedLeftJoins();
+    }
+
+    /**
+     * Write the statements into a temporary file, and rename it to the file when it is completed,
+     * so a reader never sees a partial file. The temporary file is unique in the directory of the file,
+     * so the writers of the same file don't share it, and the rename is atomic except on windows.
+     */
+    public static void write(File file, String configKey, Collection<InstrumentedStatement> statements) throws IOException {
+        int count = statements.size();
+        long[] fingerprints = new long[count];
+        byte[][] encoded = new byte[count][];
+        Integer[] order = new Integer[count];
+        int i = 0;
+        for (InstrumentedStatement statement : statements) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(statement.getOriginalSql().length() * 2 + 64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            statement.writeTo(out);
+            out.flush();
+            fingerprints[i] = SQLs.fingerprint(statement.getOriginalSql());
+            encoded[i] = bytes.toByteArray();
+            order[i] = i;
+            i++;
+        }
+        final long[] keys = fingerprints;
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                long k1 = keys[o1];
+                long k2 = keys[o2];
+                return k1 < k2 ? -1 : (k1 == k2 ? 0 : 1);
+            }
+        });
+
+        ByteArrayOutputStream indexStream = new ByteArrayOutputStream(count * INDEX_ENTRY_LENGTH);
+        DataOutputStream indexOut = new DataOutputStream(indexStream);
+        int offset = 0;
+        for (Integer index : order) {
+            indexOut.writeLong(fingerprints[index]);
+            indexOut.writeInt(offset);
+            indexOut.writeInt(encoded[index].length);
+            indexOut.writeInt((int) checksum(ByteBuffer.wrap(encoded[index])));
+            offset += encoded[index].length;
+        }
+        indexOut.flush();
+        byte[] indexBytes = indexStream.toByteArray();
+
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (dir != null && !dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Can't create the directory: " + dir);
+        }
+        File tmp = File.createTempFile(file.getName() + ".", ".tmp", dir);
+        DataOutputStream out = null;
+        boolean written = false;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(VERSION);
+            out.writeUTF(configKey);
+            out.writeInt(count);
+            out.writeLong(checksum(ByteBuffer.wrap(indexBytes)));
+            out.write(indexBytes);
+            for (Integer index : order) {
+                out.write(encoded[index]);
+            }
+            out.flush();
+            written = true;
+        } finally {
+            IOs.close(out);
+            if (!written) {
+                tmp.delete();
+            }
+        }
+        if (!tmp.renameTo(file)) {
+            // the target exists on windows
+            if (!file.delete() || !tmp.renameTo(file)) {
+                tmp.delete();
+                throw new IOException("Can't rename " + tmp + " to " + file);
+            }
+        }
+    }
+
+    private static long checksum(ByteBuffer buffer) {
+        CRC32 crc32 = new CRC32();
+        byte[] chunk = new byte[8192];
+        while (buffer.hasRemaining()) {
+            int length = Math.min(chunk.length, buffer.remaining());
+            buffer.get(chunk, 0, length);
+            crc32.update(chunk, 0, length);
+        }
+        return crc32.getValue();
+    }
+
+    private static String findVersion() {
+        InputStream in = InstrumentedSqlSnapshot.class.getResourceAsStream("/META-INF/maven/com.github.fangjinuo.sqlhelper/sqlhelper-dialect/pom.properties");
+        if (in == null) {
+            return "unknown";
+        }
+        try {
+            Properties properties = new Properties();
+            properties.load(in);
+            return properties.getProperty("version", "unknown");
+        } catch (IOException ex) {
+            return "unknown";
+        } finally {
+            IOs.close(in);
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, n);
+            return n;
+        }
+    }
+}
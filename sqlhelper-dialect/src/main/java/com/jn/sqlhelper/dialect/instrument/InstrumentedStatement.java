@@ -1,15 +1,49 @@
 package com.jn.sqlhelper.dialect.instrument;
 
+import com.jn.langx.util.io.Charsets;
+import com.jn.sqlhelper.dialect.internal.limit.LimitPlan;
 import com.jn.sqlhelper.dialect.orderby.OrderBy;
+import com.jn.sqlhelper.dialect.pagination.InlineCountStrategy;
 import com.jn.sqlhelper.dialect.sqlparser.SqlStatementWrapper;
-import com.jn.sqlhelper.dialect.tenant.Tenant;
 
-import java.util.HashMap;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * All the instrumented sqls of an original sql.
+ * <p>
+ * The count sql, the limit sql and the order by sql are stored in fixed slots, so a lookup doesn't need to create a key object.
+ * The limit sql is stored as a {@link LimitPlan}, so a page of any offset and limit is rendered from it:
+ * <pre>
+ *     count sql:           a single slot
+ *     limit plan:          dialect -> [without offset, with offset]
+ *     order by sql:        order by key -> sql
+ *     order by limit plan: order by key -> dialect -> [without offset, with offset]
+ *     keyset sql:         order by key -> dialect -> sql, without the limit
+ *     deferred join sql:  primary keys -> dialect -> sql, an empty string if the sql can't be rewritten
+ *     deferred join plan: primary keys -> dialect -> the limit plan of the derived table of the deferred join sql
+ *     inline count sql:   inline count strategy -> sql, an empty string if the strategy can't be applied
+ *     table names:        a single slot, the names are null if the sql can't be parsed
+ * </pre>
+ * The other instrumented sqls are stored with a {@link TransformConfig} key.
+ */
 public class InstrumentedStatement implements SqlStatementWrapper {
     private String originalSql;
-    private Map<TransformConfig, String> instrumentedSqlMap = new HashMap<TransformConfig, String>();
+    private volatile CountSql countSql;
+    private final Map<String, LimitPlans> limitPlanMap = new ConcurrentHashMap<String, LimitPlans>();
+    private final Map<String, String> orderBySqlMap = new ConcurrentHashMap<String, String>();
+    private final Map<String, Map<String, LimitPlans>> orderByLimitPlanMap = new ConcurrentHashMap<String, Map<String, LimitPlans>>();
+    private final Map<String, Map<String, String>> keysetSqlMap = new ConcurrentHashMap<String, Map<String, String>>();
+    private final Map<String, Map<String, String>> deferredJoinSqlMap = new ConcurrentHashMap<String, Map<String, String>>(2);
+    private final Map<String, Map<String, LimitPlan>> deferredJoinLimitPlanMap = new ConcurrentHashMap<String, Map<String, LimitPlan>>(2);
+    private final Map<InlineCountStrategy, String> inlineCountSqlMap = new ConcurrentHashMap<InlineCountStrategy, String>(2);
+    private volatile TableNames tableNames;
+    private final Map<TransformConfig, String> instrumentedSqlMap = new ConcurrentHashMap<TransformConfig, String>();
     private boolean changed = false;
 
     @Override
@@ -43,59 +77,150 @@ public class InstrumentedStatement implements SqlStatementWrapper {
     }
 
     public void setCountSql(String countSql) {
-        TransformConfig config = new TransformConfig();
-        config.setCount(true);
-        instrumentedSqlMap.put(config, countSql);
+        setCountSql(null, countSql);
     }
 
     public String getCountSql() {
-        TransformConfig config = new TransformConfig();
-        config.setCount(true);
-        return instrumentedSqlMap.get(config);
+        return getCountSql(null);
     }
 
-    public void setLimitSql(String dialect, String limitSql, boolean hasOffset) {
-        TransformConfig config = new TransformConfig();
-        config.setDialect(dialect);
-        config.setLimitOffset(hasOffset);
-        instrumentedSqlMap.put(config, limitSql);
+    public void setCountSql(String countColumn, String countSql) {
+        this.countSql = new CountSql(countColumn, countSql);
     }
 
-    public String getLimitSql(String dialect, boolean hasOffset) {
-        TransformConfig config = new TransformConfig();
-        config.setDialect(dialect);
-        config.setLimitOffset(hasOffset);
-        return instrumentedSqlMap.get(config);
+    /**
+     * @param countColumn the count column, the count sql is cached only for the last used count column
+     */
+    public String getCountSql(String countColumn) {
+        CountSql c = this.countSql;
+        if (c == null) {
+            return null;
+        }
+        if (c.countColumn == null ? countColumn != null : !c.countColumn.equals(countColumn)) {
+            return null;
+        }
+        return c.sql;
+    }
+
+    public void setLimitPlan(String dialect, LimitPlan limitPlan) {
+        getOrCreateLimitPlans(limitPlanMap, dialect).set(limitPlan);
+    }
+
+    public LimitPlan getLimitPlan(String dialect, boolean hasOffset) {
+        LimitPlans limitPlans = limitPlanMap.get(dialect);
+        return limitPlans == null ? null : limitPlans.get(hasOffset);
     }
 
     public String getOrderBySql(OrderBy orderBy) {
-        TransformConfig config = new TransformConfig();
-        config.setOrderBy(orderBy);
-        return instrumentedSqlMap.get(config);
+        return orderBySqlMap.get(orderBy.getKey());
     }
 
     public void setOrderBySql(OrderBy orderBy, String orderBySql) {
-        TransformConfig config = new TransformConfig();
-        config.setOrderBy(orderBy);
-        instrumentedSqlMap.put(config, orderBySql);
+        orderBySqlMap.put(orderBy.getKey(), orderBySql);
+    }
+
+
+    public void setOrderByLimitPlan(OrderBy orderBy, String dialect, LimitPlan limitPlan) {
+        String orderByKey = orderBy.getKey();
+        Map<String, LimitPlans> dialectMap = orderByLimitPlanMap.get(orderByKey);
+        if (dialectMap == null) {
+            dialectMap = new ConcurrentHashMap<String, LimitPlans>(4);
+            orderByLimitPlanMap.put(orderByKey, dialectMap);
+        }
+        getOrCreateLimitPlans(dialectMap, dialect).set(limitPlan);
+    }
+
+    public LimitPlan getOrderByLimitPlan(OrderBy orderBy, String dialect, boolean hasOffset) {
+        Map<String, LimitPlans> dialectMap = orderByLimitPlanMap.get(orderBy.getKey());
+        if (dialectMap == null) {
+            return null;
+        }
+        LimitPlans limitPlans = dialectMap.get(dialect);
+        return limitPlans == null ? null : limitPlans.get(hasOffset);
+    }
+
+    public void setKeysetSql(OrderBy keys, String dialect, String sql) {
+        String orderByKey = keys.getKey();
+        Map<String, String> dialectMap = keysetSqlMap.get(orderByKey);
+        if (dialectMap == null) {
+            dialectMap = new ConcurrentHashMap<String, String>(4);
+            keysetSqlMap.put(orderByKey, dialectMap);
+        }
+        dialectMap.put(dialect, sql);
+    }
+
+    public String getKeysetSql(OrderBy keys, String dialect) {
+        Map<String, String> dialectMap = keysetSqlMap.get(keys.getKey());
+        return dialectMap == null ? null : dialectMap.get(dialect);
+    }
+
+    /**
+     * @param primaryKeys the primary key columns joined with a comma
+     * @param sql         the deferred join sql with a limit, an empty string means the original sql can't be rewritten
+     */
+    public void setDeferredJoinSql(String primaryKeys, String dialect, String sql) {
+        setDeferredJoinSql(primaryKeys, dialect, sql, null);
     }
 
+    /**
+     * @param sql       the deferred join sql with a limit, an empty string means the original sql can't be rewritten
+     * @param limitPlan the limit plan of the derived table, the parameters of the deferred join sql are bound with it
+     */
+    public void setDeferredJoinSql(String primaryKeys, String dialect, String sql, LimitPlan limitPlan) {
+        if (limitPlan != null) {
+            Map<String, LimitPlan> planDialectMap = deferredJoinLimitPlanMap.get(primaryKeys);
+            if (planDialectMap == null) {
+                planDialectMap = new ConcurrentHashMap<String, LimitPlan>(4);
+                deferredJoinLimitPlanMap.put(primaryKeys, planDialectMap);
+            }
+            // the plan is put before the sql, so a reader which finds the sql finds its plan
+            planDialectMap.put(dialect, limitPlan);
+        }
+        Map<String, String> dialectMap = deferredJoinSqlMap.get(primaryKeys);
+        if (dialectMap == null) {
+            dialectMap = new ConcurrentHashMap<String, String>(4);
+            deferredJoinSqlMap.put(primaryKeys, dialectMap);
+        }
+        dialectMap.put(dialect, sql);
+    }
 
-    public void setOrderByLimitSql(OrderBy orderBy, String dialect, String sql, boolean hasOffset) {
-        TransformConfig config = new TransformConfig();
-        config.setOrderBy(orderBy);
-        config.setDialect(dialect);
-        config.setLimitOffset(hasOffset);
-        instrumentedSqlMap.put(config, sql);
+    public LimitPlan getDeferredJoinLimitPlan(String primaryKeys, String dialect) {
+        Map<String, LimitPlan> dialectMap = deferredJoinLimitPlanMap.get(primaryKeys);
+        return dialectMap == null ? null : dialectMap.get(dialect);
     }
 
-    public String getOrderByLimitSql(OrderBy orderBy, String dialect, boolean hasOffset) {
-        TransformConfig config = new TransformConfig();
-        config.setOrderBy(orderBy);
-        config.setDialect(dialect);
-        config.setLimitOffset(hasOffset);
-        return instrumentedSqlMap.get(config);
+    public String getDeferredJoinSql(String primaryKeys, String dialect) {
+        Map<String, String> dialectMap = deferredJoinSqlMap.get(primaryKeys);
+        return dialectMap == null ? null : dialectMap.get(dialect);
     }
+
+    /**
+     * @param sql the inline count sql, an empty string means the strategy can't be applied to the original sql
+     */
+    public void setInlineCountSql(InlineCountStrategy strategy, String sql) {
+        inlineCountSqlMap.put(strategy, sql);
+    }
+
+    public String getInlineCountSql(InlineCountStrategy strategy) {
+        return inlineCountSqlMap.get(strategy);
+    }
+
+    /**
+     * @param tableNames the tables of the sql, null if the sql can't be parsed
+     */
+    public void setTableNames(Set<String> tableNames) {
+        this.tableNames = new TableNames(tableNames);
+    }
+
+    public boolean isTableNamesResolved() {
+        return this.tableNames != null;
+    }
+
+    public Set<String> getTableNames() {
+        TableNames t = this.tableNames;
+        return t == null ? null : t.names;
+    }
+
     @Override
     public void setStatement(Object o) {
 
@@ -111,4 +236,265 @@ public class InstrumentedStatement implements SqlStatementWrapper {
         return this.instrumentedSqlMap.get(config);
     }
 
+    /**
+     * @return the byte size of the original sql and all the instrumented sql
+     */
+    public long getWeight() {
+        long length = length(originalSql);
+        CountSql c = this.countSql;
+        if (c != null) {
+            length += length(c.sql);
+        }
+        for (LimitPlans limitPlans : limitPlanMap.values()) {
+            length += limitPlans.length();
+        }
+        for (Map.Entry<String, String> entry : orderBySqlMap.entrySet()) {
+            length += entry.getKey().length() + length(entry.getValue());
+        }
+        for (Map.Entry<String, Map<String, LimitPlans>> entry : orderByLimitPlanMap.entrySet()) {
+            length += entry.getKey().length();
+            for (LimitPlans limitPlans : entry.getValue().values()) {
+                length += limitPlans.length();
+            }
+        }
+        for (Map.Entry<String, Map<String, String>> entry : keysetSqlMap.entrySet()) {
+            length += entry.getKey().length();
+            for (String keysetSql : entry.getValue().values()) {
+                length += length(keysetSql);
+            }
+        }
+        for (Map.Entry<String, Map<String, String>> entry : deferredJoinSqlMap.entrySet()) {
+            length += entry.getKey().length();
+            for (String deferredJoinSql : entry.getValue().values()) {
+                length += length(deferredJoinSql);
+            }
+        }
+        for (Map<String, LimitPlan> dialectMap : deferredJoinLimitPlanMap.values()) {
+            for (LimitPlan limitPlan : dialectMap.values()) {
+                length += limitPlan.length();
+            }
+        }
+        for (String inlineCountSql : inlineCountSqlMap.values()) {
+            length += length(inlineCountSql);
+        }
+        TableNames t = this.tableNames;
+        if (t != null && t.names != null) {
+            for (String tableName : t.names) {
+                length += tableName.length();
+            }
+        }
+        for (String instrumentedSql : instrumentedSqlMap.values()) {
+            length += length(instrumentedSql);
+        }
+        // a char is 2 bytes
+        return length * 2;
+    }
+
+    /**
+     * Write the instrumented sqls which are derived from the parsed statement, they are restored by {@link #readFrom(DataInput)}.
+     * The limit plans and the sqls of the other transform configs are not written, the limit plans are compiled without parsing.
+     * So only the deferred join sqls which mean the original sql can't be rewritten are written, a rewritten one needs its plan.
+     *
+     * @see InstrumentedSqlSnapshot
+     */
+    void writeTo(DataOutput out) throws IOException {
+        writeString(out, originalSql);
+        CountSql c = this.countSql;
+        out.writeBoolean(c != null);
+        if (c != null) {
+            writeString(out, c.countColumn);
+            writeString(out, c.sql);
+        }
+        writeStringMap(out, orderBySqlMap);
+        writeNestedStringMap(out, keysetSqlMap);
+        writeNestedStringMap(out, unrewritableDeferredJoinSqls());
+        out.writeInt(inlineCountSqlMap.size());
+        for (Map.Entry<InlineCountStrategy, String> entry : inlineCountSqlMap.entrySet()) {
+            writeString(out, entry.getKey().name());
+            writeString(out, entry.getValue());
+        }
+        TableNames t = this.tableNames;
+        out.writeBoolean(t != null);
+        if (t != null) {
+            out.writeInt(t.names == null ? -1 : t.names.size());
+            if (t.names != null) {
+                for (String tableName : t.names) {
+                    writeString(out, tableName);
+                }
+            }
+        }
+    }
+
+    static InstrumentedStatement readFrom(DataInput in) throws IOException {
+        InstrumentedStatement statement = new InstrumentedStatement();
+        statement.setOriginalSql(readString(in));
+        if (in.readBoolean()) {
+            String countColumn = readString(in);
+            statement.setCountSql(countColumn, readString(in));
+        }
+        readStringMap(in, statement.orderBySqlMap);
+        readNestedStringMap(in, statement.keysetSqlMap);
+        readNestedStringMap(in, statement.deferredJoinSqlMap);
+        // a rewritten sql is restored without its plan, it is rewritten again when it is used
+        Map<String, Map<String, String>> unrewritable = statement.unrewritableDeferredJoinSqls();
+        statement.deferredJoinSqlMap.clear();
+        statement.deferredJoinSqlMap.putAll(unrewritable);
+        int inlineCountSqls = in.readInt();
+        for (int i = 0; i < inlineCountSqls; i++) {
+            String strategy = readString(in);
+            String sql = readString(in);
+            try {
+                statement.inlineCountSqlMap.put(InlineCountStrategy.valueOf(strategy), sql);
+            } catch (IllegalArgumentException ex) {
+                // the strategy is removed
+            }
+        }
+        if (in.readBoolean()) {
+            int size = in.readInt();
+            Set<String> tableNames = null;
+            if (size >= 0) {
+                tableNames = new LinkedHashSet<String>(size);
+                for (int i = 0; i < size; i++) {
+                    tableNames.add(readString(in));
+                }
+            }
+            statement.setTableNames(tableNames);
+        }
+        return statement;
+    }
+
+    /**
+     * @return the deferred join sqls which are empty strings, they mean the original sql can't be rewritten
+     */
+    private Map<String, Map<String, String>> unrewritableDeferredJoinSqls() {
+        Map<String, Map<String, String>> result = new ConcurrentHashMap<String, Map<String, String>>(2);
+        for (Map.Entry<String, Map<String, String>> entry : deferredJoinSqlMap.entrySet()) {
+            Map<String, String> dialectMap = new ConcurrentHashMap<String, String>(4);
+            for (Map.Entry<String, String> dialectEntry : entry.getValue().entrySet()) {
+                if (dialectEntry.getValue().isEmpty()) {
+                    dialectMap.put(dialectEntry.getKey(), dialectEntry.getValue());
+                }
+            }
+            if (!dialectMap.isEmpty()) {
+                result.put(entry.getKey(), dialectMap);
+            }
+        }
+        return result;
+    }
+
+    private static void writeNestedStringMap(DataOutput out, Map<String, Map<String, String>> map) throws IOException {
+        out.writeInt(map.size());
+        for (Map.Entry<String, Map<String, String>> entry : map.entrySet()) {
+            writeString(out, entry.getKey());
+            writeStringMap(out, entry.getValue());
+        }
+    }
+
+    private static void readNestedStringMap(DataInput in, Map<String, Map<String, String>> map) throws IOException {
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            String key = readString(in);
+            Map<String, String> dialectMap = new ConcurrentHashMap<String, String>(4);
+            readStringMap(in, dialectMap);
+            map.put(key, dialectMap);
+        }
+    }
+
+    private static void writeStringMap(DataOutput out, Map<String, String> map) throws IOException {
+        out.writeInt(map.size());
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            writeString(out, entry.getKey());
+            writeString(out, entry.getValue());
+        }
+    }
+
+    private static void readStringMap(DataInput in, Map<String, String> map) throws IOException {
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            String key = readString(in);
+            map.put(key, readString(in));
+        }
+    }
+
+    /**
+     * {@link DataOutput#writeUTF(String)} is limited to 64K bytes, a sql may be longer
+     */
+    private static void writeString(DataOutput out, String str) throws IOException {
+        if (str == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = str.getBytes(Charsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, Charsets.UTF_8);
+    }
+
+    private static LimitPlans getOrCreateLimitPlans(Map<String, LimitPlans> map, String dialect) {
+        LimitPlans limitPlans = map.get(dialect);
+        if (limitPlans == null) {
+            limitPlans = new LimitPlans();
+            map.put(dialect, limitPlans);
+        }
+        return limitPlans;
+    }
+
+    private static int length(String str) {
+        return str == null ? 0 : str.length();
+    }
+
+    private static class CountSql {
+        private final String countColumn;
+        private final String sql;
+
+        private CountSql(String countColumn, String sql) {
+            this.countColumn = countColumn;
+            this.sql = sql;
+        }
+    }
+
+    private static class TableNames {
+        private final Set<String> names;
+
+        private TableNames(Set<String> names) {
+            this.names = names;
+        }
+    }
+
+    /**
+     * the limit plans of a dialect
+     */
+    private static class LimitPlans {
+        private volatile LimitPlan withoutOffset;
+        private volatile LimitPlan withOffset;
+
+        LimitPlan get(boolean hasOffset) {
+            return hasOffset ? withOffset : withoutOffset;
+        }
+
+        void set(LimitPlan plan) {
+            if (plan.hasOffset()) {
+                withOffset = plan;
+            } else {
+                withoutOffset = plan;
+            }
+        }
+
+        int length() {
+            return length(withoutOffset) + length(withOffset);
+        }
+
+        private static int length(LimitPlan plan) {
+            return plan == null ? 0 : plan.length();
+        }
+    }
 }
@@ -27,6 +27,53 @@ public class SQLInstrumentorConfig {
     private int cacheInitialCapacity = 1000;
     private int cacheMaxCapacity = Integer.MAX_VALUE;
     private int cacheExpireAfterRead = 5 * 60; //unit: s
+    /**
+     * the memory budget of the instrumented sql cache, the weight of a cached statement is the byte size of the sql and all its instrumented sqls
+     */
+    private long cacheMaxWeight = 32 * 1024 * 1024; //unit: byte
+    /**
+     * cache the parsed statements, every sql will be parsed only once, the transformers work on copies of it
+     */
+    private boolean cacheParsedSql = true;
+    private int parsedSqlCacheMaxCapacity = 1000;
+    /**
+     * remember the fingerprints of the sqls which can't be parsed, they are not parsed again until expired. 0: disabled
+     */
+    private int unparseableSqlCacheMaxCapacity = 1000;
+    /**
+     * a sql which is longer than it (unit: char) is not parsed, it is instrumented as a string. 0: no limit
+     */
+    private int maxParseSqlLength = 0;
+    /**
+     * a sql whose parsing takes longer than it (unit: ms) is handled as an unparseable sql from then on. 0: no limit
+     */
+    private long parseTimeBudget = 0;
+    /**
+     * the file of the instrumented sql cache, the cache is written into it when the jvm exits, and loaded from it when started again,
+     * so the sqls are not parsed again after a restart. It works only if the instrumented sql cache is enabled. null: disabled
+     *
+     * @see InstrumentedSqlSnapshot
+     */
+    private String snapshotFile;
+    /**
+     * the snapshots in the classpath, e.g. the ones which are generated by the sqlhelper-maven-plugin when the application is built.
+     * They are loaded if the instrumented sql cache is enabled. null: disabled
+     */
+    private String snapshotResource = "META-INF/sqlhelper/instrumented-sql.snapshot";
+    /**
+     * generate the count sql with the instrumentation's count transformer (drop the order by, count directly if possible),
+     * if it can't be transformed, a "select count(1) from (sql) tmp_count" will be used
+     */
+    private boolean transformCountSql = true;
+    /**
+     * remove the unreferenced left joins when generate count sql, enable it only if all the left joins in your sqls are joined on unique keys
+     */
+    private boolean countSqlRemoveUnreferencedLeftJoins = false;
+    /**
+     * rewrite a single table page query to a deferred join if the offset is not less than it and the dialect supports it,
+     * the offset rows are skipped on the primary key only. 0: disabled
+     */
+    private long deferredJoinOffsetThreshold = 0;
     private String subqueryPagingStartFlag = "[PAGING_START]";
     private String subqueryPagingEndFlag = "[PAGING_END]";
     private String instrumentation = "jsqlparser";
@@ -61,6 +108,104 @@ public class SQLInstrumentorConfig {
         }
     }
 
+    public long getCacheMaxWeight() {
+        return cacheMaxWeight;
+    }
+
+    public void setCacheMaxWeight(long cacheMaxWeight) {
+        if (cacheMaxWeight > 0) {
+            this.cacheMaxWeight = cacheMaxWeight;
+        }
+    }
+
+    public boolean isCacheParsedSql() {
+        return cacheParsedSql;
+    }
+
+    public void setCacheParsedSql(boolean cacheParsedSql) {
+        this.cacheParsedSql = cacheParsedSql;
+    }
+
+    public int getParsedSqlCacheMaxCapacity() {
+        return parsedSqlCacheMaxCapacity;
+    }
+
+    public void setParsedSqlCacheMaxCapacity(int parsedSqlCacheMaxCapacity) {
+        if (parsedSqlCacheMaxCapacity > 0) {
+            this.parsedSqlCacheMaxCapacity = parsedSqlCacheMaxCapacity;
+        }
+    }
+
+    public int getUnparseableSqlCacheMaxCapacity() {
+        return unparseableSqlCacheMaxCapacity;
+    }
+
+    public void setUnparseableSqlCacheMaxCapacity(int unparseableSqlCacheMaxCapacity) {
+        if (unparseableSqlCacheMaxCapacity >= 0) {
+            this.unparseableSqlCacheMaxCapacity = unparseableSqlCacheMaxCapacity;
+        }
+    }
+
+    public int getMaxParseSqlLength() {
+        return maxParseSqlLength;
+    }
+
+    public void setMaxParseSqlLength(int maxParseSqlLength) {
+        if (maxParseSqlLength >= 0) {
+            this.maxParseSqlLength = maxParseSqlLength;
+        }
+    }
+
+    public long getParseTimeBudget() {
+        return parseTimeBudget;
+    }
+
+    public void setParseTimeBudget(long parseTimeBudget) {
+        if (parseTimeBudget >= 0) {
+            this.parseTimeBudget = parseTimeBudget;
+        }
+    }
+
+    public String getSnapshotFile() {
+        return snapshotFile;
+    }
+
+    public void setSnapshotFile(String snapshotFile) {
+        this.snapshotFile = snapshotFile;
+    }
+
+    public String getSnapshotResource() {
+        return snapshotResource;
+    }
+
+    public void setSnapshotResource(String snapshotResource) {
+        this.snapshotResource = snapshotResource;
+    }
+
+    public boolean isTransformCountSql() {
+        return transformCountSql;
+    }
+
+    public void setTransformCountSql(boolean transformCountSql) {
+        this.transformCountSql = transformCountSql;
+    }
+
+    public boolean isCountSqlRemoveUnreferencedLeftJoins() {
+        return countSqlRemoveUnreferencedLeftJoins;
+    }
+
+    public void setCountSqlRemoveUnreferencedLeftJoins(boolean countSqlRemoveUnreferencedLeftJoins) {
+        this.countSqlRemoveUnreferencedLeftJoins = countSqlRemoveUnreferencedLeftJoins;
+    }
+
+    public long getDeferredJoinOffsetThreshold() {
+        return deferredJoinOffsetThreshold;
+    }
+
+    public void setDeferredJoinOffsetThreshold(long deferredJoinOffsetThreshold) {
+        this.deferredJoinOffsetThreshold = deferredJoinOffsetThreshold;
+    }
+
     public String getDialect() {
         return this.dialect;
     }
@@ -19,15 +19,23 @@ import com.jn.langx.annotation.NonNull;
 import com.jn.langx.annotation.Nullable;
 import com.jn.langx.cache.Cache;
 import com.jn.langx.cache.CacheBuilder;
-import com.jn.langx.cache.Loader;
+import com.jn.langx.lifecycle.Destroyable;
 import com.jn.langx.lifecycle.Initializable;
 import com.jn.langx.lifecycle.InitializationException;
+import com.jn.langx.text.StringTemplates;
+import com.jn.langx.util.Emptys;
+import com.jn.langx.util.Objects;
 import com.jn.langx.util.Preconditions;
 import com.jn.langx.util.Strings;
 import com.jn.langx.util.collection.Collects;
 import com.jn.langx.util.collection.Pipeline;
-import com.jn.langx.util.function.Consumer;
+import com.jn.langx.util.io.IOs;
 import com.jn.langx.util.function.Predicate;
+import com.jn.langx.util.function.Supplier;
+import com.jn.sqlhelper.common.cache.CacheStats;
+import com.jn.sqlhelper.common.cache.Weigher;
+import com.jn.sqlhelper.common.cache.WeightedCache;
+import com.jn.sqlhelper.common.utils.SQLs;
 import com.jn.sqlhelper.dialect.Dialect;
 import com.jn.sqlhelper.dialect.DialectRegistry;
 import com.jn.sqlhelper.dialect.SQLDialectException;
@@ -35,26 +43,49 @@ import com.jn.sqlhelper.dialect.expression.SQLExpression;
 import com.jn.sqlhelper.dialect.expression.builder.SQLSymbolExpressionBuilderRegistry;
 import com.jn.sqlhelper.dialect.expression.columnevaluation.BuiltinColumnEvaluationExpressionSupplier;
 import com.jn.sqlhelper.dialect.expression.columnevaluation.ColumnEvaluationExpressionSupplier;
+import com.jn.sqlhelper.dialect.instrument.count.CountTransformConfig;
+import com.jn.sqlhelper.dialect.instrument.count.CountTransformer;
+import com.jn.sqlhelper.dialect.instrument.deferredjoin.DeferredJoinTransformConfig;
+import com.jn.sqlhelper.dialect.instrument.deferredjoin.DeferredJoinTransformer;
 import com.jn.sqlhelper.dialect.instrument.orderby.DefaultOrderByTransformer;
 import com.jn.sqlhelper.dialect.instrument.orderby.OrderByTransformer;
 import com.jn.sqlhelper.dialect.instrument.where.WhereTransformConfig;
 import com.jn.sqlhelper.dialect.internal.limit.LimitHelper;
+import com.jn.sqlhelper.dialect.internal.limit.LimitPlan;
+import com.jn.sqlhelper.dialect.metrics.Gauge;
+import com.jn.sqlhelper.dialect.metrics.MetricNames;
+import com.jn.sqlhelper.dialect.metrics.SqlHelperMetrics;
 import com.jn.sqlhelper.dialect.orderby.OrderBy;
+import com.jn.sqlhelper.dialect.pagination.InlineCountStrategy;
+import com.jn.sqlhelper.dialect.pagination.KeysetPaginations;
 import com.jn.sqlhelper.dialect.pagination.PagedPreparedParameterSetter;
 import com.jn.sqlhelper.dialect.pagination.QueryParameters;
 import com.jn.sqlhelper.dialect.pagination.RowSelection;
+import com.jn.sqlhelper.dialect.sqlparser.CopyableSqlStatementWrapper;
 import com.jn.sqlhelper.dialect.sqlparser.SqlStatementWrapper;
 import com.jn.sqlhelper.dialect.sqlparser.StringSqlStatementWrapper;
 import com.jn.sqlhelper.dialect.tenant.Tenant;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.sql.DataSource;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
 import java.sql.*;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
-public class SQLStatementInstrumentor implements Initializable {
+public class SQLStatementInstrumentor implements Initializable, Destroyable {
     private static final Logger logger = LoggerFactory.getLogger(SQLStatementInstrumentor.class);
     private static final ThreadLocal<Dialect> DIALECT_HOLDER = new ThreadLocal<Dialect>();
     private final static List<String> keywordsNotAfterOrderBy = Collects.asList("select", "?", "union", "from", "where", "and", "or", "between", "in", "case");
@@ -70,7 +101,51 @@ public class SQLStatementInstrumentor implements Initializable {
      * order by transformer proxy
      */
     private OrderByTransformer orderByTransformer;
-    private Cache<String, InstrumentedStatement> instrumentSqlCache;
+    /**
+     * key: the original sql
+     * value: the instrumented sqls of the original sql
+     */
+    private WeightedCache<String, InstrumentedStatement> instrumentSqlCache;
+    /**
+     * the instrumented statements of the last run, a statement is moved into the instrumented sql cache when its sql is used
+     */
+    private volatile InstrumentedSqlSnapshot snapshot;
+    /**
+     * the instrumented statements which are generated when the application is built
+     */
+    private final List<InstrumentedSqlSnapshot> resourceSnapshots = new CopyOnWriteArrayList<InstrumentedSqlSnapshot>();
+    /**
+     * the shutdown hook which writes the snapshot file, it is removed when the instrumentor is destroyed
+     */
+    private Thread snapshotWriter;
+    private final Supplier<String, InstrumentedStatement> instrumentedStatementLoader = new Supplier<String, InstrumentedStatement>() {
+        @Override
+        public InstrumentedStatement get(String originalSql) {
+            InstrumentedSqlSnapshot snapshot = SQLStatementInstrumentor.this.snapshot;
+            InstrumentedStatement s = snapshot == null ? null : snapshot.get(originalSql);
+            for (int i = 0; s == null && i < resourceSnapshots.size(); i++) {
+                s = resourceSnapshots.get(i).get(originalSql);
+            }
+            if (s == null) {
+                s = new InstrumentedStatement();
+                s.setOriginalSql(originalSql);
+            }
+            return s;
+        }
+    };
+    /**
+     * key: the original sql
+     * value: the parsed statement, it will never be transformed, the transformers use a copy of it
+     */
+    private Cache<String, CopyableSqlStatementWrapper> parsedSqlCache;
+    /**
+     * key: the fingerprint of a sql which can't be parsed, or is too expensive to parse
+     */
+    private Cache<Long, Boolean> unparseableSqlCache;
+    /**
+     * the primary keys of the tables for the deferred join: jdbc url|catalog|table -> primary keys, an empty list if the table has no primary key
+     */
+    private final ConcurrentHashMap<String, List<String>> primaryKeysCache = new ConcurrentHashMap<String, List<String>>();
 
     public SQLStatementInstrumentor() {
 
@@ -94,31 +169,50 @@ public class SQLStatementInstrumentor implements Initializable {
             this.dialectRegistry = DialectRegistry.getInstance();
             inited = true;
             if (this.config.isCacheInstrumentedSql()) {
-                instrumentSqlCache = CacheBuilder.<String, InstrumentedStatement>newBuilder()
-                        .initialCapacity(config.getCacheInitialCapacity())
-                        .maxCapacity(config.getCacheMaxCapacity())
-                        .concurrencyLevel(Runtime.getRuntime().availableProcessors())
-                        .expireAfterRead(config.getCacheExpireAfterRead())
-                        .loader(new Loader<String, InstrumentedStatement>() {
+                instrumentSqlCache = new WeightedCache<String, InstrumentedStatement>(
+                        config.getCacheMaxWeight(),
+                        config.getCacheMaxCapacity(),
+                        config.getCacheExpireAfterRead() * 1000L,
+                        new Weigher<String, InstrumentedStatement>() {
                             @Override
-                            public InstrumentedStatement load(String originalSql) {
-                                InstrumentedStatement s = new InstrumentedStatement();
-                                s.setOriginalSql(originalSql);
-                                return s;
+                            public long weigh(String originalSql, InstrumentedStatement statement) {
+                                return statement.getWeight();
                             }
-
-                            @Override
-                            public Map<String, InstrumentedStatement> getAll(Iterable<String> keys) {
-                                final Map<String, InstrumentedStatement> map = new HashMap<String, InstrumentedStatement>();
-                                Collects.forEach(keys, new Consumer<String>() {
-                                    @Override
-                                    public void accept(String k) {
-                                        map.put(k, load(k));
-                                    }
-                                });
-                                return map;
-                            }
-                        })
+                        });
+                final WeightedCache<String, InstrumentedStatement> cache = instrumentSqlCache;
+                SqlHelperMetrics.gauge(MetricNames.INSTRUMENT_CACHE_SIZE, name, new Gauge() {
+                    @Override
+                    public double get() {
+                        return cache.size();
+                    }
+                });
+                SqlHelperMetrics.gauge(MetricNames.INSTRUMENT_CACHE_WEIGHT, name, new Gauge() {
+                    @Override
+                    public double get() {
+                        return cache.weight();
+                    }
+                });
+                if (Strings.isNotBlank(config.getSnapshotResource())) {
+                    loadResourceSnapshots();
+                }
+                if (Strings.isNotBlank(config.getSnapshotFile())) {
+                    loadSnapshot();
+                }
+            }
+            if (this.config.isCacheParsedSql()) {
+                parsedSqlCache = CacheBuilder.<String, CopyableSqlStatementWrapper>newBuilder()
+                        .initialCapacity(Math.min(config.getCacheInitialCapacity(), config.getParsedSqlCacheMaxCapacity()))
+                        .maxCapacity(config.getParsedSqlCacheMaxCapacity())
+                        .concurrencyLevel(Runtime.getRuntime().availableProcessors())
+                        .expireAfterRead(config.getCacheExpireAfterRead())
+                        .build();
+            }
+            if (this.config.getUnparseableSqlCacheMaxCapacity() > 0) {
+                unparseableSqlCache = CacheBuilder.<Long, Boolean>newBuilder()
+                        .initialCapacity(Math.min(config.getCacheInitialCapacity(), config.getUnparseableSqlCacheMaxCapacity()))
+                        .maxCapacity(config.getUnparseableSqlCacheMaxCapacity())
+                        .concurrencyLevel(Runtime.getRuntime().availableProcessors())
+                        .expireAfterRead(config.getCacheExpireAfterRead())
                         .build();
             }
             InstrumentationRegistry.getInstance().enableInstrumentation(this.config.getInstrumentation());
@@ -154,6 +248,15 @@ public class SQLStatementInstrumentor implements Initializable {
         return this.beginIfSupportsLimit(dialect);
     }
 
+    /**
+     * @param dataSource the data source of the connection, the dialect is cached for it, so the metadata is read only once
+     * @param connection the connection, it is used only if the dialect of the data source is not resolved
+     */
+    public boolean beginIfSupportsLimit(@Nullable final DataSource dataSource, @Nullable final Connection connection) {
+        final Dialect dialect = this.getDialect(dataSource, connection);
+        return this.beginIfSupportsLimit(dialect);
+    }
+
     private boolean beginIfSupportsLimit(final Dialect dialect) {
         if (dialect == null) {
             return false;
@@ -183,6 +286,28 @@ public class SQLStatementInstrumentor implements Initializable {
     }
 
     public Dialect getDialect(@Nullable DatabaseMetaData databaseMetaData) {
+        Dialect dialect = this.getConfiguredDialect();
+        if (dialect == null && databaseMetaData != null) {
+            dialect = this.dialectRegistry.getDialectByDatabaseMetadata(databaseMetaData);
+        }
+        return dialect;
+    }
+
+    /**
+     * @see DialectRegistry#getDialect(DataSource, Connection)
+     */
+    public Dialect getDialect(@Nullable DataSource dataSource, @Nullable Connection connection) {
+        Dialect dialect = this.getConfiguredDialect();
+        if (dialect == null && (dataSource != null || connection != null)) {
+            dialect = this.dialectRegistry.getDialect(dataSource, connection);
+        }
+        return dialect;
+    }
+
+    /**
+     * @return the dialect of the current thread, or the dialect in the configuration
+     */
+    private Dialect getConfiguredDialect() {
         Dialect dialect = this.getCurrentDialect();
         if (dialect != null) {
             return dialect;
@@ -194,9 +319,6 @@ public class SQLStatementInstrumentor implements Initializable {
         if (dialect == null && this.config.getDialectClassName() != null) {
             dialect = this.dialectRegistry.getDialectByClassName(this.config.getDialectClassName());
         }
-        if (dialect == null && databaseMetaData != null) {
-            dialect = this.dialectRegistry.getDialectByDatabaseMetadata(databaseMetaData);
-        }
         return dialect;
     }
 
@@ -206,38 +328,73 @@ public class SQLStatementInstrumentor implements Initializable {
     }
 
     public String instrumentLimitSql(Dialect dialect, String sql, final RowSelection selection) {
+        if (selection.isKeyset()) {
+            return instrumentKeysetSql(dialect, sql, selection);
+        }
         if (LimitHelper.useLimit(dialect, selection) && dialect.isSupportsVariableLimit()) {
             String originalSql = sql;
-            if (this.config.isCacheInstrumentedSql()) {
-                sql = getInstrumentedStatement(originalSql).getLimitSql(dialect.getDatabaseId(), selection.hasOffset());
-                if (sql != null) {
-                    return sql;
+            if (isDeferredJoinCandidate(dialect, selection)) {
+                String deferredJoinSql = instrumentDeferredJoinSql(dialect, originalSql, selection);
+                if (deferredJoinSql != null) {
+                    return deferredJoinSql;
                 }
             }
-            sql = dialect.getLimitSql(originalSql, selection);
-            if (this.config.isCacheInstrumentedSql()) {
-                getInstrumentedStatement(originalSql).setLimitSql(dialect.getDatabaseId(), sql, selection.hasOffset());
-            }
+            sql = limitSql(dialect, originalSql, selection);
         }
         return sql;
     }
 
+    /**
+     * Append the limit clause of the dialect to the sql, the limit plan of the sql is cached if the instrumented sql cache is enabled.
+     */
+    private String limitSql(Dialect dialect, String sql, final RowSelection selection) {
+        if (this.config.isCacheInstrumentedSql()) {
+            InstrumentedStatement instrumentedStatement = getInstrumentedStatement(sql);
+            LimitPlan plan = instrumentedStatement.getLimitPlan(dialect.getDatabaseId(), LimitHelper.hasFirstRow(selection));
+            recordCacheLookup(isUsable(dialect, plan));
+            if (!isUsable(dialect, plan)) {
+                plan = dialect.getLimitPlan(sql, LimitHelper.hasFirstRow(selection));
+                if (plan != null) {
+                    instrumentedStatement.setLimitPlan(dialect.getDatabaseId(), plan);
+                    updateInstrumentedStatementWeight(instrumentedStatement);
+                }
+            }
+            if (plan != null) {
+                selection.setLimitPlan(plan);
+                return plan.render(selection);
+            }
+        }
+        return dialect.getLimitSql(sql, selection);
+    }
+
+    /**
+     * @return whether the cached plan is compiled in the current limit mode of the dialect
+     */
+    private static boolean isUsable(Dialect dialect, LimitPlan plan) {
+        return plan != null && plan.isVariableMode() == dialect.isUseLimitInVariableMode();
+    }
+
     public String instrumentOrderBySql(String sql, OrderBy orderBy) {
         if (this.config.isCacheInstrumentedSql()) {
             String orderBySql = getInstrumentedStatement(sql).getOrderBySql(orderBy);
+            recordCacheLookup(orderBySql != null);
             if (orderBySql != null) {
                 return orderBySql;
             }
         }
         try {
             SqlStatementWrapper sqlStatementWrapper = parseSql(sql);
+            long startTime = SqlHelperMetrics.startTimer();
             TransformConfig transformConfig = new TransformConfig();
             transformConfig.setOrderBy(orderBy);
             orderByTransformer.transform(sqlStatementWrapper, transformConfig);
             String sql2 = sqlStatementWrapper.getSql();
+            SqlHelperMetrics.stopTimer(MetricNames.INSTRUMENT_TRANSFORM, null, getCurrentDialectTag(), startTime);
             if (sql2 != null) {
                 if (this.config.isCacheInstrumentedSql()) {
-                    getInstrumentedStatement(sql).setOrderBySql(orderBy, sql2);
+                    InstrumentedStatement instrumentedStatement = getInstrumentedStatement(sql);
+                    instrumentedStatement.setOrderBySql(orderBy, sql2);
+                    updateInstrumentedStatementWeight(instrumentedStatement);
                 }
                 return sql2;
             }
@@ -247,13 +404,76 @@ public class SQLStatementInstrumentor implements Initializable {
         return sql;
     }
 
+    /**
+     * Parse the sql. If the parsed statement cache is enabled, the sql will be parsed only once,
+     * and the returned statement is a copy of the cached statement, so the caller can transform it freely.
+     * <p>
+     * A sql which is too long, or failed to be parsed, or took longer than the parse time budget, is returned as a string statement,
+     * the later ones with the same fingerprint skip the parsing.
+     */
     private SqlStatementWrapper parseSql(String sql) {
+        if (parsedSqlCache != null) {
+            CopyableSqlStatementWrapper cached = parsedSqlCache.getIfPresent(sql);
+            if (cached != null) {
+                try {
+                    return cached.copy();
+                } catch (Throwable ex) {
+                    logger.warn("error occur when copy the parsed sql: {}", sql, ex);
+                    parsedSqlCache.remove(sql);
+                }
+            }
+        }
+        int maxParseSqlLength = config.getMaxParseSqlLength();
+        if (maxParseSqlLength > 0 && sql.length() > maxParseSqlLength) {
+            logger.debug("skip to parse the sql, its length {} exceeds the max parse sql length {}", sql.length(), maxParseSqlLength);
+            return newStringSqlStatementWrapper(sql);
+        }
+        long fingerprint = 0;
+        if (unparseableSqlCache != null) {
+            fingerprint = SQLs.fingerprint(sql);
+            if (unparseableSqlCache.getIfPresent(fingerprint) != null) {
+                logger.debug("skip to parse the unparseable sql: {}", sql);
+                return newStringSqlStatementWrapper(sql);
+            }
+        }
+        long parseTimeBudget = config.getParseTimeBudget();
+        long startTime = parseTimeBudget > 0 ? System.currentTimeMillis() : 0;
+        long parseStartTime = SqlHelperMetrics.startTimer();
         try {
-            return instrumentation.getSqlParser().parse(sql);
+            SqlStatementWrapper statementWrapper = instrumentation.getSqlParser().parse(sql);
+            SqlHelperMetrics.stopTimer(MetricNames.INSTRUMENT_PARSE, null, getCurrentDialectTag(), parseStartTime);
+            if (parseTimeBudget > 0) {
+                long cost = System.currentTimeMillis() - startTime;
+                if (cost > parseTimeBudget) {
+                    // the parser can't be interrupted, so the budget is checked after the parsing,
+                    // the statement is dropped to keep the same behavior as the later ones which skip the parsing
+                    logger.warn("it took {}ms to parse the sql, it exceeds the parse time budget {}ms, the sql will not be parsed again: {}", cost, parseTimeBudget, sql);
+                    markUnparseable(fingerprint);
+                    return newStringSqlStatementWrapper(sql);
+                }
+            }
+            if (parsedSqlCache != null && statementWrapper instanceof CopyableSqlStatementWrapper) {
+                // cache the parsed statement, the caller will transform a copy of it
+                CopyableSqlStatementWrapper copyable = (CopyableSqlStatementWrapper) statementWrapper;
+                CopyableSqlStatementWrapper copied = copyable.copy();
+                parsedSqlCache.set(sql, copyable);
+                return copied;
+            }
+            return statementWrapper;
         } catch (Throwable ex) {
-            logger.error("error occur when parse the sql with jsqlparser: {}", sql);
+            logger.error("error occur when parse the sql with {}: {}", config.getInstrumentation(), sql);
+            markUnparseable(fingerprint);
         }
+        return newStringSqlStatementWrapper(sql);
+    }
 
+    private void markUnparseable(long fingerprint) {
+        if (unparseableSqlCache != null) {
+            unparseableSqlCache.set(fingerprint, Boolean.TRUE);
+        }
+    }
+
+    private static SqlStatementWrapper newStringSqlStatementWrapper(String sql) {
         StringSqlStatementWrapper sqlStatementWrapper = new StringSqlStatementWrapper();
         sqlStatementWrapper.setOriginalSql(sql);
         sqlStatementWrapper.setStatement(sql);
@@ -270,10 +490,261 @@ public class SQLStatementInstrumentor implements Initializable {
         if (orderBy == null) {
             throw new IllegalArgumentException("Illegal argument : orderBy");
         }
-        sql = instrumentLimitSql(dialect, sql, selection);
+        if (selection.isKeyset()) {
+            return instrumentKeysetSql(dialect, sql, selection);
+        }
+        // a deferred join sql depends on the offset, it is cached on the order by sql
+        boolean cacheable = this.config.isCacheInstrumentedSql() && !isDeferredJoinCandidate(dialect, selection);
+        // the limit plan is cached on the original sql, rather than on the order by sql
+        cacheable = cacheable && LimitHelper.useLimit(dialect, selection) && dialect.isSupportsVariableLimit();
+        if (cacheable) {
+            LimitPlan plan = getInstrumentedStatement(originalSql).getOrderByLimitPlan(orderBy, dialect.getDatabaseId(), LimitHelper.hasFirstRow(selection));
+            if (isUsable(dialect, plan)) {
+                selection.setLimitPlan(plan);
+                return plan.render(selection);
+            }
+        }
+        // instrument the order by on the original sql, so the parsed statement of the original sql can be reused
         sql = instrumentOrderBySql(sql, orderBy);
+        if (cacheable) {
+            LimitPlan plan = dialect.getLimitPlan(sql, LimitHelper.hasFirstRow(selection));
+            if (plan != null) {
+                InstrumentedStatement instrumentedStatement = getInstrumentedStatement(originalSql);
+                instrumentedStatement.setOrderByLimitPlan(orderBy, dialect.getDatabaseId(), plan);
+                updateInstrumentedStatementWeight(instrumentedStatement);
+                selection.setLimitPlan(plan);
+                return plan.render(selection);
+            }
+        }
+        return instrumentLimitSql(dialect, sql, selection);
+    }
+
+    private boolean isDeferredJoinCandidate(Dialect dialect, RowSelection selection) {
+        long threshold = this.config.getDeferredJoinOffsetThreshold();
+        return threshold > 0
+                && dialect.isSupportsDeferredJoin()
+                && !selection.isKeyset()
+                && selection.getOffset() != null && selection.getOffset() >= threshold
+                && Emptys.isNotEmpty(selection.getPrimaryKeys());
+    }
+
+    /**
+     * Rewrite the page sql to a deferred join, the offset rows are skipped on the primary keys in a derived table,
+     * and only the rows of the page are read from the table:
+     * <pre>
+     *     select t.* from t join (select t.id from t where ... order by x limit ?, ?) sqlhelper_k_ using (id) order by x
+     * </pre>
+     * The parameters are in the same order as the limit sql.
+     *
+     * @return the deferred join sql with the limit, null if the sql can't be rewritten
+     * @see DeferredJoinTransformer
+     */
+    @Nullable
+    private String instrumentDeferredJoinSql(Dialect dialect, String sql, RowSelection selection) {
+        DeferredJoinTransformer deferredJoinTransformer = instrumentation.getDeferredJoinTransformer();
+        if (deferredJoinTransformer == null) {
+            return null;
+        }
+        String primaryKeys = Strings.join(",", selection.getPrimaryKeys());
+        // a literal limit is a part of the deferred join sql, so only the sql of the variable mode is cached
+        boolean cacheable = this.config.isCacheInstrumentedSql() && dialect.isUseLimitInVariableMode();
         if (this.config.isCacheInstrumentedSql()) {
-            getInstrumentedStatement(originalSql).setOrderByLimitSql(orderBy, dialect.getDatabaseId(), sql, selection.hasOffset());
+            InstrumentedStatement instrumentedStatement = getInstrumentedStatement(sql);
+            String deferredJoinSql = instrumentedStatement.getDeferredJoinSql(primaryKeys, dialect.getDatabaseId());
+            if (deferredJoinSql != null && deferredJoinSql.isEmpty()) {
+                return null;
+            }
+            if (deferredJoinSql != null && cacheable) {
+                // bind the parameters with the same plan as the sql was rendered with
+                LimitPlan plan = instrumentedStatement.getDeferredJoinLimitPlan(primaryKeys, dialect.getDatabaseId());
+                if (isUsable(dialect, plan)) {
+                    selection.setLimitPlan(plan);
+                    return deferredJoinSql;
+                }
+            }
+        }
+        String deferredJoinSql = null;
+        LimitPlan plan = null;
+        try {
+            SqlStatementWrapper statementWrapper = parseSql(sql);
+            if (!(statementWrapper instanceof StringSqlStatementWrapper)) {
+                DeferredJoinTransformConfig deferredJoinTransformConfig = new DeferredJoinTransformConfig();
+                deferredJoinTransformConfig.setPrimaryKeys(selection.getPrimaryKeys());
+                deferredJoinTransformConfig.setDialect(dialect);
+                deferredJoinTransformConfig.setSelection(selection);
+                deferredJoinTransformConfig.setCompileLimitPlan(cacheable);
+                TransformConfig transformConfig = new TransformConfig();
+                transformConfig.setDeferredJoinTransformConfig(deferredJoinTransformConfig);
+                deferredJoinTransformer.transform(statementWrapper, transformConfig);
+                if (statementWrapper.isChanged()) {
+                    deferredJoinSql = statementWrapper.getSql();
+                    plan = selection.getLimitPlan();
+                }
+            }
+        } catch (Throwable ex) {
+            logger.debug("error occur when instrument the deferred join sql: {}", sql, ex);
+        }
+        if (deferredJoinSql == null) {
+            // the plan of a derived table which was not used
+            selection.setLimitPlan(null);
+        }
+        if (deferredJoinSql == null ? this.config.isCacheInstrumentedSql() : cacheable && plan != null) {
+            InstrumentedStatement instrumentedStatement = getInstrumentedStatement(sql);
+            instrumentedStatement.setDeferredJoinSql(primaryKeys, dialect.getDatabaseId(), deferredJoinSql == null ? "" : deferredJoinSql, plan);
+            updateInstrumentedStatementWeight(instrumentedStatement);
+        }
+        return deferredJoinSql;
+    }
+
+    /**
+     * Find the primary keys of the table of a single table query from the database metadata, for the deferred join.
+     * The primary keys are set into the selection if they were not specified and the offset reaches the threshold,
+     * the lookup result of every table is cached.
+     *
+     * @see SQLInstrumentorConfig#getDeferredJoinOffsetThreshold()
+     */
+    public void resolvePrimaryKeys(Dialect dialect, DatabaseMetaData databaseMetaData, String sql, RowSelection selection) {
+        if (databaseMetaData == null || !isPrimaryKeysNeeded(dialect, selection)) {
+            return;
+        }
+        Set<String> tableNames = getTableNames(sql);
+        if (tableNames == null || tableNames.size() != 1) {
+            return;
+        }
+        String tableName = tableNames.iterator().next();
+        try {
+            String catalog = databaseMetaData.getConnection().getCatalog();
+            String key = databaseMetaData.getURL() + "|" + catalog + "|" + tableName;
+            List<String> primaryKeys = primaryKeysCache.get(key);
+            if (primaryKeys == null) {
+                primaryKeys = loadPrimaryKeys(databaseMetaData, catalog, tableName);
+                primaryKeysCache.putIfAbsent(key, primaryKeys);
+            }
+            if (!primaryKeys.isEmpty()) {
+                selection.setPrimaryKeys(primaryKeys);
+            }
+        } catch (Throwable ex) {
+            logger.warn("error occur when find the primary keys of the table {}, error: {}", tableName, ex.getMessage());
+        }
+    }
+
+    /**
+     * Same as {@link #resolvePrimaryKeys(Dialect, DatabaseMetaData, String, RowSelection)},
+     * but the database metadata is got from the connection only when the offset reaches the threshold.
+     */
+    public void resolvePrimaryKeys(Dialect dialect, Connection connection, String sql, RowSelection selection) {
+        if (connection == null || !isPrimaryKeysNeeded(dialect, selection)) {
+            return;
+        }
+        try {
+            resolvePrimaryKeys(dialect, connection.getMetaData(), sql, selection);
+        } catch (SQLException ex) {
+            logger.warn("error occur when get the database metadata, error: {}", ex.getMessage());
+        }
+    }
+
+    private boolean isPrimaryKeysNeeded(Dialect dialect, RowSelection selection) {
+        long threshold = this.config.getDeferredJoinOffsetThreshold();
+        return threshold > 0 && dialect != null && dialect.isSupportsDeferredJoin()
+                && selection != null && !selection.isKeyset() && Emptys.isEmpty(selection.getPrimaryKeys())
+                && selection.getOffset() != null && selection.getOffset() >= threshold;
+    }
+
+    /**
+     * @return the primary key columns in the key sequence, an empty list if the table is not found, or it is found in more than one schema
+     */
+    private static List<String> loadPrimaryKeys(DatabaseMetaData databaseMetaData, String catalog, String tableName) throws SQLException {
+        if (databaseMetaData.storesUpperCaseIdentifiers()) {
+            tableName = tableName.toUpperCase();
+        }
+        ResultSet pkRs = null;
+        try {
+            pkRs = databaseMetaData.getPrimaryKeys(catalog, null, tableName);
+            Map<Short, String> primaryKeys = new TreeMap<Short, String>();
+            String schema = null;
+            while (pkRs.next()) {
+                String s = pkRs.getString("TABLE_SCHEM");
+                if (!primaryKeys.isEmpty() && !Objects.equals(schema, s)) {
+                    return Collections.emptyList();
+                }
+                schema = s;
+                primaryKeys.put(pkRs.getShort("KEY_SEQ"), pkRs.getString("COLUMN_NAME"));
+            }
+            return Collections.unmodifiableList(new ArrayList<String>(primaryKeys.values()));
+        } finally {
+            IOs.close(pkRs);
+        }
+    }
+
+    public String instrumentKeysetSql(String sql, final RowSelection selection) {
+        final Dialect dialect = this.getCurrentDialect();
+        return instrumentKeysetSql(dialect, sql, selection);
+    }
+
+    /**
+     * Instrument a keyset pagination sql: inject the keyset condition, the order by keys and a limit without offset.
+     * The keyset parameters are bound after the original parameters in {@link #bindParameters(Dialect, PreparedStatement, PagedPreparedParameterSetter, QueryParameters, boolean)}
+     *
+     * @see KeysetPaginations
+     */
+    public String instrumentKeysetSql(Dialect dialect, String sql, final RowSelection selection) {
+        if (!selection.isKeyset()) {
+            throw new IllegalArgumentException("Illegal argument : selection, it is not a keyset selection");
+        }
+        final String originalSql = sql;
+        final OrderBy keys = selection.getKeys();
+        // the keyset sql is cached without the limit, the limit of every request is applied to it
+        String keysetSql = this.config.isCacheInstrumentedSql() ? getInstrumentedStatement(originalSql).getKeysetSql(keys, dialect.getDatabaseId()) : null;
+        if (keysetSql == null) {
+            keysetSql = transformKeysetSql(dialect, originalSql, keys);
+            if (this.config.isCacheInstrumentedSql()) {
+                InstrumentedStatement instrumentedStatement = getInstrumentedStatement(originalSql);
+                instrumentedStatement.setKeysetSql(keys, dialect.getDatabaseId(), keysetSql);
+                updateInstrumentedStatementWeight(instrumentedStatement);
+            }
+        }
+        if (LimitHelper.useLimit(dialect, selection) && dialect.isSupportsVariableLimit()) {
+            return limitSql(dialect, keysetSql, selection);
+        }
+        return keysetSql;
+    }
+
+    /**
+     * @return the sql with the keyset condition and the order by keys, it has not a limit
+     */
+    private String transformKeysetSql(Dialect dialect, final String originalSql, final OrderBy keys) {
+        String sql;
+        try {
+            SqlStatementWrapper statementWrapper;
+            OrderBy orderBy = keys;
+            if (KeysetPaginations.canInjectCondition(originalSql)) {
+                statementWrapper = parseSql(originalSql);
+            } else {
+                // the keyset parameters must be bound after all the original parameters
+                statementWrapper = parseSql(KeysetPaginations.wrapAsDerivedTable(originalSql));
+                orderBy = KeysetPaginations.unqualified(keys);
+            }
+            if (statementWrapper instanceof StringSqlStatementWrapper) {
+                throw new SQLDialectException("the sql can't be parsed");
+            }
+
+            WhereTransformConfig whereTransformConfig = new WhereTransformConfig();
+            whereTransformConfig.setInstrumentSubSelect(false);
+            whereTransformConfig.setPosition(InjectPosition.LAST);
+            whereTransformConfig.setExpression(KeysetPaginations.buildCondition(orderBy, KeysetPaginations.isRowValueComparison(dialect, keys)));
+
+            TransformConfig transformConfig = new TransformConfig();
+            transformConfig.setWhereInstrumentConfigs(Collects.asList(whereTransformConfig));
+            transformConfig.setOrderBy(orderBy);
+            instrumentation.getWhereTransformer().transform(statementWrapper, transformConfig);
+            if (!statementWrapper.isChanged()) {
+                throw new SQLDialectException("the keyset condition was not injected");
+            }
+            orderByTransformer.transform(statementWrapper, transformConfig);
+            sql = statementWrapper.getSql();
+        } catch (Throwable ex) {
+            // an offset pagination is not a choice, the caller will always get the first page
+            throw new SQLDialectException(StringTemplates.formatWithPlaceholder("Can't instrument the keyset pagination sql: {}, error: {}", originalSql, ex.getMessage()), ex);
         }
         return sql;
     }
@@ -306,7 +777,9 @@ public class SQLStatementInstrumentor implements Initializable {
             String newSql = statementWrapper.getSql();
             if (newSql != null) {
                 if (this.config.isCacheInstrumentedSql()) {
-                    getInstrumentedStatement(sql).setInstrumentedSql(transformConfig, newSql);
+                    InstrumentedStatement instrumentedStatement = getInstrumentedStatement(sql);
+                    instrumentedStatement.setInstrumentedSql(transformConfig, newSql);
+                    updateInstrumentedStatementWeight(instrumentedStatement);
                 }
                 return newSql;
             }
@@ -330,13 +803,164 @@ public class SQLStatementInstrumentor implements Initializable {
         }
         InstrumentedStatement instrumentedSql = getInstrumentedStatement(originalSql);
         if (instrumentedSql != null) {
-            String countSql = instrumentedSql.getCountSql();
+            String countSql = instrumentedSql.getCountSql(countColumn);
+            recordCacheLookup(countSql != null);
             if (countSql != null) {
                 return countSql;
             }
         }
 
-        // do count
+        String countSql = transformCountSql(originalSql, countColumn);
+        if (countSql == null) {
+            countSql = simpleCountSql(originalSql, countColumn);
+        }
+
+        // cache it
+        if (this.config.isCacheInstrumentedSql()) {
+            InstrumentedStatement instrumentedStatement = getInstrumentedStatement(originalSql);
+            instrumentedStatement.setCountSql(countColumn, countSql);
+            updateInstrumentedStatementWeight(instrumentedStatement);
+        }
+        return countSql;
+    }
+
+    /**
+     * generate the count sql with the count transformer of the instrumentation
+     *
+     * @return the count sql, null if the sql can't be transformed
+     */
+    private String transformCountSql(String originalSql, String countColumn) {
+        if (!this.config.isTransformCountSql()) {
+            return null;
+        }
+        CountTransformer countTransformer = instrumentation.getCountTransformer();
+        if (countTransformer == null) {
+            return null;
+        }
+        try {
+            SqlStatementWrapper statementWrapper = parseSql(originalSql);
+            if (statementWrapper instanceof StringSqlStatementWrapper) {
+                return null;
+            }
+            long startTime = SqlHelperMetrics.startTimer();
+            CountTransformConfig countTransformConfig = new CountTransformConfig();
+            countTransformConfig.setCountColumn(countColumn);
+            countTransformConfig.setRemoveUnreferencedLeftJoins(this.config.isCountSqlRemoveUnreferencedLeftJoins());
+            TransformConfig transformConfig = new TransformConfig();
+            transformConfig.setCount(true);
+            transformConfig.setCountTransformConfig(countTransformConfig);
+            countTransformer.transform(statementWrapper, transformConfig);
+            SqlHelperMetrics.stopTimer(MetricNames.INSTRUMENT_TRANSFORM, null, getCurrentDialectTag(), startTime);
+            if (statementWrapper.isChanged()) {
+                return statementWrapper.getSql();
+            }
+        } catch (Throwable ex) {
+            logger.debug("error occur when transform the sql to a count sql: {}", originalSql, ex);
+        }
+        return null;
+    }
+
+    /**
+     * Instrument the sql to return the total with the rows of a page, so the count query can be skipped.
+     * The order by and the limit are instrumented on the returned sql as usual.
+     *
+     * @return the inline count sql, null if the dialect supports none of the {@link InlineCountStrategy}, or the sql can't be instrumented
+     * @see InlineCountStrategy#of(Dialect)
+     */
+    @Nullable
+    public String instrumentInlineCountSql(Dialect dialect, String sql) {
+        InlineCountStrategy strategy = InlineCountStrategy.of(dialect);
+        CountTransformer countTransformer = instrumentation.getCountTransformer();
+        if (strategy == null || countTransformer == null) {
+            return null;
+        }
+        if (this.config.isCacheInstrumentedSql()) {
+            String inlineCountSql = getInstrumentedStatement(sql).getInlineCountSql(strategy);
+            recordCacheLookup(inlineCountSql != null);
+            if (inlineCountSql != null) {
+                return inlineCountSql.isEmpty() ? null : inlineCountSql;
+            }
+        }
+        String inlineCountSql = null;
+        try {
+            SqlStatementWrapper statementWrapper = parseSql(sql);
+            if (!(statementWrapper instanceof StringSqlStatementWrapper)) {
+                CountTransformConfig countTransformConfig = new CountTransformConfig();
+                countTransformConfig.setInlineCountStrategy(strategy);
+                TransformConfig transformConfig = new TransformConfig();
+                transformConfig.setCount(true);
+                transformConfig.setCountTransformConfig(countTransformConfig);
+                countTransformer.transform(statementWrapper, transformConfig);
+                if (statementWrapper.isChanged()) {
+                    inlineCountSql = statementWrapper.getSql();
+                }
+            }
+        } catch (Throwable ex) {
+            logger.debug("error occur when instrument the inline count sql: {}", sql, ex);
+        }
+        if (this.config.isCacheInstrumentedSql()) {
+            InstrumentedStatement instrumentedStatement = getInstrumentedStatement(sql);
+            instrumentedStatement.setInlineCountSql(strategy, inlineCountSql == null ? "" : inlineCountSql);
+            updateInstrumentedStatementWeight(instrumentedStatement);
+        }
+        return inlineCountSql;
+    }
+
+    /**
+     * Find the tables which are read or written by the sql.
+     * The names are in lower case, and the schema and the quotes are removed, e.g. "public"."USER" is user.
+     *
+     * @return the table names, null if the sql can't be parsed
+     */
+    @Nullable
+    public Set<String> getTableNames(String sql) {
+        TableNamesExtractor tableNamesExtractor = instrumentation.getTableNamesExtractor();
+        if (tableNamesExtractor == null) {
+            return null;
+        }
+        if (this.config.isCacheInstrumentedSql()) {
+            InstrumentedStatement instrumentedStatement = getInstrumentedStatement(sql);
+            if (instrumentedStatement.isTableNamesResolved()) {
+                return instrumentedStatement.getTableNames();
+            }
+        }
+        Set<String> tableNames = null;
+        try {
+            SqlStatementWrapper statementWrapper = parseSql(sql);
+            if (!(statementWrapper instanceof StringSqlStatementWrapper)) {
+                Set<String> names = tableNamesExtractor.getTableNames(statementWrapper);
+                tableNames = new HashSet<String>();
+                for (String name : names) {
+                    tableNames.add(normalizeTableName(name));
+                }
+                tableNames = Collections.unmodifiableSet(tableNames);
+            }
+        } catch (Throwable ex) {
+            logger.debug("error occur when find the tables of the sql: {}", sql, ex);
+        }
+        if (this.config.isCacheInstrumentedSql()) {
+            InstrumentedStatement instrumentedStatement = getInstrumentedStatement(sql);
+            instrumentedStatement.setTableNames(tableNames);
+            updateInstrumentedStatementWeight(instrumentedStatement);
+        }
+        return tableNames;
+    }
+
+    private static String normalizeTableName(String name) {
+        int index = name.lastIndexOf('.');
+        if (index >= 0) {
+            name = name.substring(index + 1);
+        }
+        if (name.length() >= 2) {
+            char first = name.charAt(0);
+            if (first == '"' || first == '`' || first == '[') {
+                name = name.substring(1, name.length() - 1);
+            }
+        }
+        return name.toLowerCase();
+    }
+
+    private String simpleCountSql(String originalSql, String countColumn) {
         boolean sliceOrderBy = false;
         final String lowerSql = originalSql.toLowerCase();
         final int orderIndex = lowerSql.lastIndexOf("order");
@@ -378,30 +1002,43 @@ public class SQLStatementInstrumentor implements Initializable {
                 }
             }
         }
+        String sql = originalSql;
         if (sliceOrderBy) {
-            originalSql = originalSql.substring(0, orderIndex).trim();
+            sql = originalSql.substring(0, orderIndex).trim();
         }
-        String countSql = "select count(" + countColumn + ") from (" + originalSql + ") tmp_count";
+        return "select count(" + countColumn + ") from (" + sql + ") tmp_count";
+    }
 
-        // cache it
-        if (this.config.isCacheInstrumentedSql()) {
-            getInstrumentedStatement(originalSql).setCountSql(countSql);
+
+    private void recordCacheLookup(boolean hit) {
+        if (SqlHelperMetrics.isEnabled()) {
+            SqlHelperMetrics.count(hit ? MetricNames.INSTRUMENT_CACHE_HIT : MetricNames.INSTRUMENT_CACHE_MISS, null, getCurrentDialectTag(), 1);
         }
-        return countSql;
     }
 
+    /**
+     * the instrumentor doesn't know the statement ids, so its metrics are tagged with the dialect only
+     */
+    private static String getCurrentDialectTag() {
+        return SqlHelperMetrics.getDialectTag(DIALECT_HOLDER.get());
+    }
 
     private InstrumentedStatement getInstrumentedStatement(String originalSql) {
         if (this.config.isCacheInstrumentedSql()) {
-            try {
-                return this.instrumentSqlCache.get(originalSql);
-            } catch (Throwable e) {
-                // ignore it
-            }
+            return this.instrumentSqlCache.get(originalSql, instrumentedStatementLoader);
         }
         return null;
     }
 
+    /**
+     * the weight of a statement is changed after an instrumented sql was added into it, so put it again to update the weight
+     */
+    private void updateInstrumentedStatementWeight(InstrumentedStatement statement) {
+        if (statement != null && this.config.isCacheInstrumentedSql()) {
+            this.instrumentSqlCache.set(statement.getOriginalSql(), statement);
+        }
+    }
+
     private InstrumentedStatement getInstrumentedStatementIfPresent(String originalSql) {
         if (this.config.isCacheInstrumentedSql()) {
             return this.instrumentSqlCache.getIfPresent(originalSql);
@@ -453,6 +1090,9 @@ public class SQLStatementInstrumentor implements Initializable {
                     col += parameterSetter.setSubqueryParameters(statement, queryParameters, col);
                 }
             }
+            if (selection != null && selection.isKeyset()) {
+                col += bindKeysetParameters(dialect, statement, selection, col);
+            }
             col += dialect.bindLimitParametersAtEndOfQuery(selection, statement, col);
             if (setOriginalParameters && countOfAfterSubquery > 0) {
                 col += parameterSetter.setAfterSubqueryParameters(statement, queryParameters, col);
@@ -472,6 +1112,142 @@ public class SQLStatementInstrumentor implements Initializable {
         return statement;
     }
 
+    private int bindKeysetParameters(Dialect dialect, PreparedStatement statement, RowSelection selection, int startIndex) throws SQLException {
+        Object[] values = KeysetPaginations.getParameterValues(KeysetPaginations.isRowValueComparison(dialect, selection.getKeys()), selection.getAfter());
+        for (int i = 0; i < values.length; i++) {
+            statement.setObject(startIndex + i, values[i]);
+        }
+        return values.length;
+    }
+
+    /**
+     * @return false if neither the instrumented sql cache nor the parsed sql cache is enabled, nothing is kept by a warm up
+     */
+    public boolean isWarmUpEnabled() {
+        return this.config.isCacheInstrumentedSql() || parsedSqlCache != null;
+    }
+
+    /**
+     * Prepare a sql before it is executed: parse it, and generate its count sql and limit sqls of the dialect,
+     * so the first request of the sql finds them in the caches. The count sql and the limit sqls are generated only if
+     * the instrumented sql cache is enabled, else only the parsed statement is cached.
+     *
+     * @param dialect the dialect of the sql, the limit sqls are skipped if it is null
+     * @return false if the sql can't be parsed, it will be instrumented as a string, or if nothing is kept by a warm up
+     * @see #isWarmUpEnabled()
+     */
+    public boolean warmUp(@Nullable Dialect dialect, String sql) {
+        if (!isWarmUpEnabled()) {
+            return false;
+        }
+        SqlStatementWrapper statementWrapper = parseSql(sql);
+        if (statementWrapper instanceof StringSqlStatementWrapper) {
+            return false;
+        }
+        if (!this.config.isCacheInstrumentedSql()) {
+            return true;
+        }
+        countSql(sql);
+        if (dialect != null && dialect.isSupportsLimit()) {
+            RowSelection firstPage = new RowSelection();
+            firstPage.setLimit(10);
+            instrumentLimitSql(dialect, sql, firstPage);
+            RowSelection nextPage = new RowSelection();
+            nextPage.setOffset(10L);
+            nextPage.setLimit(10);
+            instrumentLimitSql(dialect, sql, nextPage);
+        }
+        return true;
+    }
+
+    private void loadResourceSnapshots() {
+        try {
+            Enumeration<URL> urls = SQLStatementInstrumentor.class.getClassLoader().getResources(config.getSnapshotResource());
+            while (urls.hasMoreElements()) {
+                InstrumentedSqlSnapshot resourceSnapshot = InstrumentedSqlSnapshot.load(urls.nextElement(), InstrumentedSqlSnapshot.getConfigKey(config));
+                if (resourceSnapshot != null) {
+                    resourceSnapshots.add(resourceSnapshot);
+                }
+            }
+        } catch (IOException ex) {
+            logger.warn("Can't find the instrumented sql snapshots {}, error: {}", config.getSnapshotResource(), ex.getMessage());
+        }
+    }
+
+    private void loadSnapshot() {
+        final File file = new File(config.getSnapshotFile());
+        this.snapshot = InstrumentedSqlSnapshot.load(file, InstrumentedSqlSnapshot.getConfigKey(config));
+        this.snapshotWriter = new Thread("sqlhelper-snapshot") {
+            @Override
+            public void run() {
+                try {
+                    writeSnapshot(file);
+                } catch (Throwable ex) {
+                    logger.warn("Can't write the instrumented sql snapshot {}, error: {}", file, ex.getMessage());
+                }
+            }
+        };
+        Runtime.getRuntime().addShutdownHook(snapshotWriter);
+    }
+
+    /**
+     * Write the snapshot file and remove its shutdown hook, so a destroyed instrumentor is not held until the jvm exits.
+     */
+    @Override
+    public void destroy() {
+        Thread writer;
+        synchronized (this) {
+            writer = this.snapshotWriter;
+            this.snapshotWriter = null;
+        }
+        if (writer == null) {
+            return;
+        }
+        try {
+            Runtime.getRuntime().removeShutdownHook(writer);
+        } catch (IllegalStateException ex) {
+            // the jvm is shutting down, the hook writes it
+            return;
+        }
+        writer.run();
+    }
+
+    /**
+     * Write the instrumented sql cache into a snapshot file, the statements of the last snapshot which are not used
+     * in this run are kept as long as the max capacity of the cache isn't reached.
+     *
+     * @see SQLInstrumentorConfig#getSnapshotFile()
+     */
+    public void writeSnapshot(File file) throws IOException {
+        if (instrumentSqlCache == null) {
+            throw new IllegalStateException("the instrumented sql cache is disabled");
+        }
+        Map<String, InstrumentedStatement> statements = new LinkedHashMap<String, InstrumentedStatement>(instrumentSqlCache.toMap());
+        InstrumentedSqlSnapshot last = this.snapshot;
+        if (last != null) {
+            for (InstrumentedStatement statement : last.getAll()) {
+                if (statements.size() >= config.getCacheMaxCapacity()) {
+                    break;
+                }
+                if (!statements.containsKey(statement.getOriginalSql())) {
+                    statements.put(statement.getOriginalSql(), statement);
+                }
+            }
+        }
+        InstrumentedSqlSnapshot.write(file, InstrumentedSqlSnapshot.getConfigKey(config), statements.values());
+        logger.info("Write {} instrumented statements into the snapshot {}", statements.size(), file);
+    }
+
+    /**
+     * @return the statistics of the instrumented sql cache
+     */
+    public CacheStats getInstrumentedSqlCacheStats() {
+        if (this.instrumentSqlCache == null) {
+            return CacheStats.EMPTY;
+        }
+        return this.instrumentSqlCache.stats();
+    }
+
     public SQLInstrumentorConfig getConfig() {
         return this.config;
     }
@@ -2,6 +2,8 @@ package com.jn.sqlhelper.dialect.instrument;
 
 import com.jn.langx.util.Objects;
 import com.jn.langx.util.hash.HashCodeBuilder;
+import com.jn.sqlhelper.dialect.instrument.count.CountTransformConfig;
+import com.jn.sqlhelper.dialect.instrument.deferredjoin.DeferredJoinTransformConfig;
 import com.jn.sqlhelper.dialect.instrument.groupby.GroupByTransformConfig;
 import com.jn.sqlhelper.dialect.instrument.where.WhereTransformConfig;
 import com.jn.sqlhelper.dialect.likeescaper.LikeEscaper;
@@ -64,6 +66,16 @@ public class TransformConfig implements Serializable {
 
     private Tenant tenant;
 
+    /**
+     * count 语句的转换配置
+     */
+    private CountTransformConfig countTransformConfig;
+
+    /**
+     * deferred join 的转换配置
+     */
+    private DeferredJoinTransformConfig deferredJoinTransformConfig;
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -186,4 +198,20 @@ public class TransformConfig implements Serializable {
     public void setTenant(Tenant tenant) {
         this.tenant = tenant;
     }
+
+    public CountTransformConfig getCountTransformConfig() {
+        return countTransformConfig;
+    }
+
+    public DeferredJoinTransformConfig getDeferredJoinTransformConfig() {
+        return deferredJoinTransformConfig;
+    }
+
+    public void setDeferredJoinTransformConfig(DeferredJoinTransformConfig deferredJoinTransformConfig) {
+        this.deferredJoinTransformConfig = deferredJoinTransformConfig;
+    }
+
+    public void setCountTransformConfig(CountTransformConfig countTransformConfig) {
+        this.countTransformConfig = countTransformConfig;
+    }
 }
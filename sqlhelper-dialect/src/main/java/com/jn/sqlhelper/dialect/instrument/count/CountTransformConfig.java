@@ -0,0 +1,61 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.dialect.instrument.count;
+
+import com.jn.sqlhelper.dialect.pagination.InlineCountStrategy;
+
+public class CountTransformConfig {
+    /**
+     * the column or expression in count(), null, "1", "*" means count the rows
+     */
+    private String countColumn;
+
+    /**
+     * remove the left joins which are not referenced by the other parts of the sql.
+     * It is safe only when every left joined table is joined on a unique key (has at most one matched row),
+     * so it is disabled by default.
+     */
+    private boolean removeUnreferencedLeftJoins = false;
+
+    /**
+     * if not null, the select is not transformed to a count statement,
+     * but it is changed to return the total with the rows in the same query
+     */
+    private InlineCountStrategy inlineCountStrategy;
+
+    public String getCountColumn() {
+        return countColumn;
+    }
+
+    public void setCountColumn(String countColumn) {
+        this.countColumn = countColumn;
+    }
+
+    public boolean isRemoveUnreferencedLeftJoins() {
+        return removeUnreferencedLeftJoins;
+    }
+
+    public void setRemoveUnreferencedLeftJoins(boolean removeUnreferencedLeftJoins) {
+        this.removeUnreferencedLeftJoins = removeUnreferencedLeftJoins;
+    }
+
+    public InlineCountStrategy getInlineCountStrategy() {
+        return inlineCountStrategy;
+    }
+
+    public void setInlineCountStrategy(InlineCountStrategy inlineCountStrategy) {
+        this.inlineCountStrategy = inlineCountStrategy;
+    }
+}
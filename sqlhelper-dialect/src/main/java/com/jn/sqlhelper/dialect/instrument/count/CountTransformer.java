@@ -0,0 +1,25 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.dialect.instrument.count;
+
+import com.jn.sqlhelper.dialect.instrument.ClauseTransformer;
+
+/**
+ * 将一个查询语句转换为 select count 语句，转换的配置在 {@link com.jn.sqlhelper.dialect.instrument.TransformConfig#getCountTransformConfig()}
+ * <p>
+ * 如果无法安全的转换，则不修改 statement (statement.isChanged() 为 false)，调用方会采用基于字符串的方式生成 count 语句
+ */
+public interface CountTransformer<Statement> extends ClauseTransformer<Statement> {
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jn.sqlhelper.dialect.instrument.deferredjoin;
+
+import com.jn.sqlhelper.dialect.Dialect;
+import com.jn.sqlhelper.dialect.pagination.RowSelection;
+
+import java.util.List;
+
+public class DeferredJoinTransformConfig {
+    /**
+     * the primary key columns of the table
+     */
+    private List<String> primaryKeys;
+    /**
+     * the limit of the derived table is generated by the dialect
+     */
+    private Dialect dialect;
+    /**
+     * the selection of the request, its limit plan is set if the limit sql of the derived table is rendered from a plan
+     */
+    private RowSelection selection;
+    /**
+     * whether to compile a limit plan for the derived table, it is compiled only when it will be cached
+     */
+    private boolean compileLimitPlan = false;
+
+    public List<String> getPrimaryKeys() {
+        return primaryKeys;
+    }
+
+    public void setPrimaryKeys(List<String> primaryKeys) {
+        this.primaryKeys = primaryKeys;
+    }
+
+    public Dialect getDialect() {
+        return dialect;
+    }
+
+    public void setDialect(Dialect dialect) {
+        this.dialect = dialect;
+    }
+
+    public RowSelection getSelection() {
+        return selection;
+    }
+
+    public void setSelection(RowSelection selection) {
+        this.selection = selection;
+    }
+
+    public boolean isCompileLimitPlan() {
+        return compileLimitPlan;
+    }
+
+    public void setCompileLimitPlan(boolean compileLimitPlan) {
+        this.compileLimitPlan = compileLimitPlan;
+    }
+}
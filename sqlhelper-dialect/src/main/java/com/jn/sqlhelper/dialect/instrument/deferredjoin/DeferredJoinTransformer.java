@@ -0,0 +1,34 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jn.sqlhelper.dialect.instrument.deferredjoin;
+
+import com.jn.sqlhelper.dialect.instrument.ClauseTransformer;
+
+/**
+ * Rewrite a single table page query to a deferred join ("late row lookup"), the config is
+ * {@link com.jn.sqlhelper.dialect.instrument.TransformConfig#getDeferredJoinTransformConfig()}:
+ * <pre>
+ *     select * from t where ... order by x
+ *     =>
+ *     select t.* from t join (select t.pk from t where ... order by x limit ?, ?) sqlhelper_k_ using (pk) order by x
+ * </pre>
+ * The database skips the offset rows on the primary key (and the order by index) only, and reads the rows of the page.
+ * <p>
+ * The limit is added into the derived table, so the transformed sql is the page sql.
+ * The statement is not changed (statement.isChanged() is false) if it can't be rewritten safely,
+ * e.g. it has joins, group by, distinct, aggregate or window functions.
+ */
+public interface DeferredJoinTransformer<Statement> extends ClauseTransformer<Statement> {
+    String DERIVED_TABLE_ALIAS = "sqlhelper_k_";
+}
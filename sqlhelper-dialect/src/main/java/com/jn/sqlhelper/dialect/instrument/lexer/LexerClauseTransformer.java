@@ -0,0 +1,70 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jn.sqlhelper.dialect.instrument.lexer;
+
+import com.jn.sqlhelper.dialect.expression.SQLExpression;
+import com.jn.sqlhelper.dialect.instrument.AbstractClauseTransformer;
+import com.jn.sqlhelper.dialect.instrument.ClauseTransformer;
+import com.jn.sqlhelper.dialect.instrument.Instrumentation;
+import com.jn.sqlhelper.dialect.instrument.TransformConfig;
+import com.jn.sqlhelper.dialect.sqlparser.SqlStatementWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A transformer splices the tokens if it can prove the rewrite is safe,
+ * otherwise it parses the sql with the fallback instrumentation and transforms it with the same kind of transformer.
+ */
+public abstract class LexerClauseTransformer extends AbstractClauseTransformer<SqlTokens> {
+    private static final Logger logger = LoggerFactory.getLogger(LexerClauseTransformer.class);
+
+    /**
+     * @return the transformer of the fallback instrumentation, null if it has not the transformer
+     */
+    protected abstract ClauseTransformer getFallbackTransformer(Instrumentation fallback);
+
+    /**
+     * It is called when the statement can't be transformed by the tokens and there is no fallback
+     */
+    protected SqlStatementWrapper<SqlTokens> noFallback(SqlStatementWrapper<SqlTokens> sw, String reason) {
+        logger.debug("Can't transform the sql: {}, {}", sw.getSql(), reason);
+        return sw;
+    }
+
+    protected SqlStatementWrapper<SqlTokens> fallback(SqlStatementWrapper<SqlTokens> sw, TransformConfig config, String reason) {
+        Instrumentation fallback = ((LexerInstrumentation) getInstrumentation()).getFallback();
+        ClauseTransformer transformer = fallback == null ? null : getFallbackTransformer(fallback);
+        if (transformer == null) {
+            return noFallback(sw, reason);
+        }
+        logger.debug("Transform the sql by the fallback instrumentation, {}: {}", reason, sw.getSql());
+        SqlStatementWrapper statement = fallback.getSqlParser().parse(sw.getSql());
+        transformer.transform(statement, config);
+        if (statement.isChanged()) {
+            ((LexerStatementWrapper) sw).setSql(statement.getSql());
+        }
+        return sw;
+    }
+
+    /**
+     * @return the sql of the expression, null if it can't be written
+     */
+    protected static String write(SQLExpression expression) {
+        try {
+            return SqlExpressionWriter.write(expression);
+        } catch (RuntimeException ex) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jn.sqlhelper.dialect.instrument.lexer;
+
+import com.jn.langx.annotation.NonNull;
+import com.jn.langx.util.Preconditions;
+import com.jn.langx.util.Strings;
+import com.jn.langx.util.collection.Collects;
+import com.jn.sqlhelper.dialect.instrument.ClauseTransformer;
+import com.jn.sqlhelper.dialect.instrument.Instrumentation;
+import com.jn.sqlhelper.dialect.instrument.TransformConfig;
+import com.jn.sqlhelper.dialect.instrument.count.CountTransformConfig;
+import com.jn.sqlhelper.dialect.instrument.count.CountTransformer;
+import com.jn.sqlhelper.dialect.sqlparser.SqlStatementWrapper;
+
+import java.util.Set;
+
+/**
+ * Transforms a simple select to a count statement by replacing the select items and dropping the order by:
+ * <pre>
+ *     select a, b from t where c = ? order by a
+ *     =>
+ *     select count(*) from t where c = ?
+ * </pre>
+ * A select is simple if it has no distinct, top, aggregate or window function, group by, having, limit, into or for update.
+ * It falls back for the others, the inline count strategy and the removal of the left joins.
+ */
+public class LexerCountTransformer extends LexerClauseTransformer implements CountTransformer<SqlTokens> {
+    private static final Set<String> AGGREGATES = Collects.asSet("count", "sum", "avg", "min", "max", "group_concat", "string_agg", "listagg",
+            "array_agg", "json_arrayagg", "json_objectagg", "variance", "var_pop", "var_samp", "bit_and", "bit_or", "bit_xor",
+            "every", "bool_and", "bool_or", "over");
+    private static final Set<String> SELECT_MODIFIERS = Collects.asSet("distinct", "distinctrow", "unique", "top", "first", "skip", "sql_calc_found_rows");
+
+    @Override
+    protected ClauseTransformer getFallbackTransformer(Instrumentation fallback) {
+        return fallback.getCountTransformer();
+    }
+
+    @Override
+    public SqlStatementWrapper<SqlTokens> transform(@NonNull SqlStatementWrapper<SqlTokens> sw, @NonNull TransformConfig config) {
+        Preconditions.checkNotNull(sw);
+        Preconditions.checkNotNull(config);
+        SqlTokens tokens = sw.get();
+        if (tokens == null || !tokens.isSafe()) {
+            return fallback(sw, config, "the sql is not tokenized exactly");
+        }
+        int select = SqlClauses.indexOfMainSelect(tokens);
+        if (select == -1) {
+            return sw;
+        }
+        CountTransformConfig countConfig = config.getCountTransformConfig();
+        if (countConfig != null) {
+            String countColumn = countConfig.getCountColumn();
+            boolean countRows = Strings.isBlank(countColumn) || "1".equals(countColumn.trim()) || "*".equals(countColumn.trim());
+            if (!countRows || countConfig.getInlineCountStrategy() != null || countConfig.isRemoveUnreferencedLeftJoins()) {
+                return fallback(sw, config, "the count config is not supported");
+            }
+        }
+        if (SqlClauses.hasSetOperation(tokens, select)) {
+            return fallback(sw, config, "it has a set operation");
+        }
+        int end = SqlClauses.end(tokens);
+        int from = tokens.indexOfKeyword("from", select + 1, end, 0);
+        if (from == -1 || from == select + 1 || !isSimpleSelectItems(tokens, select + 1, from)) {
+            return fallback(sw, config, "it is not a simple select");
+        }
+        int orderBy = -1;
+        int clause = SqlClauses.indexOfClause(tokens, from + 1, end);
+        if (clause != -1) {
+            if (!"order".equals(SqlClauses.getClause(tokens, clause)) || SqlClauses.indexOfClause(tokens, clause + 2, end) != -1) {
+                return fallback(sw, config, "it is not a simple select");
+            }
+            if (SqlClauses.hasParameter(tokens, clause + 2, end)) {
+                return fallback(sw, config, "the order by has a parameter");
+            }
+            orderBy = clause;
+        }
+
+        String sql = tokens.getSql();
+        StringBuilder builder = new StringBuilder(sql.length());
+        builder.append(sql, 0, tokens.getStart(select + 1))
+                .append("count(*) ")
+                .append(sql, tokens.getStart(from), tokens.getEnd((orderBy == -1 ? end : orderBy) - 1));
+        ((LexerStatementWrapper) sw).setSql(builder.toString());
+        return sw;
+    }
+
+    private static boolean isSimpleSelectItems(SqlTokens tokens, int from, int to) {
+        if (tokens.is(from, SqlTokenType.WORD) && SELECT_MODIFIERS.contains(tokens.getText(from).toLowerCase())) {
+            return false;
+        }
+        if (SqlClauses.hasParameter(tokens, from, to) || SqlClauses.indexOfClause(tokens, from, to) != -1) {
+            return false;
+        }
+        for (int i = from; i < to; i++) {
+            if (tokens.is(i, SqlTokenType.WORD) && tokens.is(i + 1, SqlTokenType.OPEN_PAREN)) {
+                String function = tokens.getText(i).toLowerCase();
+                if (AGGREGATES.contains(function) || function.startsWith("stddev")) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
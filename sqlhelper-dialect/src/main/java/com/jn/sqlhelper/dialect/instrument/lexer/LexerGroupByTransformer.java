@@ -0,0 +1,35 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jn.sqlhelper.dialect.instrument.lexer;
+
+import com.jn.sqlhelper.dialect.instrument.ClauseTransformer;
+import com.jn.sqlhelper.dialect.instrument.Instrumentation;
+import com.jn.sqlhelper.dialect.instrument.TransformConfig;
+import com.jn.sqlhelper.dialect.instrument.groupby.GroupByTransformer;
+import com.jn.sqlhelper.dialect.sqlparser.SqlStatementWrapper;
+
+/**
+ * It is transformed by the fallback instrumentation always
+ */
+public class LexerGroupByTransformer extends LexerClauseTransformer implements GroupByTransformer<SqlTokens> {
+    @Override
+    protected ClauseTransformer getFallbackTransformer(Instrumentation fallback) {
+        return fallback.getGroupByTransformer();
+    }
+
+    @Override
+    public SqlStatementWrapper<SqlTokens> transform(SqlStatementWrapper<SqlTokens> sw, TransformConfig config) {
+        return fallback(sw, config, "the group by is not transformed by the tokens");
+    }
+}
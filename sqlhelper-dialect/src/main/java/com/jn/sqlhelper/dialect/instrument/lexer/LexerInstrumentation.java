@@ -0,0 +1,143 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jn.sqlhelper.dialect.instrument.lexer;
+
+import com.jn.langx.annotation.Name;
+import com.jn.langx.lifecycle.InitializationException;
+import com.jn.sqlhelper.dialect.instrument.Instrumentation;
+import com.jn.sqlhelper.dialect.instrument.InstrumentationRegistry;
+import com.jn.sqlhelper.dialect.instrument.TableNamesExtractor;
+import com.jn.sqlhelper.dialect.instrument.count.CountTransformer;
+import com.jn.sqlhelper.dialect.instrument.deferredjoin.DeferredJoinTransformer;
+import com.jn.sqlhelper.dialect.instrument.groupby.GroupByTransformer;
+import com.jn.sqlhelper.dialect.instrument.orderby.OrderByTransformer;
+import com.jn.sqlhelper.dialect.instrument.where.WhereTransformer;
+import com.jn.sqlhelper.dialect.sqlparser.SqlParser;
+
+/**
+ * A lightweight instrumentation which rewrites the where, the order by and the count by splicing the tokens of the sql,
+ * the sql is tokenized in a single pass, and no syntax tree is built.
+ * <p>
+ * It uses the fallback instrumentation (jsqlparser by default) when it can't prove a rewrite is safe,
+ * the fallback is found by name when it is used first, it needn't be enabled. Enable it with "instrumentation=lexer".
+ */
+@Name("lexer")
+public class LexerInstrumentation implements Instrumentation<SqlTokens, LexerStatementWrapper> {
+    private boolean enabled = false;
+    private boolean inited = false;
+    private String fallbackName = "jsqlparser";
+    private volatile Instrumentation fallback;
+    private SqlParser<LexerStatementWrapper> sqlParser;
+    private WhereTransformer<SqlTokens> whereTransformer;
+    private OrderByTransformer<SqlTokens> orderByTransformer;
+    private GroupByTransformer<SqlTokens> groupByTransformer;
+    private CountTransformer<SqlTokens> countTransformer;
+    private TableNamesExtractor<SqlTokens> tableNamesExtractor;
+    private DeferredJoinTransformer<SqlTokens> deferredJoinTransformer;
+
+    @Override
+    public void init() throws InitializationException {
+        if (!inited) {
+            inited = true;
+            this.sqlParser = new LexerSqlParser();
+            whereTransformer = new LexerWhereTransformer();
+            whereTransformer.setInstrumentation(this);
+            whereTransformer.init();
+            orderByTransformer = new LexerOrderByTransformer();
+            orderByTransformer.setInstrumentation(this);
+            orderByTransformer.init();
+            groupByTransformer = new LexerGroupByTransformer();
+            groupByTransformer.setInstrumentation(this);
+            groupByTransformer.init();
+            countTransformer = new LexerCountTransformer();
+            countTransformer.setInstrumentation(this);
+            countTransformer.init();
+            tableNamesExtractor = new LexerTableNamesExtractor(this);
+            deferredJoinTransformer = new LexerDeferredJoinTransformer();
+            deferredJoinTransformer.setInstrumentation(this);
+            deferredJoinTransformer.init();
+        }
+    }
+
+    /**
+     * @return the fallback instrumentation, null if it is not found
+     */
+    public Instrumentation getFallback() {
+        Instrumentation instrumentation = fallback;
+        if (instrumentation == null && fallbackName != null) {
+            instrumentation = InstrumentationRegistry.getInstance().findInstrumentation(fallbackName, false);
+            if (instrumentation == this) {
+                instrumentation = null;
+            }
+            fallback = instrumentation;
+        }
+        return instrumentation;
+    }
+
+    public String getFallbackName() {
+        return fallbackName;
+    }
+
+    public void setFallbackName(String fallbackName) {
+        this.fallbackName = fallbackName;
+        this.fallback = null;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    @Override
+    public SqlParser<LexerStatementWrapper> getSqlParser() {
+        return this.sqlParser;
+    }
+
+    @Override
+    public WhereTransformer<SqlTokens> getWhereTransformer() {
+        return this.whereTransformer;
+    }
+
+    @Override
+    public OrderByTransformer<SqlTokens> getOrderByTransformer() {
+        return this.orderByTransformer;
+    }
+
+    @Override
+    public GroupByTransformer<SqlTokens> getGroupByTransformer() {
+        return getFallback() == null ? null : groupByTransformer;
+    }
+
+    @Override
+    public CountTransformer<SqlTokens> getCountTransformer() {
+        return countTransformer;
+    }
+
+    @Override
+    public TableNamesExtractor<SqlTokens> getTableNamesExtractor() {
+        Instrumentation instrumentation = getFallback();
+        return instrumentation == null || instrumentation.getTableNamesExtractor() == null ? null : tableNamesExtractor;
+    }
+
+    @Override
+    public DeferredJoinTransformer<SqlTokens> getDeferredJoinTransformer() {
+        Instrumentation instrumentation = getFallback();
+        return instrumentation == null || instrumentation.getDeferredJoinTransformer() == null ? null : deferredJoinTransformer;
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jn.sqlhelper.dialect.instrument.lexer;
+
+import com.jn.langx.util.Preconditions;
+import com.jn.sqlhelper.dialect.instrument.ClauseTransformer;
+import com.jn.sqlhelper.dialect.instrument.Instrumentation;
+import com.jn.sqlhelper.dialect.instrument.SQLTransformException;
+import com.jn.sqlhelper.dialect.instrument.TransformConfig;
+import com.jn.sqlhelper.dialect.instrument.orderby.OrderByTransformer;
+import com.jn.sqlhelper.dialect.orderby.OrderBy;
+import com.jn.sqlhelper.dialect.orderby.OrderByItem;
+import com.jn.sqlhelper.dialect.orderby.OrderByType;
+import com.jn.sqlhelper.dialect.sqlparser.SqlStatementWrapper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Changes the direction of an order by item which is in the sql already, and appends the others, as the parser based one does.
+ * The expression of an item must be a column or a number, it falls back for the others and for a set operation.
+ */
+public class LexerOrderByTransformer extends LexerClauseTransformer implements OrderByTransformer<SqlTokens> {
+    /**
+     * the direction of an item which is not changed
+     */
+    private static final Object UNCHANGED = new Object();
+    /**
+     * the direction of an item whose asc or desc is removed
+     */
+    private static final Object NO_DIRECTION = new Object();
+
+    @Override
+    protected ClauseTransformer getFallbackTransformer(Instrumentation fallback) {
+        return fallback.getOrderByTransformer();
+    }
+
+    /**
+     * the DefaultOrderByTransformer appends the order by to the sql when it fails
+     */
+    @Override
+    protected SqlStatementWrapper<SqlTokens> noFallback(SqlStatementWrapper<SqlTokens> sw, String reason) {
+        throw new SQLTransformException("Can't instrument order by, " + reason);
+    }
+
+    @Override
+    public SqlStatementWrapper<SqlTokens> transform(SqlStatementWrapper<SqlTokens> sw, TransformConfig config) {
+        Preconditions.checkNotNull(sw);
+        Preconditions.checkNotNull(config);
+        OrderBy orderBy = Preconditions.checkNotNull(config.getOrderBy());
+        SqlTokens tokens = Preconditions.checkNotNull(sw.get(), "statement is null");
+        if (!tokens.isSafe()) {
+            return fallback(sw, config, "the sql is not tokenized exactly");
+        }
+        int select = SqlClauses.indexOfMainSelect(tokens);
+        if (select == -1) {
+            throw new SQLTransformException("statement is not a select statement: " + tokens.getSql());
+        }
+        if (SqlClauses.hasSetOperation(tokens, select)) {
+            return fallback(sw, config, "it has a set operation");
+        }
+        int end = SqlClauses.end(tokens);
+        int from = tokens.indexOfKeyword("from", select + 1, end, 0);
+
+        // the items in the sql: [start, expression end, direction or -1, end)
+        List<int[]> items = new ArrayList<int[]>();
+        int orderByEnd = -1;
+        int clause = SqlClauses.indexOfClause(tokens, (from == -1 ? select : from) + 1, end);
+        while (clause != -1 && !"order".equals(SqlClauses.getClause(tokens, clause))) {
+            clause = SqlClauses.indexOfClause(tokens, clause + 1, end);
+        }
+        if (clause != -1) {
+            orderByEnd = SqlClauses.indexOfClause(tokens, clause + 2, end);
+            orderByEnd = orderByEnd == -1 ? end : orderByEnd;
+            if (SqlClauses.hasParameter(tokens, clause + 2, orderByEnd)) {
+                throw new SQLTransformException("Can't instrument order by because the original sql has '?' in order by clause");
+            }
+            int start = clause + 2;
+            for (int i = start; i <= orderByEnd; i++) {
+                if (i == orderByEnd || (tokens.getDepth(i) == 0 && tokens.is(i, SqlTokenType.COMMA))) {
+                    items.add(newItem(tokens, start, i));
+                    start = i + 1;
+                }
+            }
+        }
+        if (!orderBy.isValid()) {
+            sw.setChanged(true);
+            return sw;
+        }
+
+        // the normalized expressions and the directions of the items, the items in the sql come first
+        List<String> expressions = new ArrayList<String>();
+        List<Object> directions = new ArrayList<Object>();
+        for (int[] item : items) {
+            expressions.add(tokens.getNormalizedText(item[0], item[1]));
+            directions.add(UNCHANGED);
+        }
+        List<String> appended = new ArrayList<String>();
+        for (OrderByItem orderByItem : orderBy) {
+            String expression = normalize(orderByItem.getExpression());
+            if (expression == null) {
+                return fallback(sw, config, "the order by expression is not a column: " + orderByItem.getExpression());
+            }
+            boolean needAppend = true;
+            for (int i = 0; i < expressions.size(); i++) {
+                if (expressions.get(i).equals(expression)) {
+                    needAppend = false;
+                    directions.set(i, orderByItem.getType() == null ? NO_DIRECTION : orderByItem.getType());
+                }
+            }
+            if (needAppend) {
+                expressions.add(expression);
+                directions.add(orderByItem.getType() == null ? NO_DIRECTION : orderByItem.getType());
+                appended.add(orderByItem.getExpression().trim());
+            }
+        }
+
+        SqlEdits edits = new SqlEdits(tokens.getSql());
+        for (int i = 0; i < items.size(); i++) {
+            int[] item = items.get(i);
+            Object direction = directions.get(i);
+            if (direction == UNCHANGED) {
+                continue;
+            }
+            if (direction instanceof OrderByType) {
+                String keyword = direction == OrderByType.ASC ? "ASC" : "DESC";
+                if (item[2] == -1) {
+                    edits.insert(tokens.getEnd(item[1] - 1), " " + keyword);
+                } else {
+                    edits.replace(tokens.getStart(item[2]), tokens.getEnd(item[2]), keyword);
+                }
+            } else if (item[2] != -1) {
+                edits.replace(tokens.getEnd(item[2] - 1), tokens.getEnd(item[2]), "");
+            }
+        }
+        if (!appended.isEmpty()) {
+            StringBuilder builder = new StringBuilder(items.isEmpty() ? " ORDER BY " : ", ");
+            for (int i = 0; i < appended.size(); i++) {
+                Object direction = directions.get(items.size() + i);
+                builder.append(i == 0 ? "" : ", ").append(appended.get(i))
+                        .append(direction == OrderByType.ASC ? " ASC" : direction == OrderByType.DESC ? " DESC" : "");
+            }
+            int position;
+            if (!items.isEmpty()) {
+                position = tokens.getEnd(items.get(items.size() - 1)[3] - 1);
+            } else {
+                int next = (from == -1 ? select : from) + 1;
+                clause = SqlClauses.indexOfClause(tokens, next, end);
+                while (clause != -1 && !SqlClauses.AFTER_ORDER_BY.contains(SqlClauses.getClause(tokens, clause))) {
+                    clause = SqlClauses.indexOfClause(tokens, clause + 1, end);
+                }
+                position = tokens.getEnd((clause == -1 ? end : clause) - 1);
+            }
+            edits.insert(position, builder.toString());
+        }
+        if (!edits.isEmpty()) {
+            ((LexerStatementWrapper) sw).setSql(edits.apply());
+        }
+        sw.setChanged(true);
+        return sw;
+    }
+
+    /**
+     * @return [start, expression end, direction or -1, end), the nulls first|last is not a part of the expression
+     */
+    private static int[] newItem(SqlTokens tokens, int start, int end) {
+        int expressionEnd = end;
+        if (expressionEnd - 2 > start && tokens.isKeyword(expressionEnd - 2, "nulls")) {
+            expressionEnd -= 2;
+        }
+        int direction = -1;
+        if (expressionEnd - 1 > start && (tokens.isKeyword(expressionEnd - 1, "asc") || tokens.isKeyword(expressionEnd - 1, "desc"))) {
+            direction = expressionEnd - 1;
+            expressionEnd--;
+        }
+        return new int[]{start, expressionEnd, direction, end};
+    }
+
+    /**
+     * @return the normalized expression if it is a column or a number, else null
+     */
+    private static String normalize(String expression) {
+        if (expression == null) {
+            return null;
+        }
+        SqlTokens tokens = SqlTokenizer.tokenize(expression);
+        if (!tokens.isSafe() || tokens.size() == 0) {
+            return null;
+        }
+        if (tokens.size() == 1 && tokens.is(0, SqlTokenType.NUMBER)) {
+            return tokens.getNormalizedText(0, 1);
+        }
+        for (int i = 0; i < tokens.size(); i++) {
+            boolean name = tokens.is(i, SqlTokenType.WORD) || tokens.is(i, SqlTokenType.QUOTED_IDENTIFIER);
+            if (i % 2 == 0 ? !name : !tokens.is(i, SqlTokenType.DOT)) {
+                return null;
+            }
+        }
+        if (tokens.size() % 2 == 0 || expression.indexOf("--") != -1 || expression.indexOf("/*") != -1) {
+            return null;
+        }
+        return tokens.getNormalizedText(0, tokens.size());
+    }
+}
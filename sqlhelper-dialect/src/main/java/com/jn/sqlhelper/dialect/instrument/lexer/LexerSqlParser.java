@@ -0,0 +1,32 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jn.sqlhelper.dialect.instrument.lexer;
+
+import com.jn.sqlhelper.dialect.sqlparser.SQLParseException;
+import com.jn.sqlhelper.dialect.sqlparser.SqlParser;
+
+/**
+ * It never fails, the sql which is not understood is marked as unsafe, and it is transformed by the fallback instrumentation.
+ */
+public class LexerSqlParser implements SqlParser<LexerStatementWrapper> {
+    @Override
+    public LexerStatementWrapper parse(String sql) throws SQLParseException {
+        if (sql == null) {
+            throw new SQLParseException("sql is null");
+        }
+        LexerStatementWrapper result = new LexerStatementWrapper(SqlTokenizer.tokenize(sql));
+        result.setOriginalSql(sql);
+        return result;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jn.sqlhelper.dialect.instrument.lexer;
+
+import com.jn.langx.util.Preconditions;
+import com.jn.sqlhelper.dialect.sqlparser.AbstractSqlStatementWrapper;
+import com.jn.sqlhelper.dialect.sqlparser.CopyableSqlStatementWrapper;
+
+/**
+ * The statement is the tokens of the current sql. A transformer sets a new sql by {@link #setSql(String)},
+ * and it is tokenized only when the next transformer reads the tokens.
+ */
+public class LexerStatementWrapper extends AbstractSqlStatementWrapper<SqlTokens> implements CopyableSqlStatementWrapper<SqlTokens> {
+    private String sql;
+
+    public LexerStatementWrapper(SqlTokens tokens) {
+        Preconditions.checkNotNull(tokens);
+        setStatement(tokens);
+    }
+
+    private LexerStatementWrapper(String sql, SqlTokens tokens) {
+        this.sql = sql;
+        super.setStatement(tokens);
+    }
+
+    @Override
+    public void setStatement(SqlTokens tokens) {
+        super.setStatement(tokens);
+        this.sql = tokens == null ? null : tokens.getSql();
+    }
+
+    @Override
+    public SqlTokens get() {
+        SqlTokens tokens = super.get();
+        if (tokens == null && sql != null) {
+            tokens = SqlTokenizer.tokenize(sql);
+            super.setStatement(tokens);
+        }
+        return tokens;
+    }
+
+    public void setSql(String sql) {
+        Preconditions.checkNotNull(sql);
+        super.setStatement(null);
+        this.sql = sql;
+        setChanged(true);
+    }
+
+    @Override
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * the tokens are immutable, so they are shared with the copy
+     */
+    @Override
+    public LexerStatementWrapper copy() {
+        LexerStatementWrapper copied = new LexerStatementWrapper(sql, super.get());
+        copied.setOriginalSql(getOriginalSql());
+        copied.setChanged(isChanged());
+        return copied;
+    }
+}
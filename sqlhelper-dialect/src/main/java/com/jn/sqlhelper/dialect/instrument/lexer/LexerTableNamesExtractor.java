@@ -0,0 +1,42 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jn.sqlhelper.dialect.instrument.lexer;
+
+import com.jn.langx.util.collection.Collects;
+import com.jn.sqlhelper.dialect.instrument.Instrumentation;
+import com.jn.sqlhelper.dialect.instrument.TableNamesExtractor;
+import com.jn.sqlhelper.dialect.sqlparser.SqlStatementWrapper;
+
+import java.util.Set;
+
+/**
+ * The tables are extracted by the fallback instrumentation
+ */
+public class LexerTableNamesExtractor implements TableNamesExtractor<SqlTokens> {
+    private final LexerInstrumentation instrumentation;
+
+    public LexerTableNamesExtractor(LexerInstrumentation instrumentation) {
+        this.instrumentation = instrumentation;
+    }
+
+    @Override
+    public Set<String> getTableNames(SqlStatementWrapper<SqlTokens> statement) {
+        Instrumentation fallback = instrumentation.getFallback();
+        TableNamesExtractor extractor = fallback == null ? null : fallback.getTableNamesExtractor();
+        if (extractor == null) {
+            return Collects.emptyHashSet();
+        }
+        return extractor.getTableNames(fallback.getSqlParser().parse(statement.getSql()));
+    }
+}
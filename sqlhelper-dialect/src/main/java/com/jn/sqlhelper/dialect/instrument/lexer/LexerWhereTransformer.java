@@ -0,0 +1,181 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jn.sqlhelper.dialect.instrument.lexer;
+
+import com.jn.langx.util.Emptys;
+import com.jn.sqlhelper.dialect.expression.OrExpression;
+import com.jn.sqlhelper.dialect.instrument.ClauseTransformer;
+import com.jn.sqlhelper.dialect.instrument.Instrumentation;
+import com.jn.sqlhelper.dialect.instrument.SQLTransformException;
+import com.jn.sqlhelper.dialect.instrument.TransformConfig;
+import com.jn.sqlhelper.dialect.instrument.where.WhereTransformConfig;
+import com.jn.sqlhelper.dialect.instrument.where.WhereTransformer;
+import com.jn.sqlhelper.dialect.sqlparser.SqlStatementWrapper;
+
+import java.util.List;
+
+/**
+ * Injects the conditions into the where clause of the outermost select, update or delete:
+ * <pre>
+ *     select * from t where a = 1 or b = 2 order by c
+ *     =>
+ *     select * from t where tenant_id = ? AND (a = 1 or b = 2) order by c
+ * </pre>
+ * It falls back for a set operation, an update which has a sub query, or any statement which is not one of them except insert.
+ */
+public class LexerWhereTransformer extends LexerClauseTransformer implements WhereTransformer<SqlTokens> {
+
+    @Override
+    protected ClauseTransformer getFallbackTransformer(Instrumentation fallback) {
+        return fallback.getWhereTransformer();
+    }
+
+    /**
+     * the conditions must not be lost silently
+     */
+    @Override
+    protected SqlStatementWrapper<SqlTokens> noFallback(SqlStatementWrapper<SqlTokens> sw, String reason) {
+        throw new SQLTransformException("Can't inject the where conditions into the sql, " + reason + ": " + sw.getSql());
+    }
+
+    @Override
+    public SqlStatementWrapper<SqlTokens> transform(SqlStatementWrapper<SqlTokens> sw, TransformConfig config) {
+        if (Emptys.isEmpty(sw) || Emptys.isEmpty(config)) {
+            return sw;
+        }
+        List<WhereTransformConfig> expressionConfigs = config.getWhereInstrumentConfigs();
+        SqlTokens tokens = sw.get();
+        if (Emptys.isEmpty(expressionConfigs) || tokens == null || tokens.size() == 0) {
+            return sw;
+        }
+        if (!tokens.isSafe()) {
+            return fallback(sw, config, "the sql is not tokenized exactly");
+        }
+        if (tokens.isKeyword(0, "insert")) {
+            return sw;
+        }
+
+        int end = SqlClauses.end(tokens);
+        int from;
+        if (tokens.isKeyword(0, "update")) {
+            if (hasSubSelect(tokens, end)) {
+                return fallback(sw, config, "the update has a sub select");
+            }
+            from = 1;
+        } else if (tokens.isKeyword(0, "delete")) {
+            from = 1;
+        } else {
+            int select = SqlClauses.indexOfMainSelect(tokens);
+            if (select == -1) {
+                return fallback(sw, config, "it is not a select, update or delete");
+            }
+            if (SqlClauses.hasSetOperation(tokens, select)) {
+                return fallback(sw, config, "it has a set operation");
+            }
+            from = tokens.indexOfKeyword("from", select + 1, end, 0);
+            if (from == -1) {
+                return fallback(sw, config, "it has no from clause");
+            }
+        }
+
+        int clause = SqlClauses.indexOfClause(tokens, from + 1, end);
+        int where = tokens.indexOfKeyword("where", from + 1, clause == -1 ? end : clause, 0);
+        String condition = null;
+        boolean enclose = false;
+        int conditionEnd = -1;
+        if (where != -1) {
+            conditionEnd = SqlClauses.indexOfClause(tokens, where + 1, end);
+            if (conditionEnd == -1) {
+                conditionEnd = end;
+            }
+            if (conditionEnd == where + 1 || tokens.isKeyword(where + 1, "current")) {
+                // where current of cursor
+                return fallback(sw, config, "the where clause is not a condition");
+            }
+            condition = tokens.getSql().substring(tokens.getStart(where + 1), tokens.getEnd(conditionEnd - 1));
+            enclose = hasLowPrecedenceOperator(tokens, where + 1, conditionEnd);
+        }
+
+        for (WhereTransformConfig expressionConfig : expressionConfigs) {
+            if (expressionConfig == null || expressionConfig.getExpression() == null) {
+                continue;
+            }
+            String expression = write(expressionConfig.getExpression());
+            if (expression == null) {
+                return fallback(sw, config, "the expression can't be written");
+            }
+            boolean encloseExpression = expressionConfig.getExpression() instanceof OrExpression;
+            if (condition == null) {
+                condition = expression;
+                enclose = encloseExpression;
+                continue;
+            }
+            switch (expressionConfig.getPosition()) {
+                case FIRST:
+                    condition = enclose(expression, encloseExpression) + " AND " + enclose(condition, enclose);
+                    enclose = false;
+                    break;
+                case LAST:
+                    condition = enclose(condition, enclose) + " AND " + enclose(expression, encloseExpression);
+                    enclose = false;
+                    break;
+                case BEST:
+                    // TODO compute the best position based on the index
+                    break;
+            }
+        }
+        if (condition == null) {
+            return sw;
+        }
+
+        SqlEdits edits = new SqlEdits(tokens.getSql());
+        if (where != -1) {
+            edits.replace(tokens.getStart(where + 1), tokens.getEnd(conditionEnd - 1), condition);
+        } else {
+            int position = tokens.getEnd((clause == -1 ? end : clause) - 1);
+            edits.insert(position, " WHERE " + condition);
+        }
+        ((LexerStatementWrapper) sw).setSql(edits.apply());
+        return sw;
+    }
+
+    /**
+     * update t set (a, b) = (select ...), the parser instruments the sub select also
+     */
+    private static boolean hasSubSelect(SqlTokens tokens, int end) {
+        for (int i = 1; i < end; i++) {
+            if (tokens.isKeyword(i, "select")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * or, xor and || (or in mysql) have a lower precedence than and
+     */
+    private static boolean hasLowPrecedenceOperator(SqlTokens tokens, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (tokens.getDepth(i) == 0 && (tokens.isKeyword(i, "or") || tokens.isKeyword(i, "xor")
+                    || (tokens.is(i, SqlTokenType.OPERATOR) && tokens.getText(i).contains("||")))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String enclose(String condition, boolean enclose) {
+        return enclose ? "(" + condition + ")" : condition;
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jn.sqlhelper.dialect.instrument.lexer;
+
+import com.jn.langx.util.collection.Collects;
+
+import java.util.Set;
+
+/**
+ * Finds the clauses of the outermost statement. A keyword is a clause only if it is followed by what the clause needs,
+ * e.g. "limit" in "where limit > 1" is a column, so a non reserved keyword which is used as a name is not a clause.
+ */
+final class SqlClauses {
+    /**
+     * the clauses which are after the order by clause
+     */
+    static final Set<String> AFTER_ORDER_BY = Collects.asSet("limit", "offset", "fetch", "for", "lock", "into", "option", "with", "procedure", "settings", "format");
+
+    private static final Set<String> SET_OPERATIONS = Collects.asSet("union", "intersect", "except", "minus");
+    private static final Set<String> DML = Collects.asSet("insert", "update", "delete", "merge", "replace", "upsert");
+
+    private SqlClauses() {
+    }
+
+    /**
+     * @return the index of the select keyword of the outermost select, -1 if it is not a select statement
+     */
+    static int indexOfMainSelect(SqlTokens tokens) {
+        if (tokens.isKeyword(0, "select")) {
+            return 0;
+        }
+        if (!tokens.isKeyword(0, "with")) {
+            return -1;
+        }
+        int select = tokens.indexOfKeyword("select", 1, tokens.size(), 0);
+        if (select == -1) {
+            return -1;
+        }
+        for (int i = 1; i < select; i++) {
+            // with x as (...) insert into t select ...
+            if (tokens.getDepth(i) == 0 && tokens.is(i, SqlTokenType.WORD) && DML.contains(tokens.getText(i).toLowerCase())) {
+                return -1;
+            }
+        }
+        return select;
+    }
+
+    static boolean hasSetOperation(SqlTokens tokens, int from) {
+        for (int i = from; i < tokens.size(); i++) {
+            if (tokens.getDepth(i) == 0 && tokens.is(i, SqlTokenType.WORD) && SET_OPERATIONS.contains(tokens.getText(i).toLowerCase())
+                    && !isName(tokens, i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the size of the tokens without the ';' at the end
+     */
+    static int end(SqlTokens tokens) {
+        int size = tokens.size();
+        return tokens.is(size - 1, SqlTokenType.SEMICOLON) ? size - 1 : size;
+    }
+
+    /**
+     * @return the index of the first clause at depth 0 in [from, to), -1 if it is not found
+     */
+    static int indexOfClause(SqlTokens tokens, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (tokens.getDepth(i) == 0 && getClause(tokens, i) != null) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the clause in lower case which starts at the token, null if it is not a clause which is after the from or the where clause
+     */
+    static String getClause(SqlTokens tokens, int i) {
+        if (!tokens.is(i, SqlTokenType.WORD)) {
+            return null;
+        }
+        String word = tokens.getText(i).toLowerCase();
+        boolean clause;
+        if ("group".equals(word) || "order".equals(word) || "connect".equals(word)) {
+            clause = tokens.isKeyword(i + 1, "by");
+        } else if ("start".equals(word)) {
+            clause = tokens.isKeyword(i + 1, "with");
+        } else if ("fetch".equals(word)) {
+            clause = tokens.isKeyword(i + 1, "first") || tokens.isKeyword(i + 1, "next");
+        } else if ("for".equals(word)) {
+            clause = tokens.is(i + 1, SqlTokenType.WORD);
+        } else if ("lock".equals(word)) {
+            clause = tokens.isKeyword(i + 1, "in");
+        } else if ("window".equals(word)) {
+            clause = tokens.isKeyword(i + 2, "as");
+        } else if ("option".equals(word)) {
+            clause = tokens.is(i + 1, SqlTokenType.OPEN_PAREN);
+        } else if ("with".equals(word)) {
+            // from t with (nolock) is a table hint
+            clause = tokens.is(i + 1, SqlTokenType.WORD);
+        } else if ("having".equals(word) || "qualify".equals(word) || "limit".equals(word) || "offset".equals(word)
+                || "into".equals(word) || "procedure".equals(word) || "returning".equals(word) || "settings".equals(word)
+                || "format".equals(word) || SET_OPERATIONS.contains(word)) {
+            clause = !isName(tokens, i);
+        } else {
+            clause = false;
+        }
+        return clause ? word : null;
+    }
+
+    /**
+     * @return true if the word is used as a name, it is followed by an operator, a ',', a ')', or nothing
+     */
+    private static boolean isName(SqlTokens tokens, int i) {
+        if (tokens.is(i - 1, SqlTokenType.DOT) || tokens.is(i + 1, SqlTokenType.DOT) || i + 1 >= end(tokens)) {
+            return true;
+        }
+        return tokens.is(i + 1, SqlTokenType.OPERATOR) || tokens.is(i + 1, SqlTokenType.COMMA) || tokens.is(i + 1, SqlTokenType.CLOSE_PAREN);
+    }
+
+    /**
+     * @return whether the tokens in [from, to) has the keyword at depth 0
+     */
+    static boolean hasKeyword(SqlTokens tokens, String keyword, int from, int to) {
+        return tokens.indexOfKeyword(keyword, from, to, 0) != -1;
+    }
+
+    static boolean hasParameter(SqlTokens tokens, int from, int to) {
+        return tokens.indexOf(SqlTokenType.PARAMETER, from, to) != -1;
+    }
+}
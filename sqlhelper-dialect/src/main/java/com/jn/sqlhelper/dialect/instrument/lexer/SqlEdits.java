@@ -0,0 +1,62 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jn.sqlhelper.dialect.instrument.lexer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The replacements of the ranges of a sql, they are applied from the end of the sql, so an offset is not moved by the others.
+ */
+final class SqlEdits {
+    private final String sql;
+    private final List<int[]> ranges = new ArrayList<int[]>();
+    private final List<String> texts = new ArrayList<String>();
+
+    SqlEdits(String sql) {
+        this.sql = sql;
+    }
+
+    SqlEdits replace(int start, int end, String text) {
+        ranges.add(new int[]{start, end, ranges.size()});
+        texts.add(text);
+        return this;
+    }
+
+    SqlEdits insert(int offset, String text) {
+        return replace(offset, offset, text);
+    }
+
+    boolean isEmpty() {
+        return ranges.isEmpty();
+    }
+
+    String apply() {
+        List<int[]> sorted = new ArrayList<int[]>(ranges);
+        Collections.sort(sorted, new Comparator<int[]>() {
+            @Override
+            public int compare(int[] o1, int[] o2) {
+                // the later one is applied first, the insertions at the same offset keep their order
+                return o1[0] != o2[0] ? o2[0] - o1[0] : o2[2] - o1[2];
+            }
+        });
+        StringBuilder builder = new StringBuilder(sql);
+        for (int[] range : sorted) {
+            builder.replace(range[0], range[1], texts.get(range[2]));
+        }
+        return builder.toString();
+    }
+}
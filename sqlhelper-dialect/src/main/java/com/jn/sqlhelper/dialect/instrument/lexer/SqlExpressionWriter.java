@@ -0,0 +1,173 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.dialect.instrument.lexer;
+
+import com.jn.langx.expression.Expression;
+import com.jn.langx.expression.operator.AbstractBinaryOperator;
+import com.jn.langx.util.Strings;
+import com.jn.sqlhelper.dialect.expression.*;
+import com.jn.sqlhelper.dialect.instrument.SQLTransformException;
+
+/**
+ * Writes a {@link SQLExpression} as sql text, the toString() of the expressions is for reading only.
+ * <p>
+ * An expression which can't be written exactly (a sub query, a catalog qualified column,
+ * a string which has a backslash) makes a {@link SQLTransformException}, then the caller falls back to the parser.
+ */
+public class SqlExpressionWriter {
+    private static final int OR = 1;
+    private static final int AND = 2;
+    private static final int NOT = 3;
+    private static final int COMPARISON = 4;
+    private static final int ADDITIVE = 5;
+    private static final int MULTIPLICATIVE = 6;
+    private static final int LEAF = 7;
+
+    private SqlExpressionWriter() {
+    }
+
+    public static String write(SQLExpression expression) {
+        StringBuilder builder = new StringBuilder();
+        write(expression, builder);
+        return builder.toString();
+    }
+
+    private static void write(Expression expression, StringBuilder builder) {
+        if (expression == null) {
+            throw new SQLTransformException("Can't write a null expression");
+        }
+        if (expression instanceof ColumnExpression) {
+            writeColumn((ColumnExpression) expression, builder);
+        } else if (expression instanceof StringExpression) {
+            writeString(((StringExpression) expression).execute(), builder);
+        } else if (expression instanceof IntegerOrLongExpression || expression instanceof DoubleExpression) {
+            builder.append(expression.execute());
+        } else if (expression instanceof NullExpression) {
+            builder.append("NULL");
+        } else if (expression instanceof PlaceholderExpression) {
+            builder.append("?");
+        } else if (expression instanceof ListExpression) {
+            builder.append("(");
+            int i = 0;
+            for (SQLExpression element : ((ListExpression) expression).getExpressions()) {
+                builder.append(i++ == 0 ? "" : ", ");
+                write(element, builder);
+            }
+            builder.append(")");
+        } else if (expression instanceof NotExpression) {
+            builder.append("NOT (");
+            write(((NotExpression) expression).getTarget(), builder);
+            builder.append(")");
+        } else if (expression instanceof IsNullExpression) {
+            IsNullExpression isNull = (IsNullExpression) expression;
+            writeOperand(isNull.getTarget(), builder);
+            builder.append(isNull.not() ? " IS NOT NULL" : " IS NULL");
+        } else if (expression instanceof BetweenAndExpression) {
+            BetweenAndExpression between = (BetweenAndExpression) expression;
+            writeOperand(between.getTarget(), builder);
+            builder.append(between.not() ? " NOT BETWEEN " : " BETWEEN ");
+            writeOperand(between.getLow(), builder);
+            builder.append(" AND ");
+            writeOperand(between.getHigh(), builder);
+        } else if (expression instanceof InExpression) {
+            InExpression in = (InExpression) expression;
+            writeOperand(in.getLeft(), builder);
+            builder.append(in.not() ? " NOT IN " : " IN ");
+            write(in.getRight(), builder);
+        } else if (expression instanceof LikeExpression) {
+            LikeExpression like = (LikeExpression) expression;
+            writeOperand(like.getLeft(), builder);
+            builder.append(like.not() ? " NOT" : "").append(like.isCaseInsensitive() ? " ILIKE " : " LIKE ");
+            writeOperand(like.getPatternExpression(), builder);
+            if (like.getEscape() != 0) {
+                builder.append(" ESCAPE ");
+                writeString(String.valueOf(like.getEscape()), builder);
+            }
+        } else if (expression instanceof AbstractBinaryOperator && precedence(expression) < LEAF) {
+            AbstractBinaryOperator operator = (AbstractBinaryOperator) expression;
+            int precedence = precedence(expression);
+            writeOperand(operator.getLeft(), precedence, false, builder);
+            builder.append(" ").append(operator.getOperateSymbol()).append(" ");
+            writeOperand(operator.getRight(), precedence, true, builder);
+        } else {
+            throw new SQLTransformException("Can't write the expression: " + expression.getClass().getName());
+        }
+    }
+
+    /**
+     * an operand is enclosed with parentheses if it has a lower precedence, so it is evaluated as it is in the expression tree
+     */
+    private static void writeOperand(Expression operand, int precedence, boolean right, StringBuilder builder) {
+        int operandPrecedence = precedence(operand);
+        boolean enclosed = operandPrecedence < precedence || (operandPrecedence == precedence && (right || precedence == COMPARISON) && precedence > AND);
+        builder.append(enclosed ? "(" : "");
+        write(operand, builder);
+        builder.append(enclosed ? ")" : "");
+    }
+
+    private static void writeOperand(Expression operand, StringBuilder builder) {
+        writeOperand(operand, COMPARISON, true, builder);
+    }
+
+    private static int precedence(Expression expression) {
+        if (expression instanceof OrExpression) {
+            return OR;
+        }
+        if (expression instanceof AndExpression) {
+            return AND;
+        }
+        if (expression instanceof NotExpression) {
+            return NOT;
+        }
+        if (expression instanceof EqualExpression || expression instanceof NotEqualExpression
+                || expression instanceof GreaterThanExpression || expression instanceof GreaterOrEqualExpression
+                || expression instanceof LesserThanExpression || expression instanceof LesserOrEqualExpression
+                || expression instanceof Notable) {
+            return COMPARISON;
+        }
+        if (expression instanceof AddExpression || expression instanceof SubtractExpression) {
+            return ADDITIVE;
+        }
+        if (expression instanceof MultipleExpression || expression instanceof DivideExpression || expression instanceof ModeExpression) {
+            return MULTIPLICATIVE;
+        }
+        return LEAF;
+    }
+
+    private static void writeColumn(ColumnExpression column, StringBuilder builder) {
+        if (Strings.isNotEmpty(column.getCatalog()) || Strings.isBlank(column.getColumn())) {
+            throw new SQLTransformException("Can't write the column: " + column);
+        }
+        if (Strings.isNotEmpty(column.getTable())) {
+            if (Strings.isNotEmpty(column.getSchema())) {
+                builder.append(column.getSchema()).append(".");
+            }
+            builder.append(column.getTable()).append(".");
+        }
+        builder.append(column.getColumn());
+    }
+
+    private static void writeString(String value, StringBuilder builder) {
+        if (value == null) {
+            builder.append("NULL");
+            return;
+        }
+        if (value.indexOf('\\') != -1) {
+            // it is an escape in some databases
+            throw new SQLTransformException("Can't write a string which has a backslash");
+        }
+        builder.append('\'').append(value.replace("'", "''")).append('\'');
+    }
+}
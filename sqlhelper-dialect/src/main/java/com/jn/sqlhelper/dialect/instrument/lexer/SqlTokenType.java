@@ -0,0 +1,41 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.dialect.instrument.lexer;
+
+public enum SqlTokenType {
+    /**
+     * a keyword or an unquoted identifier
+     */
+    WORD,
+    /**
+     * "name", `name` or [name]
+     */
+    QUOTED_IDENTIFIER,
+    /**
+     * 'value'
+     */
+    STRING,
+    NUMBER,
+    /**
+     * ?, :name or $1
+     */
+    PARAMETER,
+    OPEN_PAREN,
+    CLOSE_PAREN,
+    COMMA,
+    DOT,
+    SEMICOLON,
+    OPERATOR
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.dialect.instrument.lexer;
+
+import java.util.Arrays;
+
+/**
+ * A single pass tokenizer which understands the quotes, the comments and the parentheses.
+ * <p>
+ * It doesn't know any dialect, so the syntax which means different things in different databases
+ * (a backslash in a quoted text, a '#' comment, a mysql executable comment, a dollar quoted string, a jdbc escape)
+ * makes the tokens unsafe rather than guessing.
+ */
+public class SqlTokenizer {
+    private static final String OPERATOR_CHARS = "+-*/<>=!~^&|%:";
+
+    private final String sql;
+    private final int length;
+    private int size;
+    private byte[] types;
+    private int[] starts;
+    private int[] ends;
+    private int[] depths;
+    private int depth;
+    private boolean safe = true;
+
+    private SqlTokenizer(String sql) {
+        this.sql = sql;
+        this.length = sql.length();
+        int capacity = length / 4 + 8;
+        this.types = new byte[capacity];
+        this.starts = new int[capacity];
+        this.ends = new int[capacity];
+        this.depths = new int[capacity];
+    }
+
+    public static SqlTokens tokenize(String sql) {
+        return new SqlTokenizer(sql).tokenize();
+    }
+
+    private SqlTokens tokenize() {
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '-' && next(i) == '-') {
+                i = skipLineComment(i);
+            } else if (c == '/' && next(i) == '*') {
+                i = skipBlockComment(i);
+            } else if (c == '\'') {
+                i = quoted(i, '\'', SqlTokenType.STRING);
+            } else if (c == '"') {
+                i = quoted(i, '"', SqlTokenType.QUOTED_IDENTIFIER);
+            } else if (c == '`') {
+                i = quoted(i, '`', SqlTokenType.QUOTED_IDENTIFIER);
+            } else if (c == '[') {
+                i = quoted(i, ']', SqlTokenType.QUOTED_IDENTIFIER);
+            } else if (c == '(') {
+                add(SqlTokenType.OPEN_PAREN, i, i + 1);
+                depth++;
+                i++;
+            } else if (c == ')') {
+                depth--;
+                if (depth < 0) {
+                    safe = false;
+                    depth = 0;
+                }
+                add(SqlTokenType.CLOSE_PAREN, i, i + 1);
+                i++;
+            } else if (c == ',') {
+                add(SqlTokenType.COMMA, i, ++i);
+            } else if (c == ';') {
+                add(SqlTokenType.SEMICOLON, i, ++i);
+            } else if (c == '?') {
+                add(SqlTokenType.PARAMETER, i, ++i);
+            } else if (c == '.' && !isDigit(next(i))) {
+                add(SqlTokenType.DOT, i, ++i);
+            } else if (isDigit(c) || c == '.') {
+                i = number(i);
+            } else if (c == ':' && isWordStart(next(i)) && (i == 0 || sql.charAt(i - 1) != ':')) {
+                i = word(i + 1, i, SqlTokenType.PARAMETER);
+            } else if (c == '$' && isDigit(next(i))) {
+                i = word(i + 1, i, SqlTokenType.PARAMETER);
+            } else if (isWordStart(c)) {
+                i = word(i + 1, i, SqlTokenType.WORD);
+            } else if (OPERATOR_CHARS.indexOf(c) != -1) {
+                int start = i;
+                while (i < length && OPERATOR_CHARS.indexOf(sql.charAt(i)) != -1 && !(sql.charAt(i) == '-' && next(i) == '-') && !(sql.charAt(i) == '/' && next(i) == '*')) {
+                    i++;
+                }
+                add(SqlTokenType.OPERATOR, start, i);
+            } else {
+                // $$ quoted string, # comment, {fn ...} jdbc escape and so on
+                safe = false;
+                add(SqlTokenType.OPERATOR, i, ++i);
+            }
+        }
+        if (depth != 0) {
+            safe = false;
+        }
+        for (int t = 0; t < size - 1; t++) {
+            if (types[t] == SqlTokenType.SEMICOLON.ordinal()) {
+                // more than one statement
+                safe = false;
+            }
+        }
+        return new SqlTokens(sql, safe, size, types, starts, ends, depths);
+    }
+
+    private char next(int index) {
+        return index + 1 < length ? sql.charAt(index + 1) : 0;
+    }
+
+    private int skipLineComment(int index) {
+        int end = sql.indexOf('\n', index);
+        return end == -1 ? length : end + 1;
+    }
+
+    private int skipBlockComment(int index) {
+        int end = sql.indexOf("*/", index + 2);
+        if (end == -1) {
+            safe = false;
+            return length;
+        }
+        int nested = sql.indexOf("/*", index + 2);
+        if (next(index + 1) == '!' || (nested != -1 && nested < end)) {
+            // a mysql executable comment, or a nested comment which is supported by some databases only
+            safe = false;
+        }
+        return end + 2;
+    }
+
+    private int quoted(int index, char quote, SqlTokenType type) {
+        int i = index + 1;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (c == '\\') {
+                // it is an escape in mysql, but a plain char in the standard sql
+                safe = false;
+            } else if (c == quote) {
+                if (quote != ']' && next(i) == quote) {
+                    i++;
+                } else {
+                    add(type, index, i + 1);
+                    return i + 1;
+                }
+            }
+            i++;
+        }
+        safe = false;
+        add(type, index, length);
+        return length;
+    }
+
+    private int number(int index) {
+        int i = index;
+        while (i < length && (isDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+            i++;
+        }
+        if (i < length && (sql.charAt(i) == 'e' || sql.charAt(i) == 'E')) {
+            int exponent = i + 1;
+            if (exponent < length && (sql.charAt(exponent) == '+' || sql.charAt(exponent) == '-')) {
+                exponent++;
+            }
+            if (exponent < length && isDigit(sql.charAt(exponent))) {
+                i = exponent;
+                while (i < length && isDigit(sql.charAt(i))) {
+                    i++;
+                }
+            }
+        }
+        add(SqlTokenType.NUMBER, index, i);
+        return i;
+    }
+
+    private int word(int index, int start, SqlTokenType type) {
+        int i = index;
+        while (i < length && isWordPart(sql.charAt(i))) {
+            i++;
+        }
+        add(type, start, i);
+        return i;
+    }
+
+    private void add(SqlTokenType type, int start, int end) {
+        if (size == types.length) {
+            int capacity = size * 2;
+            types = Arrays.copyOf(types, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            depths = Arrays.copyOf(depths, capacity);
+        }
+        types[size] = (byte) type.ordinal();
+        starts[size] = start;
+        ends[size] = end;
+        depths[size] = depth;
+        size++;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isWordStart(char c) {
+        return Character.isLetter(c) || c == '_' || c == '@';
+    }
+
+    private static boolean isWordPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '#' || c == '@';
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.dialect.instrument.lexer;
+
+/**
+ * The tokens of a sql, the comments and the whitespaces are skipped. A token is a range of the sql,
+ * so the sql can be rewritten by splicing the ranges, and the text which is not changed is kept as it is.
+ * <p>
+ * It is immutable, so it can be cached and shared.
+ *
+ * @see SqlTokenizer
+ */
+public final class SqlTokens {
+    private static final SqlTokenType[] TYPES = SqlTokenType.values();
+
+    private final String sql;
+    private final boolean safe;
+    private final int size;
+    private final byte[] types;
+    private final int[] starts;
+    private final int[] ends;
+    private final int[] depths;
+
+    SqlTokens(String sql, boolean safe, int size, byte[] types, int[] starts, int[] ends, int[] depths) {
+        this.sql = sql;
+        this.safe = safe;
+        this.size = size;
+        this.types = types;
+        this.starts = starts;
+        this.ends = ends;
+        this.depths = depths;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * @return false if the sql has any part which the tokenizer doesn't understand exactly,
+     * e.g. an unterminated quote, an unbalanced parenthesis, a dollar quoted string or more than one statement,
+     * then it should not be rewritten by splicing the tokens
+     */
+    public boolean isSafe() {
+        return safe;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public SqlTokenType getType(int index) {
+        return TYPES[types[index]];
+    }
+
+    public int getStart(int index) {
+        return starts[index];
+    }
+
+    public int getEnd(int index) {
+        return ends[index];
+    }
+
+    /**
+     * @return the count of the parentheses which enclose the token, the depth of a parenthesis is the depth out of it
+     */
+    public int getDepth(int index) {
+        return depths[index];
+    }
+
+    public String getText(int index) {
+        return sql.substring(starts[index], ends[index]);
+    }
+
+    public boolean is(int index, SqlTokenType type) {
+        return index >= 0 && index < size && types[index] == type.ordinal();
+    }
+
+    /**
+     * @return whether the token is the keyword, a word after or before a '.' is a part of a qualified name, so it is not a keyword
+     */
+    public boolean isKeyword(int index, String keyword) {
+        if (!is(index, SqlTokenType.WORD) || ends[index] - starts[index] != keyword.length()) {
+            return false;
+        }
+        if (is(index - 1, SqlTokenType.DOT) || is(index + 1, SqlTokenType.DOT)) {
+            return false;
+        }
+        return sql.regionMatches(true, starts[index], keyword, 0, keyword.length());
+    }
+
+    /**
+     * @return the index of the first keyword in [from, to) at the depth, -1 if it is not found
+     */
+    public int indexOfKeyword(String keyword, int from, int to, int depth) {
+        for (int i = from; i < to; i++) {
+            if (depths[i] == depth && isKeyword(i, keyword)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the index of the first token of the type in [from, to), -1 if it is not found
+     */
+    public int indexOf(SqlTokenType type, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (types[i] == type.ordinal()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the tokens of [from, to) in lower case without the whitespaces and the comments, it is used to compare two expressions
+     */
+    public String getNormalizedText(int from, int to) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = from; i < to; i++) {
+            if (types[i] == SqlTokenType.QUOTED_IDENTIFIER.ordinal() || types[i] == SqlTokenType.STRING.ordinal()) {
+                builder.append(sql, starts[i], ends[i]);
+            } else {
+                builder.append(sql.substring(starts[i], ends[i]).toLowerCase());
+            }
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public String toString() {
+        return sql;
+    }
+}
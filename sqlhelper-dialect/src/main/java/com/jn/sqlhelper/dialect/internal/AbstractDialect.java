@@ -29,9 +29,11 @@ import com.jn.sqlhelper.common.exception.TableNonExistsException;
 import com.jn.sqlhelper.common.utils.SQLs;
 import com.jn.sqlhelper.dialect.*;
 import com.jn.sqlhelper.dialect.ddl.generator.CommonTableGenerator;
+import com.jn.sqlhelper.dialect.estimate.RowCountEstimator;
 import com.jn.sqlhelper.dialect.likeescaper.BackslashStyleEscaper;
 import com.jn.sqlhelper.dialect.internal.limit.DefaultLimitHandler;
 import com.jn.sqlhelper.dialect.internal.limit.LimitHandler;
+import com.jn.sqlhelper.dialect.internal.limit.LimitPlan;
 import com.jn.sqlhelper.dialect.internal.urlparser.CommonUrlParser;
 import com.jn.sqlhelper.dialect.internal.urlparser.NoopUrlParser;
 import com.jn.sqlhelper.dialect.internal.urlparser.UrlParser;
@@ -51,7 +53,9 @@ public abstract class AbstractDialect<T extends AbstractDialect> implements Dial
     private UrlParser urlParser;
     private LimitHandler limitHandler;
     private LikeEscaper likeEscaper;
+    private RowCountEstimator rowCountEstimator;
     private Boolean isUseLimitInVariableMode = null;
+    private volatile String databaseId;
 
     private final Properties properties = new Properties();
 
@@ -68,6 +72,15 @@ public abstract class AbstractDialect<T extends AbstractDialect> implements Dial
 
     @Override
     public String getDatabaseId() {
+        String id = this.databaseId;
+        if (id == null) {
+            id = computeDatabaseId();
+            this.databaseId = id;
+        }
+        return id;
+    }
+
+    private String computeDatabaseId() {
         final Name nameAnno = (Name) Reflects.getAnnotation(this.getClass(), Name.class);
         String name;
         if (nameAnno != null) {
@@ -118,6 +131,10 @@ public abstract class AbstractDialect<T extends AbstractDialect> implements Dial
         getRealDialect().likeEscaper = likeEscaper;
     }
 
+    protected void setRowCountEstimator(@Nullable RowCountEstimator rowCountEstimator) {
+        getRealDialect().rowCountEstimator = rowCountEstimator;
+    }
+
 
     @Override
     public boolean isSupportsLimit() {
@@ -190,9 +207,15 @@ public abstract class AbstractDialect<T extends AbstractDialect> implements Dial
 
     @Override
     public String getLimitSql(String sql, RowSelection selection) {
+        // a plan is compiled only when it is cached, compiling it processes the sql more than once
         return getLimitHandler().processSql(sql, selection);
     }
 
+    @Override
+    public LimitPlan getLimitPlan(String sql, boolean hasOffset) {
+        return getLimitHandler().compile(sql, hasOffset);
+    }
+
     @Override
     public void setMaxRows(RowSelection selection, PreparedStatement statement) throws SQLException {
         getLimitHandler().setMaxRows(selection, statement);
@@ -200,18 +223,33 @@ public abstract class AbstractDialect<T extends AbstractDialect> implements Dial
 
     @Override
     public int bindLimitParametersAtEndOfQuery(RowSelection selection, PreparedStatement statement, int index) throws SQLException {
-        return getLimitHandler().bindLimitParametersAtEndOfQuery(selection, statement, index);
+        LimitPlan plan = getLimitPlan(selection);
+        return plan != null ? plan.bindAtEnd(selection, statement, index) : getLimitHandler().bindLimitParametersAtEndOfQuery(selection, statement, index);
     }
 
     @Override
     public int bindLimitParametersAtStartOfQuery(RowSelection selection, PreparedStatement statement, int index) throws SQLException {
-        return getLimitHandler().bindLimitParametersAtStartOfQuery(selection, statement, index);
+        LimitPlan plan = getLimitPlan(selection);
+        return plan != null ? plan.bindAtStart(selection, statement, index) : getLimitHandler().bindLimitParametersAtStartOfQuery(selection, statement, index);
+    }
+
+    /**
+     * @return the plan of the limit sql of the request, null if the limit sql is not built by this dialect
+     */
+    private LimitPlan getLimitPlan(RowSelection selection) {
+        LimitPlan plan = selection == null ? null : selection.getLimitPlan();
+        return plan != null && plan.getHandler() == getLimitHandler() ? plan : null;
     }
 
     public UrlParser getUrlParser() {
         return getRealDialect().urlParser;
     }
 
+    @Override
+    public RowCountEstimator getRowCountEstimator() {
+        return getRealDialect().rowCountEstimator;
+    }
+
     protected TableGenerator createTableGenerator(DatabaseDescription databaseDescription) {
         return new CommonTableGenerator(databaseDescription, this);
     }
@@ -263,6 +301,31 @@ public abstract class AbstractDialect<T extends AbstractDialect> implements Dial
         return delegate == null ? true : delegate.isSupportsDistinct();
     }
 
+    @Override
+    public boolean isSupportsRowValueComparison() {
+        return delegate == null ? false : delegate.isSupportsRowValueComparison();
+    }
+
+    @Override
+    public boolean isSupportsWindowFunction() {
+        return delegate == null ? false : delegate.isSupportsWindowFunction();
+    }
+
+    @Override
+    public boolean isSupportsFoundRows() {
+        return delegate == null ? false : delegate.isSupportsFoundRows();
+    }
+
+    @Override
+    public boolean isSupportsDeferredJoin() {
+        return delegate == null ? false : delegate.isSupportsDeferredJoin();
+    }
+
+    @Override
+    public Integer getStreamingFetchSize() {
+        return delegate == null ? null : delegate.getStreamingFetchSize();
+    }
+
     @Override
     public boolean isSupportsBatchUpdates() {
         // default is true
@@ -73,4 +73,14 @@ public class DB2Dialect extends AbstractDialect {
             throws SQLException {
         return col;
     }
+
+    @Override
+    public boolean isSupportsRowValueComparison() {
+        return true;
+    }
+
+    @Override
+    public boolean isSupportsWindowFunction() {
+        return true;
+    }
 }
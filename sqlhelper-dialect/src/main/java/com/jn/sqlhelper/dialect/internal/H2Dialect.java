@@ -41,4 +41,9 @@ public class H2Dialect extends AbstractDialect {
     public boolean isBindLimitParametersInReverseOrder() {
         return true;
     }
+
+    @Override
+    public boolean isSupportsRowValueComparison() {
+        return true;
+    }
 }
@@ -40,4 +40,8 @@ public class HSQLDialect extends AbstractDialect {
         return false;
     }
 
+    @Override
+    public boolean isSupportsRowValueComparison() {
+        return true;
+    }
 }
@@ -22,4 +22,9 @@ public class MariaDBDialect extends MySQLDialect {
         super();
         setUrlParser(new MariaDBUrlParser());
     }
+
+    @Override
+    public boolean isSupportsWindowFunction() {
+        return true;
+    }
 }
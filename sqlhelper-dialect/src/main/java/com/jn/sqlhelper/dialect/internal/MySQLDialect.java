@@ -16,6 +16,7 @@
 package com.jn.sqlhelper.dialect.internal;
 
 import com.jn.sqlhelper.dialect.likeescaper.BackslashStyleEscaper;
+import com.jn.sqlhelper.dialect.estimate.MySQLExplainRowCountEstimator;
 import com.jn.sqlhelper.dialect.internal.limit.LimitCommaLimitHandler;
 import com.jn.sqlhelper.dialect.internal.urlparser.MySqlUrlParser;
 
@@ -29,6 +30,7 @@ public class MySQLDialect extends AbstractDialect {
         setUrlParser(new MySqlUrlParser());
         setLimitHandler(new LimitCommaLimitHandler());
         setLikeEscaper(BackslashStyleEscaper.INSTANCE);
+        setRowCountEstimator(new MySQLExplainRowCountEstimator());
     }
 
     @Override
@@ -65,4 +67,27 @@ public class MySQLDialect extends AbstractDialect {
     public boolean isSupportsBatchSql() {
         return true;
     }
+
+    @Override
+    public boolean isSupportsRowValueComparison() {
+        return true;
+    }
+
+    @Override
+    public boolean isSupportsFoundRows() {
+        return true;
+    }
+
+    @Override
+    public boolean isSupportsDeferredJoin() {
+        return true;
+    }
+
+    /**
+     * Connector/J streams the rows one by one only if the fetch size is Integer.MIN_VALUE
+     */
+    @Override
+    public Integer getStreamingFetchSize() {
+        return Integer.MIN_VALUE;
+    }
 }
@@ -230,4 +230,9 @@ public class OracleDialect extends AbstractDialect {
             return this.oracleCursorTypeSqlType;
         }
     }
+
+    @Override
+    public boolean isSupportsWindowFunction() {
+        return true;
+    }
 }
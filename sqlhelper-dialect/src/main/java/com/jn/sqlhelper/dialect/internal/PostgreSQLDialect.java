@@ -16,6 +16,7 @@
 package com.jn.sqlhelper.dialect.internal;
 
 import com.jn.sqlhelper.dialect.likeescaper.BackslashStyleEscaper;
+import com.jn.sqlhelper.dialect.estimate.PostgreSQLExplainRowCountEstimator;
 import com.jn.sqlhelper.dialect.internal.limit.LimitOffsetLimitHandler;
 import com.jn.sqlhelper.dialect.internal.urlparser.PostgreSQLUrlParser;
 
@@ -32,6 +33,7 @@ public class PostgreSQLDialect extends AbstractDialect {
         setUrlParser(new PostgreSQLUrlParser());
         setLimitHandler(new LimitOffsetLimitHandler());
         setLikeEscaper(BackslashStyleEscaper.NON_DEFAULT_INSTANCE);
+        setRowCountEstimator(new PostgreSQLExplainRowCountEstimator());
     }
 
     @Override
@@ -55,4 +57,22 @@ public class PostgreSQLDialect extends AbstractDialect {
         statement.registerOutParameter(col++, 1111);
         return col;
     }
+
+    @Override
+    public boolean isSupportsRowValueComparison() {
+        return true;
+    }
+
+    @Override
+    public boolean isSupportsWindowFunction() {
+        return true;
+    }
+
+    /**
+     * the driver uses a server side cursor if the fetch size is positive and the auto commit is off
+     */
+    @Override
+    public Integer getStreamingFetchSize() {
+        return 1000;
+    }
 }
@@ -171,6 +171,11 @@ public class SQLServerDialect extends AbstractTransactSQLDialect {
         public char getAfterQuote() {
             return ']';
         }
+
+        @Override
+        public boolean isSupportsWindowFunction() {
+            return true;
+        }
     }
 
     @Name("sqlserver2008")
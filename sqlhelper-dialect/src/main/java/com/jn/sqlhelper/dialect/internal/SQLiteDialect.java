@@ -52,4 +52,9 @@ public class SQLiteDialect extends AbstractDialect {
     public boolean isBindLimitParametersInReverseOrder() {
         return true;
     }
+
+    @Override
+    public boolean isSupportsRowValueComparison() {
+        return true;
+    }
 }
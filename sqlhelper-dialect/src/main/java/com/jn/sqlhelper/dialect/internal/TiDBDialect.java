@@ -46,4 +46,17 @@ public class TiDBDialect extends AbstractDialect {
     public boolean isBindLimitParametersInReverseOrder() {
         return true;
     }
+
+    @Override
+    public boolean isSupportsDeferredJoin() {
+        return true;
+    }
+
+    /**
+     * the MySQL protocol, see {@link MySQLDialect#getStreamingFetchSize()}
+     */
+    @Override
+    public Integer getStreamingFetchSize() {
+        return Integer.MIN_VALUE;
+    }
 }
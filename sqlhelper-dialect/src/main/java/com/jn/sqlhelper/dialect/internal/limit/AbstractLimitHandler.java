@@ -23,20 +23,16 @@ import java.sql.SQLException;
 
 public abstract class AbstractLimitHandler extends LimitHandler {
 
-    protected long convertToFirstRowValue(long zeroBasedFirstResult) {
-        return zeroBasedFirstResult;
-    }
-
     @Override
     public int bindLimitParametersAtStartOfQuery(RowSelection selection, PreparedStatement statement, int index)
             throws SQLException {
-        return getDialect().isBindLimitParametersFirst() ? bindLimitParameters(selection, statement, index) : 0;
+        return LimitPlan.bind(this, getLimitParameters(LimitHelper.hasFirstRow(selection), true), selection, statement, index);
     }
 
     @Override
     public int bindLimitParametersAtEndOfQuery(RowSelection selection, PreparedStatement statement, int index)
             throws SQLException {
-        return !getDialect().isBindLimitParametersFirst() ? bindLimitParameters(selection, statement, index) : 0;
+        return LimitPlan.bind(this, getLimitParameters(LimitHelper.hasFirstRow(selection), false), selection, statement, index);
     }
 
     @Override
@@ -48,23 +44,20 @@ public abstract class AbstractLimitHandler extends LimitHandler {
     }
 
 
-    private int bindLimitParameters(RowSelection selection, PreparedStatement statement, int index)
-            throws SQLException {
-        if ((!getDialect().isUseLimitInVariableMode()) || (!LimitHelper.hasMaxRows(selection))) {
-            return 0;
+    @Override
+    protected LimitPlan.Parameter[] getLimitParameters(boolean hasOffset, boolean atStart) {
+        if (!getDialect().isUseLimitInVariableMode() || getDialect().isBindLimitParametersFirst() != atStart) {
+            return new LimitPlan.Parameter[0];
         }
-        long firstRow = convertToFirstRowValue(LimitHelper.getFirstRow(selection));
-        int lastRow = getMaxOrLimit(selection);
-        boolean hasFirstRow = (getDialect().isSupportsLimitOffset()) && ((firstRow > 0) || (getDialect().isForceLimitUsage()));
-        boolean reverse = getDialect().isBindLimitParametersInReverseOrder();
-        if (hasFirstRow) {
-            statement.setInt(index + (reverse ? 1 : 0), Long.valueOf(firstRow).intValue());
+        boolean hasFirstRow = getDialect().isSupportsLimitOffset() && (convertToFirstRowValue(hasOffset ? 1 : 0) > 0 || getDialect().isForceLimitUsage());
+        if (!hasFirstRow) {
+            return new LimitPlan.Parameter[]{LimitPlan.Parameter.MAX_OR_LIMIT};
         }
-        statement.setInt(index + ((reverse) || (!hasFirstRow) ? 0 : 1), lastRow);
-        return hasFirstRow ? 2 : 1;
+        return getDialect().isBindLimitParametersInReverseOrder()
+                ? new LimitPlan.Parameter[]{LimitPlan.Parameter.MAX_OR_LIMIT, LimitPlan.Parameter.FIRST_ROW}
+                : new LimitPlan.Parameter[]{LimitPlan.Parameter.FIRST_ROW, LimitPlan.Parameter.MAX_OR_LIMIT};
     }
 
-
     protected final int getMaxOrLimit(RowSelection selection) {
         long firstRow = convertToFirstRowValue(LimitHelper.getFirstRow(selection));
         int limit = selection.getLimit();
@@ -20,9 +20,23 @@ import com.jn.sqlhelper.dialect.pagination.RowSelection;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.Map;
+import java.util.TreeMap;
 
 
 public abstract class LimitHandler {
+    /**
+     * the parameters whose values are found in the probed sql, a former one is preferred if the values are same
+     */
+    private static final LimitPlan.Parameter[] PROBED_PARAMETERS = {LimitPlan.Parameter.LIMIT, LimitPlan.Parameter.MAX_OR_LIMIT, LimitPlan.Parameter.OFFSET, LimitPlan.Parameter.FIRST_ROW};
+    /**
+     * the probe values are large enough to be distinguished from the numbers of the sql,
+     * and (offset + limit) is less than Integer.MAX_VALUE
+     */
+    private static final long[] PROBE_OFFSETS = {100000007L, 200000009L};
+    private static final int[] PROBE_LIMITS = {300000007, 500000009};
+    private static final long MIN_PROBE_VALUE = PROBE_OFFSETS[0];
+
     private Dialect dialect;
 
     public Dialect getDialect() {
@@ -36,6 +50,145 @@ public abstract class LimitHandler {
 
     public abstract String processSql(String sql, RowSelection rowSelection);
 
+    /**
+     * Compile the limit sql of the sql once, then it is rendered for every request without scanning the sql again.
+     * <p>
+     * The sql is processed with a probe selection, the probe values in the limit sql become the splice points,
+     * and the plan is checked with another probe selection if the limit sql has any number which is not in the sql.
+     *
+     * A sql which has any probe value already is not compiled, the value in the sql can't be told from a splice point.
+     *
+     * @param hasOffset whether the offset of the requests is greater than 0
+     * @return the plan, null if the limit sql can't be compiled, then it is processed for every request
+     */
+    public LimitPlan compile(String sql, boolean hasOffset) {
+        if (containsProbe(sql, hasOffset)) {
+            return null;
+        }
+        RowSelection probe = probe(hasOffset, 0);
+        String limitSql = processSql(sql, probe);
+
+        // start index -> the parameter
+        TreeMap<Integer, LimitPlan.Parameter> splices = new TreeMap<Integer, LimitPlan.Parameter>();
+        for (LimitPlan.Parameter parameter : PROBED_PARAMETERS) {
+            long value = parameter.valueOf(this, probe);
+            if (value < MIN_PROBE_VALUE) {
+                continue;
+            }
+            String valueString = String.valueOf(value);
+            int index = indexOfNumber(limitSql, valueString, 0);
+            while (index >= 0) {
+                if (!splices.containsKey(index)) {
+                    splices.put(index, parameter);
+                }
+                index = indexOfNumber(limitSql, valueString, index + valueString.length());
+            }
+        }
+
+        String[] fragments = new String[splices.size() + 1];
+        LimitPlan.Parameter[] parameters = new LimitPlan.Parameter[splices.size()];
+        int i = 0;
+        int fragmentStart = 0;
+        for (Map.Entry<Integer, LimitPlan.Parameter> splice : splices.entrySet()) {
+            fragments[i] = limitSql.substring(fragmentStart, splice.getKey());
+            parameters[i] = splice.getValue();
+            fragmentStart = splice.getKey() + String.valueOf(parameters[i].valueOf(this, probe)).length();
+            i++;
+        }
+        fragments[i] = limitSql.substring(fragmentStart);
+
+        LimitPlan plan = new LimitPlan(this, hasOffset, getDialect().isUseLimitInVariableMode(), fragments, parameters, getLimitParameters(hasOffset, true), getLimitParameters(hasOffset, false));
+        if (!splices.isEmpty() || hasUnknownNumber(sql, limitSql)) {
+            probe = probe(hasOffset, 1);
+            if (!plan.render(probe).equals(processSql(sql, probe))) {
+                return null;
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * @param hasOffset whether the offset of the requests is greater than 0
+     * @param atStart   the parameters are bound before the original parameters or after them
+     * @return the limit parameters in the bind order, null if they are bound by the bindLimitParametersAt* methods
+     */
+    protected LimitPlan.Parameter[] getLimitParameters(boolean hasOffset, boolean atStart) {
+        return null;
+    }
+
+    protected long convertToFirstRowValue(long zeroBasedFirstResult) {
+        return zeroBasedFirstResult;
+    }
+
+    /**
+     * @return whether the sql has the text of any value which is derived from the probe selections
+     */
+    private boolean containsProbe(String sql, boolean hasOffset) {
+        for (int i = 0; i < PROBE_LIMITS.length; i++) {
+            RowSelection probe = probe(hasOffset, i);
+            for (LimitPlan.Parameter parameter : LimitPlan.Parameter.values()) {
+                long value = parameter.valueOf(this, probe);
+                if (value >= MIN_PROBE_VALUE && sql.contains(String.valueOf(value))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static RowSelection probe(boolean hasOffset, int i) {
+        RowSelection probe = new RowSelection();
+        probe.setOffset(hasOffset ? PROBE_OFFSETS[i] : 0L);
+        probe.setLimit(PROBE_LIMITS[i]);
+        return probe;
+    }
+
+    /**
+     * @return the index of the number which is not a part of another number or a name
+     */
+    private static int indexOfNumber(String sql, String number, int fromIndex) {
+        int index = sql.indexOf(number, fromIndex);
+        while (index >= 0) {
+            int end = index + number.length();
+            if ((index == 0 || !isNamePart(sql.charAt(index - 1))) && (end == sql.length() || !Character.isDigit(sql.charAt(end)))) {
+                return index;
+            }
+            index = sql.indexOf(number, index + 1);
+        }
+        return -1;
+    }
+
+    /**
+     * @return whether the limit sql has more numbers than the sql, e.g. the sum of the offset and the limit
+     */
+    private static boolean hasUnknownNumber(String sql, String limitSql) {
+        return countNumbers(limitSql) > countNumbers(sql);
+    }
+
+    private static int countNumbers(String sql) {
+        int count = 0;
+        boolean inName = false;
+        boolean inNumber = false;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (Character.isDigit(c)) {
+                if (!inName && !inNumber) {
+                    inNumber = true;
+                    count++;
+                }
+            } else {
+                inNumber = false;
+                // the digits in a name are not a number, e.g. rownum_1
+                inName = isNamePart(c);
+            }
+        }
+        return count;
+    }
+
+    private static boolean isNamePart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
 
     protected String getLimitString(String sql, long offset, int limit) {
         return getLimitString(sql, (offset > 0) || (getDialect().isForceLimitUsage()));
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.dialect.internal.limit;
+
+import com.jn.langx.annotation.Nullable;
+import com.jn.langx.util.Preconditions;
+import com.jn.sqlhelper.dialect.pagination.RowSelection;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * The precompiled limit sql of a (sql, dialect), it is immutable and has no state of a request, so it can be cached and shared.
+ * <p>
+ * The limit sql is a template of fragments and splice points, a splice point is replaced with the value of a
+ * {@link Parameter} when the sql is rendered, it is used by the literal mode. In the variable mode the limit parameters are
+ * placeholders in the fragments, and they are bound with the start parameters and the end parameters:
+ * <pre>
+ *     sql: fragments[0] + splices[0] + fragments[1] + ... + fragments[n]
+ *     parameters: startParameters, the original parameters, endParameters
+ * </pre>
+ *
+ * @see LimitHandler#compile(String, boolean)
+ */
+public final class LimitPlan {
+    private static final Parameter[] NO_PARAMETERS = new Parameter[0];
+
+    private final LimitHandler handler;
+    private final boolean hasOffset;
+    private final boolean variableMode;
+    private final String[] fragments;
+    private final Parameter[] splices;
+    private final Parameter[] startParameters;
+    private final Parameter[] endParameters;
+    private final int length;
+
+    /**
+     * @param fragments       the sql fragments, it has one more element than the splices
+     * @param splices         the values which are spliced between the fragments
+     * @param startParameters the limit parameters which are bound before the original parameters, null if they are bound by the handler
+     * @param endParameters   the limit parameters which are bound after the original parameters, null if they are bound by the handler
+     */
+    public LimitPlan(LimitHandler handler, boolean hasOffset, boolean variableMode, String[] fragments, @Nullable Parameter[] splices, @Nullable Parameter[] startParameters, @Nullable Parameter[] endParameters) {
+        Preconditions.checkNotNull(handler);
+        splices = splices == null ? NO_PARAMETERS : splices;
+        Preconditions.checkArgument(fragments.length == splices.length + 1, "the fragments must have one more element than the splices");
+        this.handler = handler;
+        this.hasOffset = hasOffset;
+        this.variableMode = variableMode;
+        this.fragments = fragments;
+        this.splices = splices;
+        this.startParameters = startParameters;
+        this.endParameters = endParameters;
+        int length = 0;
+        for (String fragment : fragments) {
+            length += fragment.length();
+        }
+        this.length = length;
+    }
+
+    public LimitHandler getHandler() {
+        return handler;
+    }
+
+    public boolean hasOffset() {
+        return hasOffset;
+    }
+
+    public boolean isVariableMode() {
+        return variableMode;
+    }
+
+    /**
+     * @return the char length of the template
+     */
+    public int length() {
+        return length;
+    }
+
+    public String render(RowSelection selection) {
+        if (splices.length == 0) {
+            return fragments[0];
+        }
+        StringBuilder builder = new StringBuilder(length + splices.length * 10);
+        builder.append(fragments[0]);
+        for (int i = 0; i < splices.length; i++) {
+            builder.append(splices[i].valueOf(handler, selection)).append(fragments[i + 1]);
+        }
+        return builder.toString();
+    }
+
+    public int bindAtStart(RowSelection selection, PreparedStatement statement, int index) throws SQLException {
+        if (startParameters == null) {
+            return handler.bindLimitParametersAtStartOfQuery(selection, statement, index);
+        }
+        return bind(handler, startParameters, selection, statement, index);
+    }
+
+    public int bindAtEnd(RowSelection selection, PreparedStatement statement, int index) throws SQLException {
+        if (endParameters == null) {
+            return handler.bindLimitParametersAtEndOfQuery(selection, statement, index);
+        }
+        return bind(handler, endParameters, selection, statement, index);
+    }
+
+    static int bind(LimitHandler handler, Parameter[] parameters, RowSelection selection, PreparedStatement statement, int index) throws SQLException {
+        if (parameters.length == 0 || !LimitHelper.hasMaxRows(selection)) {
+            return 0;
+        }
+        for (int i = 0; i < parameters.length; i++) {
+            statement.setInt(index + i, Long.valueOf(parameters[i].valueOf(handler, selection)).intValue());
+        }
+        return parameters.length;
+    }
+
+    /**
+     * The values of a limit clause.
+     */
+    public enum Parameter {
+        /**
+         * the zero based offset
+         */
+        OFFSET {
+            @Override
+            long valueOf(LimitHandler handler, RowSelection selection) {
+                return LimitHelper.getFirstRow(selection);
+            }
+        },
+        /**
+         * the offset which is converted by the handler, e.g. it is one based
+         */
+        FIRST_ROW {
+            @Override
+            long valueOf(LimitHandler handler, RowSelection selection) {
+                return handler.convertToFirstRowValue(LimitHelper.getFirstRow(selection));
+            }
+        },
+        LIMIT {
+            @Override
+            long valueOf(LimitHandler handler, RowSelection selection) {
+                return selection.getLimit();
+            }
+        },
+        /**
+         * the first row + the limit if the dialect uses the max for the limit, else the limit
+         */
+        MAX_OR_LIMIT {
+            @Override
+            long valueOf(LimitHandler handler, RowSelection selection) {
+                int limit = selection.getLimit();
+                return handler.getDialect().isUseMaxForLimit() ? Long.valueOf(limit + FIRST_ROW.valueOf(handler, selection)).intValue() : limit;
+            }
+        },
+        /**
+         * the zero based offset + the limit, the count of the rows from the first row of the result
+         */
+        END_ROW {
+            @Override
+            long valueOf(LimitHandler handler, RowSelection selection) {
+                return LimitHelper.getFirstRow(selection) + selection.getLimit();
+            }
+        };
+
+        abstract long valueOf(LimitHandler handler, RowSelection selection);
+    }
+}
@@ -39,6 +39,11 @@ public class NoopLimitHandler
         return 0;
     }
 
+    @Override
+    protected LimitPlan.Parameter[] getLimitParameters(boolean hasOffset, boolean atStart) {
+        return new LimitPlan.Parameter[0];
+    }
+
     @Override
     public void setMaxRows(RowSelection selection, PreparedStatement statement) throws SQLException {
         if (LimitHelper.hasMaxRows(selection)) {
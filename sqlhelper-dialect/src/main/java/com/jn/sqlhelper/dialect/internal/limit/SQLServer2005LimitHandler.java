@@ -40,7 +40,7 @@ public class SQLServer2005LimitHandler
     private static final Pattern ALIAS_PATTERN = Pattern.compile("(?![^\\[]*(\\]))\\S+\\s*(\\s(?i)as\\s)\\s*(\\S+)*\\s*$|(?![^\\[]*(\\]))\\s+(\\S+)$");
 
 
-    private boolean topAdded;
+    private static final LimitPlan.Parameter[] TOP_PARAMETERS = {LimitPlan.Parameter.END_ROW};
 
     @Override
     public long convertToFirstRowValue(long zeroBasedFirstResult) {
@@ -49,16 +49,27 @@ public class SQLServer2005LimitHandler
 
     @Override
     public String processSql(String sql, RowSelection selection) {
+        return compile(sql, LimitHelper.hasFirstRow(selection)).render(selection);
+    }
+
+    /**
+     * The TOP(?) is added if the sql has no offset or it has an order by, so the parameters at start depend on the sql,
+     * they are decided here rather than in every binding.
+     */
+    @Override
+    public LimitPlan compile(String sql, boolean hasOffset) {
         StringBuilder sb = new StringBuilder(sql);
         if (sb.charAt(sb.length() - 1) == ';') {
             sb.setLength(sb.length() - 1);
         }
 
-        if (LimitHelper.hasFirstRow(selection)) {
+        boolean topAdded = true;
+        if (hasOffset) {
             String selectClause = fillAliasInSelectClause(sb);
 
             int orderByIndex = shallowIndexOfPattern(sb, ORDER_BY_PATTERN, 0);
-            if (orderByIndex > 0) {
+            topAdded = orderByIndex > 0;
+            if (topAdded) {
                 addTopExpression(sb);
             }
 
@@ -71,21 +82,26 @@ public class SQLServer2005LimitHandler
             addTopExpression(sb);
         }
 
-        return sb.toString();
+        return new LimitPlan(this, hasOffset, getDialect().isUseLimitInVariableMode(), new String[]{sb.toString()}, null,
+                topAdded ? TOP_PARAMETERS : new LimitPlan.Parameter[0], getLimitParameters(hasOffset, false));
     }
 
+    /**
+     * Without the {@link LimitPlan} of the sql, the TOP(?) is known to be added only if there is no offset.
+     */
     @Override
     public int bindLimitParametersAtStartOfQuery(RowSelection selection, PreparedStatement statement, int index) throws SQLException {
-        if (this.topAdded) {
-            statement.setInt(index, getMaxOrLimit(selection) - 1);
-            return 1;
-        }
-        return 0;
+        return LimitHelper.hasFirstRow(selection) ? 0 : LimitPlan.bind(this, TOP_PARAMETERS, selection, statement, index);
     }
 
     @Override
     public int bindLimitParametersAtEndOfQuery(RowSelection selection, PreparedStatement statement, int index) throws SQLException {
-        return LimitHelper.hasFirstRow(selection) ? super.bindLimitParametersAtEndOfQuery(selection, statement, index) : 0;
+        return LimitPlan.bind(this, getLimitParameters(LimitHelper.hasFirstRow(selection), false), selection, statement, index);
+    }
+
+    @Override
+    protected LimitPlan.Parameter[] getLimitParameters(boolean hasOffset, boolean atStart) {
+        return hasOffset && !atStart ? super.getLimitParameters(true, false) : new LimitPlan.Parameter[0];
     }
 
 
@@ -297,7 +313,6 @@ public class SQLServer2005LimitHandler
         } else {
             sql.insert(selectPos + "select".length(), " TOP(?)");
         }
-        this.topAdded = true;
     }
 
 
@@ -154,6 +154,8 @@ public class LikeEscapers {
                 }
                 readedParameterCount = readedParameterCount + parameterCountInLikeClause;
                 segmentStartIndex = readedLength;
+                // the keyword is read too, else the slots of the next like clauses are moved forward
+                readedLength = readedLength + token.length();
             } else {
                 readedLength = readedLength + token.length();
             }
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.dialect.metrics;
+
+import com.jn.langx.util.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Exposes the metrics as MBeans, one MBean for a metric name and its tags:
+ * <pre>
+ *     com.jn.sqlhelper:name=sqlhelper.pagination.page,statement="com.x.UserMapper.select",dialect="mysql"
+ * </pre>
+ * A counter or a timer has the count of the records, the total, the max and the mean of the recorded values,
+ * the values of a timer are in nanoseconds.
+ */
+public class JmxMetricsRecorder implements MetricsRecorder {
+    private static final Logger logger = LoggerFactory.getLogger(JmxMetricsRecorder.class);
+    public static final String DEFAULT_DOMAIN = "com.jn.sqlhelper";
+    private static final String NONE = "none";
+
+    private final MBeanServer mBeanServer;
+    private final String domain;
+    private final MetricTable<Metric> metrics = new MetricTable<Metric>();
+
+    public JmxMetricsRecorder() {
+        this(ManagementFactory.getPlatformMBeanServer(), DEFAULT_DOMAIN);
+    }
+
+    public JmxMetricsRecorder(MBeanServer mBeanServer, String domain) {
+        Preconditions.checkNotNull(mBeanServer);
+        Preconditions.checkNotNull(domain);
+        this.mBeanServer = mBeanServer;
+        this.domain = domain;
+    }
+
+    @Override
+    public void count(String name, String statementId, String dialect, long amount) {
+        getMetric(name, statementId, dialect).record(amount);
+    }
+
+    @Override
+    public void time(String name, String statementId, String dialect, long nanos) {
+        getMetric(name, statementId, dialect).record(nanos);
+    }
+
+    @Override
+    public void gauge(String name, String id, final Gauge gauge) {
+        register(name + ",id=" + ObjectName.quote(id == null ? NONE : id), new GaugeMBean() {
+            @Override
+            public double getValue() {
+                return gauge.get();
+            }
+        }, GaugeMBean.class);
+    }
+
+    private Metric getMetric(String name, String statementId, String dialect) {
+        Metric metric = metrics.get(name, statementId, dialect);
+        if (metric == null) {
+            metric = new Metric();
+            Metric existing = metrics.putIfAbsent(name, statementId, dialect, metric);
+            if (existing != metric) {
+                return existing;
+            }
+            register(name
+                    + ",statement=" + ObjectName.quote(statementId == null ? NONE : statementId)
+                    + ",dialect=" + ObjectName.quote(dialect == null ? NONE : dialect), metric, MetricMBean.class);
+        }
+        return metric;
+    }
+
+    private <T> void register(String properties, T mBean, Class<T> mBeanInterface) {
+        try {
+            ObjectName objectName = new ObjectName(domain + ":name=" + properties);
+            if (!mBeanServer.isRegistered(objectName)) {
+                mBeanServer.registerMBean(new StandardMBean(mBean, mBeanInterface), objectName);
+            }
+        } catch (Throwable ex) {
+            logger.warn("Can't register the sqlhelper metric {}, error: {}", properties, ex.getMessage());
+        }
+    }
+
+    public interface MetricMBean {
+        long getCount();
+
+        long getTotal();
+
+        long getMax();
+
+        double getMean();
+    }
+
+    public interface GaugeMBean {
+        double getValue();
+    }
+
+    private static class Metric implements MetricMBean {
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong total = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        private void record(long value) {
+            count.incrementAndGet();
+            total.addAndGet(value);
+            long current;
+            while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+                // retry
+            }
+        }
+
+        @Override
+        public long getCount() {
+            return count.get();
+        }
+
+        @Override
+        public long getTotal() {
+            return total.get();
+        }
+
+        @Override
+        public long getMax() {
+            return max.get();
+        }
+
+        @Override
+        public double getMean() {
+            long n = count.get();
+            return n == 0 ? 0 : (double) total.get() / n;
+        }
+    }
+}
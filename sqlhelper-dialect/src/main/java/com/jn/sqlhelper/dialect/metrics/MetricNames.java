@@ -0,0 +1,70 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.dialect.metrics;
+
+/**
+ * The names of the metrics recorded by sqlhelper.
+ */
+public final class MetricNames {
+    /**
+     * timer, the time of parsing a sql
+     */
+    public static final String INSTRUMENT_PARSE = "sqlhelper.instrument.parse";
+    /**
+     * timer, the time of transforming a sql to a count sql or an order by sql
+     */
+    public static final String INSTRUMENT_TRANSFORM = "sqlhelper.instrument.transform";
+    /**
+     * counter, an instrumented sql (count sql, order by sql, limit plan) is found in the cache
+     */
+    public static final String INSTRUMENT_CACHE_HIT = "sqlhelper.instrument.cache.hit";
+    /**
+     * counter, an instrumented sql is not in the cache, so it is generated
+     */
+    public static final String INSTRUMENT_CACHE_MISS = "sqlhelper.instrument.cache.miss";
+    /**
+     * gauge, the count of the statements in the instrumented sql cache
+     */
+    public static final String INSTRUMENT_CACHE_SIZE = "sqlhelper.instrument.cache.size";
+    /**
+     * gauge, the weight of the statements in the instrumented sql cache
+     */
+    public static final String INSTRUMENT_CACHE_WEIGHT = "sqlhelper.instrument.cache.weight";
+
+    /**
+     * timer, the time of a count query
+     */
+    public static final String PAGINATION_COUNT = "sqlhelper.pagination.count";
+    /**
+     * timer, the time of a page query
+     */
+    public static final String PAGINATION_PAGE = "sqlhelper.pagination.page";
+    /**
+     * counter, the rows returned by the page queries
+     */
+    public static final String PAGINATION_ROWS = "sqlhelper.pagination.rows";
+    /**
+     * counter, the requested page no is greater than the max page no
+     */
+    public static final String PAGINATION_PAGE_OUT = "sqlhelper.pagination.pageout";
+
+    /**
+     * timer, the time of resolving the dialect of a data source which is not cached
+     */
+    public static final String DIALECT_RESOLVE = "sqlhelper.dialect.resolve";
+
+    private MetricNames() {
+    }
+}
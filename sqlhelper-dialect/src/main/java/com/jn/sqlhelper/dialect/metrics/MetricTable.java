@@ -0,0 +1,66 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.dialect.metrics;
+
+import com.jn.langx.annotation.Nullable;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The metrics of a {@link MetricsRecorder} by the name, the statement id and the dialect.
+ * The maps are nested, so a metric is found without allocating a key. A null tag is stored as "none".
+ *
+ * @param <M> the metric, e.g. a counter or a timer of the metrics system
+ */
+public class MetricTable<M> {
+    private static final String NONE = "none";
+    private final ConcurrentMap<String, ConcurrentMap<String, ConcurrentMap<String, M>>> metrics = new ConcurrentHashMap<String, ConcurrentMap<String, ConcurrentMap<String, M>>>();
+
+    @Nullable
+    public M get(String name, @Nullable String statementId, @Nullable String dialect) {
+        ConcurrentMap<String, ConcurrentMap<String, M>> statementMetrics = metrics.get(name);
+        if (statementMetrics == null) {
+            return null;
+        }
+        ConcurrentMap<String, M> dialectMetrics = statementMetrics.get(statementId == null ? NONE : statementId);
+        return dialectMetrics == null ? null : dialectMetrics.get(dialect == null ? NONE : dialect);
+    }
+
+    /**
+     * @return the existing metric, or the metric if it is added
+     */
+    public M putIfAbsent(String name, @Nullable String statementId, @Nullable String dialect, M metric) {
+        ConcurrentMap<String, ConcurrentMap<String, M>> statementMetrics = metrics.get(name);
+        if (statementMetrics == null) {
+            statementMetrics = new ConcurrentHashMap<String, ConcurrentMap<String, M>>();
+            ConcurrentMap<String, ConcurrentMap<String, M>> existing = metrics.putIfAbsent(name, statementMetrics);
+            if (existing != null) {
+                statementMetrics = existing;
+            }
+        }
+        String statementKey = statementId == null ? NONE : statementId;
+        ConcurrentMap<String, M> dialectMetrics = statementMetrics.get(statementKey);
+        if (dialectMetrics == null) {
+            dialectMetrics = new ConcurrentHashMap<String, M>();
+            ConcurrentMap<String, M> existing = statementMetrics.putIfAbsent(statementKey, dialectMetrics);
+            if (existing != null) {
+                dialectMetrics = existing;
+            }
+        }
+        M existing = dialectMetrics.putIfAbsent(dialect == null ? NONE : dialect, metric);
+        return existing == null ? metric : existing;
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.dialect.metrics;
+
+import com.jn.langx.annotation.Nullable;
+
+/**
+ * Records the metrics of sqlhelper into a metrics system.
+ * <p>
+ * The tags are passed as fixed parameters rather than a map or an array, so nothing is allocated for them by the caller.
+ * A tag is null if it is unknown, e.g. a sql executed by a JdbcTemplate has no statement id.
+ *
+ * @see SqlHelperMetrics#setRecorder(MetricsRecorder)
+ * @see MetricNames
+ */
+public interface MetricsRecorder {
+    /**
+     * Increase a counter, e.g. the cache hits or the rows returned by the page queries
+     */
+    void count(String name, @Nullable String statementId, @Nullable String dialect, long amount);
+
+    /**
+     * Record an elapsed time of a timer
+     */
+    void time(String name, @Nullable String statementId, @Nullable String dialect, long nanos);
+
+    /**
+     * Register a gauge, it is sampled by the metrics system
+     *
+     * @param id the owner of the gauge, e.g. the name of an instrumentor, it is the same after a restart
+     */
+    void gauge(String name, @Nullable String id, Gauge gauge);
+}
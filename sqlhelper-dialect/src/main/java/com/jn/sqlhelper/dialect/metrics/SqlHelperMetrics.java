@@ -0,0 +1,147 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.dialect.metrics;
+
+import com.jn.langx.annotation.Nullable;
+import com.jn.langx.util.Preconditions;
+import com.jn.sqlhelper.dialect.Dialect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The holder of the {@link MetricsRecorder} used by sqlhelper.
+ * <p>
+ * The recorder is the first one of the {@link ServiceLoader}, or the one set with {@link #setRecorder(MetricsRecorder)}.
+ * It is a no-op recorder by default, then the hooks neither read the clock nor allocate anything:
+ * <pre>
+ *     long startTime = SqlHelperMetrics.startTimer();
+ *     ...
+ *     SqlHelperMetrics.stopTimer(MetricNames.PAGINATION_PAGE, statementId, dialect, startTime);
+ * </pre>
+ * The gauges are kept, and registered again when the recorder is replaced.
+ */
+public class SqlHelperMetrics {
+    private static final Logger logger = LoggerFactory.getLogger(SqlHelperMetrics.class);
+    private static final MetricsRecorder NOOP = new MetricsRecorder() {
+        @Override
+        public void count(String name, String statementId, String dialect, long amount) {
+        }
+
+        @Override
+        public void time(String name, String statementId, String dialect, long nanos) {
+        }
+
+        @Override
+        public void gauge(String name, String id, Gauge gauge) {
+        }
+    };
+    private static final List<NamedGauge> gauges = new CopyOnWriteArrayList<NamedGauge>();
+    private static volatile MetricsRecorder recorder = loadRecorder();
+
+    private SqlHelperMetrics() {
+    }
+
+    private static MetricsRecorder loadRecorder() {
+        try {
+            Iterator<MetricsRecorder> iterator = ServiceLoader.load(MetricsRecorder.class).iterator();
+            if (iterator.hasNext()) {
+                MetricsRecorder metricsRecorder = iterator.next();
+                logger.info("Record the sqlhelper metrics with {}", metricsRecorder.getClass().getName());
+                return metricsRecorder;
+            }
+        } catch (Throwable ex) {
+            logger.warn("Can't load the metrics recorder, the metrics will not be recorded, error: {}", ex.getMessage(), ex);
+        }
+        return NOOP;
+    }
+
+    public static MetricsRecorder getRecorder() {
+        return recorder;
+    }
+
+    /**
+     * @param metricsRecorder the recorder, null to disable the metrics
+     */
+    public static void setRecorder(@Nullable MetricsRecorder metricsRecorder) {
+        MetricsRecorder newRecorder = metricsRecorder == null ? NOOP : metricsRecorder;
+        recorder = newRecorder;
+        for (NamedGauge gauge : gauges) {
+            newRecorder.gauge(gauge.name, gauge.id, gauge.gauge);
+        }
+    }
+
+    public static boolean isEnabled() {
+        return recorder != NOOP;
+    }
+
+    /**
+     * @return the start time of a timer, 0 if the metrics is disabled
+     */
+    public static long startTimer() {
+        return recorder == NOOP ? 0 : System.nanoTime();
+    }
+
+    /**
+     * @param startTime the value of {@link #startTimer()}, the time is not recorded if it is 0
+     */
+    public static void stopTimer(String name, @Nullable String statementId, @Nullable String dialect, long startTime) {
+        MetricsRecorder metricsRecorder = recorder;
+        if (startTime != 0 && metricsRecorder != NOOP) {
+            metricsRecorder.time(name, statementId, dialect, System.nanoTime() - startTime);
+        }
+    }
+
+    public static void count(String name, @Nullable String statementId, @Nullable String dialect, long amount) {
+        MetricsRecorder metricsRecorder = recorder;
+        if (metricsRecorder != NOOP) {
+            metricsRecorder.count(name, statementId, dialect, amount);
+        }
+    }
+
+    /**
+     * @param id the owner of the gauge, e.g. the name of an instrumentor
+     */
+    public static void gauge(String name, @Nullable String id, Gauge gauge) {
+        Preconditions.checkNotNull(name);
+        Preconditions.checkNotNull(gauge);
+        gauges.add(new NamedGauge(name, id, gauge));
+        recorder.gauge(name, id, gauge);
+    }
+
+    /**
+     * @return the database id of the dialect as the dialect tag
+     */
+    @Nullable
+    public static String getDialectTag(@Nullable Dialect dialect) {
+        return dialect == null ? null : dialect.getDatabaseId();
+    }
+
+    private static class NamedGauge {
+        private final String name;
+        private final String id;
+        private final Gauge gauge;
+
+        private NamedGauge(String name, String id, Gauge gauge) {
+            this.name = name;
+            this.id = id;
+            this.gauge = gauge;
+        }
+    }
+}
@@ -28,6 +28,11 @@ import java.util.*;
 public class OrderBy implements Serializable, Iterable<OrderByItem> {
     public static final OrderBy EMPTY = new OrderBy();
     private final Map<String, OrderByItem> items = new LinkedHashMap<String, OrderByItem>();
+    /**
+     * the compact key, it is computed when first used, and recomputed when the items or an item is changed
+     */
+    private transient volatile Key key;
+    private transient volatile int modCount;
 
     public boolean isValid() {
         return !items.isEmpty();
@@ -35,6 +40,7 @@ public class OrderBy implements Serializable, Iterable<OrderByItem> {
 
     public void add(OrderByItem item) {
         items.put(item.getExpression(), item);
+        modCount++;
     }
 
     public void addAll(Collection<OrderByItem> items) {
@@ -55,7 +61,24 @@ public class OrderBy implements Serializable, Iterable<OrderByItem> {
     @NonNull
     @Override
     public Iterator<OrderByItem> iterator() {
-        return items.values().iterator();
+        final Iterator<OrderByItem> iterator = items.values().iterator();
+        return new Iterator<OrderByItem>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public OrderByItem next() {
+                return iterator.next();
+            }
+
+            @Override
+            public void remove() {
+                iterator.remove();
+                modCount++;
+            }
+        };
     }
 
     @Override
@@ -68,6 +91,36 @@ public class OrderBy implements Serializable, Iterable<OrderByItem> {
         }).getAll());
     }
 
+    /**
+     * a compact key, two order by have the same key if they are equals
+     *
+     * @return the lower case expressions and the types, for example: "name asc,age"
+     */
+    public String getKey() {
+        Key k = this.key;
+        if (k != null && k.isValid(this)) {
+            return k.value;
+        }
+        // the stamps are read before the values, so a change made during the computing makes the key invalid
+        int orderByModCount = this.modCount;
+        int[] itemModCounts = new int[items.size()];
+        StringBuilder builder = new StringBuilder();
+        int i = 0;
+        for (OrderByItem item : items.values()) {
+            itemModCounts[i++] = item.getModCount();
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(Strings.trimToEmpty(item.getExpression()).toLowerCase());
+            if (item.getType() != null) {
+                builder.append(' ').append(item.getType() == OrderByType.ASC ? "asc" : "desc");
+            }
+        }
+        String value = builder.toString();
+        this.key = new Key(value, orderByModCount, itemModCounts);
+        return value;
+    }
+
     @Override
     public boolean equals(Object object) {
         if (this == object) {
@@ -83,12 +136,7 @@ public class OrderBy implements Serializable, Iterable<OrderByItem> {
 
     @Override
     public int hashCode() {
-        return Pipeline.<OrderByItem>of(items.values()).map(new Function<OrderByItem, Integer>() {
-            @Override
-            public Integer apply(OrderByItem item) {
-                return item.hashCode();
-            }
-        }).sum().intValue();
+        return getKey().hashCode();
     }
 
     public void setComparator(String itemExpression, Comparator comparator) {
@@ -97,4 +145,32 @@ public class OrderBy implements Serializable, Iterable<OrderByItem> {
             item.setComparator(comparator);
         }
     }
+
+    /**
+     * the key and the stamps of the order by and its items when the key was computed
+     */
+    private static class Key {
+        private final String value;
+        private final int orderByModCount;
+        private final int[] itemModCounts;
+
+        private Key(String value, int orderByModCount, int[] itemModCounts) {
+            this.value = value;
+            this.orderByModCount = orderByModCount;
+            this.itemModCounts = itemModCounts;
+        }
+
+        private boolean isValid(OrderBy orderBy) {
+            if (orderBy.modCount != orderByModCount || orderBy.items.size() != itemModCounts.length) {
+                return false;
+            }
+            int i = 0;
+            for (OrderByItem item : orderBy.items.values()) {
+                if (item.getModCount() != itemModCounts[i++]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
 }
@@ -31,6 +31,10 @@ public class OrderByItem implements Serializable {
      */
     @Nullable
     private Comparator comparator;
+    /**
+     * increased when the expression or the type is changed, so the memoized key of the order by is recomputed
+     */
+    private transient volatile int modCount;
 
     public OrderByItem() {
     }
@@ -42,7 +46,7 @@ public class OrderByItem implements Serializable {
 
     public OrderByItem(String expression, OrderByType type) {
         this(expression);
-        this.type = type;
+        setType(type);
     }
 
     public OrderByItem(String expression, boolean asc) {
@@ -55,6 +59,7 @@ public class OrderByItem implements Serializable {
 
     public void setExpression(String expression) {
         this.expression = expression;
+        modCount++;
     }
 
     public OrderByType getType() {
@@ -63,6 +68,11 @@ public class OrderByItem implements Serializable {
 
     public void setType(OrderByType type) {
         this.type = type;
+        modCount++;
+    }
+
+    int getModCount() {
+        return modCount;
     }
 
     public Comparator getComparator() {
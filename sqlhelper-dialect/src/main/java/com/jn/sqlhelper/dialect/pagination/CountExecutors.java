@@ -0,0 +1,102 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.dialect.pagination;
+
+import com.jn.langx.util.Throwables;
+import com.jn.langx.util.concurrent.CommonThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.*;
+
+/**
+ * The executors of the count queries which run in parallel with the page queries,
+ * and the executors of the pages which are prefetched.
+ *
+ * @see PaginationProperties#isParallelCount()
+ * @see PagingRequest#getPrefetch()
+ */
+public class CountExecutors {
+    private static final Logger logger = LoggerFactory.getLogger(CountExecutors.class);
+    private static volatile ExecutorService defaultExecutor;
+    private static volatile ExecutorService prefetchExecutor;
+
+    private CountExecutors() {
+    }
+
+    /**
+     * A virtual thread per task executor if the JVM supports it (Java 21+), else a bounded thread pool.
+     * The count query runs in the caller thread if all the threads of the pool are busy.
+     */
+    public static ExecutorService getDefault() {
+        if (defaultExecutor == null) {
+            synchronized (CountExecutors.class) {
+                if (defaultExecutor == null) {
+                    ExecutorService executor = newVirtualThreadPerTaskExecutor();
+                    if (executor == null) {
+                        int maxThreads = Runtime.getRuntime().availableProcessors() * 2;
+                        executor = new ThreadPoolExecutor(0, maxThreads, 60L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), CommonThreadFactory.create("sqlhelper-count", true), new ThreadPoolExecutor.CallerRunsPolicy());
+                    }
+                    defaultExecutor = executor;
+                }
+            }
+        }
+        return defaultExecutor;
+    }
+
+    /**
+     * A bounded thread pool, a prefetch is rejected with a {@link RejectedExecutionException} if all the threads are busy,
+     * it is never executed in the caller thread since nobody waits for it.
+     */
+    public static ExecutorService getPrefetchExecutor() {
+        if (prefetchExecutor == null) {
+            synchronized (CountExecutors.class) {
+                if (prefetchExecutor == null) {
+                    int maxThreads = Runtime.getRuntime().availableProcessors();
+                    prefetchExecutor = new ThreadPoolExecutor(0, maxThreads, 60L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), CommonThreadFactory.create("sqlhelper-prefetch", true), new ThreadPoolExecutor.AbortPolicy());
+                }
+            }
+        }
+        return prefetchExecutor;
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (NoSuchMethodException ex) {
+            return null;
+        } catch (Throwable ex) {
+            logger.warn("Can't create the virtual thread executor, error: {}", ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * wait for the count, the exception of the count query is rethrown as a runtime exception
+     */
+    public static <V> V get(Future<V> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw Throwables.wrapAsRuntimeException(ex);
+        } catch (ExecutionException ex) {
+            throw Throwables.wrapAsRuntimeException(ex.getCause());
+        }
+    }
+}
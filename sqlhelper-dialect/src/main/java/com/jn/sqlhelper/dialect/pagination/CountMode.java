@@ -0,0 +1,116 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.dialect.pagination;
+
+import com.jn.langx.util.Preconditions;
+
+import java.io.Serializable;
+
+/**
+ * How to get the total of a paging request.
+ * <p>
+ * The estimate comes from the statistics of the database ({@link com.jn.sqlhelper.dialect.estimate.RowCountEstimator}),
+ * it is cheap but it may be far from the real count. The {@link PagingResult#isEstimated()} is true if the total is an estimate.
+ * The exact count is used if the dialect can't estimate the query.
+ *
+ * @see PagingRequest#setCountMode(CountMode)
+ */
+public final class CountMode implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public enum Type {
+        EXACT,
+        ESTIMATE,
+        ESTIMATE_THEN_EXACT_BELOW
+    }
+
+    /**
+     * execute the count query, it is the default mode
+     */
+    public static final CountMode EXACT = new CountMode(Type.EXACT, 0);
+    /**
+     * use the estimate whatever it is
+     */
+    public static final CountMode ESTIMATE = new CountMode(Type.ESTIMATE, 0);
+
+    private final Type type;
+    private final long threshold;
+
+    private CountMode(Type type, long threshold) {
+        this.type = type;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Use the estimate if it is not less than the threshold, else execute the count query.
+     * A small total is cheap to count and the exact one is expected when the user can reach the last page.
+     */
+    public static CountMode estimateThenExactBelow(long threshold) {
+        Preconditions.checkArgument(threshold >= 0, "the threshold must not be negative");
+        return new CountMode(Type.ESTIMATE_THEN_EXACT_BELOW, threshold);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public long getThreshold() {
+        return threshold;
+    }
+
+    public boolean isEstimate() {
+        return type != Type.EXACT;
+    }
+
+    /**
+     * @param estimated the estimated row count, -1 if it is unknown
+     * @return whether the estimate is used as the total
+     */
+    public boolean accept(long estimated) {
+        if (estimated < 0) {
+            return false;
+        }
+        switch (type) {
+            case ESTIMATE:
+                return true;
+            case ESTIMATE_THEN_EXACT_BELOW:
+                return estimated >= threshold;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        CountMode that = (CountMode) o;
+        return type == that.type && threshold == that.threshold;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * type.hashCode() + (int) (threshold ^ (threshold >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return type == Type.ESTIMATE_THEN_EXACT_BELOW ? type + "(" + threshold + ")" : type.name();
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.dialect.pagination;
+
+import com.jn.langx.annotation.Nullable;
+import com.jn.langx.cache.Cache;
+import com.jn.langx.cache.CacheBuilder;
+import com.jn.langx.util.Preconditions;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * The cache of the totals of the count queries, so the count query is executed only once when paging through a result set.
+ * <p>
+ * The key is the count sql with the parameter values, an entry is expired after the ttl,
+ * or after any of its tables is written. A write is recorded with a stamp, and an entry is stale if any of its tables
+ * is written after the stamp which is taken before the count query, so a count which is executed with a concurrent write
+ * is never used.
+ * <pre>
+ *     long stamp = cache.stamp();
+ *     long total = executeCount();
+ *     cache.put(key, total, tables, stamp);
+ * </pre>
+ *
+ * @param <K> the key type, it must have the equals and hashCode methods
+ */
+public class CountResultCache<K> {
+    private final Cache<K, Entry> cache;
+    private final long ttlInMillis;
+    private final TableWriteStamps writeStamps = new TableWriteStamps();
+
+    public CountResultCache(int maxCapacity, long ttlInMillis) {
+        Preconditions.checkArgument(maxCapacity > 0, "the max capacity must be greater than 0");
+        Preconditions.checkArgument(ttlInMillis > 0, "the ttl must be greater than 0");
+        this.ttlInMillis = ttlInMillis;
+        this.cache = CacheBuilder.<K, Entry>newBuilder()
+                .concurrencyLevel(Runtime.getRuntime().availableProcessors())
+                .initialCapacity(Math.min(16, maxCapacity))
+                .maxCapacity(maxCapacity)
+                .build();
+    }
+
+    /**
+     * take it before the count query
+     */
+    public long stamp() {
+        return writeStamps.stamp();
+    }
+
+    /**
+     * @return the total, -1 if it is not cached, or it is stale
+     */
+    public long get(K key) {
+        Entry entry = cache.getIfPresent(key);
+        if (entry == null) {
+            return -1;
+        }
+        if (entry.expireAt <= System.currentTimeMillis() || writeStamps.isWrittenAfter(entry.tables, entry.stamp)) {
+            cache.remove(key);
+            return -1;
+        }
+        return entry.total;
+    }
+
+    /**
+     * @param tables the tables of the count query, the total is not cached if they are unknown (null)
+     * @param stamp  the stamp which is taken before the count query
+     */
+    public void put(K key, long total, @Nullable Set<String> tables, long stamp) {
+        if (total < 0 || tables == null || writeStamps.isWrittenAfter(tables, stamp)) {
+            return;
+        }
+        cache.set(key, new Entry(total, tables, stamp, System.currentTimeMillis() + ttlInMillis));
+    }
+
+    /**
+     * Invalidate the totals of the tables, it is called after the tables were written.
+     *
+     * @param tables the written tables, all the totals are invalidated if they are unknown (null)
+     */
+    public void invalidate(@Nullable Collection<String> tables) {
+        writeStamps.write(tables);
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    private static class Entry {
+        private final long total;
+        private final Set<String> tables;
+        private final long stamp;
+        private final long expireAt;
+
+        private Entry(long total, Set<String> tables, long stamp, long expireAt) {
+            this.total = total;
+            this.tables = tables;
+            this.stamp = stamp;
+            this.expireAt = expireAt;
+        }
+    }
+}
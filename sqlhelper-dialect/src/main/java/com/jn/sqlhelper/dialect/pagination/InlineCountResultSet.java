@@ -0,0 +1,193 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.dialect.pagination;
+
+import com.jn.langx.util.collection.Collects;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.Set;
+
+/**
+ * The result set of a {@link InlineCountStrategy#WINDOW_FUNCTION} page query.
+ * <p>
+ * The {@link InlineCountStrategy#TOTAL_COLUMN} column is hidden, so the row mappers see the columns of the original sql only,
+ * and the total is read from the first row.
+ */
+public class InlineCountResultSet {
+    /**
+     * the methods whose first int parameter is not a column index
+     */
+    private static final Set<String> NON_COLUMN_INDEX_METHODS = Collects.asSet("absolute", "relative", "setFetchDirection", "setFetchSize");
+
+    private InlineCountResultSet() {
+    }
+
+    public static ResultSet wrap(ResultSet resultSet) throws SQLException {
+        if (resultSet == null || Proxy.isProxyClass(resultSet.getClass()) && Proxy.getInvocationHandler(resultSet) instanceof ResultSetHandler) {
+            return resultSet;
+        }
+        return (ResultSet) Proxy.newProxyInstance(InlineCountResultSet.class.getClassLoader(), new Class[]{ResultSet.class}, new ResultSetHandler(resultSet));
+    }
+
+    /**
+     * wrap the result sets of the statement
+     */
+    public static Statement wrap(Statement statement) {
+        Class[] interfaces;
+        if (statement instanceof CallableStatement) {
+            interfaces = new Class[]{CallableStatement.class};
+        } else if (statement instanceof PreparedStatement) {
+            interfaces = new Class[]{PreparedStatement.class};
+        } else {
+            interfaces = new Class[]{Statement.class};
+        }
+        return (Statement) Proxy.newProxyInstance(InlineCountResultSet.class.getClassLoader(), interfaces, new StatementHandler(statement));
+    }
+
+    /**
+     * @return the total, -1 if the result set has no any row
+     */
+    public static long getTotal(ResultSet resultSet) {
+        if (resultSet != null && Proxy.isProxyClass(resultSet.getClass())) {
+            InvocationHandler handler = Proxy.getInvocationHandler(resultSet);
+            if (handler instanceof ResultSetHandler) {
+                return ((ResultSetHandler) handler).total;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the total of the first result set of the statement, -1 if it has no any row
+     */
+    public static long getTotal(Statement statement) {
+        if (statement != null && Proxy.isProxyClass(statement.getClass())) {
+            InvocationHandler handler = Proxy.getInvocationHandler(statement);
+            if (handler instanceof StatementHandler) {
+                return getTotal(((StatementHandler) handler).firstResultSet);
+            }
+        }
+        return -1;
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getTargetException();
+        }
+    }
+
+    private static boolean isColumnIndexMethod(Method method, Object[] args) {
+        return args != null && args.length > 0 && method.getParameterTypes()[0] == int.class && !NON_COLUMN_INDEX_METHODS.contains(method.getName());
+    }
+
+    private static class ResultSetHandler implements InvocationHandler {
+        private final ResultSet delegate;
+        /**
+         * the index of the total column, starts with 1, -1 if the result set has not the column
+         */
+        private final int totalColumnIndex;
+        private volatile long total = -1;
+
+        private ResultSetHandler(ResultSet delegate) throws SQLException {
+            this.delegate = delegate;
+            int index = -1;
+            ResultSetMetaData metaData = delegate.getMetaData();
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                if (InlineCountStrategy.TOTAL_COLUMN.equalsIgnoreCase(metaData.getColumnLabel(i))) {
+                    index = i;
+                    break;
+                }
+            }
+            this.totalColumnIndex = index;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (totalColumnIndex < 0) {
+                return InlineCountResultSet.invoke(delegate, method, args);
+            }
+            String name = method.getName();
+            if ("getMetaData".equals(name)) {
+                ResultSetMetaData metaData = delegate.getMetaData();
+                return Proxy.newProxyInstance(InlineCountResultSet.class.getClassLoader(), new Class[]{ResultSetMetaData.class}, new MetaDataHandler(metaData, totalColumnIndex));
+            }
+            if ("findColumn".equals(name)) {
+                int index = delegate.findColumn((String) args[0]);
+                return index > totalColumnIndex ? index - 1 : index;
+            }
+            if (isColumnIndexMethod(method, args)) {
+                args[0] = toDelegateIndex((Integer) args[0], totalColumnIndex);
+            }
+            Object result = InlineCountResultSet.invoke(delegate, method, args);
+            if ("next".equals(name) && total < 0 && Boolean.TRUE.equals(result)) {
+                total = delegate.getLong(totalColumnIndex);
+            }
+            return result;
+        }
+    }
+
+    private static class MetaDataHandler implements InvocationHandler {
+        private final ResultSetMetaData delegate;
+        private final int totalColumnIndex;
+
+        private MetaDataHandler(ResultSetMetaData delegate, int totalColumnIndex) {
+            this.delegate = delegate;
+            this.totalColumnIndex = totalColumnIndex;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if ("getColumnCount".equals(method.getName())) {
+                return delegate.getColumnCount() - 1;
+            }
+            if (isColumnIndexMethod(method, args)) {
+                args[0] = toDelegateIndex((Integer) args[0], totalColumnIndex);
+            }
+            return InlineCountResultSet.invoke(delegate, method, args);
+        }
+    }
+
+    private static class StatementHandler implements InvocationHandler {
+        private final Statement delegate;
+        private ResultSet firstResultSet;
+
+        private StatementHandler(Statement delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = InlineCountResultSet.invoke(delegate, method, args);
+            if (result instanceof ResultSet) {
+                ResultSet resultSet = wrap((ResultSet) result);
+                if (firstResultSet == null) {
+                    firstResultSet = resultSet;
+                }
+                return resultSet;
+            }
+            return result;
+        }
+    }
+
+    private static int toDelegateIndex(int index, int totalColumnIndex) {
+        return index >= totalColumnIndex ? index + 1 : index;
+    }
+}
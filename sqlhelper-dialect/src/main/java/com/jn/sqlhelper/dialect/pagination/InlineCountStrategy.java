@@ -0,0 +1,55 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.dialect.pagination;
+
+import com.jn.langx.annotation.Nullable;
+import com.jn.sqlhelper.dialect.Dialect;
+
+/**
+ * Count the total in the page query, rather than executing a count query before it.
+ *
+ * @see PaginationProperties#isInlineCount()
+ * @see InlineCountResultSet
+ */
+public enum InlineCountStrategy {
+    /**
+     * select a, b, count(*) over () sqlhelper_total_ from ... , the total column is hidden for the result set mapping
+     */
+    WINDOW_FUNCTION,
+    /**
+     * select SQL_CALC_FOUND_ROWS a, b from ... , then execute "SELECT FOUND_ROWS()" in the same connection
+     */
+    FOUND_ROWS;
+
+    public static final String TOTAL_COLUMN = "sqlhelper_total_";
+    public static final String FOUND_ROWS_SQL = "SELECT FOUND_ROWS()";
+
+    /**
+     * @return the strategy the dialect supports, null if the dialect supports none of them
+     */
+    @Nullable
+    public static InlineCountStrategy of(@Nullable Dialect dialect) {
+        if (dialect == null) {
+            return null;
+        }
+        if (dialect.isSupportsWindowFunction()) {
+            return WINDOW_FUNCTION;
+        }
+        if (dialect.isSupportsFoundRows()) {
+            return FOUND_ROWS;
+        }
+        return null;
+    }
+}
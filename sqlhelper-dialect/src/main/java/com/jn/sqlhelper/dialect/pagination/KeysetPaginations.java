@@ -0,0 +1,225 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.dialect.pagination;
+
+import com.jn.langx.annotation.NonNull;
+import com.jn.langx.annotation.Nullable;
+import com.jn.langx.text.StringTemplates;
+import com.jn.langx.util.Emptys;
+import com.jn.langx.util.Objects;
+import com.jn.langx.util.collection.Collects;
+import com.jn.sqlhelper.dialect.Dialect;
+import com.jn.sqlhelper.dialect.expression.ColumnExpression;
+import com.jn.sqlhelper.dialect.expression.ListExpression;
+import com.jn.sqlhelper.dialect.expression.PlaceholderExpression;
+import com.jn.sqlhelper.dialect.expression.SQLExpression;
+import com.jn.sqlhelper.dialect.expression.builder.SQLExpressionBuilders;
+import com.jn.sqlhelper.dialect.orderby.OrderBy;
+import com.jn.sqlhelper.dialect.orderby.OrderByItem;
+import com.jn.sqlhelper.dialect.orderby.OrderByType;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keyset (seek) pagination: the page is located with the values of the order by keys of the last row in the previous page,
+ * rather than an offset. So the database can seek the index to the first row of the page directly.
+ * <pre>
+ *     select * from t where (a, b) &gt; (?, ?) order by a, b limit ?
+ * </pre>
+ * If the dialect does not support the row value comparison, or the keys have mixed directions, the condition is expanded to:
+ * <pre>
+ *     select * from t where (a &gt; ? OR (a = ? AND b &lt; ?)) order by a asc, b desc limit ?
+ * </pre>
+ * The keyset parameters are bound after all the original parameters, so the condition is injected into the where clause
+ * only when there are no parameters after the where clause. Else the original sql is wrapped as a derived table:
+ * <pre>
+ *     select * from (original sql) tmp_keyset where (a, b) &gt; (?, ?) order by a, b limit ?
+ * </pre>
+ *
+ * @see PagingRequest#after(Object...)
+ */
+public class KeysetPaginations {
+    public static final String KEYSET_TABLE_ALIAS = "tmp_keyset";
+
+    private static final Pattern SET_OPERATION_PATTERN = Pattern.compile("\\b(union|intersect|except|minus)\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern WHERE_PATTERN = Pattern.compile("\\bwhere\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern CLAUSE_AFTER_WHERE_PATTERN = Pattern.compile("\\b(group\\s+by|having|window|order\\s+by|limit|offset|fetch|for\\s+update)\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern KEY_PATTERN = Pattern.compile("^(?:([\\w$\"`\\[\\]]+)\\.)?([\\w$\"`\\[\\]]+)$");
+
+    private KeysetPaginations() {
+    }
+
+    public static boolean isKeysetPagingRequest(@Nullable PagingRequest request) {
+        if (Objects.isNull(request)) {
+            return false;
+        }
+        return request.isKeysetRequest();
+    }
+
+    /**
+     * @param keys  the order by of the paging request
+     * @param after the key values of the last row in the previous page
+     * @throws IllegalArgumentException if the keys are not simple columns, or the values are not matched with the keys
+     */
+    public static void checkKeyset(@Nullable OrderBy keys, @Nullable Object[] after) throws IllegalArgumentException {
+        if (keys == null || !keys.isValid()) {
+            throw new IllegalArgumentException("The keyset paging request must have an order by");
+        }
+        List<OrderByItem> items = Collects.asList(keys);
+        if (after == null || items.size() != after.length) {
+            throw new IllegalArgumentException(StringTemplates.formatWithPlaceholder("The keyset values are not matched with the order by: {}", keys.toString()));
+        }
+        for (int i = 0; i < after.length; i++) {
+            if (!KEY_PATTERN.matcher(items.get(i).getExpression().trim()).matches()) {
+                throw new IllegalArgumentException(StringTemplates.formatWithPlaceholder("The keyset order by item must be a column: {}", items.get(i).getExpression()));
+            }
+            if (after[i] == null) {
+                throw new IllegalArgumentException(StringTemplates.formatWithPlaceholder("The keyset value of the {} is null", items.get(i).getExpression()));
+            }
+        }
+    }
+
+    /**
+     * the row value comparison can be used only when all the keys have the same direction
+     */
+    public static boolean isRowValueComparison(@NonNull Dialect dialect, @NonNull OrderBy keys) {
+        if (!dialect.isSupportsRowValueComparison()) {
+            return false;
+        }
+        List<OrderByItem> items = Collects.asList(keys);
+        if (items.size() < 2) {
+            return false;
+        }
+        boolean desc = isDesc(items.get(0));
+        for (OrderByItem item : items) {
+            if (isDesc(item) != desc) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether the keyset condition can be injected into the where clause of the sql.
+     * <p>
+     * The keyset parameters are bound after all the original parameters, so it can't be injected if there are
+     * parameters after the where clause (group by, having, order by, limit ...), or the sql is a set operation.
+     */
+    public static boolean canInjectCondition(@NonNull String sql) {
+        if (SET_OPERATION_PATTERN.matcher(sql).find()) {
+            return false;
+        }
+        int whereIndex = -1;
+        Matcher matcher = WHERE_PATTERN.matcher(sql);
+        while (matcher.find()) {
+            whereIndex = matcher.end();
+        }
+        String tail = whereIndex == -1 ? sql : sql.substring(whereIndex);
+        matcher = CLAUSE_AFTER_WHERE_PATTERN.matcher(tail);
+        if (matcher.find()) {
+            return tail.indexOf('?', matcher.start()) == -1;
+        }
+        return true;
+    }
+
+    public static String wrapAsDerivedTable(@NonNull String sql) {
+        return "select * from (" + sql + ") " + KEYSET_TABLE_ALIAS;
+    }
+
+    /**
+     * remove the table qualifiers of the keys, it is used when the sql is wrapped as a derived table
+     */
+    public static OrderBy unqualified(@NonNull OrderBy keys) {
+        OrderBy orderBy = new OrderBy();
+        for (OrderByItem item : keys) {
+            Matcher matcher = KEY_PATTERN.matcher(item.getExpression().trim());
+            String column = matcher.matches() ? matcher.group(2) : item.getExpression();
+            orderBy.add(new OrderByItem(column, item.getType()));
+        }
+        return orderBy;
+    }
+
+    /**
+     * build the keyset condition, all the values are placeholders
+     *
+     * @see #getParameterValues(boolean, Object[])
+     */
+    public static SQLExpression buildCondition(@NonNull OrderBy keys, boolean rowValueComparison) {
+        List<OrderByItem> items = Collects.asList(keys);
+        if (rowValueComparison) {
+            ListExpression columns = new ListExpression();
+            ListExpression values = new ListExpression();
+            for (OrderByItem item : items) {
+                columns.add(toColumn(item));
+                values.add(new PlaceholderExpression());
+            }
+            return compare(isDesc(items.get(0)), columns, values);
+        }
+
+        // k1 > ? OR (k1 = ? AND k2 > ?) OR (k1 = ? AND k2 = ? AND k3 > ?)
+        SQLExpression condition = null;
+        for (int i = 0; i < items.size(); i++) {
+            SQLExpression term = null;
+            for (int j = 0; j < i; j++) {
+                SQLExpression equal = new SQLExpressionBuilders.EqualBuilder().left(toColumn(items.get(j))).right(new PlaceholderExpression()).build();
+                term = term == null ? equal : new SQLExpressionBuilders.AndBuilder().left(term).right(equal).build();
+            }
+            SQLExpression compare = compare(isDesc(items.get(i)), toColumn(items.get(i)), new PlaceholderExpression());
+            term = term == null ? compare : new SQLExpressionBuilders.AndBuilder().left(term).right(compare).build();
+            condition = condition == null ? term : new SQLExpressionBuilders.OrBuilder().left(condition).right(term).build();
+        }
+        return condition;
+    }
+
+    /**
+     * @return the parameter values in the order of the placeholders in the condition
+     * @see #buildCondition(OrderBy, boolean)
+     */
+    public static Object[] getParameterValues(boolean rowValueComparison, @NonNull Object[] after) {
+        if (rowValueComparison || after.length < 2) {
+            return after;
+        }
+        Object[] values = new Object[after.length * (after.length + 1) / 2];
+        int index = 0;
+        for (int i = 0; i < after.length; i++) {
+            for (int j = 0; j <= i; j++) {
+                values[index++] = after[j];
+            }
+        }
+        return values;
+    }
+
+    private static SQLExpression compare(boolean desc, SQLExpression left, SQLExpression right) {
+        if (desc) {
+            return new SQLExpressionBuilders.LesserThanBuilder().left(left).right(right).build();
+        }
+        return new SQLExpressionBuilders.GreaterThanBuilder().left(left).right(right).build();
+    }
+
+    private static ColumnExpression toColumn(OrderByItem item) {
+        Matcher matcher = KEY_PATTERN.matcher(item.getExpression().trim());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException(StringTemplates.formatWithPlaceholder("The keyset order by item must be a column: {}", item.getExpression()));
+        }
+        String table = matcher.group(1);
+        return Emptys.isEmpty(table) ? new ColumnExpression(matcher.group(2)) : new ColumnExpression(table, matcher.group(2));
+    }
+
+    private static boolean isDesc(OrderByItem item) {
+        return item.getType() == OrderByType.DESC;
+    }
+}
@@ -1,16 +1,14 @@
 package com.jn.sqlhelper.dialect.pagination;
 
+import com.jn.langx.cache.Cache;
+import com.jn.langx.cache.CacheBuilder;
 import com.jn.langx.util.Emptys;
 import com.jn.langx.util.Preconditions;
 import com.jn.langx.util.collection.Collects;
-import com.jn.langx.util.collection.NonDistinctTreeSet;
 import com.jn.langx.util.collection.Pipeline;
 import com.jn.langx.util.comparator.ComparableComparator;
-import com.jn.langx.util.comparator.ParallelingComparator;
-import com.jn.langx.util.comparator.ReverseComparator;
 import com.jn.langx.util.function.Functions;
 import com.jn.langx.util.function.Predicate;
-import com.jn.langx.util.reflect.FieldComparator;
 import com.jn.langx.util.reflect.Reflects;
 import com.jn.langx.util.reflect.type.Primitives;
 import com.jn.sqlhelper.dialect.orderby.OrderBy;
@@ -20,14 +18,38 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.util.*;
 
 /**
+ * Paging a collection in memory.
+ * <p>
+ * The order by fields of an element are read once, rather than in every compare, with the {@link SortKeys} which is
+ * compiled once per (class, order by). A page is selected with a bounded heap of (offset + limit) elements if it is near
+ * the head of the collection, else the collection is sorted, in parallel if it is large and the JVM supports it (Java 8+).
+ * The order of the elements which have the same order by values is the order of the collection.
+ *
  * @author jinuo.fang
  */
 @SuppressWarnings({"unchecked"})
 public class MemoryPaginations {
     private static final Logger logger = LoggerFactory.getLogger(MemoryPaginations.class);
+    /**
+     * a collection is sorted in parallel if its size is not less than it
+     */
+    static final int PARALLEL_SORT_THRESHOLD = 1 << 13;
+    /**
+     * (class name, order by) -> the sort keys, only the order by without custom comparators is cached
+     */
+    private static final Cache<String, SortKeys> SORT_KEYS_CACHE = CacheBuilder.<String, SortKeys>newBuilder()
+            .concurrencyLevel(Runtime.getRuntime().availableProcessors())
+            .initialCapacity(16)
+            .maxCapacity(1000)
+            .build();
+    /**
+     * Arrays.parallelSort(Object[], Comparator), null if the JVM is older than Java 8
+     */
+    private static final Method PARALLEL_SORT = findParallelSort();
 
     public static <C, E> List<E> paging(Collection<E> list, PagingRequest<C, E> pagingRequest, Predicate<E>... filters) {
         Preconditions.checkNotNull(list);
@@ -50,17 +72,17 @@ public class MemoryPaginations {
             return rs;
         }
 
-        // step 3: sort
-        List<E> sorted = pagingRequest.needOrderBy() ? doSort(filtered, pagingRequest.getOrderBy()) : filtered;
+        SortKeys sortKeys = pagingRequest.needOrderBy() && !filtered.isEmpty() ? compile(filtered.get(0).getClass(), pagingRequest.getOrderBy()) : null;
 
-
-        // step 4: do paging
+        // step 3: sort and do paging
         if (pagingRequest.isGetAllRequest()) {
+            List<E> sorted = sortKeys != null ? sort(filtered, sortKeys) : filtered;
             result.setItems(sorted);
             return sorted;
         }
 
         if (pagingRequest.isGetAllFromNonZeroOffsetRequest()) {
+            List<E> sorted = sortKeys != null ? sort(filtered, sortKeys) : filtered;
             int pageSize = 10;
             int offset = (pagingRequest.getPageNo() - 1) * pageSize;
             List<E> rs = Collects.emptyArrayList();
@@ -72,21 +94,45 @@ public class MemoryPaginations {
         int offset = (pagingRequest.getPageNo() - 1) * pagingRequest.getPageSize();
         int limit = pagingRequest.getPageSize();
         List<E> rs = Collects.emptyArrayList();
-        Pipeline.of(sorted).skip(offset).limit(limit).addTo(rs);
+        if (sortKeys == null) {
+            Pipeline.of(filtered).skip(offset).limit(limit).addTo(rs);
+        } else if (offset >= filtered.size()) {
+            // the page is out of the range
+        } else if ((long) offset + limit <= filtered.size() >> 2) {
+            rs.addAll(top(filtered, sortKeys, offset, limit));
+        } else {
+            Pipeline.of(sort(filtered, sortKeys)).skip(offset).limit(limit).addTo(rs);
+        }
         result.setItems(rs);
         return rs;
     }
 
-
-    private static <E> List<E> doSort(Collection<E> collection, OrderBy orderBy) {
-        if (collection.isEmpty() || !orderBy.isValid()) {
-            return Collects.asList(collection);
+    /**
+     * @return the sort keys of the class, null if none of the order by items is a comparable field of the class
+     */
+    static SortKeys compile(Class modelClass, OrderBy orderBy) {
+        if (!orderBy.isValid()) {
+            return null;
+        }
+        boolean cacheable = true;
+        for (OrderByItem orderByItem : orderBy) {
+            if (orderByItem.getComparator() != null) {
+                cacheable = false;
+                break;
+            }
+        }
+        String cacheKey = cacheable ? modelClass.getName() + ":" + orderBy.toString() : null;
+        if (cacheable) {
+            SortKeys sortKeys = SORT_KEYS_CACHE.getIfPresent(cacheKey);
+            // another class loader
+            if (sortKeys != null && sortKeys.modelClass == modelClass) {
+                return sortKeys;
+            }
         }
-        List<E> list = Collects.asList(collection);
-        Class modelClass = list.get(0).getClass();
-        ParallelingComparator parallelingComparator = new ParallelingComparator();
 
-        int i = 0;
+        List<Field> fields = new ArrayList<Field>();
+        List<Comparator> comparators = new ArrayList<Comparator>();
+        List<Boolean> descs = new ArrayList<Boolean>();
         for (OrderByItem orderByItem : orderBy) {
             String fieldName = orderByItem.getExpression();
             Field field = Reflects.getDeclaredField(modelClass, fieldName);
@@ -99,24 +145,178 @@ public class MemoryPaginations {
                     }
                 }
                 if (comparator != null) {
-                    comparator = new FieldComparator(field, comparator);
-                    if (orderByItem.getType() == OrderByType.DESC) {
-                        comparator = new ReverseComparator(comparator);
-                    }
-                    parallelingComparator.addComparator(comparator);
-                    i++;
+                    Reflects.makeAccessible(field);
+                    fields.add(field);
+                    comparators.add(comparator);
+                    descs.add(orderByItem.getType() == OrderByType.DESC);
                 }
             } else {
                 logger.warn("can't find a field [{}] in class [{}]", fieldName, Reflects.getFQNClassName(modelClass));
             }
+        }
+        if (fields.isEmpty()) {
+            return null;
+        }
+        boolean[] desc = new boolean[descs.size()];
+        for (int i = 0; i < desc.length; i++) {
+            desc[i] = descs.get(i);
+        }
+        SortKeys sortKeys = new SortKeys(modelClass, fields.toArray(new Field[0]), comparators.toArray(new Comparator[0]), desc);
+        if (cacheable) {
+            SORT_KEYS_CACHE.set(cacheKey, sortKeys);
+        }
+        return sortKeys;
+    }
+
+    /**
+     * sort all the elements, the order of the same elements is kept
+     */
+    static <E> List<E> sort(List<E> list, SortKeys sortKeys) {
+        Sortable[] sortables = sortables(list, sortKeys);
+        List<E> sorted = new ArrayList<E>(sortables.length);
+        for (Sortable sortable : sortables) {
+            sorted.add((E) sortable.element);
+        }
+        return sorted;
+    }
+
+    /**
+     * @return the permutation of the positions of the elements in the sorted order
+     */
+    static int[] sortIndexes(List<?> list, SortKeys sortKeys) {
+        Sortable[] sortables = sortables(list, sortKeys);
+        int[] indexes = new int[sortables.length];
+        for (int i = 0; i < sortables.length; i++) {
+            indexes[i] = sortables[i].index;
+        }
+        return indexes;
+    }
 
+    private static Sortable[] sortables(List<?> list, SortKeys sortKeys) {
+        Sortable[] sortables = new Sortable[list.size()];
+        int i = 0;
+        for (Object element : list) {
+            sortables[i] = new Sortable(element, sortKeys.extract(element), i);
+            i++;
         }
-        if (i > 0) {
-            Set<E> rs = new NonDistinctTreeSet<E>(parallelingComparator);
-            rs.addAll(list);
-            return Collects.asList(rs);
+        sort(sortables, sortKeys);
+        return sortables;
+    }
+
+    /**
+     * Select the page with a max heap of the first (offset + limit) elements, it is O(n log(offset + limit)).
+     *
+     * @return the elements of the page in order
+     */
+    static <E> List<E> top(List<E> list, SortKeys sortKeys, int offset, int limit) {
+        int k = offset + limit;
+        PriorityQueue<Sortable> heap = new PriorityQueue<Sortable>(k, Collections.reverseOrder(sortKeys));
+        // the keys array of the last rejected element is reused
+        Object[] spare = null;
+        int i = 0;
+        for (E element : list) {
+            Object[] keys = sortKeys.extract(element, spare);
+            if (heap.size() < k) {
+                heap.add(new Sortable(element, keys, i));
+                spare = null;
+            } else {
+                Sortable candidate = new Sortable(element, keys, i);
+                if (sortKeys.compare(candidate, heap.peek()) < 0) {
+                    spare = heap.poll().keys;
+                    heap.add(candidate);
+                } else {
+                    spare = keys;
+                }
+            }
+            i++;
+        }
+        Sortable[] sortables = heap.toArray(new Sortable[0]);
+        Arrays.sort(sortables, sortKeys);
+        List<E> page = new ArrayList<E>(limit);
+        for (int j = offset; j < sortables.length; j++) {
+            page.add((E) sortables[j].element);
+        }
+        return page;
+    }
+
+    private static void sort(Sortable[] sortables, SortKeys sortKeys) {
+        if (PARALLEL_SORT != null && sortables.length >= PARALLEL_SORT_THRESHOLD) {
+            try {
+                PARALLEL_SORT.invoke(null, sortables, sortKeys);
+                return;
+            } catch (Throwable ex) {
+                logger.warn("Can't sort in parallel, error: {}", ex.getMessage());
+            }
+        }
+        Arrays.sort(sortables, sortKeys);
+    }
+
+    private static Method findParallelSort() {
+        try {
+            return Arrays.class.getMethod("parallelSort", Object[].class, Comparator.class);
+        } catch (NoSuchMethodException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * The compiled comparator of an order by: the order by field values of an element are extracted once,
+     * then the elements are compared with the values, the position in the collection is the last order by.
+     */
+    static class SortKeys implements Comparator<Sortable> {
+        private final Class modelClass;
+        private final Field[] fields;
+        private final Comparator[] comparators;
+        private final boolean[] desc;
+
+        private SortKeys(Class modelClass, Field[] fields, Comparator[] comparators, boolean[] desc) {
+            this.modelClass = modelClass;
+            this.fields = fields;
+            this.comparators = comparators;
+            this.desc = desc;
+        }
+
+        Object[] extract(Object element) {
+            return extract(element, null);
+        }
+
+        Object[] extract(Object element, Object[] keys) {
+            if (keys == null) {
+                keys = new Object[fields.length];
+            }
+            for (int i = 0; i < fields.length; i++) {
+                try {
+                    keys[i] = fields[i].get(element);
+                } catch (Throwable ex) {
+                    // the element is not an instance of the class
+                    keys[i] = null;
+                }
+            }
+            return keys;
+        }
+
+        @Override
+        public int compare(Sortable o1, Sortable o2) {
+            for (int i = 0; i < comparators.length; i++) {
+                int delta = desc[i] ? comparators[i].compare(o2.keys[i], o1.keys[i]) : comparators[i].compare(o1.keys[i], o2.keys[i]);
+                if (delta != 0) {
+                    return delta;
+                }
+            }
+            return o1.index < o2.index ? -1 : (o1.index == o2.index ? 0 : 1);
+        }
+    }
+
+    static class Sortable {
+        private final Object element;
+        private final Object[] keys;
+        private final int index;
+
+        private Sortable(Object element, Object[] keys, int index) {
+            this.element = element;
+            this.keys = keys;
+            this.index = index;
         }
-        return list;
     }
 
 }
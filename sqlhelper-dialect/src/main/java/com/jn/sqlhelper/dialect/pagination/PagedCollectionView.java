@@ -0,0 +1,431 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.dialect.pagination;
+
+import com.jn.langx.annotation.Nullable;
+import com.jn.langx.util.Objects;
+import com.jn.langx.util.Preconditions;
+import com.jn.langx.util.reflect.Reflects;
+import com.jn.sqlhelper.dialect.orderby.OrderBy;
+import com.jn.sqlhelper.dialect.orderby.OrderByItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Field;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A view of a list which is paged repeatedly, e.g. the reference data which is served by a paged API.
+ * <p>
+ * The indexes are built when they are used first, and they are dropped when the list is mutated through the view:
+ * <ul>
+ * <li>a sorted index per order by: the permutation of the positions in the sorted order, and its inverse, the ranks.
+ * A page of the view costs O(page size) once the index is built.</li>
+ * <li>a hash index per field of the equality filters: the positions of the elements per field value.
+ * A page of the filtered view costs O(m log m) with a sorted index, m is the count of the matched elements.</li>
+ * </ul>
+ * The view is thread safe if the list is mutated only through the view. The mutations out of the view,
+ * or the mutations of the order by fields and the filter fields of the elements, are seen after {@link #invalidate()}.
+ * The order by with custom comparators is not indexed, see {@link MemoryPaginations}.
+ * <pre>
+ *     PagedCollectionView&lt;Person&gt; view = new PagedCollectionView&lt;Person&gt;(persons);
+ *     PagingRequest&lt;Object, Person&gt; request = new PagingRequest&lt;Object, Person&gt;().limit(3, 20);
+ *     request.setOrderBy(orderBy);
+ *     List&lt;Person&gt; page = view.paging(request, "city", "Beijing");
+ * </pre>
+ *
+ * @param <E> the element type
+ */
+public class PagedCollectionView<E> extends AbstractList<E> implements RandomAccess {
+    private static final Logger logger = LoggerFactory.getLogger(PagedCollectionView.class);
+    private final List<E> elements;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final int maxSortedIndexes;
+    /**
+     * order by -> the sorted index, the least recently used one is dropped if there are too many order by
+     */
+    private final LinkedHashMap<String, SortedIndex> sortedIndexes;
+    /**
+     * field name -> the hash index
+     */
+    private final Map<String, HashIndex> hashIndexes = new HashMap<String, HashIndex>();
+
+    /**
+     * @param source the list is wrapped if it is a random access list, else it is copied
+     */
+    public PagedCollectionView(Collection<E> source) {
+        this(source, 16);
+    }
+
+    /**
+     * @param maxSortedIndexes the max count of the sorted indexes
+     */
+    public PagedCollectionView(Collection<E> source, int maxSortedIndexes) {
+        Preconditions.checkNotNull(source);
+        Preconditions.checkArgument(maxSortedIndexes > 0, "the max count of the sorted indexes must be greater than 0");
+        this.elements = source instanceof List && source instanceof RandomAccess ? (List<E>) source : new ArrayList<E>(source);
+        this.maxSortedIndexes = maxSortedIndexes;
+        this.sortedIndexes = new LinkedHashMap<String, SortedIndex>(16, 0.75f, true);
+    }
+
+    public List<E> paging(PagingRequest<?, E> pagingRequest) {
+        return paging(pagingRequest, Collections.<String, Object>emptyMap());
+    }
+
+    public List<E> paging(PagingRequest<?, E> pagingRequest, String field, @Nullable Object value) {
+        return paging(pagingRequest, Collections.singletonMap(field, value));
+    }
+
+    /**
+     * @param equalities field name -> value, the elements whose fields are equal to all of the values are paged
+     */
+    public List<E> paging(PagingRequest<?, E> pagingRequest, Map<String, ?> equalities) {
+        Preconditions.checkNotNull(pagingRequest);
+        Preconditions.checkNotNull(equalities);
+        lock.readLock().lock();
+        try {
+            // the positions of the matched elements in the collection order, null if all the elements are matched
+            int[] matched = match(equalities);
+            int total = matched == null ? elements.size() : matched.length;
+
+            PagingResult<E> result = new PagingResult<E>();
+            pagingRequest.setResult(result);
+            result.setPageNo(pagingRequest.getPageNo());
+            result.setPageSize(pagingRequest.getPageSize());
+            result.setTotal(total);
+            List<E> rs = new ArrayList<E>();
+            result.setItems(rs);
+            if (total == 0 || pagingRequest.isEmptyRequest()) {
+                return rs;
+            }
+
+            int offset;
+            int limit;
+            if (pagingRequest.isGetAllRequest()) {
+                offset = 0;
+                limit = total;
+            } else if (pagingRequest.isGetAllFromNonZeroOffsetRequest()) {
+                // the same as MemoryPaginations
+                offset = (pagingRequest.getPageNo() - 1) * 10;
+                limit = total;
+            } else {
+                offset = (pagingRequest.getPageNo() - 1) * pagingRequest.getPageSize();
+                limit = pagingRequest.getPageSize();
+            }
+            if (offset >= total) {
+                return rs;
+            }
+            int end = (int) Math.min((long) offset + limit, total);
+
+            SortedIndex sortedIndex = pagingRequest.needOrderBy() ? getSortedIndex(pagingRequest.getOrderBy()) : null;
+            if (sortedIndex == null) {
+                for (int i = offset; i < end; i++) {
+                    rs.add(elements.get(matched == null ? i : matched[i]));
+                }
+            } else if (matched == null) {
+                for (int i = offset; i < end; i++) {
+                    rs.add(elements.get(sortedIndex.permutation[i]));
+                }
+            } else {
+                int[] ranks = new int[matched.length];
+                for (int i = 0; i < matched.length; i++) {
+                    ranks[i] = sortedIndex.ranks[matched[i]];
+                }
+                Arrays.sort(ranks);
+                for (int i = offset; i < end; i++) {
+                    rs.add(elements.get(sortedIndex.permutation[ranks[i]]));
+                }
+            }
+            return rs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Drop all the indexes, it is called after the list or the elements are mutated out of the view.
+     */
+    public void invalidate() {
+        lock.writeLock().lock();
+        try {
+            invalidateIndexes();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public E get(int index) {
+        lock.readLock().lock();
+        try {
+            return elements.get(index);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return elements.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public E set(int index, E element) {
+        lock.writeLock().lock();
+        try {
+            E old = elements.set(index, element);
+            invalidateIndexes();
+            return old;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void add(int index, E element) {
+        lock.writeLock().lock();
+        try {
+            elements.add(index, element);
+            modCount++;
+            invalidateIndexes();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public E remove(int index) {
+        lock.writeLock().lock();
+        try {
+            E old = elements.remove(index);
+            modCount++;
+            invalidateIndexes();
+            return old;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            elements.clear();
+            modCount++;
+            invalidateIndexes();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void invalidateIndexes() {
+        synchronized (sortedIndexes) {
+            sortedIndexes.clear();
+        }
+        synchronized (hashIndexes) {
+            hashIndexes.clear();
+        }
+    }
+
+    /**
+     * @return the positions of the matched elements in ascending order, null if there are no equalities
+     */
+    private int[] match(Map<String, ?> equalities) {
+        if (equalities.isEmpty()) {
+            return null;
+        }
+        // the smallest bucket is checked with the values of the other fields
+        List<HashIndex> indexes = new ArrayList<HashIndex>();
+        int[] smallest = null;
+        HashIndex smallestIndex = null;
+        for (Map.Entry<String, ?> equality : equalities.entrySet()) {
+            HashIndex hashIndex = getHashIndex(equality.getKey());
+            if (hashIndex == null) {
+                return new int[0];
+            }
+            int[] bucket = hashIndex.get(equality.getValue());
+            if (smallest == null || bucket.length < smallest.length) {
+                smallest = bucket;
+                smallestIndex = hashIndex;
+            }
+            indexes.add(hashIndex);
+        }
+        if (indexes.size() == 1) {
+            return smallest;
+        }
+        int[] matched = new int[smallest.length];
+        int count = 0;
+        for (int position : smallest) {
+            boolean match = true;
+            for (HashIndex hashIndex : indexes) {
+                if (hashIndex != smallestIndex && !Objects.equals(hashIndex.values[position], equalities.get(hashIndex.field))) {
+                    match = false;
+                    break;
+                }
+            }
+            if (match) {
+                matched[count++] = position;
+            }
+        }
+        return Arrays.copyOf(matched, count);
+    }
+
+    /**
+     * @return the sorted index, null if the order by is not valid for the elements
+     */
+    private SortedIndex getSortedIndex(OrderBy orderBy) {
+        boolean cacheable = true;
+        for (OrderByItem item : orderBy) {
+            if (item.getComparator() != null) {
+                cacheable = false;
+                break;
+            }
+        }
+        String key = orderBy.toString();
+        if (cacheable) {
+            synchronized (sortedIndexes) {
+                SortedIndex sortedIndex = sortedIndexes.get(key);
+                if (sortedIndex != null) {
+                    return sortedIndex;
+                }
+            }
+        }
+        if (elements.isEmpty()) {
+            return null;
+        }
+        MemoryPaginations.SortKeys sortKeys = MemoryPaginations.compile(elements.get(0).getClass(), orderBy);
+        if (sortKeys == null) {
+            return null;
+        }
+        // it is built in the read lock, so the elements are not changed
+        int[] permutation = MemoryPaginations.sortIndexes(elements, sortKeys);
+        int[] ranks = new int[permutation.length];
+        for (int i = 0; i < permutation.length; i++) {
+            ranks[permutation[i]] = i;
+        }
+        SortedIndex sortedIndex = new SortedIndex(permutation, ranks);
+        if (cacheable) {
+            synchronized (sortedIndexes) {
+                sortedIndexes.put(key, sortedIndex);
+                if (sortedIndexes.size() > maxSortedIndexes) {
+                    Iterator<String> iter = sortedIndexes.keySet().iterator();
+                    iter.next();
+                    iter.remove();
+                }
+            }
+        }
+        return sortedIndex;
+    }
+
+    /**
+     * @return the hash index of the field, null if the field is not found
+     */
+    private HashIndex getHashIndex(String fieldName) {
+        synchronized (hashIndexes) {
+            HashIndex hashIndex = hashIndexes.get(fieldName);
+            if (hashIndex != null) {
+                return hashIndex;
+            }
+        }
+        if (elements.isEmpty()) {
+            return null;
+        }
+        Class modelClass = elements.get(0).getClass();
+        Field field = Reflects.getDeclaredField(modelClass, fieldName);
+        if (field == null) {
+            logger.warn("can't find a field [{}] in class [{}]", fieldName, Reflects.getFQNClassName(modelClass));
+            return null;
+        }
+        Reflects.makeAccessible(field);
+        HashIndex hashIndex = new HashIndex(fieldName, field, elements);
+        synchronized (hashIndexes) {
+            hashIndexes.put(fieldName, hashIndex);
+        }
+        return hashIndex;
+    }
+
+    private static class SortedIndex {
+        /**
+         * the position of the i-th element in the sorted order
+         */
+        private final int[] permutation;
+        /**
+         * the sorted order of the element at the position i
+         */
+        private final int[] ranks;
+
+        private SortedIndex(int[] permutation, int[] ranks) {
+            this.permutation = permutation;
+            this.ranks = ranks;
+        }
+    }
+
+    private static class HashIndex {
+        private static final int[] EMPTY = new int[0];
+        private final String field;
+        /**
+         * the field values of the elements
+         */
+        private final Object[] values;
+        /**
+         * field value -> the positions in ascending order
+         */
+        private final Map<Object, int[]> buckets;
+
+        private HashIndex(String fieldName, Field field, List<?> elements) {
+            this.field = fieldName;
+            this.values = new Object[elements.size()];
+            Map<Object, int[]> counts = new HashMap<Object, int[]>();
+            for (int i = 0; i < values.length; i++) {
+                Object value;
+                try {
+                    value = field.get(elements.get(i));
+                } catch (Throwable ex) {
+                    // the element is not an instance of the class
+                    value = null;
+                }
+                values[i] = value;
+                int[] count = counts.get(value);
+                if (count == null) {
+                    count = new int[1];
+                    counts.put(value, count);
+                }
+                count[0]++;
+            }
+            this.buckets = new HashMap<Object, int[]>(counts.size() * 4 / 3 + 1);
+            for (Map.Entry<Object, int[]> entry : counts.entrySet()) {
+                buckets.put(entry.getKey(), new int[entry.getValue()[0]]);
+                // reused as the next slot of the bucket
+                entry.getValue()[0] = 0;
+            }
+            for (int i = 0; i < values.length; i++) {
+                int[] slot = counts.get(values[i]);
+                buckets.get(values[i])[slot[0]++] = i;
+            }
+        }
+
+        private int[] get(Object value) {
+            int[] bucket = buckets.get(value);
+            return bucket == null ? EMPTY : bucket;
+        }
+    }
+}
@@ -20,6 +20,17 @@ public class PaginationProperties {
     private boolean count = true;
     private int defaultPageSize = 10;
     private boolean useLastPageIfPageOut = false;
+    /**
+     * return the total with the rows in the page query if the dialect supports any {@link InlineCountStrategy},
+     * so the count query is skipped. The last page is not used for a page out request in this mode.
+     */
+    private boolean inlineCount = false;
+    /**
+     * execute the count query in another connection while the page query is executing.
+     * It is not used in a transaction, because the count query can't see the uncommitted changes,
+     * and it is not used when the last page is used for a page out request.
+     */
+    private boolean parallelCount = false;
 
     public boolean isCount() {
         return count;
@@ -50,6 +61,21 @@ public class PaginationProperties {
         this.useLastPageIfPageOut = useLastPageIfPageNoOut;
     }
 
+    public boolean isInlineCount() {
+        return inlineCount;
+    }
+
+    public void setInlineCount(boolean inlineCount) {
+        this.inlineCount = inlineCount;
+    }
+
+    public boolean isParallelCount() {
+        return parallelCount;
+    }
+
+    public void setParallelCount(boolean parallelCount) {
+        this.parallelCount = parallelCount;
+    }
 
     @Override
     public String toString() {
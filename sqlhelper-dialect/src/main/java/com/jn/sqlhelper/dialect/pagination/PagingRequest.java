@@ -17,6 +17,7 @@ package com.jn.sqlhelper.dialect.pagination;
 
 import com.jn.easyjson.core.JSONBuilderProvider;
 import com.jn.easyjson.core.exclusion.IgnoreAnnotationExclusion;
+import com.jn.langx.util.Emptys;
 import com.jn.langx.util.collection.Collects;
 import com.jn.sqlhelper.dialect.SelectRequest;
 
@@ -27,6 +28,15 @@ public class PagingRequest<C, E> extends SelectRequest<PagingRequest<C, E>, Pagi
     private Boolean count = null;
     private String countColumn;
     private Boolean cacheCount = null;
+    /**
+     * fetch the next page in background after this page is returned, so the next request of the same query is served from memory.
+     * It is used by the sequential consumers, e.g. the exports.
+     */
+    private Boolean prefetch = null;
+    /**
+     * null: {@link CountMode#EXACT}
+     */
+    private CountMode countMode;
 
     // begin 1
     private int pageNo = 1;
@@ -42,6 +52,21 @@ public class PagingRequest<C, E> extends SelectRequest<PagingRequest<C, E>, Pagi
     private String subqueryPagingStartFlag;
     private String subqueryPagingEndFlag;
 
+    /**
+     * keyset (seek) pagination: the order by values of the last row in the previous page,
+     * the page will be located with them rather than the page no.
+     *
+     * @see KeysetPaginations
+     */
+    private Object[] after;
+
+    /**
+     * the primary key columns of the queried table, used to rewrite a deep page query to a deferred join.
+     * If it is not set, the primary keys are read from the database metadata.
+     *
+     * @see com.jn.sqlhelper.dialect.instrument.SQLInstrumentorConfig#getDeferredJoinOffsetThreshold()
+     */
+    private String[] primaryKeys;
 
     /**
      * Nothing to do, will not do query, the result is empty list
@@ -128,6 +153,7 @@ public class PagingRequest<C, E> extends SelectRequest<PagingRequest<C, E>, Pagi
     public void clear(boolean clearResult) {
         super.clear();
         count = null;
+        countMode = null;
         useLastPageIfPageOut = null;
         setCtx(null);
         if (clearResult) {
@@ -156,6 +182,24 @@ public class PagingRequest<C, E> extends SelectRequest<PagingRequest<C, E>, Pagi
         return this;
     }
 
+    public Boolean getPrefetch() {
+        return prefetch;
+    }
+
+    public PagingRequest<C, E> setPrefetch(Boolean prefetch) {
+        this.prefetch = prefetch;
+        return this;
+    }
+
+    public CountMode getCountMode() {
+        return countMode == null ? CountMode.EXACT : countMode;
+    }
+
+    public PagingRequest<C, E> setCountMode(CountMode countMode) {
+        this.countMode = countMode;
+        return this;
+    }
+
     public PagingRequest<C, E> setCtx(PagingRequestContext ctx) {
         return (PagingRequest) setContext(ctx);
     }
@@ -214,6 +258,39 @@ public class PagingRequest<C, E> extends SelectRequest<PagingRequest<C, E>, Pagi
         return subqueryPaging(true).setSubqueryPagingStartFlag(subQueryPagingStartFlag).setSubqueryPagingEndFlag(subQueryPagingEndFlag);
     }
 
+    public Object[] getAfter() {
+        return after;
+    }
+
+    public PagingRequest<C, E> setAfter(Object[] after) {
+        this.after = after;
+        return this;
+    }
+
+    /**
+     * Query the page after the specified row, the values are the order by values of the row.
+     * The order by of the request must be unique, e.g. ends with the primary key.
+     */
+    public PagingRequest<C, E> after(Object... values) {
+        return setAfter(values);
+    }
+
+    public String[] getPrimaryKeys() {
+        return primaryKeys;
+    }
+
+    public PagingRequest<C, E> setPrimaryKeys(String... primaryKeys) {
+        this.primaryKeys = primaryKeys;
+        return this;
+    }
+
+    /**
+     * a keyset paging request has the after values, and it is neither a subquery paging request nor a get all request
+     */
+    public boolean isKeysetRequest() {
+        return Emptys.isNotEmpty(after) && pageSize > 0 && !isSubQueryPaging;
+    }
+
     @Override
     public String toString() {
         return JSONBuilderProvider.create()
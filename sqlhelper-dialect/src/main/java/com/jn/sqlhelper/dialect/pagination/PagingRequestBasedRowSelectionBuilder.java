@@ -15,6 +15,8 @@
 
 package com.jn.sqlhelper.dialect.pagination;
 
+import com.jn.langx.util.Emptys;
+import com.jn.langx.util.collection.Collects;
 import com.jn.sqlhelper.dialect.conf.Settings;
 
 public class PagingRequestBasedRowSelectionBuilder implements RowSelectionBuilder<PagingRequest> {
@@ -34,6 +36,10 @@ public class PagingRequestBasedRowSelectionBuilder implements RowSelectionBuilde
             if (request.isGetAllFromNonZeroOffsetRequest()) {
                 offset = (pageNo - 1) * getDefaultPageSize();
                 limit = Integer.MAX_VALUE;
+            } else if (request.isKeysetRequest()) {
+                // the page is located with the keyset condition
+                KeysetPaginations.checkKeyset(request.getOrderBy(), request.getAfter());
+                rowSelection.setKeyset(request.getOrderBy(), request.getAfter());
             } else {
                 offset = pageNo > 0 ? (pageNo - 1) * request.getPageSize() : 0;
             }
@@ -44,6 +50,9 @@ public class PagingRequestBasedRowSelectionBuilder implements RowSelectionBuilde
             rowSelection.setOffset(offset);
 
             rowSelection.setMaxRows(request.getMaxRows());
+            if (Emptys.isNotEmpty(request.getPrimaryKeys())) {
+                rowSelection.setPrimaryKeys(Collects.asList(request.getPrimaryKeys()));
+            }
             return rowSelection;
         }
         throw new IllegalArgumentException("PagingRequest is illegal");
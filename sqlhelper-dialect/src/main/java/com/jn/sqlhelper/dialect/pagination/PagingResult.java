@@ -21,6 +21,12 @@ public class PagingResult<E> {
     private int pageNo;
     private int pageSize;
     private long total;
+    /**
+     * the total is an estimate
+     *
+     * @see CountMode
+     */
+    private boolean estimated;
     private List<E> items;
 
     public int getPageNo() {
@@ -50,6 +56,15 @@ public class PagingResult<E> {
         return this;
     }
 
+    public boolean isEstimated() {
+        return estimated;
+    }
+
+    public PagingResult<E> setEstimated(boolean estimated) {
+        this.estimated = estimated;
+        return this;
+    }
+
     public List<E> getItems() {
         return this.items;
     }
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jn.sqlhelper.dialect.pagination;
+
+import com.jn.langx.annotation.NonNull;
+import com.jn.langx.util.Preconditions;
+import com.jn.langx.util.function.Function;
+import com.jn.langx.util.function.Supplier0;
+import com.jn.sqlhelper.dialect.likeescaper.LikeEscaper;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Scan all the rows of a query page by page, only the rows of the current page are kept in memory.
+ * <pre>
+ *     PagingRequest request = new PagingRequest().limit(1, 1000).setOrderBy(SqlStyleOrderByBuilder.DEFAULT.build("id"));
+ *     PagingScanner scanner = new PagingScanner(request, new Supplier0() {
+ *         public List get() {
+ *             return userDao.selectByCondition(condition);
+ *         }
+ *     }).keyset(new Function() {
+ *         public Object[] apply(User user) {
+ *             return new Object[]{user.getId()};
+ *         }
+ *     });
+ *     while (scanner.hasNext()) {
+ *         export(scanner.next());
+ *     }
+ * </pre>
+ * The request is bound to the current thread before every page query, and the page query is not counted.
+ * If a keys extractor is set, the next page is located with the order by values of the last row of the previous page
+ * (keyset pagination), else with the page no, whose offset is slower and slower.
+ * <p>
+ * The page query is executed in the thread which calls {@link #hasNext()}, a scanner is not thread safe.
+ */
+public class PagingScanner<C, E> implements Iterator<E> {
+    private static final PagingRequestContextHolder PAGING_CONTEXT = PagingRequestContextHolder.getContext();
+
+    private final PagingRequest<C, E> request;
+    private final Supplier0<List<E>> pageQuery;
+    /**
+     * the request is cleared after every query, so the condition and the like escaper are restored before the next query
+     */
+    private final C condition;
+    private final LikeEscaper likeEscaper;
+    private Function<E, Object[]> keysExtractor;
+
+    private List<E> page = Collections.emptyList();
+    private int index = 0;
+    private boolean lastPage = false;
+    private int pages = 0;
+
+    public PagingScanner(@NonNull PagingRequest<C, E> request, @NonNull Supplier0<List<E>> pageQuery) {
+        Preconditions.checkNotNull(request);
+        Preconditions.checkNotNull(pageQuery);
+        Preconditions.checkArgument(request.getPageSize() > 0, "the page size of a scanner must be greater than 0");
+        this.request = request;
+        this.pageQuery = pageQuery;
+        this.condition = request.getCondition();
+        this.likeEscaper = request.getLikeEscaper();
+    }
+
+    /**
+     * Locate the next page with the keyset pagination, the request must have an unique order by
+     *
+     * @param keysExtractor get the order by values of a row
+     * @see PagingRequest#after(Object...)
+     */
+    public PagingScanner<C, E> keyset(@NonNull Function<E, Object[]> keysExtractor) {
+        Preconditions.checkNotNull(keysExtractor);
+        Preconditions.checkArgument(request.needOrderBy(), "the keyset scanner needs an order by");
+        this.keysExtractor = keysExtractor;
+        return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (index >= page.size()) {
+            if (lastPage) {
+                return false;
+            }
+            fetchNextPage();
+        }
+        return true;
+    }
+
+    @Override
+    public E next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.get(index++);
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("remove");
+    }
+
+    /**
+     * @return the count of the queried pages
+     */
+    public int getPages() {
+        return pages;
+    }
+
+    private void fetchNextPage() {
+        if (pages > 0) {
+            if (keysExtractor != null) {
+                request.after(keysExtractor.apply(page.get(page.size() - 1)));
+            } else {
+                request.setPageNo(request.getPageNo() + 1);
+            }
+        }
+        // release the rows of the previous page before the next query
+        page = Collections.emptyList();
+        index = 0;
+
+        request.setCondition(condition);
+        request.setLikeEscaper(likeEscaper);
+        request.setCount(false);
+        request.setResult(null);
+        PAGING_CONTEXT.setPagingRequest(request);
+        List<E> rows;
+        try {
+            rows = pageQuery.get();
+        } finally {
+            request.setResult(null);
+        }
+        pages++;
+        if (rows == null || rows.isEmpty()) {
+            lastPage = true;
+            return;
+        }
+        lastPage = rows.size() < request.getPageSize();
+        page = rows;
+    }
+}
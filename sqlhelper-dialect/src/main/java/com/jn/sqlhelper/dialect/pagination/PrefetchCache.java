@@ -0,0 +1,213 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.dialect.pagination;
+
+import com.jn.langx.annotation.Nullable;
+import com.jn.langx.util.Preconditions;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The pages which are fetched in background before they are requested, see {@link PagingRequest#setPrefetch(Boolean)}.
+ * <p>
+ * A page is taken only once, it is dropped after the ttl, when the cache is full (the oldest first),
+ * or when any of its tables is written after the stamp which is taken before the page is submitted.
+ * A dropped page which was never taken is counted as a wasted fetch.
+ * <pre>
+ *     long stamp = cache.stamp();
+ *     Future&lt;List&gt; page = executor.submit(fetchNextPage);
+ *     cache.put(key, page, tables, stamp);
+ *     ...
+ *     Future&lt;List&gt; prefetched = cache.take(key);
+ * </pre>
+ *
+ * @param <K> the key type, it must have the equals and hashCode methods
+ * @param <V> the page type
+ */
+public class PrefetchCache<K, V> {
+    private final int maxCapacity;
+    private final long ttlInMillis;
+    /**
+     * in the order of the puts, so the oldest page is the first one
+     */
+    private final LinkedHashMap<K, Entry<V>> pages = new LinkedHashMap<K, Entry<V>>();
+    private final TableWriteStamps writeStamps = new TableWriteStamps();
+
+    private final AtomicLong prefetches = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong wasted = new AtomicLong();
+
+    public PrefetchCache(int maxCapacity, long ttlInMillis) {
+        Preconditions.checkArgument(maxCapacity > 0, "the max capacity must be greater than 0");
+        Preconditions.checkArgument(ttlInMillis > 0, "the ttl must be greater than 0");
+        this.maxCapacity = maxCapacity;
+        this.ttlInMillis = ttlInMillis;
+    }
+
+    /**
+     * take it before the page is submitted
+     */
+    public long stamp() {
+        return writeStamps.stamp();
+    }
+
+    /**
+     * @param tables the tables of the page query, the page is not cached if they are unknown (null)
+     * @param stamp  the stamp which is taken before the page is submitted
+     * @return whether the page is cached
+     */
+    public boolean put(K key, Future<V> page, @Nullable Set<String> tables, long stamp) {
+        if (tables == null || writeStamps.isWrittenAfter(tables, stamp)) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        synchronized (pages) {
+            Entry<V> replaced = pages.remove(key);
+            if (replaced != null) {
+                drop(replaced);
+            }
+            pages.put(key, new Entry<V>(page, tables, stamp, now + ttlInMillis));
+            evict(now);
+        }
+        prefetches.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * A page is served only if it has been fetched, an in-flight page is dropped rather than waited,
+     * so the request never waits for a connection which is held by the prefetch.
+     *
+     * @return the prefetched page, null if it is not prefetched, or it is not fetched yet, or it is expired or stale
+     */
+    public Future<V> take(K key) {
+        Entry<V> entry;
+        synchronized (pages) {
+            entry = pages.remove(key);
+        }
+        if (entry != null && entry.page.isDone() && !entry.page.isCancelled() && entry.expireAt > System.currentTimeMillis() && !writeStamps.isWrittenAfter(entry.tables, entry.stamp)) {
+            hits.incrementAndGet();
+            return entry.page;
+        }
+        if (entry != null) {
+            drop(entry);
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Invalidate the pages of the tables, it is called after the tables were written.
+     *
+     * @param tables the written tables, all the pages are invalidated if they are unknown (null)
+     */
+    public void invalidate(@Nullable Collection<String> tables) {
+        writeStamps.write(tables);
+        synchronized (pages) {
+            Iterator<Entry<V>> iter = pages.values().iterator();
+            while (iter.hasNext()) {
+                Entry<V> entry = iter.next();
+                if (writeStamps.isWrittenAfter(entry.tables, entry.stamp)) {
+                    iter.remove();
+                    drop(entry);
+                }
+            }
+        }
+    }
+
+    public int size() {
+        synchronized (pages) {
+            return pages.size();
+        }
+    }
+
+    /**
+     * @return the count of the cached pages
+     */
+    public long getPrefetches() {
+        return prefetches.get();
+    }
+
+    /**
+     * @return the count of the requests which are served by a prefetched page
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return the count of the requests which have not a usable prefetched page
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return the count of the prefetched pages which are dropped without being taken
+     */
+    public long getWasted() {
+        return wasted.get();
+    }
+
+    /**
+     * @return hits / (hits + misses), 0 if nothing is requested
+     */
+    public double getHitRate() {
+        long hits = this.hits.get();
+        long total = hits + misses.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * evict the expired pages and the oldest pages over the capacity, it is called with the lock
+     */
+    private void evict(long now) {
+        Iterator<Map.Entry<K, Entry<V>>> iter = pages.entrySet().iterator();
+        while (iter.hasNext()) {
+            Entry<V> entry = iter.next().getValue();
+            if (pages.size() <= maxCapacity && entry.expireAt > now) {
+                break;
+            }
+            iter.remove();
+            drop(entry);
+        }
+    }
+
+    private void drop(Entry<V> entry) {
+        wasted.incrementAndGet();
+        // the page is not used, so the query is stopped if it is not started
+        entry.page.cancel(false);
+    }
+
+    private static class Entry<V> {
+        private final Future<V> page;
+        private final Set<String> tables;
+        private final long stamp;
+        private final long expireAt;
+
+        private Entry(Future<V> page, Set<String> tables, long stamp, long expireAt) {
+            this.page = page;
+            this.tables = tables;
+            this.stamp = stamp;
+            this.expireAt = expireAt;
+        }
+    }
+}
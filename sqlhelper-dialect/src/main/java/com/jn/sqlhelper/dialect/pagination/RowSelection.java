@@ -15,12 +15,30 @@
 
 package com.jn.sqlhelper.dialect.pagination;
 
+import com.jn.sqlhelper.dialect.internal.limit.LimitPlan;
+import com.jn.sqlhelper.dialect.orderby.OrderBy;
+
+import java.util.List;
+
 public final class RowSelection {
     private Long offset;
     private Integer limit;
     private Integer timeout;
     private Integer fetchSize;
     private Integer maxRows = -1;
+    /**
+     * keyset pagination: the order by keys, and the values of the last row in the previous page
+     */
+    private OrderBy keys;
+    private Object[] after;
+    /**
+     * the primary key columns of the queried table, for the deferred join pagination
+     */
+    private List<String> primaryKeys;
+    /**
+     * the plan of the limit sql, it decides the limit parameters when they are bound
+     */
+    private LimitPlan limitPlan;
 
     public Long getOffset() {
         return this.offset;
@@ -66,6 +84,31 @@ public final class RowSelection {
         return offset > 0;
     }
 
+    public boolean isKeyset() {
+        return this.keys != null && this.after != null;
+    }
+
+    public OrderBy getKeys() {
+        return keys;
+    }
+
+    public Object[] getAfter() {
+        return after;
+    }
+
+    public void setKeyset(OrderBy keys, Object[] after) {
+        this.keys = keys;
+        this.after = after;
+    }
+
+    public List<String> getPrimaryKeys() {
+        return primaryKeys;
+    }
+
+    public void setPrimaryKeys(List<String> primaryKeys) {
+        this.primaryKeys = primaryKeys;
+    }
+
     public Integer getMaxRows() {
         return maxRows;
     }
@@ -73,4 +116,12 @@ public final class RowSelection {
     public void setMaxRows(Integer maxRows) {
         this.maxRows = maxRows;
     }
+
+    public LimitPlan getLimitPlan() {
+        return limitPlan;
+    }
+
+    public void setLimitPlan(LimitPlan limitPlan) {
+        this.limitPlan = limitPlan;
+    }
 }
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.dialect.pagination;
+
+import com.jn.langx.annotation.Nullable;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The stamps of the last writes of the tables, a cached result is stale if any of its tables is written after
+ * the stamp which is taken before the result is queried.
+ */
+class TableWriteStamps {
+    private final AtomicLong stamps = new AtomicLong();
+    /**
+     * table name -> the stamp of the last write
+     */
+    private final ConcurrentHashMap<String, Long> writeStamps = new ConcurrentHashMap<String, Long>();
+    /**
+     * the stamp of the last write whose tables are unknown
+     */
+    private volatile long clearStamp = 0;
+
+    long stamp() {
+        return stamps.incrementAndGet();
+    }
+
+    /**
+     * @param tables the written tables, all the tables are written if they are unknown (null)
+     */
+    void write(@Nullable Collection<String> tables) {
+        long stamp = stamp();
+        if (tables == null) {
+            clearStamp = stamp;
+            return;
+        }
+        for (String table : tables) {
+            writeStamps.put(table, stamp);
+        }
+    }
+
+    boolean isWrittenAfter(Set<String> tables, long stamp) {
+        if (clearStamp > stamp) {
+            return true;
+        }
+        for (String table : tables) {
+            Long writeStamp = writeStamps.get(table);
+            if (writeStamp != null && writeStamp > stamp) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
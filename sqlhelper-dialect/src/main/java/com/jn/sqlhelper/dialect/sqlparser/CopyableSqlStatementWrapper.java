@@ -0,0 +1,28 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.dialect.sqlparser;
+
+/**
+ * A parsed statement that can hand out independent copies of itself.
+ * <p>
+ * The parsed statement cache keeps one parsed statement per sql, every transform works on a copy,
+ * so the cached statement is never changed by a transformer.
+ */
+public interface CopyableSqlStatementWrapper<Statement> extends SqlStatementWrapper<Statement> {
+    /**
+     * @return a copy that can be changed without affecting this statement
+     */
+    CopyableSqlStatementWrapper<Statement> copy();
+}
@@ -18,12 +18,14 @@ import com.jn.langx.util.Objects;
 import com.jn.langx.util.Preconditions;
 import com.jn.sqlhelper.dialect.Dialect;
 import com.jn.sqlhelper.dialect.DialectRegistry;
+import com.jn.sqlhelper.dialect.internal.urlparser.CommonUrlParser;
 import com.jn.sqlhelper.dialect.internal.urlparser.UnKnownDatabaseInfo;
 import com.jn.sqlhelper.dialect.internal.urlparser.UrlParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.List;
 
 public class JdbcUrlParser {
     private static final Logger logger = LoggerFactory.getLogger(JdbcUrlParser.class);
@@ -31,19 +33,7 @@ public class JdbcUrlParser {
 
     public DatabaseInfo parse(final String url) {
         Preconditions.checkNotNull(url);
-        Collection<Dialect> dialects = dialectRegistry.getDialects();
-        UrlParser parser = null;
-
-        for (Dialect dialect : dialects) {
-            if (Objects.isNotNull(dialect.getUrlParser())) {
-                for (String schema : dialect.getUrlParser().getUrlSchemas()) {
-                    if (url.startsWith(schema)) {
-                        parser = dialect.getUrlParser();
-                        break;
-                    }
-                }
-            }
-        }
+        UrlParser parser = findUrlParser(url);
         if (parser != null) {
             try {
                 return parser.parse(url);
@@ -55,4 +45,53 @@ public class JdbcUrlParser {
             return UnKnownDatabaseInfo.createUnknownDataBase(url);
         }
     }
+
+    /**
+     * @return the parser whose url schema is the longest prefix of the url
+     */
+    public UrlParser findUrlParser(final String url) {
+        List<Dialect> dialects = findDialects(url);
+        return dialects.isEmpty() ? null : dialects.get(0).getUrlParser();
+    }
+
+    /**
+     * Guess the dialect with the url schemas, it is not exact, e.g. the version of a database is unknown.
+     *
+     * @return the dialect, null if no dialect or more than one dialects match the url
+     */
+    public Dialect findDialect(final String url) {
+        List<Dialect> dialects = findDialects(url);
+        return dialects.size() == 1 ? dialects.get(0) : null;
+    }
+
+    /**
+     * Only the dialects of the url subprotocol are checked, the other dialects are not instantiated.
+     *
+     * @return the dialects which own the parsers of the longest url schema
+     */
+    private List<Dialect> findDialects(final String url) {
+        Preconditions.checkNotNull(url);
+        List<Dialect> matched = new ArrayList<Dialect>();
+        int matchedLength = 0;
+        for (Dialect dialect : dialectRegistry.getDialectsByUrlSubprotocol(url)) {
+            UrlParser parser = dialect.getUrlParser();
+            if (Objects.isNull(parser)) {
+                continue;
+            }
+            for (String schema : parser.getUrlSchemas()) {
+                if (schema.length() >= matchedLength && url.startsWith(schema)) {
+                    if (schema.length() > matchedLength) {
+                        matched.clear();
+                        matchedLength = schema.length();
+                    }
+                    // a dialect and its delegate share the parser
+                    Dialect owner = parser instanceof CommonUrlParser && ((CommonUrlParser) parser).getDialect() != null ? ((CommonUrlParser) parser).getDialect() : dialect;
+                    if (!matched.contains(owner)) {
+                        matched.add(owner);
+                    }
+                }
+            }
+        }
+        return matched;
+    }
 }
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.tests;
+
+import com.jn.sqlhelper.dialect.pagination.CountExecutors;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+public class CountExecutorsTests {
+
+    @Test
+    public void testCount() {
+        Future<Integer> future = CountExecutors.getDefault().submit(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return 100;
+            }
+        });
+        Assert.assertEquals(100, CountExecutors.get(future).intValue());
+    }
+
+    @Test
+    public void testCountError() {
+        Future<Integer> future = CountExecutors.getDefault().submit(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                throw new SQLException("table not found");
+            }
+        });
+        try {
+            CountExecutors.get(future);
+            Assert.fail();
+        } catch (RuntimeException ex) {
+            Assert.assertTrue(ex.getCause() instanceof SQLException);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.tests;
+
+import com.jn.langx.util.collection.Collects;
+import com.jn.sqlhelper.dialect.pagination.CountResultCache;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Set;
+
+public class CountResultCacheTests {
+    private static final Set<String> PERSON = Collects.asSet("person");
+
+    @Test
+    public void testInvalidateByTable() {
+        CountResultCache<String> cache = new CountResultCache<String>(100, 60000);
+        cache.put("a", 10, PERSON, cache.stamp());
+        cache.put("b", 20, Collects.asSet("order"), cache.stamp());
+        Assert.assertEquals(10, cache.get("a"));
+        Assert.assertEquals(-1, cache.get("c"));
+
+        cache.invalidate(Collects.asList("person"));
+        Assert.assertEquals(-1, cache.get("a"));
+        Assert.assertEquals(20, cache.get("b"));
+
+        cache.put("a", 11, PERSON, cache.stamp());
+        Assert.assertEquals(11, cache.get("a"));
+
+        // the tables of the write are unknown
+        cache.invalidate(null);
+        Assert.assertEquals(-1, cache.get("a"));
+        Assert.assertEquals(-1, cache.get("b"));
+    }
+
+    @Test
+    public void testConcurrentWrite() {
+        CountResultCache<String> cache = new CountResultCache<String>(100, 60000);
+        long stamp = cache.stamp();
+        // the table is written while the count query is executing
+        cache.invalidate(Collects.asList("person"));
+        cache.put("a", 10, PERSON, stamp);
+        Assert.assertEquals(-1, cache.get("a"));
+    }
+
+    @Test
+    public void testExpire() throws InterruptedException {
+        CountResultCache<String> cache = new CountResultCache<String>(100, 50);
+        cache.put("a", 10, PERSON, cache.stamp());
+        Assert.assertEquals(10, cache.get("a"));
+        Thread.sleep(100);
+        Assert.assertEquals(-1, cache.get("a"));
+    }
+
+    @Test
+    public void testUnknownTables() {
+        CountResultCache<String> cache = new CountResultCache<String>(100, 60000);
+        cache.put("a", 10, null, cache.stamp());
+        Assert.assertEquals(-1, cache.get("a"));
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.tests;
+
+import com.jn.langx.annotation.Name;
+import com.jn.sqlhelper.common.ddl.SQLSyntaxCompatTable;
+import com.jn.sqlhelper.dialect.Dialect;
+import com.jn.sqlhelper.dialect.DialectRegistry;
+import com.jn.sqlhelper.dialect.annotation.DialectIndex;
+import com.jn.sqlhelper.dialect.annotation.SyntaxCompat;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DialectIndexTests {
+
+    @Test
+    public void testIndexedDialects() {
+        Assert.assertNotNull("the dialect index is not generated", DialectRegistry.class.getResource("/" + DialectIndex.LOCATION));
+
+        DialectRegistry registry = DialectRegistry.getInstance();
+        for (Class<? extends Dialect> clazz : DialectRegistry.class.getAnnotation(DialectIndex.class).value()) {
+            Name name = clazz.getAnnotation(Name.class);
+            String databaseId = name != null ? name.value() : clazz.getSimpleName().toLowerCase().replaceAll("dialect", "");
+
+            Dialect dialect = registry.getDialectByClassName(clazz.getCanonicalName());
+            Assert.assertNotNull(clazz.getName(), dialect);
+            Assert.assertSame(dialect, registry.getDialectByName(databaseId));
+            Assert.assertSame(clazz, dialect.getClass());
+
+            SyntaxCompat syntaxCompat = clazz.getAnnotation(SyntaxCompat.class);
+            if (syntaxCompat != null) {
+                for (String compat : syntaxCompat.value()) {
+                    Assert.assertTrue(SQLSyntaxCompatTable.getInstance().isCompatible(databaseId, compat));
+                }
+            }
+        }
+    }
+}
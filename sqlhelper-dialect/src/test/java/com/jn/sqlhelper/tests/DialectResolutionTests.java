@@ -0,0 +1,118 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.tests;
+
+import com.jn.sqlhelper.dialect.Dialect;
+import com.jn.sqlhelper.dialect.DialectRegistry;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DialectResolutionTests {
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(DialectResolutionTests.class.getClassLoader(), new Class[]{type}, handler);
+    }
+
+    /**
+     * @return a connection which counts the getMetaData() calls
+     */
+    private static Connection connection(final String productName, final String url, final AtomicInteger metadataCalls) {
+        final DatabaseMetaData metaData = proxy(DatabaseMetaData.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if ("getDatabaseProductName".equals(method.getName())) {
+                    return productName;
+                }
+                if ("getURL".equals(method.getName())) {
+                    return url;
+                }
+                return null;
+            }
+        });
+        return proxy(Connection.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if ("getMetaData".equals(method.getName())) {
+                    metadataCalls.incrementAndGet();
+                    return metaData;
+                }
+                return null;
+            }
+        });
+    }
+
+    private static DataSource dataSource() {
+        return proxy(DataSource.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if ("hashCode".equals(method.getName())) {
+                    return System.identityHashCode(proxy);
+                }
+                if ("equals".equals(method.getName())) {
+                    return proxy == args[0];
+                }
+                return null;
+            }
+        });
+    }
+
+    @Test
+    public void testResolveOncePerDataSource() {
+        DialectRegistry registry = DialectRegistry.getInstance();
+        AtomicInteger metadataCalls = new AtomicInteger();
+        Connection connection = connection("MySQL", "jdbc:mysql://localhost:3306/test", metadataCalls);
+
+        DataSource dataSource = dataSource();
+        Dialect dialect = registry.getDialect(dataSource, connection);
+        Assert.assertEquals(registry.getDialectByName("mysql"), dialect);
+        for (int i = 0; i < 10; i++) {
+            Assert.assertSame(dialect, registry.getDialect(dataSource, connection));
+        }
+        Assert.assertEquals(1, metadataCalls.get());
+
+        // another data source has its own entry
+        Assert.assertSame(dialect, registry.getDialect(dataSource(), connection));
+        Assert.assertEquals(2, metadataCalls.get());
+
+        // the url is learned from the metadata
+        Assert.assertSame(dialect, registry.getDialectByUrl("jdbc:mysql://localhost:3306/test"));
+    }
+
+    @Test
+    public void testGuessByUrl() {
+        DialectRegistry registry = DialectRegistry.getInstance();
+        Assert.assertEquals(registry.getDialectByName("oracle"), registry.getDialectByUrl("jdbc:oracle:thin:@localhost:1521:orcl"));
+        Assert.assertNull(registry.getDialectByUrl("jdbc:unknown://localhost/test"));
+        Assert.assertNull(registry.getDialect(null, null));
+    }
+
+    @Test
+    public void testFindDialectsByUrlSubprotocol() {
+        DialectRegistry registry = DialectRegistry.getInstance();
+        Assert.assertEquals(Collections.singletonList(registry.getDialectByName("oracle")), registry.getDialectsByUrlSubprotocol("jdbc:oracle:thin:@localhost:1521:orcl"));
+        Assert.assertEquals(Collections.singletonList(registry.getDialectByName("informix")), registry.getDialectsByUrlSubprotocol("jdbc:informix-sqli://localhost:9088/test:informixserver=ifx"));
+        Assert.assertTrue(registry.getDialectsByUrlSubprotocol("jdbc:unknown://localhost/test").isEmpty());
+        Assert.assertEquals(registry.getDialectByName("postgresql"), registry.getDialectByUrl("jdbc:postgresql://localhost:5432/test"));
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.tests;
+
+import com.jn.sqlhelper.dialect.internal.MySQLDialect;
+import com.jn.sqlhelper.dialect.internal.PostgreSQLDialect;
+import com.jn.sqlhelper.dialect.pagination.InlineCountResultSet;
+import com.jn.sqlhelper.dialect.pagination.InlineCountStrategy;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+
+public class InlineCountResultSetTests {
+
+    @Test
+    public void testStrategy() {
+        Assert.assertEquals(InlineCountStrategy.WINDOW_FUNCTION, InlineCountStrategy.of(new PostgreSQLDialect()));
+        Assert.assertEquals(InlineCountStrategy.FOUND_ROWS, InlineCountStrategy.of(new MySQLDialect()));
+        Assert.assertNull(InlineCountStrategy.of(null));
+    }
+
+    @Test
+    public void testHideTotalColumn() throws Exception {
+        ResultSet resultSet = InlineCountResultSet.wrap(newResultSet(new String[]{"id", "sqlhelper_total_", "name"}, new Object[][]{{1, 25L, "a"}, {2, 25L, "b"}}));
+        Assert.assertEquals(-1, InlineCountResultSet.getTotal(resultSet));
+
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        Assert.assertEquals(2, metaData.getColumnCount());
+        Assert.assertEquals("id", metaData.getColumnLabel(1));
+        Assert.assertEquals("name", metaData.getColumnLabel(2));
+        Assert.assertEquals(2, resultSet.findColumn("name"));
+
+        Assert.assertTrue(resultSet.next());
+        Assert.assertEquals(25, InlineCountResultSet.getTotal(resultSet));
+        Assert.assertEquals(1, resultSet.getObject(1));
+        Assert.assertEquals("a", resultSet.getObject(2));
+        Assert.assertTrue(resultSet.next());
+        Assert.assertEquals("b", resultSet.getObject(2));
+        Assert.assertFalse(resultSet.next());
+    }
+
+    @Test
+    public void testEmptyResultSet() throws Exception {
+        ResultSet resultSet = InlineCountResultSet.wrap(newResultSet(new String[]{"id", "sqlhelper_total_"}, new Object[0][]));
+        Assert.assertFalse(resultSet.next());
+        Assert.assertEquals(-1, InlineCountResultSet.getTotal(resultSet));
+    }
+
+    /**
+     * a forward only result set on the rows
+     */
+    private static ResultSet newResultSet(final String[] columns, final Object[][] rows) {
+        final ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(getClassLoader(), new Class[]{ResultSetMetaData.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if ("getColumnCount".equals(method.getName())) {
+                    return columns.length;
+                }
+                if ("getColumnLabel".equals(method.getName()) || "getColumnName".equals(method.getName())) {
+                    return columns[(Integer) args[0] - 1];
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }
+        });
+        return (ResultSet) Proxy.newProxyInstance(getClassLoader(), new Class[]{ResultSet.class}, new InvocationHandler() {
+            private int row = -1;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                String name = method.getName();
+                if ("getMetaData".equals(name)) {
+                    return metaData;
+                }
+                if ("next".equals(name)) {
+                    row++;
+                    return row < rows.length;
+                }
+                if ("findColumn".equals(name)) {
+                    for (int i = 0; i < columns.length; i++) {
+                        if (columns[i].equalsIgnoreCase((String) args[0])) {
+                            return i + 1;
+                        }
+                    }
+                    return -1;
+                }
+                if ("getObject".equals(name)) {
+                    return rows[row][(Integer) args[0] - 1];
+                }
+                if ("getLong".equals(name)) {
+                    return ((Number) rows[row][(Integer) args[0] - 1]).longValue();
+                }
+                throw new UnsupportedOperationException(name);
+            }
+        });
+    }
+
+    private static ClassLoader getClassLoader() {
+        return InlineCountResultSetTests.class.getClassLoader();
+    }
+}
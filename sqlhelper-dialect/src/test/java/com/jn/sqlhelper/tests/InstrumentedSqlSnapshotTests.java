@@ -0,0 +1,110 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.tests;
+
+import com.jn.langx.util.collection.Collects;
+import com.jn.sqlhelper.dialect.instrument.InstrumentedSqlSnapshot;
+import com.jn.sqlhelper.dialect.instrument.InstrumentedStatement;
+import com.jn.sqlhelper.dialect.pagination.InlineCountStrategy;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+public class InstrumentedSqlSnapshotTests {
+
+    @Test
+    public void testWriteAndLoad() throws Exception {
+        File file = File.createTempFile("sqlhelper", ".snapshot");
+        file.deleteOnExit();
+        List<InstrumentedStatement> statements = new ArrayList<InstrumentedStatement>();
+        for (int i = 0; i < 100; i++) {
+            InstrumentedStatement statement = new InstrumentedStatement();
+            statement.setOriginalSql("select * from t" + i + " where a = ?");
+            statement.setCountSql("id", "select count(id) from t" + i + " where a = ?");
+            statement.setTableNames(Collects.asSet("t" + i));
+            statement.setDeferredJoinSql("id", "mysql", "");
+            statement.setInlineCountSql(InlineCountStrategy.values()[0], "select t.*, count(1) over() from t" + i + " t where a = ?");
+            statements.add(statement);
+        }
+        InstrumentedStatement noTables = new InstrumentedStatement();
+        noTables.setOriginalSql("select 1 from dual");
+        noTables.setTableNames(null);
+        statements.add(noTables);
+        InstrumentedSqlSnapshot.write(file, "jsqlparser|mysql", statements);
+
+        InstrumentedSqlSnapshot snapshot = InstrumentedSqlSnapshot.load(file, "jsqlparser|mysql");
+        Assert.assertNotNull(snapshot);
+        Assert.assertEquals(101, snapshot.size());
+        Assert.assertNull(snapshot.get("select * from t100 where a = ?"));
+        InstrumentedStatement statement = snapshot.get("select * from t7 where a = ?");
+        Assert.assertEquals("select count(id) from t7 where a = ?", statement.getCountSql("id"));
+        Assert.assertNull(statement.getCountSql("1"));
+        Assert.assertEquals(Collects.asSet("t7"), statement.getTableNames());
+        Assert.assertEquals("", statement.getDeferredJoinSql("id", "mysql"));
+        Assert.assertEquals("select t.*, count(1) over() from t7 t where a = ?", statement.getInlineCountSql(InlineCountStrategy.values()[0]));
+        Assert.assertTrue(snapshot.get("select 1 from dual").isTableNamesResolved());
+        Assert.assertNull(snapshot.get("select 1 from dual").getTableNames());
+
+        // another config
+        Assert.assertNull(InstrumentedSqlSnapshot.load(file, "jsqlparser|oracle"));
+
+        // the temporary file is renamed
+        File[] files = file.getAbsoluteFile().getParentFile().listFiles();
+        for (File f : files) {
+            Assert.assertFalse(f.getName().startsWith(file.getName() + ".") && f.getName().endsWith(".tmp"));
+        }
+
+        // a broken entry is skipped when it is read
+        flip(file, file.length() - 1);
+        snapshot = InstrumentedSqlSnapshot.load(file, "jsqlparser|mysql");
+        Assert.assertNotNull(snapshot);
+        Assert.assertEquals(101, snapshot.size());
+        Assert.assertEquals(100, snapshot.getAll().size());
+
+        // a broken index
+        flip(file, file.length() - 1);
+        InstrumentedSqlSnapshot.write(file, "jsqlparser|mysql", statements);
+        flip(file, indexPosition(file) + 5);
+        Assert.assertNull(InstrumentedSqlSnapshot.load(file, "jsqlparser|mysql"));
+    }
+
+    /**
+     * magic, format version, sqlhelper version, config key, entry count, checksum
+     */
+    private static long indexPosition(File file) throws Exception {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            randomAccessFile.seek(8);
+            randomAccessFile.readUTF();
+            randomAccessFile.readUTF();
+            return randomAccessFile.getFilePointer() + 4 + 8;
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    private static void flip(File file, long position) throws Exception {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        randomAccessFile.seek(position);
+        int b = randomAccessFile.read();
+        randomAccessFile.seek(position);
+        randomAccessFile.write(b ^ 0xff);
+        randomAccessFile.close();
+    }
+}
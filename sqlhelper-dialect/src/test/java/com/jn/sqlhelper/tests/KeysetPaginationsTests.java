@@ -0,0 +1,78 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.tests;
+
+import com.jn.sqlhelper.dialect.internal.MySQLDialect;
+import com.jn.sqlhelper.dialect.internal.OracleDialect;
+import com.jn.sqlhelper.dialect.orderby.OrderBy;
+import com.jn.sqlhelper.dialect.pagination.KeysetPaginations;
+import com.jn.sqlhelper.dialect.pagination.PagingRequest;
+import com.jn.sqlhelper.dialect.pagination.PagingRequestBasedRowSelectionBuilder;
+import com.jn.sqlhelper.dialect.pagination.RowSelection;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class KeysetPaginationsTests {
+
+    @Test
+    public void testCanInjectCondition() {
+        Assert.assertTrue(KeysetPaginations.canInjectCondition("select * from t where a = ? and b in (select b from u where c = ?)"));
+        Assert.assertTrue(KeysetPaginations.canInjectCondition("select * from t where a = ? group by a having count(*) > 1"));
+        Assert.assertFalse(KeysetPaginations.canInjectCondition("select * from t where a = ? group by a having count(*) > ?"));
+        Assert.assertFalse(KeysetPaginations.canInjectCondition("select a from t group by a having count(*) > ?"));
+        Assert.assertFalse(KeysetPaginations.canInjectCondition("select a from t where a = ? union select a from u"));
+    }
+
+    @Test
+    public void testBuildCondition() {
+        OrderBy keys = new OrderBy();
+        keys.addAsc("t.a");
+        keys.addAsc("b");
+        Assert.assertTrue(KeysetPaginations.isRowValueComparison(new MySQLDialect(), keys));
+        Assert.assertFalse(KeysetPaginations.isRowValueComparison(new OracleDialect(), keys));
+        System.out.println(KeysetPaginations.buildCondition(keys, true));
+        System.out.println(KeysetPaginations.buildCondition(keys, false));
+
+        Object[] after = new Object[]{1, "x"};
+        Assert.assertArrayEquals(after, KeysetPaginations.getParameterValues(true, after));
+        Assert.assertArrayEquals(new Object[]{1, 1, "x"}, KeysetPaginations.getParameterValues(false, after));
+
+        OrderBy mixed = new OrderBy();
+        mixed.addAsc("a");
+        mixed.addDesc("b");
+        Assert.assertFalse(KeysetPaginations.isRowValueComparison(new MySQLDialect(), mixed));
+        Assert.assertEquals("a asc,b asc", KeysetPaginations.unqualified(keys).getKey());
+    }
+
+    @Test
+    public void testKeysetRowSelection() {
+        OrderBy keys = new OrderBy();
+        keys.addAsc("id");
+        PagingRequest request = new PagingRequest().limit(3, 10).after(100L);
+        request.setOrderBy(keys);
+        Assert.assertTrue(request.isKeysetRequest());
+
+        RowSelection selection = new PagingRequestBasedRowSelectionBuilder().build(request);
+        Assert.assertTrue(selection.isKeyset());
+        Assert.assertFalse(selection.hasOffset());
+        Assert.assertEquals(10, selection.getLimit().intValue());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testKeysetWithoutOrderBy() {
+        PagingRequest request = new PagingRequest().limit(1, 10).after(100L);
+        new PagingRequestBasedRowSelectionBuilder().build(request);
+    }
+}
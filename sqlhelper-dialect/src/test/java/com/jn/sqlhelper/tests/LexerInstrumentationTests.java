@@ -0,0 +1,166 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jn.sqlhelper.tests;
+
+import com.jn.langx.util.collection.Collects;
+import com.jn.sqlhelper.dialect.expression.ColumnExpression;
+import com.jn.sqlhelper.dialect.expression.EqualExpression;
+import com.jn.sqlhelper.dialect.expression.IntegerOrLongExpression;
+import com.jn.sqlhelper.dialect.expression.OrExpression;
+import com.jn.sqlhelper.dialect.expression.SQLExpression;
+import com.jn.sqlhelper.dialect.instrument.InjectPosition;
+import com.jn.sqlhelper.dialect.instrument.SQLTransformException;
+import com.jn.sqlhelper.dialect.instrument.TransformConfig;
+import com.jn.sqlhelper.dialect.instrument.lexer.LexerInstrumentation;
+import com.jn.sqlhelper.dialect.instrument.lexer.LexerStatementWrapper;
+import com.jn.sqlhelper.dialect.instrument.lexer.SqlTokenizer;
+import com.jn.sqlhelper.dialect.instrument.lexer.SqlTokens;
+import com.jn.sqlhelper.dialect.instrument.where.WhereTransformConfig;
+import com.jn.sqlhelper.dialect.orderby.OrderBy;
+import com.jn.sqlhelper.dialect.orderby.OrderByItem;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class LexerInstrumentationTests {
+    private static LexerInstrumentation instrumentation;
+
+    @BeforeClass
+    public static void init() {
+        instrumentation = new LexerInstrumentation();
+        // no fallback, so the statements which are not understood are kept
+        instrumentation.setFallbackName(null);
+        instrumentation.init();
+    }
+
+    @Test
+    public void testTokenize() {
+        String sql = "select 'a''b where', \"where\" from t /* where */ -- where\n where x = ?";
+        SqlTokens tokens = SqlTokenizer.tokenize(sql);
+        Assert.assertTrue(tokens.isSafe());
+        int where = tokens.indexOfKeyword("where", 0, tokens.size(), 0);
+        Assert.assertEquals(sql.lastIndexOf("where"), tokens.getStart(where));
+        Assert.assertEquals("'a''b where'", tokens.getText(1));
+
+        tokens = SqlTokenizer.tokenize("select count(*) from (select a from t) x");
+        Assert.assertTrue(tokens.isSafe());
+        Assert.assertEquals(2, tokens.indexOfKeyword("from", 0, tokens.size(), 1) - tokens.indexOfKeyword("select", 1, tokens.size(), 1));
+
+        Assert.assertFalse(SqlTokenizer.tokenize("select 'a\\' from t").isSafe());
+        Assert.assertFalse(SqlTokenizer.tokenize("select a from t; delete from t").isSafe());
+        Assert.assertFalse(SqlTokenizer.tokenize("select $$a$$ from t").isSafe());
+        Assert.assertFalse(SqlTokenizer.tokenize("select (a from t").isSafe());
+        Assert.assertFalse(SqlTokenizer.tokenize("select a from t /*!where 1 = 1*/").isSafe());
+        Assert.assertTrue(SqlTokenizer.tokenize("select a from t where b = 1;").isSafe());
+    }
+
+    @Test
+    public void testWhere() {
+        TransformConfig config = whereConfig(equal("tenant_id", 1), InjectPosition.FIRST);
+        Assert.assertEquals("select * from t where tenant_id = 1 AND (a = 1 or b = 2) order by c",
+                where("select * from t where a = 1 or b = 2 order by c", config));
+        Assert.assertEquals("select a, count(*) from t WHERE tenant_id = 1 group by a",
+                where("select a, count(*) from t group by a", config));
+        Assert.assertEquals("select * from t x left join (select * from y) z on x.id = z.id WHERE tenant_id = 1",
+                where("select * from t x left join (select * from y) z on x.id = z.id", config));
+        Assert.assertEquals("update t set a = 'where' WHERE tenant_id = 1",
+                where("update t set a = 'where'", config));
+        Assert.assertEquals("delete from t where a = ? AND tenant_id = 1 limit 10",
+                where("delete from t where a = ? limit 10", whereConfig(equal("tenant_id", 1), InjectPosition.LAST)));
+        Assert.assertEquals("select * from t where limit = 1 AND (a = 1 or b = 2)",
+                where("select * from t where limit = 1", whereConfig(or(equal("a", 1), equal("b", 2)), InjectPosition.LAST)));
+        Assert.assertEquals("insert into t(a) values (1)", where("insert into t(a) values (1)", config));
+
+        try {
+            where("select * from a union select * from b", config);
+            Assert.fail("the conditions is lost");
+        } catch (SQLTransformException ex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testOrderBy() {
+        OrderBy orderBy = new OrderBy();
+        orderBy.addAsc("a");
+        orderBy.add(new OrderByItem("B", null));
+        orderBy.addDesc("t.c");
+        Assert.assertEquals("select * from t order by a ASC, b, t.c DESC",
+                orderBy("select * from t order by a desc, b asc", orderBy));
+        Assert.assertEquals("select * from t where x = ? ORDER BY a ASC, B, t.c DESC limit 10",
+                orderBy("select * from t where x = ? limit 10", orderBy));
+        Assert.assertEquals("select a, row_number() over (order by a) from t group by a ORDER BY a ASC, B, t.c DESC",
+                orderBy("select a, row_number() over (order by a) from t group by a", orderBy));
+        try {
+            orderBy("select * from t order by field(a, ?)", orderBy);
+            Assert.fail();
+        } catch (SQLTransformException ex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testCount() {
+        Assert.assertEquals("select count(*) from t where c = ?", count("select a, b from t where c = ? order by a"));
+        Assert.assertEquals("with x as (select * from t) select count(*) from x", count("with x as (select * from t) select a from x"));
+        // can't be transformed without the fallback
+        Assert.assertNull(count("select distinct a from t"));
+        Assert.assertNull(count("select a, max(b) from t group by a"));
+        Assert.assertNull(count("select a from t order by a limit 10"));
+        Assert.assertNull(count("select a from t order by field(a, ?)"));
+    }
+
+    private static String where(String sql, TransformConfig config) {
+        LexerStatementWrapper sw = instrumentation.getSqlParser().parse(sql);
+        instrumentation.getWhereTransformer().transform(sw, config);
+        return sw.getSql();
+    }
+
+    private static String orderBy(String sql, OrderBy orderBy) {
+        TransformConfig config = new TransformConfig();
+        config.setOrderBy(orderBy);
+        LexerStatementWrapper sw = instrumentation.getSqlParser().parse(sql);
+        instrumentation.getOrderByTransformer().transform(sw, config);
+        return sw.getSql();
+    }
+
+    private static String count(String sql) {
+        LexerStatementWrapper sw = instrumentation.getSqlParser().parse(sql);
+        instrumentation.getCountTransformer().transform(sw, new TransformConfig());
+        return sw.isChanged() ? sw.getSql() : null;
+    }
+
+    private static TransformConfig whereConfig(SQLExpression expression, InjectPosition position) {
+        WhereTransformConfig whereConfig = new WhereTransformConfig();
+        whereConfig.setExpression(expression);
+        whereConfig.setPosition(position);
+        TransformConfig config = new TransformConfig();
+        config.setWhereInstrumentConfigs(Collects.newArrayList(whereConfig));
+        return config;
+    }
+
+    private static SQLExpression equal(String column, long value) {
+        EqualExpression equal = new EqualExpression();
+        equal.setLeft(new ColumnExpression(column));
+        equal.setRight(new IntegerOrLongExpression(value));
+        return equal;
+    }
+
+    private static SQLExpression or(SQLExpression left, SQLExpression right) {
+        OrExpression or = new OrExpression();
+        or.setLeft(left);
+        or.setRight(right);
+        return or;
+    }
+}
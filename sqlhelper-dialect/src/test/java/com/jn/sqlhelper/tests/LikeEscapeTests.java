@@ -1,9 +1,15 @@
 package com.jn.sqlhelper.tests;
 
+import com.jn.langx.util.struct.Pair;
+import com.jn.sqlhelper.dialect.likeescaper.BaseLikeEscaper;
 import com.jn.sqlhelper.dialect.likeescaper.LikeEscaper;
 import com.jn.sqlhelper.dialect.likeescaper.BackslashStyleEscaper;
+import com.jn.sqlhelper.dialect.likeescaper.LikeEscapers;
+import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.List;
+
 public class LikeEscapeTests {
     @Test
     public void test(){
@@ -11,4 +17,16 @@ public class LikeEscapeTests {
         String sql = "afs%fl";
         System.out.println(escaper.escape(sql));
     }
+
+    @Test
+    public void testInsertEscapeDeclaresOfMultipleLikeClauses() {
+        LikeEscaper escaper = new BaseLikeEscaper('\\');
+        String sql = "select * from user where name like ? and email like ? or age > ? order by id";
+        Pair<List<Integer>, List<Integer>> slots = LikeEscapers.findEscapedSlots(sql);
+        Assert.assertEquals("[0, 1]", slots.getKey().toString());
+        String expected = "select * from user where name like ? " + escaper.appendmentAfterLikeClause()
+                + "and email like ? " + escaper.appendmentAfterLikeClause()
+                + "or age > ? order by id";
+        Assert.assertEquals(expected, LikeEscapers.insertLikeEscapeDeclares(sql, slots.getValue(), escaper));
+    }
 }
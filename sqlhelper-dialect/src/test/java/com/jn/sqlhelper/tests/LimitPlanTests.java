@@ -0,0 +1,162 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.tests;
+
+import com.jn.sqlhelper.dialect.internal.AbstractDialect;
+import com.jn.sqlhelper.dialect.internal.DB2Dialect;
+import com.jn.sqlhelper.dialect.internal.MySQLDialect;
+import com.jn.sqlhelper.dialect.internal.OracleDialect;
+import com.jn.sqlhelper.dialect.internal.PostgreSQLDialect;
+import com.jn.sqlhelper.dialect.internal.SQLServerDialect;
+import com.jn.sqlhelper.dialect.internal.limit.AbstractLimitHandler;
+import com.jn.sqlhelper.dialect.internal.limit.LimitHandler;
+import com.jn.sqlhelper.dialect.internal.limit.LimitPlan;
+import com.jn.sqlhelper.dialect.pagination.RowSelection;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class LimitPlanTests {
+    private static final String SQL = "select id, name from person where age > ? and name like 'a1%' order by id for update";
+
+    private static RowSelection selection(long offset, int limit) {
+        RowSelection selection = new RowSelection();
+        selection.setOffset(offset);
+        selection.setLimit(limit);
+        return selection;
+    }
+
+    /**
+     * @return a statement which records the int parameters: index -> value
+     */
+    private static PreparedStatement recorder(final Map<Integer, Integer> parameters) {
+        return (PreparedStatement) Proxy.newProxyInstance(LimitPlanTests.class.getClassLoader(), new Class[]{PreparedStatement.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if ("setInt".equals(method.getName())) {
+                    parameters.put((Integer) args[0], (Integer) args[1]);
+                }
+                return null;
+            }
+        });
+    }
+
+    private static void assertSameAsHandler(AbstractDialect dialect, String sql) throws Exception {
+        LimitHandler handler = dialect.getLimitHandler();
+        for (long offset : new long[]{0, 1, 20, 12345}) {
+            LimitPlan plan = dialect.getLimitPlan(sql, offset > 0);
+            Assert.assertNotNull(plan);
+            for (int limit : new int[]{1, 10, 500}) {
+                RowSelection selection = selection(offset, limit);
+                Assert.assertEquals(handler.processSql(sql, selection), plan.render(selection));
+
+                Map<Integer, Integer> expected = new TreeMap<Integer, Integer>();
+                Map<Integer, Integer> actual = new TreeMap<Integer, Integer>();
+                Assert.assertEquals(handler.bindLimitParametersAtStartOfQuery(selection, recorder(expected), 1), plan.bindAtStart(selection, recorder(actual), 1));
+                Assert.assertEquals(handler.bindLimitParametersAtEndOfQuery(selection, recorder(expected), 10), plan.bindAtEnd(selection, recorder(actual), 10));
+                Assert.assertEquals(expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void testVariableMode() throws Exception {
+        assertSameAsHandler(new MySQLDialect(), SQL);
+        assertSameAsHandler(new PostgreSQLDialect(), SQL);
+        assertSameAsHandler(new OracleDialect(), SQL);
+        assertSameAsHandler(new DB2Dialect(), SQL);
+    }
+
+    @Test
+    public void testLiteralMode() throws Exception {
+        MySQLDialect mysql = new MySQLDialect();
+        mysql.setUseLimitInVariableMode(false);
+        assertSameAsHandler(mysql, SQL);
+        Assert.assertEquals(SQL + " limit 20, 10", mysql.getLimitPlan(SQL, true).render(selection(20, 10)));
+
+        PostgreSQLDialect postgreSQL = new PostgreSQLDialect();
+        postgreSQL.setUseLimitInVariableMode(false);
+        assertSameAsHandler(postgreSQL, SQL);
+    }
+
+    @Test
+    public void testSQLServer2005() throws Exception {
+        SQLServerDialect.SQLServer2005Dialect dialect = new SQLServerDialect.SQLServer2005Dialect();
+
+        // the TOP(?) is added only if the sql has an order by
+        LimitPlan plan = dialect.getLimitPlan("select id, name from person order by id", true);
+        Map<Integer, Integer> parameters = new TreeMap<Integer, Integer>();
+        RowSelection selection = selection(20, 10);
+        Assert.assertEquals(1, plan.bindAtStart(selection, recorder(parameters), 1));
+        Assert.assertEquals(2, plan.bindAtEnd(selection, recorder(parameters), 2));
+        Assert.assertEquals(30, parameters.get(1).intValue());
+        Assert.assertEquals(21, parameters.get(2).intValue());
+        Assert.assertEquals(31, parameters.get(3).intValue());
+
+        plan = dialect.getLimitPlan("select id, name from person", true);
+        Assert.assertFalse(plan.render(selection).contains("TOP(?)"));
+        Assert.assertEquals(0, plan.bindAtStart(selection, recorder(parameters), 1));
+
+        plan = dialect.getLimitPlan("select id, name from person", false);
+        parameters.clear();
+        selection = selection(0, 10);
+        Assert.assertEquals("select TOP(?) id, name from person", plan.render(selection));
+        Assert.assertEquals(1, plan.bindAtStart(selection, recorder(parameters), 1));
+        Assert.assertEquals(0, plan.bindAtEnd(selection, recorder(parameters), 2));
+        Assert.assertEquals(10, parameters.get(1).intValue());
+    }
+
+    @Test
+    public void testNotCompilable() {
+        // the limit value is not any of the plan parameters
+        AbstractLimitHandler handler = new AbstractLimitHandler() {
+            @Override
+            public String processSql(String sql, RowSelection selection) {
+                return sql + " limit " + (selection.getLimit() * 2);
+            }
+        };
+        handler.setDialect(new MySQLDialect());
+        Assert.assertNull(handler.compile(SQL, false));
+        Assert.assertNotNull(new MySQLDialect().getLimitPlan(SQL, false));
+    }
+
+    @Test
+    public void testSqlContainsProbe() throws Exception {
+        MySQLDialect mysql = new MySQLDialect();
+        mysql.setUseLimitInVariableMode(false);
+        // the numbers of the sql are the probe values, they can't be told from the splice points
+        String[] sqls = {
+                "select id, name from person where id = 300000007",
+                "select id, name from person where id = 100000007",
+                "select id, name from person where id in (500000009, 200000009)",
+                "select id, name from person where code = 'x400000014'"
+        };
+        for (String sql : sqls) {
+            Assert.assertNull(sql, mysql.getLimitPlan(sql, true));
+            Assert.assertNull(sql, mysql.getLimitHandler().compile(sql, true));
+            RowSelection selection = selection(20, 10);
+            Assert.assertEquals(sql + " limit 20, 10", mysql.getLimitSql(sql, selection));
+            Assert.assertNull(selection.getLimitPlan());
+        }
+        Assert.assertNull(mysql.getLimitPlan("select id, name from person where id = 300000007", false));
+        Assert.assertNotNull(mysql.getLimitPlan("select id, name from person where id = 30000000", true));
+    }
+}
@@ -8,8 +8,12 @@ import com.jn.sqlhelper.dialect.orderby.ProgramStyleOrderByBuilder;
 import com.jn.sqlhelper.dialect.orderby.SymbolStyleOrderByBuilder;
 import com.jn.sqlhelper.dialect.pagination.MemoryPaginations;
 import com.jn.sqlhelper.dialect.pagination.PagingRequest;
+import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Random;
@@ -209,4 +213,48 @@ public class MemoryPaginationsTests {
     public void test() {
 
     }
+
+    @Test
+    public void testSameAsStableSort() {
+        List<Person> persons = new ArrayList<Person>();
+        Random random = new Random(10);
+        for (int i = 0; i < 20000; i++) {
+            Person person = new Person();
+            person.setId("id_" + i);
+            // many duplicates and some nulls
+            person.setName(i % 7 == 0 ? null : "name_" + random.nextInt(20));
+            person.setAge(random.nextInt(50));
+            persons.add(person);
+        }
+        List<Person> expected = new ArrayList<Person>(persons);
+        Collections.sort(expected, new Comparator<Person>() {
+            @Override
+            public int compare(Person p1, Person p2) {
+                if (p1.getName() == null || p2.getName() == null) {
+                    int delta = (p1.getName() == null ? 0 : 1) - (p2.getName() == null ? 0 : 1);
+                    if (delta != 0) {
+                        return delta;
+                    }
+                } else if (!p1.getName().equals(p2.getName())) {
+                    return p1.getName().compareTo(p2.getName());
+                }
+                return p2.getAge() - p1.getAge();
+            }
+        });
+
+        // the top k, the full sort, the last page and the page out of the range
+        int[][] pages = new int[][]{{1, 10}, {3, 100}, {1000, 10}, {1334, 15}, {2001, 10}};
+        for (int[] page : pages) {
+            PagingRequest<Object, Person> pagingRequest = new PagingRequest<Object, Person>().limit(page[0], page[1]);
+            pagingRequest.setOrderBy(SymbolStyleOrderByBuilder.MATH_SYMBOL_ORDER_BY_BUILDER.build("+name, -age"));
+            List<Person> paged = MemoryPaginations.paging(persons, pagingRequest);
+            int offset = (page[0] - 1) * page[1];
+            List<Person> expectedPage = expected.subList(Math.min(offset, expected.size()), Math.min(offset + page[1], expected.size()));
+            Assert.assertEquals(expectedPage.size(), paged.size());
+            for (int i = 0; i < paged.size(); i++) {
+                Assert.assertSame(expectedPage.get(i), paged.get(i));
+            }
+            Assert.assertEquals(persons.size(), pagingRequest.getResult().getTotal());
+        }
+    }
 }
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.tests;
+
+import com.jn.sqlhelper.dialect.metrics.Gauge;
+import com.jn.sqlhelper.dialect.metrics.JmxMetricsRecorder;
+import com.jn.sqlhelper.dialect.metrics.MetricNames;
+import com.jn.sqlhelper.dialect.metrics.MetricsRecorder;
+import com.jn.sqlhelper.dialect.metrics.SqlHelperMetrics;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.util.ArrayList;
+import java.util.List;
+
+public class MetricsTests {
+
+    @Test
+    public void testRecorder() {
+        Assert.assertFalse(SqlHelperMetrics.isEnabled());
+        Assert.assertEquals(0, SqlHelperMetrics.startTimer());
+        SqlHelperMetrics.gauge("test.gauge", "test", new Gauge() {
+            @Override
+            public double get() {
+                return 1;
+            }
+        });
+
+        final List<String> records = new ArrayList<String>();
+        SqlHelperMetrics.setRecorder(new MetricsRecorder() {
+            @Override
+            public void count(String name, String statementId, String dialect, long amount) {
+                records.add(name + "," + statementId + "," + dialect + "," + amount);
+            }
+
+            @Override
+            public void time(String name, String statementId, String dialect, long nanos) {
+                records.add(name + "," + statementId + "," + dialect);
+            }
+
+            @Override
+            public void gauge(String name, String id, Gauge gauge) {
+                records.add(name + "," + id + "," + gauge.get());
+            }
+        });
+        try {
+            Assert.assertTrue(SqlHelperMetrics.isEnabled());
+            Assert.assertTrue(records.contains("test.gauge,test,1.0"));
+            long startTime = SqlHelperMetrics.startTimer();
+            Assert.assertTrue(startTime != 0);
+            SqlHelperMetrics.stopTimer(MetricNames.PAGINATION_PAGE, "UserMapper.select", "mysql", startTime);
+            SqlHelperMetrics.count(MetricNames.PAGINATION_ROWS, "UserMapper.select", "mysql", 10);
+            Assert.assertTrue(records.contains(MetricNames.PAGINATION_PAGE + ",UserMapper.select,mysql"));
+            Assert.assertTrue(records.contains(MetricNames.PAGINATION_ROWS + ",UserMapper.select,mysql,10"));
+        } finally {
+            SqlHelperMetrics.setRecorder(null);
+        }
+        int size = records.size();
+        SqlHelperMetrics.count(MetricNames.PAGINATION_ROWS, null, null, 1);
+        SqlHelperMetrics.stopTimer(MetricNames.PAGINATION_PAGE, null, null, SqlHelperMetrics.startTimer());
+        Assert.assertEquals(size, records.size());
+    }
+
+    @Test
+    public void testJmx() throws Exception {
+        MBeanServer mBeanServer = MBeanServerFactory.newMBeanServer();
+        JmxMetricsRecorder recorder = new JmxMetricsRecorder(mBeanServer, "test");
+        recorder.count(MetricNames.PAGINATION_ROWS, "UserMapper.select", "mysql", 10);
+        recorder.count(MetricNames.PAGINATION_ROWS, "UserMapper.select", "mysql", 5);
+        recorder.time(MetricNames.DIALECT_RESOLVE, null, null, 1000);
+        recorder.gauge(MetricNames.INSTRUMENT_CACHE_SIZE, "test", new Gauge() {
+            @Override
+            public double get() {
+                return 3;
+            }
+        });
+
+        ObjectName rows = new ObjectName("test:name=" + MetricNames.PAGINATION_ROWS + ",statement=\"UserMapper.select\",dialect=\"mysql\"");
+        Assert.assertEquals(2L, mBeanServer.getAttribute(rows, "Count"));
+        Assert.assertEquals(15L, mBeanServer.getAttribute(rows, "Total"));
+        Assert.assertEquals(10L, mBeanServer.getAttribute(rows, "Max"));
+        ObjectName resolve = new ObjectName("test:name=" + MetricNames.DIALECT_RESOLVE + ",statement=\"none\",dialect=\"none\"");
+        Assert.assertEquals(1000L, mBeanServer.getAttribute(resolve, "Total"));
+        ObjectName gauge = new ObjectName("test:name=" + MetricNames.INSTRUMENT_CACHE_SIZE + ",id=\"test\"");
+        Assert.assertEquals(3.0, (Double) mBeanServer.getAttribute(gauge, "Value"), 0);
+    }
+}
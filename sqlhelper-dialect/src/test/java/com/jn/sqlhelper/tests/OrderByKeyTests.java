@@ -0,0 +1,68 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.tests;
+
+import com.jn.sqlhelper.dialect.instrument.SQLInstrumentorConfig;
+import com.jn.sqlhelper.dialect.instrument.SQLStatementInstrumentor;
+import com.jn.sqlhelper.dialect.orderby.OrderBy;
+import com.jn.sqlhelper.dialect.orderby.OrderByItem;
+import com.jn.sqlhelper.dialect.orderby.OrderByType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Iterator;
+
+public class OrderByKeyTests {
+
+    @Test
+    public void testKeyFollowsTheItems() {
+        OrderBy orderBy = new OrderBy();
+        orderBy.addAsc("Name");
+        orderBy.addDesc("age");
+        Assert.assertEquals("name asc,age desc", orderBy.getKey());
+
+        OrderByItem name = orderBy.iterator().next();
+        name.setType(OrderByType.DESC);
+        Assert.assertEquals("name desc,age desc", orderBy.getKey());
+        name.setExpression("nick");
+        Assert.assertEquals("nick desc,age desc", orderBy.getKey());
+
+        Iterator<OrderByItem> iterator = orderBy.iterator();
+        iterator.next();
+        iterator.remove();
+        Assert.assertEquals("age desc", orderBy.getKey());
+        Assert.assertEquals("age desc".hashCode(), orderBy.hashCode());
+    }
+
+    @Test
+    public void testChangedOrderByIsNotServedFromCache() {
+        SQLInstrumentorConfig config = new SQLInstrumentorConfig();
+        config.setInstrumentation("lexer");
+        config.setCacheInstrumentedSql(true);
+        SQLStatementInstrumentor instrumentor = new SQLStatementInstrumentor();
+        instrumentor.setConfig(config);
+        instrumentor.init();
+
+        String sql = "select id, name from person where age > ?";
+        OrderBy orderBy = new OrderBy();
+        orderBy.addAsc("name");
+        String ascSql = instrumentor.instrumentOrderBySql(sql, orderBy);
+        Assert.assertTrue(ascSql.toLowerCase().contains("name asc"));
+
+        orderBy.iterator().next().setType(OrderByType.DESC);
+        String descSql = instrumentor.instrumentOrderBySql(sql, orderBy);
+        Assert.assertTrue(descSql.toLowerCase().contains("name desc"));
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.tests;
+
+import com.jn.langx.util.function.Predicate;
+import com.jn.sqlhelper.dialect.orderby.OrderBy;
+import com.jn.sqlhelper.dialect.orderby.SymbolStyleOrderByBuilder;
+import com.jn.sqlhelper.dialect.pagination.MemoryPaginations;
+import com.jn.sqlhelper.dialect.pagination.PagedCollectionView;
+import com.jn.sqlhelper.dialect.pagination.PagingRequest;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class PagedCollectionViewTests {
+
+    private static List<Person> persons(int count) {
+        List<Person> persons = new ArrayList<Person>();
+        Random random = new Random(10);
+        for (int i = 0; i < count; i++) {
+            Person person = new Person();
+            person.setId("id_" + i);
+            person.setName(i % 9 == 0 ? null : "name_" + random.nextInt(10));
+            person.setAge(random.nextInt(30));
+            persons.add(person);
+        }
+        return persons;
+    }
+
+    private static PagingRequest<Object, Person> request(int pageNo, int pageSize, String orderBy) {
+        PagingRequest<Object, Person> request = new PagingRequest<Object, Person>().limit(pageNo, pageSize);
+        if (orderBy != null) {
+            request.setOrderBy(SymbolStyleOrderByBuilder.MATH_SYMBOL_ORDER_BY_BUILDER.build(orderBy));
+        }
+        return request;
+    }
+
+    private static void assertSamePage(List<Person> expected, List<Person> actual) {
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertSame(expected.get(i), actual.get(i));
+        }
+    }
+
+    @Test
+    public void testSameAsMemoryPaginations() {
+        List<Person> persons = persons(1000);
+        PagedCollectionView<Person> view = new PagedCollectionView<Person>(persons);
+        String[] orderBys = new String[]{null, "+name, -age", "-age, +id"};
+        int[][] pages = new int[][]{{1, 10}, {7, 30}, {34, 30}, {40, 30}, {1, -1}};
+        for (String orderBy : orderBys) {
+            for (int[] page : pages) {
+                PagingRequest<Object, Person> expectedRequest = request(page[0], page[1], orderBy);
+                List<Person> expected = MemoryPaginations.paging(persons, expectedRequest);
+                PagingRequest<Object, Person> request = request(page[0], page[1], orderBy);
+                assertSamePage(expected, view.paging(request));
+                Assert.assertEquals(expectedRequest.getResult().getTotal(), request.getResult().getTotal());
+            }
+        }
+    }
+
+    @Test
+    public void testEqualityFilters() {
+        List<Person> persons = persons(1000);
+        PagedCollectionView<Person> view = new PagedCollectionView<Person>(persons);
+
+        PagingRequest<Object, Person> expectedRequest = request(2, 5, "-age, +id");
+        List<Person> expected = MemoryPaginations.paging(persons, expectedRequest, new Predicate<Person>() {
+            @Override
+            public boolean test(Person person) {
+                return "name_3".equals(person.getName());
+            }
+        });
+        PagingRequest<Object, Person> request = request(2, 5, "-age, +id");
+        assertSamePage(expected, view.paging(request, "name", "name_3"));
+        Assert.assertEquals(expectedRequest.getResult().getTotal(), request.getResult().getTotal());
+
+        expected = MemoryPaginations.paging(persons, request(1, 100, "+id"), new Predicate<Person>() {
+            @Override
+            public boolean test(Person person) {
+                return person.getName() == null && person.getAge() == 7;
+            }
+        });
+        Map<String, Object> equalities = new HashMap<String, Object>();
+        equalities.put("name", null);
+        equalities.put("age", 7);
+        assertSamePage(expected, view.paging(request(1, 100, "+id"), equalities));
+
+        request = request(1, 10, null);
+        Assert.assertTrue(view.paging(request, "name", "unknown").isEmpty());
+        Assert.assertEquals(0, request.getResult().getTotal());
+    }
+
+    @Test
+    public void testInvalidateOnMutation() {
+        List<Person> persons = persons(100);
+        PagedCollectionView<Person> view = new PagedCollectionView<Person>(persons);
+        OrderBy orderBy = SymbolStyleOrderByBuilder.MATH_SYMBOL_ORDER_BY_BUILDER.build("-age");
+        PagingRequest<Object, Person> request = new PagingRequest<Object, Person>().limit(1, 1);
+        request.setOrderBy(orderBy);
+        Assert.assertTrue(view.paging(request).get(0).getAge() < 30);
+
+        Person oldest = new Person();
+        oldest.setId("oldest");
+        oldest.setName("name_3");
+        oldest.setAge(100);
+        view.add(oldest);
+        Assert.assertSame(oldest, view.paging(request).get(0));
+        Assert.assertSame(oldest, view.paging(request, "name", "name_3").get(0));
+
+        view.remove(oldest);
+        Assert.assertNotSame(oldest, view.paging(request).get(0));
+        Assert.assertEquals(100, view.size());
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jn.sqlhelper.tests;
+
+import com.jn.langx.util.function.Function;
+import com.jn.langx.util.function.Supplier0;
+import com.jn.sqlhelper.dialect.orderby.OrderBy;
+import com.jn.sqlhelper.dialect.pagination.PagingRequest;
+import com.jn.sqlhelper.dialect.pagination.PagingRequestContextHolder;
+import com.jn.sqlhelper.dialect.pagination.PagingScanner;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class PagingScannerTests {
+    private static final int ROWS = 25;
+
+    @Test
+    public void testScanByPageNo() {
+        PagingRequest<String, Integer> request = new PagingRequest<String, Integer>().limit(1, 10);
+        request.setCondition("c");
+        PagingScanner<String, Integer> scanner = new PagingScanner<String, Integer>(request, new PageQuery(false));
+        assertScanned(scanner);
+        Assert.assertEquals(3, scanner.getPages());
+        Assert.assertEquals(3, request.getPageNo());
+    }
+
+    @Test
+    public void testScanByKeyset() {
+        OrderBy orderBy = new OrderBy();
+        orderBy.addAsc("id");
+        PagingRequest<String, Integer> request = new PagingRequest<String, Integer>().limit(1, 5);
+        request.setOrderBy(orderBy);
+        request.setCondition("c");
+        PagingScanner<String, Integer> scanner = new PagingScanner<String, Integer>(request, new PageQuery(true)).keyset(new Function<Integer, Object[]>() {
+            @Override
+            public Object[] apply(Integer row) {
+                return new Object[]{row};
+            }
+        });
+        assertScanned(scanner);
+        // the last page is empty, the rows are a multiple of the page size
+        Assert.assertEquals(6, scanner.getPages());
+        Assert.assertEquals(1, request.getPageNo());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testKeysetWithoutOrderBy() {
+        new PagingScanner<String, Integer>(new PagingRequest<String, Integer>().limit(1, 5), new PageQuery(true)).keyset(new Function<Integer, Object[]>() {
+            @Override
+            public Object[] apply(Integer row) {
+                return new Object[]{row};
+            }
+        });
+    }
+
+    private static void assertScanned(PagingScanner<String, Integer> scanner) {
+        int expected = 0;
+        while (scanner.hasNext()) {
+            Assert.assertEquals(expected++, scanner.next().intValue());
+        }
+        Assert.assertEquals(ROWS, expected);
+        Assert.assertFalse(scanner.hasNext());
+    }
+
+    /**
+     * the rows are 0 .. ROWS - 1, the request is cleared after every query like the pagination plugins
+     */
+    private static class PageQuery implements Supplier0<List<Integer>> {
+        private final boolean keyset;
+
+        private PageQuery(boolean keyset) {
+            this.keyset = keyset;
+        }
+
+        @Override
+        public List<Integer> get() {
+            PagingRequest request = PagingRequestContextHolder.getContext().getPagingRequest();
+            Assert.assertEquals("c", request.getCondition());
+            Assert.assertFalse(request.needCount());
+            int from;
+            if (request.isKeysetRequest()) {
+                Assert.assertTrue(keyset);
+                from = (Integer) request.getAfter()[0] + 1;
+            } else {
+                from = (request.getPageNo() - 1) * request.getPageSize();
+            }
+            List<Integer> rows = new ArrayList<Integer>();
+            for (int i = from; i < Math.min(ROWS, from + request.getPageSize()); i++) {
+                rows.add(i);
+            }
+            request.clear(false);
+            PagingRequestContextHolder.getContext().remove();
+            return rows;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.tests;
+
+import com.jn.langx.util.collection.Collects;
+import com.jn.sqlhelper.dialect.pagination.PrefetchCache;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+
+public class PrefetchCacheTests {
+    private static final Set<String> PERSON = Collects.asSet("person");
+
+    private static FutureTask<List<Integer>> page(final Integer... rows) {
+        return new FutureTask<List<Integer>>(new Callable<List<Integer>>() {
+            @Override
+            public List<Integer> call() {
+                return Collects.asList(rows);
+            }
+        });
+    }
+
+    private static FutureTask<List<Integer>> fetched(Integer... rows) {
+        FutureTask<List<Integer>> page = page(rows);
+        page.run();
+        return page;
+    }
+
+    @Test
+    public void testTakeOnce() throws Exception {
+        PrefetchCache<String, List<Integer>> cache = new PrefetchCache<String, List<Integer>>(10, 60000);
+        Assert.assertTrue(cache.put("p2", fetched(11, 12), PERSON, cache.stamp()));
+        Assert.assertEquals(Collects.asList(11, 12), cache.take("p2").get());
+        Assert.assertNull(cache.take("p2"));
+        Assert.assertEquals(1, cache.getPrefetches());
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(1, cache.getMisses());
+        Assert.assertEquals(0, cache.getWasted());
+        Assert.assertEquals(0.5, cache.getHitRate(), 0.0001);
+    }
+
+    @Test
+    public void testInFlightPageIsDropped() {
+        PrefetchCache<String, List<Integer>> cache = new PrefetchCache<String, List<Integer>>(10, 60000);
+        FutureTask<List<Integer>> page = page(11, 12);
+        cache.put("p2", page, PERSON, cache.stamp());
+        Assert.assertNull(cache.take("p2"));
+        Assert.assertTrue(page.isCancelled());
+        Assert.assertEquals(1, cache.getWasted());
+    }
+
+    @Test
+    public void testInvalidate() {
+        PrefetchCache<String, List<Integer>> cache = new PrefetchCache<String, List<Integer>>(10, 60000);
+        cache.put("p2", fetched(11), PERSON, cache.stamp());
+        cache.put("o2", fetched(21), Collects.asSet("order"), cache.stamp());
+        cache.invalidate(Collects.asList("person"));
+        Assert.assertEquals(1, cache.size());
+        Assert.assertEquals(1, cache.getWasted());
+        Assert.assertNull(cache.take("p2"));
+        Assert.assertNotNull(cache.take("o2"));
+
+        // the table is written while the page is fetching
+        long stamp = cache.stamp();
+        cache.invalidate(null);
+        Assert.assertFalse(cache.put("p3", fetched(12), PERSON, stamp));
+        // the tables of the query are unknown
+        Assert.assertFalse(cache.put("p3", fetched(12), null, cache.stamp()));
+    }
+
+    @Test
+    public void testEvict() throws InterruptedException {
+        PrefetchCache<String, List<Integer>> cache = new PrefetchCache<String, List<Integer>>(2, 60000);
+        cache.put("p2", fetched(11), PERSON, cache.stamp());
+        cache.put("p3", fetched(12), PERSON, cache.stamp());
+        cache.put("p4", fetched(13), PERSON, cache.stamp());
+        Assert.assertEquals(2, cache.size());
+        Assert.assertNull(cache.take("p2"));
+        Assert.assertEquals(1, cache.getWasted());
+
+        cache = new PrefetchCache<String, List<Integer>>(2, 50);
+        cache.put("p2", fetched(11), PERSON, cache.stamp());
+        Thread.sleep(100);
+        Assert.assertNull(cache.take("p2"));
+        Assert.assertEquals(1, cache.getWasted());
+    }
+}
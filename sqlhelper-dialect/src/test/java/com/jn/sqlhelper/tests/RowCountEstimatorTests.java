@@ -0,0 +1,134 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.tests;
+
+import com.jn.sqlhelper.dialect.estimate.MySQLExplainRowCountEstimator;
+import com.jn.sqlhelper.dialect.estimate.PostgreSQLExplainRowCountEstimator;
+import com.jn.sqlhelper.dialect.estimate.RowCountEstimator;
+import com.jn.sqlhelper.dialect.internal.MariaDBDialect;
+import com.jn.sqlhelper.dialect.internal.MySQLDialect;
+import com.jn.sqlhelper.dialect.internal.OracleDialect;
+import com.jn.sqlhelper.dialect.internal.PostgreSQLDialect;
+import com.jn.sqlhelper.dialect.pagination.CountMode;
+import com.jn.sqlhelper.dialect.pagination.PagingRequest;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.sql.*;
+
+public class RowCountEstimatorTests {
+    private static Connection connection;
+
+    @BeforeClass
+    public static void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:estimate;DB_CLOSE_DELAY=-1", "sa", "");
+        Statement statement = connection.createStatement();
+        statement.execute("create table person (id int primary key, age int)");
+        for (int i = 1; i <= 30; i++) {
+            statement.execute("insert into person values (" + i + ", " + (i % 10) + ")");
+        }
+        statement.close();
+    }
+
+    @AfterClass
+    public static void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void testCountMode() {
+        Assert.assertFalse(CountMode.EXACT.accept(100));
+        Assert.assertTrue(CountMode.ESTIMATE.accept(0));
+        Assert.assertFalse(CountMode.ESTIMATE.accept(-1));
+        CountMode mode = CountMode.estimateThenExactBelow(1000);
+        Assert.assertFalse(mode.accept(999));
+        Assert.assertTrue(mode.accept(1000));
+        Assert.assertEquals(mode, CountMode.estimateThenExactBelow(1000));
+
+        PagingRequest request = new PagingRequest().limit(1, 10);
+        Assert.assertEquals(CountMode.EXACT, request.getCountMode());
+        request.setCountMode(mode);
+        request.clear();
+        Assert.assertEquals(CountMode.EXACT, request.getCountMode());
+    }
+
+    @Test
+    public void testDialects() {
+        Assert.assertTrue(new PostgreSQLDialect().getRowCountEstimator() instanceof PostgreSQLExplainRowCountEstimator);
+        Assert.assertTrue(new MySQLDialect().getRowCountEstimator() instanceof MySQLExplainRowCountEstimator);
+        Assert.assertTrue(new MariaDBDialect().getRowCountEstimator() instanceof MySQLExplainRowCountEstimator);
+        Assert.assertNull(new OracleDialect().getRowCountEstimator());
+    }
+
+    @Test
+    public void testPostgreSQLExplain() throws SQLException {
+        RowCountEstimator estimator = new PostgreSQLExplainRowCountEstimator();
+        Assert.assertEquals("EXPLAIN select * from person", estimator.getEstimateSql("select * from person"));
+        Assert.assertEquals(8, estimate(estimator, "select 'Hash Join  (cost=1.09..2.24 rows=8 width=36)' union all select '  ->  Seq Scan on person  (cost=0.00..1.08 rows=30 width=8)'"));
+        Assert.assertEquals(-1, estimate(estimator, "select 'Result' from person where 1 = 0"));
+    }
+
+    @Test
+    public void testMySQLExplain() throws SQLException {
+        RowCountEstimator estimator = new MySQLExplainRowCountEstimator();
+        Assert.assertEquals(500, estimate(estimator, "select 'SIMPLE' select_type, 1000 \"rows\", 10.00 filtered union all select 'SIMPLE', 5, 100.00"));
+        // the rows of the subqueries are not joined
+        Assert.assertEquals(100, estimate(estimator, "select 'PRIMARY' select_type, 100 \"rows\" union all select 'DEPENDENT SUBQUERY', 20"));
+        Assert.assertEquals(-1, estimate(estimator, "select 'SIMPLE' select_type, cast(null as int) \"rows\""));
+    }
+
+    /**
+     * the estimate sql is executed with the parameters of the query
+     */
+    @Test
+    public void testParameters() throws SQLException {
+        RowCountEstimator estimator = new RowCountEstimator() {
+            @Override
+            public String getEstimateSql(String sql) {
+                return "select count(*) * 10 from (" + sql + ") t";
+            }
+
+            @Override
+            public long getEstimatedRowCount(ResultSet resultSet) throws SQLException {
+                return resultSet.next() ? resultSet.getLong(1) : -1;
+            }
+        };
+        PreparedStatement statement = connection.prepareStatement(estimator.getEstimateSql("select * from person where age = ?"));
+        statement.setInt(1, 3);
+        ResultSet resultSet = statement.executeQuery();
+        long estimated = estimator.getEstimatedRowCount(resultSet);
+        resultSet.close();
+        statement.close();
+        Assert.assertEquals(30, estimated);
+        Assert.assertTrue(CountMode.estimateThenExactBelow(10).accept(estimated));
+        Assert.assertFalse(CountMode.estimateThenExactBelow(100).accept(estimated));
+    }
+
+    private static long estimate(RowCountEstimator estimator, String sql) throws SQLException {
+        Statement statement = connection.createStatement();
+        try {
+            ResultSet resultSet = statement.executeQuery(sql);
+            try {
+                return estimator.getEstimatedRowCount(resultSet);
+            } finally {
+                resultSet.close();
+            }
+        } finally {
+            statement.close();
+        }
+    }
+}
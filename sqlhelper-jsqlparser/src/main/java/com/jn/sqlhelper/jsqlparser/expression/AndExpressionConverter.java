@@ -2,12 +2,24 @@ package com.jn.sqlhelper.jsqlparser.expression;
 
 import com.jn.sqlhelper.dialect.expression.AndExpression;
 import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.Parenthesis;
+import net.sf.jsqlparser.expression.operators.conditional.OrExpression;
 
 public class AndExpressionConverter extends BinaryExpressionConverter<AndExpression, net.sf.jsqlparser.expression.operators.conditional.AndExpression> {
 
     @Override
     protected net.sf.jsqlparser.expression.operators.conditional.AndExpression buildJSqlParserExpression(AndExpression expression, Expression leftExp, Expression rightExp) {
-        return new net.sf.jsqlparser.expression.operators.conditional.AndExpression(leftExp, rightExp);
+        return new net.sf.jsqlparser.expression.operators.conditional.AndExpression(parenthesisIfNecessary(leftExp), parenthesisIfNecessary(rightExp));
+    }
+
+    /**
+     * (a OR b) AND c, without the parenthesis it will be a OR (b AND c)
+     */
+    private static Expression parenthesisIfNecessary(Expression expression) {
+        if (expression instanceof OrExpression) {
+            return new Parenthesis(expression);
+        }
+        return expression;
     }
 
     @Override
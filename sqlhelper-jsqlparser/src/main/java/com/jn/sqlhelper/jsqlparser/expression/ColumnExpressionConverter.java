@@ -16,8 +16,17 @@ public class ColumnExpressionConverter implements ExpressionConverter<ColumnExpr
         }
         String schema = expression.getSchema();
         String tableName = expression.getTable();
-        Table table = database == null ? new Table(schema, tableName) : new Table(database, schema, tableName);
-        column.setTable(table);
+        if (Strings.isNotEmpty(tableName)) {
+            Table table;
+            if (database != null) {
+                table = new Table(database, schema, tableName);
+            } else if (Strings.isNotEmpty(schema)) {
+                table = new Table(schema, tableName);
+            } else {
+                table = new Table(tableName);
+            }
+            column.setTable(table);
+        }
         column.setColumnName(expression.getColumn());
         return column;
     }
@@ -21,7 +21,7 @@ public class ExpressionConverters {
         List<Expression> expressions = Pipeline.of(expression.getExpressions()).map(new Function<SQLExpression, Expression>() {
             @Override
             public Expression apply(SQLExpression input) {
-                return toJSqlParserExpression(expression);
+                return toJSqlParserExpression(input);
             }
         }).asList();
         ExpressionList result = new ExpressionList();
@@ -0,0 +1,489 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.jsqlparser.instrument;
+
+import com.jn.langx.annotation.NonNull;
+import com.jn.langx.lifecycle.InitializationException;
+import com.jn.langx.util.Emptys;
+import com.jn.langx.util.Preconditions;
+import com.jn.langx.util.Strings;
+import com.jn.sqlhelper.dialect.instrument.AbstractClauseTransformer;
+import com.jn.sqlhelper.dialect.instrument.TransformConfig;
+import com.jn.sqlhelper.dialect.instrument.count.CountTransformConfig;
+import com.jn.sqlhelper.dialect.instrument.count.CountTransformer;
+import com.jn.sqlhelper.dialect.pagination.InlineCountStrategy;
+import com.jn.sqlhelper.dialect.sqlparser.SqlStatementWrapper;
+import com.jn.sqlhelper.jsqlparser.utils.CCJSqlParsers;
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.expression.*;
+import net.sf.jsqlparser.expression.operators.arithmetic.Addition;
+import net.sf.jsqlparser.expression.operators.relational.ExpressionList;
+import net.sf.jsqlparser.expression.operators.relational.IsNullExpression;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.schema.Table;
+import net.sf.jsqlparser.statement.Statement;
+import net.sf.jsqlparser.statement.select.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Transform a select statement to a count statement:
+ * <pre>
+ * 1. drop the order by clause
+ * 2. simple select: select count(*) from ... where ...
+ * 3. group by or distinct with a single expression: select count(distinct x) + (1 if x has null values) from ...,
+ *    except a group by with rollup, cube or grouping sets, or a group by on the alias of a select item
+ * 4. remove the unreferenced left joins if {@link CountTransformConfig#isRemoveUnreferencedLeftJoins()}
+ * 5. other cases: select count(1) from (sql without order by) tmp_count
+ * </pre>
+ * The statement is not changed if any of the removed parts has a '?' parameter, so the parameters can be bound in the same order.
+ * <p>
+ * If {@link CountTransformConfig#getInlineCountStrategy()} is set, the select is kept and changed to return the total with the rows,
+ * the order by is kept also, and the statement is not changed if the strategy can't be applied to it.
+ */
+public class JSqlParserCountTransformer extends AbstractClauseTransformer<Statement> implements CountTransformer<Statement> {
+    static final Pattern AGGREGATE_PATTERN = Pattern.compile("\\b(count|sum|avg|min|max|group_concat|string_agg|listagg|array_agg|json_arrayagg|json_objectagg|stddev\\w*|variance|var_pop|var_samp|bit_and|bit_or|bit_xor|every|bool_and|bool_or)\\s*\\(|\\bover\\s*\\(", Pattern.CASE_INSENSITIVE);
+    /**
+     * the super aggregate rows are counted by the wrapper only
+     */
+    private static final Pattern SUPER_AGGREGATE_PATTERN = Pattern.compile("\\b(rollup|cube|grouping\\s+sets)\\b", Pattern.CASE_INSENSITIVE);
+    private static final String COUNT_ALIAS = "tmp_count";
+
+    @Override
+    public void init() throws InitializationException {
+
+    }
+
+    @Override
+    public SqlStatementWrapper<Statement> transform(@NonNull SqlStatementWrapper<Statement> sw, @NonNull TransformConfig config) {
+        Preconditions.checkNotNull(sw);
+        Preconditions.checkNotNull(config);
+        Statement statement = sw.get();
+        if (!(statement instanceof Select)) {
+            return sw;
+        }
+        CountTransformConfig countConfig = config.getCountTransformConfig();
+        if (countConfig == null) {
+            countConfig = new CountTransformConfig();
+        }
+        Select select = (Select) statement;
+        Select countSelect = countConfig.getInlineCountStrategy() != null ? inline(select, countConfig.getInlineCountStrategy()) : transform(select, countConfig);
+        if (countSelect != null) {
+            sw.setStatement(countSelect);
+            sw.setChanged(true);
+        }
+        return sw;
+    }
+
+    private Select transform(Select select, CountTransformConfig config) {
+        SelectBody selectBody = select.getSelectBody();
+        String countColumn = config.getCountColumn();
+        boolean countRows = Strings.isBlank(countColumn) || "1".equals(countColumn.trim()) || "*".equals(countColumn.trim());
+
+        if (selectBody instanceof PlainSelect) {
+            PlainSelect plainSelect = (PlainSelect) selectBody;
+            if (!dropOrderBy(plainSelect)) {
+                return null;
+            }
+            if (!isLimited(plainSelect) && plainSelect.getIntoTables() == null && !plainSelect.isForUpdate() && !hasParameter(plainSelect.getSelectItems())) {
+                if (plainSelect.getDistinct() == null && plainSelect.getGroupBy() == null && plainSelect.getHaving() == null && !hasAggregate(plainSelect.getSelectItems())) {
+                    // a simple select
+                    if (countRows) {
+                        if (config.isRemoveUnreferencedLeftJoins()) {
+                            removeUnreferencedLeftJoins(plainSelect);
+                        }
+                        plainSelect.setSelectItems(countItems(newCountFunction(null, false)));
+                        return select;
+                    }
+                } else if (countRows) {
+                    Expression distinctExpression = getSingleDistinctExpression(plainSelect);
+                    if (distinctExpression != null) {
+                        if (config.isRemoveUnreferencedLeftJoins()) {
+                            removeUnreferencedLeftJoins(plainSelect);
+                        }
+                        plainSelect.setDistinct(null);
+                        plainSelect.setGroupByElement(null);
+                        plainSelect.setSelectItems(countItems(countDistinct(distinctExpression)));
+                        return select;
+                    }
+                }
+            }
+        } else if (selectBody instanceof SetOperationList) {
+            SetOperationList setOperationList = (SetOperationList) selectBody;
+            if (setOperationList.getLimit() == null && setOperationList.getOffset() == null && setOperationList.getFetch() == null) {
+                if (hasParameter(setOperationList.getOrderByElements())) {
+                    return null;
+                }
+                setOperationList.setOrderByElements(null);
+            }
+        } else {
+            return null;
+        }
+        return wrap(select, countRows ? "1" : countColumn);
+    }
+
+    /**
+     * <pre>
+     * WINDOW_FUNCTION: select a, b, count(*) over () sqlhelper_total_ from ...
+     * FOUND_ROWS: select SQL_CALC_FOUND_ROWS a, b from ...
+     * </pre>
+     */
+    private Select inline(Select select, InlineCountStrategy strategy) {
+        SelectBody selectBody = select.getSelectBody();
+        if (!(selectBody instanceof PlainSelect)) {
+            return null;
+        }
+        PlainSelect plainSelect = (PlainSelect) selectBody;
+        if (isLimited(plainSelect) || plainSelect.getIntoTables() != null) {
+            return null;
+        }
+        if (strategy == InlineCountStrategy.FOUND_ROWS) {
+            plainSelect.setMySqlSqlCalcFoundRows(true);
+            return select;
+        }
+        // the window function is evaluated after the distinct
+        if (plainSelect.getDistinct() != null || plainSelect.getSelectItems() == null) {
+            return null;
+        }
+        List<SelectItem> selectItems = new ArrayList<SelectItem>(plainSelect.getSelectItems());
+        for (int i = 0; i < selectItems.size(); i++) {
+            if (selectItems.get(i) instanceof AllColumns) {
+                // select *, count(*) over () is invalid in some databases
+                FromItem fromItem = plainSelect.getFromItem();
+                if (Emptys.isNotEmpty(plainSelect.getJoins()) || !(fromItem instanceof Table)) {
+                    return null;
+                }
+                String name = getReferenceName(fromItem);
+                Table table = fromItem.getAlias() != null && Strings.isNotBlank(fromItem.getAlias().getName()) ? new Table(name) : (Table) fromItem;
+                selectItems.set(i, new AllTableColumns(table));
+            }
+        }
+        Expression total;
+        try {
+            total = CCJSqlParsers.parseExpression("count(*) over ()");
+        } catch (JSQLParserException ex) {
+            return null;
+        }
+        SelectExpressionItem totalItem = new SelectExpressionItem(total);
+        totalItem.setAlias(new Alias(InlineCountStrategy.TOTAL_COLUMN, false));
+        selectItems.add(totalItem);
+        plainSelect.setSelectItems(selectItems);
+        return select;
+    }
+
+    /**
+     * select count(x) from (sql) tmp_count
+     */
+    private Select wrap(Select select, String countColumn) {
+        Expression countParameter;
+        try {
+            countParameter = CCJSqlParsers.parseExpression(countColumn);
+        } catch (JSQLParserException ex) {
+            return null;
+        }
+        SubSelect subSelect = new SubSelect();
+        subSelect.setSelectBody(select.getSelectBody());
+        subSelect.setAlias(new Alias(COUNT_ALIAS, false));
+
+        PlainSelect countPlainSelect = new PlainSelect();
+        countPlainSelect.setSelectItems(countItems(newCountFunction(countParameter, false)));
+        countPlainSelect.setFromItem(subSelect);
+
+        Select countSelect = new Select();
+        countSelect.setWithItemsList(select.getWithItemsList());
+        countSelect.setSelectBody(countPlainSelect);
+        return countSelect;
+    }
+
+    static boolean isLimited(PlainSelect plainSelect) {
+        return plainSelect.getLimit() != null || plainSelect.getOffset() != null || plainSelect.getFetch() != null || plainSelect.getTop() != null || plainSelect.getFirst() != null || plainSelect.getSkip() != null;
+    }
+
+    /**
+     * drop the order by if the select has no limit
+     *
+     * @return false if the order by can't be dropped safely
+     */
+    private static boolean dropOrderBy(PlainSelect plainSelect) {
+        if (Emptys.isEmpty(plainSelect.getOrderByElements()) || isLimited(plainSelect)) {
+            return true;
+        }
+        if (hasParameter(plainSelect.getOrderByElements())) {
+            return false;
+        }
+        plainSelect.setOrderByElements(null);
+        return true;
+    }
+
+    /**
+     * @return the only one expression in the group by clause or the select distinct clause, null if the statement is not the case
+     */
+    private static Expression getSingleDistinctExpression(PlainSelect plainSelect) {
+        if (plainSelect.getHaving() != null) {
+            return null;
+        }
+        Distinct distinct = plainSelect.getDistinct();
+        GroupByElement groupBy = plainSelect.getGroupBy();
+        if (distinct != null && groupBy != null) {
+            return null;
+        }
+        if (groupBy != null) {
+            if (Emptys.isNotEmpty(groupBy.getGroupingSets()) || groupBy.getGroupByExpressions() == null || groupBy.getGroupByExpressions().size() != 1) {
+                return null;
+            }
+            // group by a with rollup, group by rollup(a)
+            if (SUPER_AGGREGATE_PATTERN.matcher(groupBy.toString()).find()) {
+                return null;
+            }
+            Expression expression = groupBy.getGroupByExpressions().get(0);
+            if (hasParameter(expression) || expression instanceof LongValue) {
+                // group by 1
+                return null;
+            }
+            if (isSelectAlias(plainSelect, expression)) {
+                // select lower(name) as a from t group by a, the alias is unknown out of the select items
+                return null;
+            }
+            return expression;
+        }
+        if (distinct != null) {
+            if (Emptys.isNotEmpty(distinct.getOnSelectItems()) || hasAggregate(plainSelect.getSelectItems())) {
+                return null;
+            }
+            List<SelectItem> selectItems = plainSelect.getSelectItems();
+            if (selectItems == null || selectItems.size() != 1 || !(selectItems.get(0) instanceof SelectExpressionItem)) {
+                return null;
+            }
+            return ((SelectExpressionItem) selectItems.get(0)).getExpression();
+        }
+        return null;
+    }
+
+    /**
+     * @return whether the expression is an unqualified column which is the alias of another select item
+     */
+    private static boolean isSelectAlias(PlainSelect plainSelect, Expression expression) {
+        if (!(expression instanceof Column) || ((Column) expression).getTable() != null && Strings.isNotBlank(((Column) expression).getTable().getName())) {
+            return false;
+        }
+        String name = ((Column) expression).getColumnName();
+        List<SelectItem> selectItems = plainSelect.getSelectItems();
+        if (selectItems == null) {
+            return false;
+        }
+        for (SelectItem selectItem : selectItems) {
+            if (selectItem instanceof SelectExpressionItem) {
+                SelectExpressionItem item = (SelectExpressionItem) selectItem;
+                if (item.getAlias() != null && name.equalsIgnoreCase(item.getAlias().getName())
+                        && !name.equalsIgnoreCase(item.getExpression().toString())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * count(distinct x) ignores the null values, but group by and distinct treat the null values as a group:
+     * <pre>
+     * count(distinct x) + coalesce(max(case when x is null then 1 else 0 end), 0)
+     * </pre>
+     */
+    private static Expression countDistinct(Expression expression) {
+        Function countDistinct = newCountFunction(expression, true);
+
+        IsNullExpression isNull = new IsNullExpression();
+        isNull.setLeftExpression(expression);
+        WhenClause whenClause = new WhenClause();
+        whenClause.setWhenExpression(isNull);
+        whenClause.setThenExpression(new LongValue(1));
+        CaseExpression caseExpression = new CaseExpression();
+        List<WhenClause> whenClauses = new ArrayList<WhenClause>();
+        whenClauses.add(whenClause);
+        caseExpression.setWhenClauses(whenClauses);
+        caseExpression.setElseExpression(new LongValue(0));
+
+        Function max = newFunction("max", caseExpression);
+        Function coalesce = newFunction("coalesce", max, new LongValue(0));
+
+        Addition addition = new Addition();
+        addition.setLeftExpression(countDistinct);
+        addition.setRightExpression(coalesce);
+        return addition;
+    }
+
+    private static Function newCountFunction(Expression parameter, boolean distinct) {
+        Function count = parameter == null ? newFunction("count") : newFunction("count", parameter);
+        if (parameter == null) {
+            count.setAllColumns(true);
+        }
+        count.setDistinct(distinct);
+        return count;
+    }
+
+    private static Function newFunction(String name, Expression... parameters) {
+        Function function = new Function();
+        function.setName(name);
+        if (parameters.length > 0) {
+            List<Expression> expressions = new ArrayList<Expression>();
+            for (Expression parameter : parameters) {
+                expressions.add(parameter);
+            }
+            function.setParameters(new ExpressionList(expressions));
+        }
+        return function;
+    }
+
+    private static List<SelectItem> countItems(Expression countExpression) {
+        List<SelectItem> selectItems = new ArrayList<SelectItem>();
+        selectItems.add(new SelectExpressionItem(countExpression));
+        return selectItems;
+    }
+
+    /**
+     * remove the left joins whose table is not referenced by the other parts of the sql.
+     * If any part of the sql has an unqualified column or a sub select, the joins will be kept, because we can't know the column belongs to which table.
+     */
+    private static void removeUnreferencedLeftJoins(PlainSelect plainSelect) {
+        List<Join> joins = plainSelect.getJoins();
+        if (Emptys.isEmpty(joins)) {
+            return;
+        }
+        Iterator<Join> iter = joins.iterator();
+        while (iter.hasNext()) {
+            Join join = iter.next();
+            if (!join.isLeft() || join.isNatural() || join.isSemi() || hasParameter(join.getOnExpression())) {
+                continue;
+            }
+            String name = getReferenceName(join.getRightItem());
+            if (name == null) {
+                continue;
+            }
+            ReferenceCollector collector = new ReferenceCollector();
+            collector.collect(plainSelect.getWhere());
+            collector.collect(plainSelect.getHaving());
+            collector.collect(plainSelect.getOracleHierarchical());
+            if (plainSelect.getGroupBy() != null) {
+                collector.collect(plainSelect.getGroupBy().getGroupByExpressions());
+            }
+            List<SelectItem> selectItems = plainSelect.getSelectItems();
+            if (plainSelect.getDistinct() != null && selectItems != null) {
+                for (SelectItem selectItem : selectItems) {
+                    if (selectItem instanceof SelectExpressionItem) {
+                        collector.collect(((SelectExpressionItem) selectItem).getExpression());
+                    } else {
+                        collector.unqualified = true;
+                    }
+                }
+            }
+            for (Join other : joins) {
+                if (other != join) {
+                    collector.collect(other.getOnExpression());
+                    if (other.getUsingColumns() != null) {
+                        collector.unqualified = true;
+                    }
+                }
+            }
+            if (!collector.unqualified && !collector.subSelect && !collector.references(name)) {
+                iter.remove();
+            }
+        }
+        if (joins.isEmpty()) {
+            plainSelect.setJoins(null);
+        }
+    }
+
+    static String getReferenceName(FromItem fromItem) {
+        if (fromItem.getAlias() != null && Strings.isNotBlank(fromItem.getAlias().getName())) {
+            return fromItem.getAlias().getName();
+        }
+        if (fromItem instanceof Table) {
+            return ((Table) fromItem).getName();
+        }
+        return null;
+    }
+
+    static boolean hasAggregate(List<SelectItem> selectItems) {
+        if (selectItems == null) {
+            return false;
+        }
+        for (SelectItem selectItem : selectItems) {
+            if (AGGREGATE_PATTERN.matcher(selectItem.toString()).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean hasParameter(Object node) {
+        if (node == null) {
+            return false;
+        }
+        String str = node.toString();
+        return str.indexOf('?') != -1 || str.indexOf(':') != -1;
+    }
+
+    private static class ReferenceCollector extends ExpressionVisitorAdapter {
+        private final List<String> tables = new ArrayList<String>();
+        private boolean unqualified = false;
+        private boolean subSelect = false;
+
+        void collect(Expression expression) {
+            if (expression != null) {
+                expression.accept(this);
+            }
+        }
+
+        void collect(List<Expression> expressions) {
+            if (expressions != null) {
+                for (Expression expression : expressions) {
+                    collect(expression);
+                }
+            }
+        }
+
+        @Override
+        public void visit(Column column) {
+            Table table = column.getTable();
+            if (table == null || Strings.isBlank(table.getName())) {
+                unqualified = true;
+            } else {
+                tables.add(table.getName());
+            }
+        }
+
+        @Override
+        public void visit(SubSelect subSelect) {
+            this.subSelect = true;
+        }
+
+        @Override
+        public void visit(AllTableColumns allTableColumns) {
+            tables.add(allTableColumns.getTable().getName());
+        }
+
+        boolean references(String name) {
+            for (String table : tables) {
+                if (table.equalsIgnoreCase(name)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
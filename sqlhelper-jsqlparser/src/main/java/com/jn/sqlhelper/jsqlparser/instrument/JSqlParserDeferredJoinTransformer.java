@@ -0,0 +1,201 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jn.sqlhelper.jsqlparser.instrument;
+
+import com.jn.langx.annotation.NonNull;
+import com.jn.langx.lifecycle.InitializationException;
+import com.jn.langx.util.Emptys;
+import com.jn.langx.util.Preconditions;
+import com.jn.langx.util.Strings;
+import com.jn.sqlhelper.dialect.instrument.AbstractClauseTransformer;
+import com.jn.sqlhelper.dialect.instrument.TransformConfig;
+import com.jn.sqlhelper.dialect.instrument.deferredjoin.DeferredJoinTransformConfig;
+import com.jn.sqlhelper.dialect.instrument.deferredjoin.DeferredJoinTransformer;
+import com.jn.sqlhelper.dialect.internal.limit.LimitHelper;
+import com.jn.sqlhelper.dialect.internal.limit.LimitPlan;
+import com.jn.sqlhelper.dialect.pagination.RowSelection;
+import com.jn.sqlhelper.dialect.sqlparser.SqlStatementWrapper;
+import com.jn.sqlhelper.jsqlparser.utils.CCJSqlParsers;
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.expression.Alias;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.LongValue;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.schema.Table;
+import net.sf.jsqlparser.statement.Statement;
+import net.sf.jsqlparser.statement.select.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Rewrite a single table select to a deferred join, the derived table selects the primary keys with the where, the order by and the limit:
+ * <pre>
+ * select * from t where a = ? order by b
+ * =>
+ * SELECT t.* FROM t JOIN (SELECT t.id FROM t WHERE a = ? ORDER BY b LIMIT ?, ?) sqlhelper_k_ USING (id) ORDER BY b
+ * </pre>
+ * The parameters of the select items are before the derived table, so the parameters are in the same order as the original sql.
+ * The statement is not changed if it has joins, distinct, group by, having, aggregate functions, a limit,
+ * or its order by has parameters or references the alias of a select item.
+ */
+public class JSqlParserDeferredJoinTransformer extends AbstractClauseTransformer<Statement> implements DeferredJoinTransformer<Statement> {
+
+    @Override
+    public void init() throws InitializationException {
+
+    }
+
+    @Override
+    public SqlStatementWrapper<Statement> transform(@NonNull SqlStatementWrapper<Statement> sw, @NonNull TransformConfig config) {
+        Preconditions.checkNotNull(sw);
+        Preconditions.checkNotNull(config);
+        DeferredJoinTransformConfig deferredJoinConfig = config.getDeferredJoinTransformConfig();
+        if (deferredJoinConfig == null || Emptys.isEmpty(deferredJoinConfig.getPrimaryKeys()) || deferredJoinConfig.getDialect() == null || deferredJoinConfig.getSelection() == null) {
+            return sw;
+        }
+        Statement statement = sw.get();
+        if (!(statement instanceof Select)) {
+            return sw;
+        }
+        Select select = (Select) statement;
+        if (Emptys.isNotEmpty(select.getWithItemsList()) || !(select.getSelectBody() instanceof PlainSelect)) {
+            return sw;
+        }
+        PlainSelect plainSelect = (PlainSelect) select.getSelectBody();
+        if (!canRewrite(plainSelect)) {
+            return sw;
+        }
+        SubSelect keys = buildKeysSubSelect(plainSelect, deferredJoinConfig);
+        if (keys == null) {
+            return sw;
+        }
+        List<Column> usingColumns = new ArrayList<Column>();
+        for (String primaryKey : deferredJoinConfig.getPrimaryKeys()) {
+            usingColumns.add(new Column(primaryKey));
+        }
+        Join join = new Join();
+        join.setRightItem(keys);
+        join.setUsingColumns(usingColumns);
+        List<Join> joins = new ArrayList<Join>();
+        joins.add(join);
+
+        List<SelectItem> selectItems = new ArrayList<SelectItem>(plainSelect.getSelectItems());
+        for (int i = 0; i < selectItems.size(); i++) {
+            if (selectItems.get(i) instanceof AllColumns) {
+                // the columns of the derived table are not selected
+                selectItems.set(i, new AllTableColumns(getReferenceTable(plainSelect)));
+            }
+        }
+        plainSelect.setSelectItems(selectItems);
+        plainSelect.setWhere(null);
+        plainSelect.setJoins(joins);
+        sw.setChanged(true);
+        return sw;
+    }
+
+    private static boolean canRewrite(PlainSelect plainSelect) {
+        if (!(plainSelect.getFromItem() instanceof Table)
+                || Emptys.isNotEmpty(plainSelect.getJoins())
+                || plainSelect.getDistinct() != null
+                || plainSelect.getGroupBy() != null
+                || plainSelect.getHaving() != null
+                || plainSelect.getOracleHierarchical() != null
+                || plainSelect.getIntoTables() != null
+                || plainSelect.isForUpdate()
+                || plainSelect.getMySqlSqlCalcFoundRows()
+                || JSqlParserCountTransformer.isLimited(plainSelect)
+                || plainSelect.getSelectItems() == null
+                || JSqlParserCountTransformer.hasAggregate(plainSelect.getSelectItems())) {
+            return false;
+        }
+        List<OrderByElement> orderByElements = plainSelect.getOrderByElements();
+        if (Emptys.isEmpty(orderByElements)) {
+            // the order of the page is undefined without an order by
+            return false;
+        }
+        Set<String> aliases = new HashSet<String>();
+        for (SelectItem selectItem : plainSelect.getSelectItems()) {
+            if (selectItem instanceof SelectExpressionItem && ((SelectExpressionItem) selectItem).getAlias() != null) {
+                aliases.add(((SelectExpressionItem) selectItem).getAlias().getName().toLowerCase());
+            }
+        }
+        for (OrderByElement orderByElement : orderByElements) {
+            Expression expression = orderByElement.getExpression();
+            if (JSqlParserCountTransformer.hasParameter(expression) || expression instanceof LongValue) {
+                return false;
+            }
+            if (expression instanceof Column) {
+                Column column = (Column) expression;
+                if ((column.getTable() == null || Strings.isBlank(column.getTable().getName())) && aliases.contains(column.getColumnName().toLowerCase())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * (select t.id from t where ... order by ... limit ?, ?) sqlhelper_k_
+     */
+    private static SubSelect buildKeysSubSelect(PlainSelect plainSelect, DeferredJoinTransformConfig config) {
+        Table table = getReferenceTable(plainSelect);
+        List<SelectItem> keyItems = new ArrayList<SelectItem>();
+        for (String primaryKey : config.getPrimaryKeys()) {
+            keyItems.add(new SelectExpressionItem(new Column(table, primaryKey)));
+        }
+        PlainSelect keysSelect = new PlainSelect();
+        keysSelect.setSelectItems(keyItems);
+        keysSelect.setFromItem(plainSelect.getFromItem());
+        keysSelect.setWhere(plainSelect.getWhere());
+        keysSelect.setOrderByElements(plainSelect.getOrderByElements());
+
+        String keysSql = keysSelect.toString();
+        RowSelection selection = config.getSelection();
+        LimitPlan plan = config.isCompileLimitPlan() ? config.getDialect().getLimitPlan(keysSql, LimitHelper.hasFirstRow(selection)) : null;
+        String limitSql;
+        if (plan != null) {
+            selection.setLimitPlan(plan);
+            limitSql = plan.render(selection);
+        } else {
+            limitSql = config.getDialect().getLimitSql(keysSql, selection);
+        }
+        Statement limitStatement;
+        try {
+            limitStatement = CCJSqlParsers.parse(limitSql);
+        } catch (JSQLParserException ex) {
+            return null;
+        }
+        if (!(limitStatement instanceof Select)) {
+            return null;
+        }
+        SubSelect subSelect = new SubSelect();
+        subSelect.setSelectBody(((Select) limitStatement).getSelectBody());
+        subSelect.setAlias(new Alias(DERIVED_TABLE_ALIAS, false));
+        return subSelect;
+    }
+
+    /**
+     * @return the alias of the table if it has, else the table without alias
+     */
+    private static Table getReferenceTable(PlainSelect plainSelect) {
+        Table table = (Table) plainSelect.getFromItem();
+        if (table.getAlias() != null && Strings.isNotBlank(table.getAlias().getName())) {
+            return new Table(table.getAlias().getName());
+        }
+        return table;
+    }
+}
@@ -3,6 +3,9 @@ package com.jn.sqlhelper.jsqlparser.instrument;
 import com.jn.langx.annotation.Name;
 import com.jn.langx.lifecycle.InitializationException;
 import com.jn.sqlhelper.dialect.instrument.Instrumentation;
+import com.jn.sqlhelper.dialect.instrument.TableNamesExtractor;
+import com.jn.sqlhelper.dialect.instrument.count.CountTransformer;
+import com.jn.sqlhelper.dialect.instrument.deferredjoin.DeferredJoinTransformer;
 import com.jn.sqlhelper.dialect.instrument.groupby.GroupByTransformer;
 import com.jn.sqlhelper.dialect.instrument.orderby.OrderByTransformer;
 import com.jn.sqlhelper.dialect.instrument.where.WhereTransformer;
@@ -19,6 +22,9 @@ public class JSqlParserInstrumentation implements Instrumentation<Statement, JSq
     private WhereTransformer<Statement> whereTransformer;
     private OrderByTransformer<Statement> orderByTransformer;
     private GroupByTransformer<Statement> groupByTransformer;
+    private CountTransformer<Statement> countTransformer;
+    private TableNamesExtractor<Statement> tableNamesExtractor;
+    private DeferredJoinTransformer<Statement> deferredJoinTransformer;
 
     @Override
     public void init() throws InitializationException {
@@ -31,6 +37,11 @@ public class JSqlParserInstrumentation implements Instrumentation<Statement, JSq
             orderByTransformer.init();
             groupByTransformer = new JSqlParserGroupByTransformer();
             groupByTransformer.init();
+            countTransformer = new JSqlParserCountTransformer();
+            countTransformer.init();
+            tableNamesExtractor = new JSqlParserTableNamesExtractor();
+            deferredJoinTransformer = new JSqlParserDeferredJoinTransformer();
+            deferredJoinTransformer.init();
         }
     }
 
@@ -64,4 +75,19 @@ public class JSqlParserInstrumentation implements Instrumentation<Statement, JSq
     public GroupByTransformer<Statement> getGroupByTransformer() {
         return groupByTransformer;
     }
+
+    @Override
+    public CountTransformer<Statement> getCountTransformer() {
+        return countTransformer;
+    }
+
+    @Override
+    public TableNamesExtractor<Statement> getTableNamesExtractor() {
+        return tableNamesExtractor;
+    }
+
+    @Override
+    public DeferredJoinTransformer<Statement> getDeferredJoinTransformer() {
+        return deferredJoinTransformer;
+    }
 }
@@ -15,10 +15,10 @@ import com.jn.sqlhelper.dialect.orderby.OrderByItem;
 import com.jn.sqlhelper.dialect.orderby.OrderByType;
 import com.jn.sqlhelper.dialect.sqlparser.SQLParseException;
 import com.jn.sqlhelper.dialect.sqlparser.SqlStatementWrapper;
+import com.jn.sqlhelper.jsqlparser.utils.CCJSqlParsers;
 import com.jn.sqlhelper.jsqlparser.utils.JSqlParsers;
 import net.sf.jsqlparser.JSQLParserException;
 import net.sf.jsqlparser.expression.Expression;
-import net.sf.jsqlparser.parser.CCJSqlParserUtil;
 import net.sf.jsqlparser.statement.Statement;
 import net.sf.jsqlparser.statement.select.OrderByElement;
 import net.sf.jsqlparser.statement.select.PlainSelect;
@@ -77,7 +77,7 @@ public class JSqlParserOrderByTransformer extends AbstractClauseTransformer<Stat
                 }
 
                 for (OrderByItem item : orderBy) {
-                    Expression exprForAppend = CCJSqlParserUtil.parseExpression(item.getExpression());
+                    Expression exprForAppend = CCJSqlParsers.parseExpression(item.getExpression());
                     boolean needAppend = true;
                     for (OrderByElement orderByElement : orderByElements) {
                         Expression exprInSql = orderByElement.getExpression();
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.jn.sqlhelper.jsqlparser.instrument;
+
+import com.jn.sqlhelper.dialect.instrument.TableNamesExtractor;
+import com.jn.sqlhelper.dialect.sqlparser.SqlStatementWrapper;
+import net.sf.jsqlparser.statement.Statement;
+import net.sf.jsqlparser.util.TablesNamesFinder;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+public class JSqlParserTableNamesExtractor implements TableNamesExtractor<Statement> {
+
+    @Override
+    public Set<String> getTableNames(SqlStatementWrapper<Statement> statement) {
+        // the finder is stateful
+        return new LinkedHashSet<String>(new TablesNamesFinder().getTableList(statement.get()));
+    }
+}
@@ -16,8 +16,10 @@ import com.jn.sqlhelper.dialect.tenant.Tenant;
 import com.jn.sqlhelper.jsqlparser.expression.ExpressionConverters;
 import com.jn.sqlhelper.jsqlparser.utils.JSqlParsers;
 import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.Parenthesis;
 import net.sf.jsqlparser.expression.StringValue;
 import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
+import net.sf.jsqlparser.expression.operators.conditional.OrExpression;
 import net.sf.jsqlparser.expression.operators.relational.ExpressionList;
 import net.sf.jsqlparser.expression.operators.relational.ItemsList;
 import net.sf.jsqlparser.schema.Column;
@@ -52,11 +54,15 @@ public class JSqlParserWhereTransformer extends AbstractClauseTransformer<Statem
         }
 
         if (Reflects.isSubClassOrEquals(Select.class, statement.getClass())) {
-            transform((Select) statement, false, expressionConfigs);
+            if (transform((Select) statement, false, expressionConfigs)) {
+                statementWrapper.setChanged(true);
+            }
         } else if (Reflects.isSubClassOrEquals(Update.class, statement.getClass())) {
             transform((Update) statement, expressionConfigs);
+            statementWrapper.setChanged(true);
         } else if (Reflects.isSubClassOrEquals(Delete.class, statement.getClass())) {
             transform((Delete) statement, expressionConfigs);
+            statementWrapper.setChanged(true);
         } else if (Reflects.isSubClassOrEquals(Insert.class, statement.getClass())) {
             transform((Insert) statement, config.getTenant());
         }
@@ -64,10 +70,10 @@ public class JSqlParserWhereTransformer extends AbstractClauseTransformer<Statem
         return statementWrapper;
     }
 
-    private void transform(Select select, final boolean isSubSelect, List<WhereTransformConfig> expressionConfigs) {
+    private boolean transform(Select select, final boolean isSubSelect, List<WhereTransformConfig> expressionConfigs) {
         final PlainSelect plainSelect = JSqlParsers.extractPlainSelect(select.getSelectBody());
         if (plainSelect == null) {
-            return;
+            return false;
         }
 
         Collects.forEach(expressionConfigs, new Predicate<WhereTransformConfig>() {
@@ -87,10 +93,10 @@ public class JSqlParserWhereTransformer extends AbstractClauseTransformer<Statem
                     InjectPosition position = config.getPosition();
                     switch (position) {
                         case FIRST:
-                            plainSelect.setWhere(new AndExpression(expression, where));
+                            plainSelect.setWhere(and(expression, where));
                             break;
                         case LAST:
-                            plainSelect.setWhere(new AndExpression(where, expression));
+                            plainSelect.setWhere(and(where, expression));
                             break;
                         case BEST:
                             // TODO compute the best position based on the index
@@ -99,6 +105,7 @@ public class JSqlParserWhereTransformer extends AbstractClauseTransformer<Statem
                 }
             }
         });
+        return true;
     }
 
     private void transform(final Update update, List<WhereTransformConfig> expressionConfigs) {
@@ -121,10 +128,10 @@ public class JSqlParserWhereTransformer extends AbstractClauseTransformer<Statem
                     InjectPosition position = config.getPosition();
                     switch (position) {
                         case FIRST:
-                            update.setWhere(new AndExpression(expression, where));
+                            update.setWhere(and(expression, where));
                             break;
                         case LAST:
-                            update.setWhere(new AndExpression(where, expression));
+                            update.setWhere(and(where, expression));
                             break;
                         case BEST:
                             // TODO compute the best position based on the index
@@ -155,10 +162,10 @@ public class JSqlParserWhereTransformer extends AbstractClauseTransformer<Statem
                     InjectPosition position = config.getPosition();
                     switch (position) {
                         case FIRST:
-                            delete.setWhere(new AndExpression(expression, where));
+                            delete.setWhere(and(expression, where));
                             break;
                         case LAST:
-                            delete.setWhere(new AndExpression(where, expression));
+                            delete.setWhere(and(where, expression));
                             break;
                         case BEST:
                             // TODO compute the best position based on the index
@@ -168,6 +175,21 @@ public class JSqlParserWhereTransformer extends AbstractClauseTransformer<Statem
             }
         });
     }
+
+    /**
+     * the OR expression has a lower precedence than AND, so it should be wrapped with parenthesis
+     */
+    private static Expression and(Expression left, Expression right) {
+        return new AndExpression(parenthesisIfNecessary(left), parenthesisIfNecessary(right));
+    }
+
+    private static Expression parenthesisIfNecessary(Expression expression) {
+        if (expression instanceof OrExpression) {
+            return new Parenthesis(expression);
+        }
+        return expression;
+    }
+
     private void transform(final Insert insert, Tenant tenant) {
         /*
         insert.getColumns().add(new Column(tenant.getTenantColumn()));
@@ -16,9 +16,11 @@ package com.jn.sqlhelper.jsqlparser.sqlparser;
 
 import com.jn.langx.util.Preconditions;
 import com.jn.sqlhelper.dialect.sqlparser.AbstractSqlStatementWrapper;
+import com.jn.sqlhelper.dialect.sqlparser.CopyableSqlStatementWrapper;
+import com.jn.sqlhelper.jsqlparser.utils.JSqlParsers;
 import net.sf.jsqlparser.statement.Statement;
 
-public class JSqlParserStatementWrapper extends AbstractSqlStatementWrapper<Statement> {
+public class JSqlParserStatementWrapper extends AbstractSqlStatementWrapper<Statement> implements CopyableSqlStatementWrapper<Statement> {
 
     public JSqlParserStatementWrapper(Statement statement) {
         Preconditions.checkNotNull(statement);
@@ -32,4 +34,12 @@ public class JSqlParserStatementWrapper extends AbstractSqlStatementWrapper<Stat
         }
         return get().toString();
     }
+
+    @Override
+    public JSqlParserStatementWrapper copy() {
+        JSqlParserStatementWrapper copied = new JSqlParserStatementWrapper(JSqlParsers.copy(get()));
+        copied.setOriginalSql(getOriginalSql());
+        copied.setChanged(isChanged());
+        return copied;
+    }
 }
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.jn.sqlhelper.jsqlparser.utils;
+
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.parser.CCJSqlParser;
+import net.sf.jsqlparser.parser.StringProvider;
+import net.sf.jsqlparser.statement.Statement;
+
+/**
+ * The same as the {@link net.sf.jsqlparser.parser.CCJSqlParserUtil}, but every thread reuses a parser.
+ * <p>
+ * A new parser allocates its char buffers, lookahead tables and token manager, they are the most of the garbage of a parse.
+ * The reused one is re-initialized with the new sql only. It keeps the tokens of the last sql until the next parse,
+ * so a sql which is longer than {@link #MAX_REUSED_SQL_LENGTH} is parsed by a new parser.
+ */
+public class CCJSqlParsers {
+    public static final int MAX_REUSED_SQL_LENGTH = 16 * 1024;
+
+    private static final ThreadLocal<ParserHolder> PARSERS = new ThreadLocal<ParserHolder>() {
+        @Override
+        protected ParserHolder initialValue() {
+            return new ParserHolder();
+        }
+    };
+
+    private CCJSqlParsers() {
+    }
+
+    public static Statement parse(String sql) throws JSQLParserException {
+        ParserHolder holder = PARSERS.get();
+        CCJSqlParser parser = holder.acquire(sql);
+        try {
+            return parser.Statement();
+        } catch (Exception ex) {
+            throw new JSQLParserException(ex);
+        } finally {
+            holder.release(parser);
+        }
+    }
+
+    public static Expression parseExpression(String expression) throws JSQLParserException {
+        ParserHolder holder = PARSERS.get();
+        CCJSqlParser parser = holder.acquire(expression);
+        try {
+            return parser.SimpleExpression();
+        } catch (Exception ex) {
+            throw new JSQLParserException(ex);
+        } finally {
+            holder.release(parser);
+        }
+    }
+
+    private static class ParserHolder {
+        private CCJSqlParser parser;
+        private boolean busy;
+
+        /**
+         * a new parser is used if the thread's parser is in use already, it is never reentered
+         */
+        CCJSqlParser acquire(String sql) {
+            StringProvider provider = new StringProvider(sql);
+            if (busy || sql.length() > MAX_REUSED_SQL_LENGTH) {
+                return new CCJSqlParser(provider);
+            }
+            busy = true;
+            if (parser == null) {
+                parser = new CCJSqlParser(provider);
+            } else {
+                parser.ReInit(provider);
+            }
+            return parser;
+        }
+
+        void release(CCJSqlParser parser) {
+            if (parser == this.parser) {
+                busy = false;
+            }
+        }
+    }
+}
@@ -16,7 +16,11 @@ package com.jn.sqlhelper.jsqlparser.utils;
 
 import com.jn.langx.util.Emptys;
 import com.jn.langx.util.collection.Collects;
+import com.jn.langx.util.reflect.Reflects;
+import net.sf.jsqlparser.JSQLParserException;
 import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
+import net.sf.jsqlparser.parser.Node;
 import net.sf.jsqlparser.schema.Column;
 import net.sf.jsqlparser.statement.*;
 import net.sf.jsqlparser.statement.alter.Alter;
@@ -37,7 +41,13 @@ import net.sf.jsqlparser.statement.update.Update;
 import net.sf.jsqlparser.statement.upsert.Upsert;
 import net.sf.jsqlparser.statement.values.ValuesStatement;
 
-import java.util.List;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 @SuppressWarnings("unchecked")
 public class JSqlParsers {
@@ -139,4 +149,214 @@ public class JSqlParsers {
         }
         return expr1.toString().equalsIgnoreCase(expr2.toString());
     }
+
+    private static final ConcurrentHashMap<Class, NodeCopier> NODE_COPIERS = new ConcurrentHashMap<Class, NodeCopier>();
+    private static final String NODE_PACKAGE = "net.sf.jsqlparser.";
+
+    /**
+     * Copy a statement for transforming. It is a deep copy, a transformer can change any node of the copied statement
+     * without changing the original statement. The parse tree nodes ({@link Node}) are shared, they are never changed.
+     * <p>
+     * The statement is parsed from its string if a node can't be copied.
+     *
+     * @param statement the original statement
+     * @return the copied statement
+     */
+    public static <S extends Statement> S copy(S statement) {
+        if (statement == null) {
+            return null;
+        }
+        try {
+            return (S) deepCopy(statement, new IdentityHashMap<Object, Object>());
+        } catch (Throwable ex) {
+            try {
+                return (S) CCJSqlParsers.parse(statement.toString());
+            } catch (JSQLParserException e) {
+                throw new IllegalStateException("Can't copy the statement: " + statement, e);
+            }
+        }
+    }
+
+    /**
+     * Copy a select body deeply, it is parsed from its string if a node can't be copied.
+     *
+     * @see #copy(Statement)
+     */
+    public static SelectBody copy(SelectBody selectBody) {
+        if (selectBody == null) {
+            return null;
+        }
+        try {
+            return (SelectBody) deepCopy(selectBody, new IdentityHashMap<Object, Object>());
+        } catch (Throwable ex) {
+            Statement statement;
+            try {
+                statement = CCJSqlParsers.parse(selectBody.toString());
+            } catch (JSQLParserException e) {
+                throw new IllegalStateException("Can't copy the select body: " + selectBody, e);
+            }
+            if (!(statement instanceof Select)) {
+                throw new IllegalStateException("Can't copy the select body: " + selectBody, ex);
+            }
+            return ((Select) statement).getSelectBody();
+        }
+    }
+
+    /**
+     * @param copies original value -> copied value, a node which is referenced more than once is copied once
+     */
+    @SuppressWarnings("rawtypes")
+    private static Object deepCopy(Object value, IdentityHashMap<Object, Object> copies) {
+        if (value == null || isImmutable(value)) {
+            return value;
+        }
+        Object copied = copies.get(value);
+        if (copied != null) {
+            return copied;
+        }
+        if (value instanceof Date) {
+            copied = ((Date) value).clone();
+        } else if (value instanceof List) {
+            List list = (List) value;
+            List copiedList = value instanceof LinkedList ? new LinkedList() : new ArrayList(list.size());
+            copies.put(value, copiedList);
+            for (Object element : list) {
+                copiedList.add(deepCopy(element, copies));
+            }
+            copied = copiedList;
+        } else if (value instanceof Set) {
+            Set copiedSet = new LinkedHashSet();
+            copies.put(value, copiedSet);
+            for (Object element : (Set) value) {
+                copiedSet.add(deepCopy(element, copies));
+            }
+            copied = copiedSet;
+        } else if (value instanceof Map) {
+            Map copiedMap = new LinkedHashMap();
+            copies.put(value, copiedMap);
+            for (Object e : ((Map) value).entrySet()) {
+                Map.Entry entry = (Map.Entry) e;
+                copiedMap.put(deepCopy(entry.getKey(), copies), deepCopy(entry.getValue(), copies));
+            }
+            copied = copiedMap;
+        } else if (value.getClass().isArray()) {
+            copied = copyArray(value, copies);
+        } else if (value.getClass().getName().startsWith(NODE_PACKAGE)) {
+            copied = getNodeCopier(value.getClass()).copy(value, copies);
+        } else {
+            throw new UnsupportedOperationException("Can't copy a " + Reflects.getFQNClassName(value.getClass()));
+        }
+        copies.put(value, copied);
+        return copied;
+    }
+
+    private static boolean isImmutable(Object value) {
+        return value instanceof String
+                || value instanceof Number && value.getClass().getName().startsWith("java.")
+                || value instanceof Boolean
+                || value instanceof Character
+                || value instanceof Enum
+                || value instanceof Class
+                || value instanceof Node;
+    }
+
+    private static Object copyArray(Object array, IdentityHashMap<Object, Object> copies) {
+        int length = Array.getLength(array);
+        Object copied = Array.newInstance(array.getClass().getComponentType(), length);
+        copies.put(array, copied);
+        for (int i = 0; i < length; i++) {
+            Array.set(copied, i, deepCopy(Array.get(array, i), copies));
+        }
+        return copied;
+    }
+
+    private static NodeCopier getNodeCopier(Class clazz) {
+        NodeCopier copier = NODE_COPIERS.get(clazz);
+        if (copier == null) {
+            copier = new NodeCopier(clazz);
+            NODE_COPIERS.putIfAbsent(clazz, copier);
+        }
+        return copier;
+    }
+
+    /**
+     * Copy all the instance fields of a node class. Many nodes have no no-arg constructor, e.g. {@link AndExpression},
+     * so a node is instantiated without a constructor if it has not, like the java serialization does.
+     */
+    @SuppressWarnings("rawtypes")
+    private static class NodeCopier {
+        private final Class clazz;
+        private final Constructor constructor;
+        private final List<Field> fields = new ArrayList<Field>();
+
+        NodeCopier(Class clazz) {
+            this.clazz = clazz;
+            Constructor noArgConstructor = null;
+            try {
+                noArgConstructor = clazz.getDeclaredConstructor();
+                noArgConstructor.setAccessible(true);
+            } catch (NoSuchMethodException ex) {
+                // instantiate it with the unsafe
+            }
+            this.constructor = noArgConstructor;
+            Class c = clazz;
+            while (c != null && c != Object.class) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers())) {
+                        field.setAccessible(true);
+                        fields.add(field);
+                    }
+                }
+                c = c.getSuperclass();
+            }
+        }
+
+        Object copy(Object node, IdentityHashMap<Object, Object> copies) {
+            Object copied = newInstance();
+            copies.put(node, copied);
+            for (Field field : fields) {
+                try {
+                    field.set(copied, deepCopy(field.get(node), copies));
+                } catch (IllegalAccessException ex) {
+                    throw new IllegalStateException(ex.getMessage(), ex);
+                }
+            }
+            return copied;
+        }
+
+        private Object newInstance() {
+            try {
+                if (constructor != null) {
+                    return constructor.newInstance();
+                }
+                if (UNSAFE_ALLOCATE_INSTANCE != null) {
+                    return UNSAFE_ALLOCATE_INSTANCE.invoke(UNSAFE, clazz);
+                }
+            } catch (Throwable ex) {
+                throw new IllegalStateException("Can't create an instance of " + Reflects.getFQNClassName(clazz), ex);
+            }
+            throw new IllegalStateException("Can't create an instance of " + Reflects.getFQNClassName(clazz) + ", it has no no-arg constructor");
+        }
+    }
+
+    private static final Object UNSAFE;
+    private static final Method UNSAFE_ALLOCATE_INSTANCE;
+
+    static {
+        Object unsafe = null;
+        Method allocateInstance = null;
+        try {
+            Class unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            unsafe = theUnsafe.get(null);
+            allocateInstance = unsafeClass.getMethod("allocateInstance", Class.class);
+        } catch (Throwable ex) {
+            // the nodes without a no-arg constructor can't be copied, the statements are parsed again
+            unsafe = null;
+            allocateInstance = null;
+        }
+        UNSAFE = unsafe;
+        UNSAFE_ALLOCATE_INSTANCE = allocateInstance;
+    }
 }
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.jsqlparser.tests;
+
+import com.jn.sqlhelper.dialect.instrument.SQLInstrumentorConfig;
+import com.jn.sqlhelper.dialect.instrument.SQLStatementInstrumentor;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CountTransformerTests {
+    private static final String COUNT_DISTINCT_A = "SELECT count(DISTINCT a) + coalesce(max(CASE WHEN a IS NULL THEN 1 ELSE 0 END), 0) FROM t";
+
+    private static String countSql(String sql) {
+        SQLInstrumentorConfig config = new SQLInstrumentorConfig();
+        config.setInstrumentation("jsqlparser");
+        config.setTransformCountSql(true);
+        SQLStatementInstrumentor instrumentor = new SQLStatementInstrumentor();
+        instrumentor.setConfig(config);
+        instrumentor.init();
+        return instrumentor.countSql(sql);
+    }
+
+    private static void assertWrapped(String sql) {
+        // the transformer renders the keywords in upper case, the string fallback keeps the sql
+        String countSql = countSql(sql);
+        Assert.assertTrue(countSql, countSql.equalsIgnoreCase("select count(1) from (" + sql + ") tmp_count"));
+    }
+
+    @Test
+    public void testOrderByIsDropped() {
+        Assert.assertEquals("SELECT count(*) FROM t WHERE b = ?", countSql("select * from t where b = ? order by a desc"));
+    }
+
+    @Test
+    public void testSimpleSelect() {
+        Assert.assertEquals("SELECT count(*) FROM t WHERE a > 0", countSql("select a, b from t where a > 0"));
+    }
+
+    @Test
+    public void testSingleGroupByCountsTheNullGroup() {
+        Assert.assertEquals(COUNT_DISTINCT_A, countSql("select a, count(*) from t group by a"));
+    }
+
+    @Test
+    public void testSingleDistinctCountsTheNullValue() {
+        Assert.assertEquals(COUNT_DISTINCT_A, countSql("select distinct a from t order by a"));
+    }
+
+    @Test
+    public void testWrapper() {
+        assertWrapped("select a, b, count(*) from t group by a, b");
+        assertWrapped("select a, count(*) from t group by a having count(*) > 1");
+        assertWrapped("select a from t union select a from u");
+    }
+
+    @Test
+    public void testRollupIsWrapped() {
+        assertWrapped("select a, count(*) from t group by a with rollup");
+        String countSql = countSql("select a, count(*) from t group by rollup(a)");
+        Assert.assertFalse(countSql, countSql.contains("DISTINCT"));
+    }
+
+    @Test
+    public void testGroupByAliasIsWrapped() {
+        String countSql = countSql("select lower(name) as a, count(*) from t group by a");
+        Assert.assertFalse(countSql, countSql.contains("DISTINCT"));
+        Assert.assertTrue(countSql, countSql.contains("tmp_count"));
+    }
+
+    @Test
+    public void testParameterInTheDroppedOrderBy() {
+        // the order by can't be dropped, else the parameters are bound in another order
+        String sql = "select name from t where b = ? order by field(name, ?)";
+        String countSql = countSql(sql);
+        Assert.assertEquals(2, countSql.length() - countSql.replace("?", "").length());
+        Assert.assertTrue(countSql, countSql.contains("field(name, ?)"));
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.jsqlparser.tests;
+
+import com.jn.langx.util.collection.Collects;
+import com.jn.sqlhelper.dialect.instrument.SQLInstrumentorConfig;
+import com.jn.sqlhelper.dialect.instrument.SQLStatementInstrumentor;
+import com.jn.sqlhelper.dialect.internal.MySQLDialect;
+import com.jn.sqlhelper.dialect.pagination.RowSelection;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DeferredJoinInstrumentTests {
+    private static final String SQL = "select * from person where age > ? order by name";
+
+    private static SQLStatementInstrumentor instrumentor(boolean cacheInstrumentedSql) {
+        SQLInstrumentorConfig config = new SQLInstrumentorConfig();
+        config.setInstrumentation("jsqlparser");
+        config.setCacheInstrumentedSql(cacheInstrumentedSql);
+        config.setDeferredJoinOffsetThreshold(1000);
+        SQLStatementInstrumentor instrumentor = new SQLStatementInstrumentor();
+        instrumentor.setConfig(config);
+        instrumentor.init();
+        return instrumentor;
+    }
+
+    private static RowSelection selection(long offset) {
+        RowSelection selection = new RowSelection();
+        selection.setOffset(offset);
+        selection.setLimit(10);
+        selection.setPrimaryKeys(Collects.asList("id"));
+        return selection;
+    }
+
+    @Test
+    public void testCacheHitBindsWithThePlan() {
+        SQLStatementInstrumentor instrumentor = instrumentor(true);
+        MySQLDialect dialect = new MySQLDialect();
+
+        RowSelection miss = selection(5000);
+        String sql = instrumentor.instrumentLimitSql(dialect, SQL, miss);
+        Assert.assertTrue(sql.contains("sqlhelper_k_"));
+        Assert.assertNotNull(miss.getLimitPlan());
+
+        RowSelection hit = selection(8000);
+        Assert.assertEquals(sql, instrumentor.instrumentLimitSql(dialect, SQL, hit));
+        Assert.assertSame(miss.getLimitPlan(), hit.getLimitPlan());
+    }
+
+    @Test
+    public void testLiteralModeIsNotCached() {
+        SQLStatementInstrumentor instrumentor = instrumentor(true);
+        MySQLDialect dialect = new MySQLDialect();
+        dialect.setUseLimitInVariableMode(false);
+
+        String sql = instrumentor.instrumentLimitSql(dialect, SQL, selection(5000));
+        Assert.assertTrue(sql.contains("5000"));
+        sql = instrumentor.instrumentLimitSql(dialect, SQL, selection(8000));
+        Assert.assertTrue(sql.contains("8000"));
+    }
+
+    @Test
+    public void testWithoutCache() {
+        SQLStatementInstrumentor instrumentor = instrumentor(false);
+        RowSelection selection = selection(5000);
+        Assert.assertTrue(instrumentor.instrumentLimitSql(new MySQLDialect(), SQL, selection).contains("sqlhelper_k_"));
+        Assert.assertNull(selection.getLimitPlan());
+    }
+
+    @Test
+    public void testMetadataIsReadForDeepPagesOnly() {
+        SQLStatementInstrumentor instrumentor = instrumentor(false);
+        final AtomicInteger metadataCalls = new AtomicInteger();
+        Connection connection = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Connection.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if ("getMetaData".equals(method.getName())) {
+                    metadataCalls.incrementAndGet();
+                }
+                return null;
+            }
+        });
+        RowSelection firstPage = selection(10);
+        firstPage.setPrimaryKeys(null);
+        instrumentor.resolvePrimaryKeys(new MySQLDialect(), connection, SQL, firstPage);
+        Assert.assertEquals(0, metadataCalls.get());
+
+        RowSelection deepPage = selection(5000);
+        deepPage.setPrimaryKeys(null);
+        instrumentor.resolvePrimaryKeys(new MySQLDialect(), connection, SQL, deepPage);
+        Assert.assertEquals(1, metadataCalls.get());
+    }
+}
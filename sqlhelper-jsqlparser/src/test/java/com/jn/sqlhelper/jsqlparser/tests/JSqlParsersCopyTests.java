@@ -0,0 +1,222 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.jsqlparser.tests;
+
+import com.jn.langx.util.collection.Collects;
+import com.jn.sqlhelper.dialect.expression.ColumnExpression;
+import com.jn.sqlhelper.dialect.expression.EqualExpression;
+import com.jn.sqlhelper.dialect.expression.IntegerOrLongExpression;
+import com.jn.sqlhelper.dialect.instrument.InjectPosition;
+import com.jn.sqlhelper.dialect.instrument.TransformConfig;
+import com.jn.sqlhelper.dialect.instrument.deferredjoin.DeferredJoinTransformConfig;
+import com.jn.sqlhelper.dialect.instrument.where.WhereTransformConfig;
+import com.jn.sqlhelper.dialect.internal.MySQLDialect;
+import com.jn.sqlhelper.dialect.orderby.OrderBy;
+import com.jn.sqlhelper.dialect.pagination.RowSelection;
+import com.jn.sqlhelper.jsqlparser.instrument.JSqlParserInstrumentation;
+import com.jn.sqlhelper.jsqlparser.sqlparser.JSqlParserStatementWrapper;
+import com.jn.sqlhelper.jsqlparser.utils.JSqlParsers;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.ExpressionVisitor;
+import net.sf.jsqlparser.expression.LongValue;
+import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
+import net.sf.jsqlparser.parser.SimpleNode;
+import net.sf.jsqlparser.schema.Table;
+import net.sf.jsqlparser.statement.Statement;
+import net.sf.jsqlparser.statement.select.Join;
+import net.sf.jsqlparser.statement.select.PlainSelect;
+import net.sf.jsqlparser.statement.select.Select;
+import net.sf.jsqlparser.statement.select.SelectBody;
+import net.sf.jsqlparser.statement.select.SubSelect;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+public class JSqlParsersCopyTests {
+    private static JSqlParserInstrumentation instrumentation;
+
+    @BeforeClass
+    public static void init() {
+        instrumentation = new JSqlParserInstrumentation();
+        instrumentation.init();
+    }
+
+    @Test
+    public void testCopyIsEqual() {
+        String[] sqls = {
+                "SELECT a.id, 'x' AS s, 1.5 AS d, -a.n FROM a WHERE a.b = 1 AND NOT a.c IS NULL OR a.d LIKE 'y%' ORDER BY a.id DESC",
+                "WITH w AS (SELECT id FROM a WHERE b > ?) SELECT * FROM w JOIN c ON w.id = c.id",
+                "SELECT * FROM (SELECT id, count(1) AS n FROM a GROUP BY id HAVING count(1) > 1) t WHERE t.id IN (SELECT id FROM c)",
+                "SELECT id FROM a UNION ALL SELECT id FROM b ORDER BY id",
+                "UPDATE a SET b = ? WHERE c = ?"
+        };
+        for (String sql : sqls) {
+            Statement statement = parse(sql).get();
+            Statement copied = JSqlParsers.copy(statement);
+            Assert.assertNotSame(statement, copied);
+            Assert.assertEquals(statement.toString(), copied.toString());
+        }
+    }
+
+    @Test
+    public void testWhere() {
+        JSqlParserStatementWrapper original = parse("SELECT * FROM a WHERE b = ? AND c = ?");
+        String expected = original.get().toString();
+        JSqlParserStatementWrapper copied = original.copy();
+        instrumentation.getWhereTransformer().transform(copied, whereConfig(false));
+        Assert.assertTrue(copied.get().toString().contains("tenant = 1"));
+        // change the where in place
+        AndExpression where = (AndExpression) ((PlainSelect) ((Select) copied.get()).getSelectBody()).getWhere();
+        ((AndExpression) where.getLeftExpression()).setRightExpression(new LongValue(2));
+        Assert.assertEquals(expected, original.get().toString());
+    }
+
+    @Test
+    public void testSubSelectWhere() {
+        JSqlParserStatementWrapper original = parse("UPDATE a SET (b, c) = (SELECT x, y FROM s WHERE s.id = a.id) WHERE a.d = ?");
+        String expected = original.get().toString();
+        JSqlParserStatementWrapper copied = original.copy();
+        instrumentation.getWhereTransformer().transform(copied, whereConfig(true));
+        Assert.assertTrue(copied.get().toString().contains("tenant = 1"));
+        Assert.assertEquals(expected, original.get().toString());
+
+        original = parse("SELECT * FROM (SELECT id FROM a WHERE b = ?) t");
+        expected = original.get().toString();
+        copied = original.copy();
+        SubSelect subSelect = (SubSelect) ((PlainSelect) ((Select) copied.get()).getSelectBody()).getFromItem();
+        ((PlainSelect) subSelect.getSelectBody()).setWhere(null);
+        Assert.assertEquals(expected, original.get().toString());
+    }
+
+    @Test
+    public void testJoins() {
+        JSqlParserStatementWrapper original = parse("SELECT * FROM a JOIN b ON a.id = b.id");
+        String expected = original.get().toString();
+        JSqlParserStatementWrapper copied = original.copy();
+        PlainSelect plainSelect = (PlainSelect) ((Select) copied.get()).getSelectBody();
+        Join join = new Join();
+        join.setSimple(true);
+        join.setRightItem(new Table("c"));
+        plainSelect.getJoins().add(join);
+        ((Table) plainSelect.getJoins().get(0).getRightItem()).setName("d");
+        Assert.assertEquals(expected, original.get().toString());
+    }
+
+    @Test
+    public void testCount() {
+        JSqlParserStatementWrapper original = parse("SELECT a.id, a.name FROM a WHERE a.b = ? ORDER BY a.id");
+        String expected = original.get().toString();
+        JSqlParserStatementWrapper copied = original.copy();
+        instrumentation.getCountTransformer().transform(copied, new TransformConfig());
+        Assert.assertTrue(copied.isChanged());
+        Assert.assertEquals(expected, original.get().toString());
+    }
+
+    @Test
+    public void testOrderBy() {
+        JSqlParserStatementWrapper original = parse("SELECT * FROM a WHERE b = ? ORDER BY c");
+        String expected = original.get().toString();
+        JSqlParserStatementWrapper copied = original.copy();
+        OrderBy orderBy = new OrderBy();
+        orderBy.addDesc("d");
+        TransformConfig config = new TransformConfig();
+        config.setOrderBy(orderBy);
+        instrumentation.getOrderByTransformer().transform(copied, config);
+        Assert.assertTrue(copied.getSql().contains("d DESC"));
+        Assert.assertEquals(expected, original.get().toString());
+    }
+
+    @Test
+    public void testDeferredJoin() {
+        JSqlParserStatementWrapper original = parse("SELECT * FROM a WHERE b = ? ORDER BY c");
+        String expected = original.get().toString();
+        JSqlParserStatementWrapper copied = original.copy();
+        RowSelection selection = new RowSelection();
+        selection.setOffset(10000L);
+        selection.setLimit(10);
+        DeferredJoinTransformConfig deferredJoinConfig = new DeferredJoinTransformConfig();
+        deferredJoinConfig.setPrimaryKeys(Collects.asList("id"));
+        deferredJoinConfig.setDialect(new MySQLDialect());
+        deferredJoinConfig.setSelection(selection);
+        TransformConfig config = new TransformConfig();
+        config.setDeferredJoinTransformConfig(deferredJoinConfig);
+        instrumentation.getDeferredJoinTransformer().transform(copied, config);
+        Assert.assertTrue(copied.isChanged());
+        Assert.assertEquals(expected, original.get().toString());
+    }
+
+    @Test
+    public void testReparseNodeWhichCanNotBeCopied() {
+        Select select = (Select) parse("SELECT * FROM a WHERE b = ?").get();
+        PlainSelect plainSelect = (PlainSelect) select.getSelectBody();
+        plainSelect.setWhere(new RawExpression("c = 1"));
+
+        SelectBody copiedBody = JSqlParsers.copy(plainSelect);
+        Assert.assertEquals(plainSelect.toString(), copiedBody.toString());
+        Assert.assertFalse(((PlainSelect) copiedBody).getWhere() instanceof RawExpression);
+
+        Statement copied = JSqlParsers.copy(select);
+        Assert.assertEquals(select.toString(), copied.toString());
+        Assert.assertFalse(((PlainSelect) ((Select) copied).getSelectBody()).getWhere() instanceof RawExpression);
+    }
+
+    /**
+     * an expression out of the jsqlparser package, it can't be copied
+     */
+    private static class RawExpression implements Expression {
+        private final String sql;
+
+        RawExpression(String sql) {
+            this.sql = sql;
+        }
+
+        @Override
+        public void accept(ExpressionVisitor expressionVisitor) {
+        }
+
+        @Override
+        public SimpleNode getASTNode() {
+            return null;
+        }
+
+        @Override
+        public void setASTNode(SimpleNode node) {
+        }
+
+        @Override
+        public String toString() {
+            return sql;
+        }
+    }
+
+    private static JSqlParserStatementWrapper parse(String sql) {
+        return instrumentation.getSqlParser().parse(sql);
+    }
+
+    private static TransformConfig whereConfig(boolean instrumentSubSelect) {
+        EqualExpression equal = new EqualExpression();
+        equal.setLeft(new ColumnExpression("tenant"));
+        equal.setRight(new IntegerOrLongExpression(1));
+        WhereTransformConfig whereConfig = new WhereTransformConfig();
+        whereConfig.setExpression(equal);
+        whereConfig.setPosition(InjectPosition.LAST);
+        whereConfig.setInstrumentSubSelect(instrumentSubSelect);
+        TransformConfig config = new TransformConfig();
+        config.setWhereInstrumentConfigs(new ArrayList<WhereTransformConfig>(Collects.asList(whereConfig)));
+        return config;
+    }
+}
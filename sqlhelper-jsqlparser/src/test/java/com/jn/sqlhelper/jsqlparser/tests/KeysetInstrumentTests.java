@@ -0,0 +1,72 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.jsqlparser.tests;
+
+import com.jn.sqlhelper.dialect.instrument.SQLInstrumentorConfig;
+import com.jn.sqlhelper.dialect.instrument.SQLStatementInstrumentor;
+import com.jn.sqlhelper.dialect.internal.MySQLDialect;
+import com.jn.sqlhelper.dialect.orderby.OrderBy;
+import com.jn.sqlhelper.dialect.pagination.RowSelection;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class KeysetInstrumentTests {
+    private static final String SQL = "select * from person where age > ?";
+
+    private static SQLStatementInstrumentor instrumentor() {
+        SQLInstrumentorConfig config = new SQLInstrumentorConfig();
+        config.setInstrumentation("jsqlparser");
+        config.setCacheInstrumentedSql(true);
+        SQLStatementInstrumentor instrumentor = new SQLStatementInstrumentor();
+        instrumentor.setConfig(config);
+        instrumentor.init();
+        return instrumentor;
+    }
+
+    private static RowSelection selection(int limit) {
+        OrderBy keys = new OrderBy();
+        keys.addAsc("id");
+        RowSelection selection = new RowSelection();
+        selection.setLimit(limit);
+        selection.setKeyset(keys, new Object[]{100L});
+        return selection;
+    }
+
+    @Test
+    public void testLiteralLimitOfEveryRequest() {
+        SQLStatementInstrumentor instrumentor = instrumentor();
+        MySQLDialect dialect = new MySQLDialect();
+        dialect.setUseLimitInVariableMode(false);
+
+        String first = instrumentor.instrumentLimitSql(dialect, SQL, selection(10));
+        Assert.assertTrue(first, first.contains("10"));
+        String second = instrumentor.instrumentLimitSql(dialect, SQL, selection(20));
+        Assert.assertTrue(second, second.contains("20"));
+        Assert.assertFalse(second, second.contains("10"));
+    }
+
+    @Test
+    public void testCacheHitBindsWithThePlan() {
+        SQLStatementInstrumentor instrumentor = instrumentor();
+        MySQLDialect dialect = new MySQLDialect();
+
+        RowSelection miss = selection(10);
+        String sql = instrumentor.instrumentLimitSql(dialect, SQL, miss);
+        RowSelection hit = selection(20);
+        Assert.assertEquals(sql, instrumentor.instrumentLimitSql(dialect, SQL, hit));
+        Assert.assertNotNull(hit.getLimitPlan());
+        Assert.assertSame(miss.getLimitPlan(), hit.getLimitPlan());
+    }
+}
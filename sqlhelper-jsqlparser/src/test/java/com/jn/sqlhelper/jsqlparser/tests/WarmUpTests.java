@@ -0,0 +1,58 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.jsqlparser.tests;
+
+import com.jn.sqlhelper.dialect.instrument.SQLInstrumentorConfig;
+import com.jn.sqlhelper.dialect.instrument.SQLStatementInstrumentor;
+import com.jn.sqlhelper.dialect.internal.MySQLDialect;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class WarmUpTests {
+    private static final String SQL = "select * from person where age > ? order by name";
+
+    private static SQLStatementInstrumentor instrumentor(boolean cacheInstrumentedSql, boolean cacheParsedSql) {
+        SQLInstrumentorConfig config = new SQLInstrumentorConfig();
+        config.setInstrumentation("jsqlparser");
+        config.setCacheInstrumentedSql(cacheInstrumentedSql);
+        config.setCacheParsedSql(cacheParsedSql);
+        SQLStatementInstrumentor instrumentor = new SQLStatementInstrumentor();
+        instrumentor.setConfig(config);
+        instrumentor.init();
+        return instrumentor;
+    }
+
+    @Test
+    public void testWithoutCache() {
+        SQLStatementInstrumentor instrumentor = instrumentor(false, false);
+        Assert.assertFalse(instrumentor.isWarmUpEnabled());
+        Assert.assertFalse(instrumentor.warmUp(new MySQLDialect(), SQL));
+    }
+
+    @Test
+    public void testParsedSqlCacheOnly() {
+        SQLStatementInstrumentor instrumentor = instrumentor(false, true);
+        Assert.assertTrue(instrumentor.isWarmUpEnabled());
+        Assert.assertTrue(instrumentor.warmUp(new MySQLDialect(), SQL));
+    }
+
+    @Test
+    public void testInstrumentedSqlCache() {
+        SQLStatementInstrumentor instrumentor = instrumentor(true, false);
+        Assert.assertTrue(instrumentor.isWarmUpEnabled());
+        Assert.assertTrue(instrumentor.warmUp(new MySQLDialect(), SQL));
+        Assert.assertFalse(instrumentor.warmUp(new MySQLDialect(), "select * from ( where"));
+    }
+}
@@ -11,20 +11,13 @@ import org.jfaster.mango.transaction.DataSourceUtils;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
-import java.sql.DatabaseMetaData;
 import java.util.List;
 
 public class MangoCommonPagingInterceptor extends QueryInterceptor {
     @Override
     public void interceptQuery(BoundSql boundSql, List<Parameter> parameters, DataSource dataSource) {
         Connection conn = DataSourceUtils.getConnection(dataSource);
-        DatabaseMetaData databaseMetaData = null;
-        try {
-            databaseMetaData = conn.getMetaData();
-        } catch (Throwable ex) {
-            return;
-        }
-        if (!MangoPagingContext.instrumentor.beginIfSupportsLimit(databaseMetaData)) {
+        if (!MangoPagingContext.instrumentor.beginIfSupportsLimit(dataSource, conn)) {
             return;
         }
         Page page = findPageRequest(parameters);
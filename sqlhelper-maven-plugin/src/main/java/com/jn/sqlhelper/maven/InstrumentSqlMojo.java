@@ -0,0 +1,319 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.maven;
+
+import com.jn.langx.util.io.IOs;
+import com.jn.sqlhelper.dialect.Dialect;
+import com.jn.sqlhelper.dialect.DialectRegistry;
+import com.jn.sqlhelper.dialect.instrument.SQLInstrumentorConfig;
+import com.jn.sqlhelper.dialect.instrument.SQLStatementInstrumentor;
+import com.jn.sqlhelper.mybatis.MybatisUtils;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.SelectProvider;
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.Configuration;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.*;
+
+/**
+ * Instrument the static select statements of the mybatis mappers (the mapper xmls and the annotated mapper interfaces)
+ * for every configured dialect, and write the count sqls and the other instrumented sqls into a snapshot in the classes,
+ * the runtime loads it instead of parsing the sqls. A sql which can't be parsed fails the build.
+ * <p>
+ * The instrumentation configs must be the same as the runtime ones, else the snapshot is ignored at runtime.
+ *
+ * @see SQLInstrumentorConfig#getSnapshotResource()
+ */
+@Mojo(name = "instrument", defaultPhase = LifecyclePhase.PROCESS_CLASSES, requiresDependencyResolution = ResolutionScope.COMPILE, threadSafe = true)
+public class InstrumentSqlMojo extends AbstractMojo {
+    private static final String MAPPER_DTD = "mybatis.org//DTD Mapper 3.0";
+
+    @Parameter(defaultValue = "${project.build.outputDirectory}", readonly = true, required = true)
+    private File classesDirectory;
+
+    @Parameter(defaultValue = "${project.compileClasspathElements}", readonly = true, required = true)
+    private List<String> classpathElements;
+
+    /**
+     * the mapper xml files or the directories of them, the mapper xmls in the classes directory are always scanned
+     */
+    @Parameter
+    private List<File> mapperLocations = new ArrayList<File>();
+
+    /**
+     * the database ids of the dialects, a statement of another database id is skipped for a dialect
+     */
+    @Parameter(required = true)
+    private List<String> dialects;
+
+    @Parameter(defaultValue = "${project.build.outputDirectory}/META-INF/sqlhelper/instrumented-sql.snapshot", required = true)
+    private File outputFile;
+
+    @Parameter(defaultValue = "jsqlparser")
+    private String instrumentation;
+
+    @Parameter(defaultValue = "true")
+    private boolean transformCountSql;
+
+    @Parameter(defaultValue = "false")
+    private boolean countSqlRemoveUnreferencedLeftJoins;
+
+    /**
+     * fail the build if a mapper can't be loaded, or a static sql can't be parsed
+     */
+    @Parameter(defaultValue = "true")
+    private boolean failOnError;
+
+    @Parameter(property = "sqlhelper.instrument.skip", defaultValue = "false")
+    private boolean skip;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (skip) {
+            getLog().info("Skip to instrument the sqls");
+            return;
+        }
+        if (!classesDirectory.isDirectory()) {
+            getLog().info("Skip to instrument the sqls, the classes directory doesn't exist: " + classesDirectory);
+            return;
+        }
+        // an error of a mapper occurs for every dialect
+        Set<String> errors = new LinkedHashSet<String>();
+        List<File> mapperXmls = findMapperXmls(errors);
+        ClassLoader classLoader = createClassLoader();
+        List<Class<?>> mapperInterfaces = findMapperInterfaces(classLoader, errors);
+
+        SQLStatementInstrumentor instrumentor = createInstrumentor();
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        ClassLoader defaultClassLoader = Resources.getDefaultClassLoader();
+        Thread.currentThread().setContextClassLoader(classLoader);
+        Resources.setDefaultClassLoader(classLoader);
+        int sqls = 0;
+        try {
+            for (String databaseId : dialects) {
+                Dialect dialect = DialectRegistry.getInstance().getDialectByName(databaseId);
+                if (dialect == null) {
+                    throw new MojoExecutionException("Can't find the dialect: " + databaseId);
+                }
+                Configuration configuration = loadMappers(databaseId, mapperXmls, mapperInterfaces, errors);
+                Set<String> instrumented = new HashSet<String>();
+                for (Object object : configuration.getMappedStatements()) {
+                    // an ambiguous short name is stored as a place holder in the statements map
+                    if (!(object instanceof MappedStatement) || !MybatisUtils.isStaticQueryStatement((MappedStatement) object)) {
+                        continue;
+                    }
+                    MappedStatement statement = (MappedStatement) object;
+                    String sql = statement.getBoundSql(null).getSql();
+                    if (!instrumented.add(sql)) {
+                        continue;
+                    }
+                    try {
+                        if (!instrumentor.warmUp(dialect, sql)) {
+                            errors.add("Can't parse the sql of the statement " + statement.getId() + " with " + instrumentation + ": " + sql);
+                        }
+                        instrumentor.getTableNames(sql);
+                    } catch (Throwable ex) {
+                        errors.add("Can't instrument the statement " + statement.getId() + " for " + databaseId + ": " + ex.getMessage());
+                    }
+                }
+                getLog().info("Instrumented " + instrumented.size() + " static sqls for " + databaseId);
+                sqls += instrumented.size();
+            }
+        } finally {
+            Thread.currentThread().setContextClassLoader(contextClassLoader);
+            Resources.setDefaultClassLoader(defaultClassLoader);
+        }
+
+        for (String error : errors) {
+            getLog().error(error);
+        }
+        if (failOnError && !errors.isEmpty()) {
+            throw new MojoFailureException(errors.size() + " errors occur when instrument the sqls, see the errors above");
+        }
+        if (sqls == 0) {
+            getLog().info("No static select statement is found");
+            return;
+        }
+        try {
+            instrumentor.writeSnapshot(outputFile);
+        } catch (IOException ex) {
+            throw new MojoExecutionException("Can't write the instrumented sql snapshot: " + outputFile, ex);
+        }
+        getLog().info("Write the instrumented sqls into " + outputFile);
+    }
+
+    private SQLStatementInstrumentor createInstrumentor() {
+        SQLInstrumentorConfig config = new SQLInstrumentorConfig();
+        config.setName("sqlhelper-maven-plugin");
+        config.setInstrumentation(instrumentation);
+        config.setTransformCountSql(transformCountSql);
+        config.setCountSqlRemoveUnreferencedLeftJoins(countSqlRemoveUnreferencedLeftJoins);
+        config.setCacheInstrumentedSql(true);
+        config.setCacheMaxWeight(256 * 1024 * 1024);
+        config.setCacheExpireAfterRead(Integer.MAX_VALUE);
+        // nothing is parsed twice, and no snapshot of the last build is loaded
+        config.setCacheParsedSql(false);
+        config.setUnparseableSqlCacheMaxCapacity(0);
+        config.setSnapshotResource(null);
+        SQLStatementInstrumentor instrumentor = new SQLStatementInstrumentor();
+        instrumentor.setConfig(config);
+        instrumentor.init();
+        return instrumentor;
+    }
+
+    /**
+     * @param databaseId the statements of another database id are skipped, as mybatis does at runtime
+     */
+    private Configuration loadMappers(String databaseId, List<File> mapperXmls, List<Class<?>> mapperInterfaces, Collection<String> errors) {
+        Configuration configuration = new Configuration();
+        configuration.setDatabaseId(databaseId);
+        for (File mapperXml : mapperXmls) {
+            InputStream in = null;
+            try {
+                in = new FileInputStream(mapperXml);
+                new XMLMapperBuilder(in, configuration, mapperXml.getPath(), configuration.getSqlFragments()).parse();
+            } catch (Throwable ex) {
+                errors.add("Can't load the mapper " + mapperXml + ": " + ex.getMessage());
+            } finally {
+                IOs.close(in);
+            }
+        }
+        for (Class<?> mapperInterface : mapperInterfaces) {
+            // the mapper of a namespace is added when its xml is loaded
+            if (configuration.hasMapper(mapperInterface)) {
+                continue;
+            }
+            try {
+                configuration.addMapper(mapperInterface);
+            } catch (Throwable ex) {
+                errors.add("Can't load the mapper " + mapperInterface.getName() + ": " + ex.getMessage());
+            }
+        }
+        return configuration;
+    }
+
+    private List<File> findMapperXmls(Collection<String> errors) {
+        List<File> files = new ArrayList<File>();
+        findFiles(classesDirectory, ".xml", files);
+        for (File location : mapperLocations) {
+            if (!location.exists()) {
+                errors.add("The mapper location doesn't exist: " + location);
+            }
+            findFiles(location, ".xml", files);
+        }
+        List<File> mapperXmls = new ArrayList<File>();
+        Set<String> paths = new HashSet<String>();
+        for (File file : files) {
+            if (paths.add(file.getAbsolutePath()) && isMapperXml(file)) {
+                mapperXmls.add(file);
+            }
+        }
+        return mapperXmls;
+    }
+
+    private static boolean isMapperXml(File file) {
+        InputStream in = null;
+        try {
+            in = new FileInputStream(file);
+            byte[] head = new byte[1024];
+            int length = in.read(head);
+            return length > 0 && new String(head, 0, length, "UTF-8").contains(MAPPER_DTD);
+        } catch (IOException ex) {
+            return false;
+        } finally {
+            IOs.close(in);
+        }
+    }
+
+    private List<Class<?>> findMapperInterfaces(ClassLoader classLoader, Collection<String> errors) {
+        List<File> classFiles = new ArrayList<File>();
+        findFiles(classesDirectory, ".class", classFiles);
+        String root = classesDirectory.getAbsolutePath();
+        List<Class<?>> mapperInterfaces = new ArrayList<Class<?>>();
+        for (File classFile : classFiles) {
+            String path = classFile.getAbsolutePath();
+            String className = path.substring(root.length() + 1, path.length() - ".class".length()).replace(File.separatorChar, '.');
+            if (className.contains("$")) {
+                continue;
+            }
+            try {
+                Class<?> clazz = Class.forName(className, false, classLoader);
+                if (clazz.isInterface() && isMapperInterface(clazz)) {
+                    mapperInterfaces.add(clazz);
+                }
+            } catch (Throwable ex) {
+                // a class whose dependency is absent can't be a mapper
+                getLog().debug("Can't load the class " + className + ": " + ex.getMessage());
+            }
+        }
+        return mapperInterfaces;
+    }
+
+    private static boolean isMapperInterface(Class<?> clazz) {
+        for (Method method : clazz.getMethods()) {
+            if (method.isAnnotationPresent(Select.class) || method.isAnnotationPresent(SelectProvider.class)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * the classes of the project, the mybatis classes are loaded by the plugin, so the annotations are the same
+     */
+    private ClassLoader createClassLoader() throws MojoExecutionException {
+        List<URL> urls = new ArrayList<URL>();
+        try {
+            urls.add(classesDirectory.toURI().toURL());
+            for (String element : classpathElements) {
+                urls.add(new File(element).toURI().toURL());
+            }
+        } catch (IOException ex) {
+            throw new MojoExecutionException("Can't create the class loader of the project", ex);
+        }
+        return new URLClassLoader(urls.toArray(new URL[urls.size()]), InstrumentSqlMojo.class.getClassLoader());
+    }
+
+    private static void findFiles(File file, String suffix, List<File> files) {
+        if (file.isFile()) {
+            if (file.getName().endsWith(suffix)) {
+                files.add(file);
+            }
+            return;
+        }
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                findFiles(child, suffix, files);
+            }
+        }
+    }
+}
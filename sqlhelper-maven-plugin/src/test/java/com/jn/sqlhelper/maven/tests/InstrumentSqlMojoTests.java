@@ -0,0 +1,118 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.maven.tests;
+
+import com.jn.sqlhelper.dialect.instrument.InstrumentedSqlSnapshot;
+import com.jn.sqlhelper.dialect.instrument.InstrumentedStatement;
+import com.jn.sqlhelper.dialect.instrument.SQLInstrumentorConfig;
+import com.jn.sqlhelper.maven.InstrumentSqlMojo;
+import org.apache.maven.plugin.MojoFailureException;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.util.Collections;
+
+public class InstrumentSqlMojoTests {
+    private static final String MAPPER_HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n"
+            + "<!DOCTYPE mapper PUBLIC \"-//mybatis.org//DTD Mapper 3.0//EN\" \"http://mybatis.org/dtd/mybatis-3-mapper.dtd\">\n";
+    private static final String STATIC_SQL = "select id, name from user where age > ?";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static void writeMapper(File file, String statements) throws Exception {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(MAPPER_HEADER + "<mapper namespace=\"com.jn.sqlhelper.maven.tests.UserMapper\">\n" + statements + "</mapper>\n");
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * set the parameters as maven does, they have no setters
+     */
+    private static void set(InstrumentSqlMojo mojo, String name, Object value) throws Exception {
+        Field field = InstrumentSqlMojo.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(mojo, value);
+    }
+
+    private InstrumentSqlMojo newMojo(File classes, File outputFile) throws Exception {
+        InstrumentSqlMojo mojo = new InstrumentSqlMojo();
+        set(mojo, "classesDirectory", classes);
+        set(mojo, "classpathElements", Collections.singletonList(classes.getPath()));
+        set(mojo, "dialects", Collections.singletonList("mysql"));
+        set(mojo, "outputFile", outputFile);
+        set(mojo, "instrumentation", "jsqlparser");
+        set(mojo, "transformCountSql", true);
+        set(mojo, "failOnError", true);
+        return mojo;
+    }
+
+    private static String getConfigKey() {
+        SQLInstrumentorConfig config = new SQLInstrumentorConfig();
+        config.setInstrumentation("jsqlparser");
+        config.setTransformCountSql(true);
+        config.setCountSqlRemoveUnreferencedLeftJoins(false);
+        return InstrumentedSqlSnapshot.getConfigKey(config);
+    }
+
+    @Test
+    public void testInstrumentStaticSqls() throws Exception {
+        File classes = folder.newFolder("classes");
+        writeMapper(new File(classes, "UserMapper.xml"), ""
+                + "<select id=\"selectByAge\" resultType=\"map\">" + STATIC_SQL + "</select>\n"
+                + "<select id=\"selectByName\" resultType=\"map\">select id from user <where><if test=\"name != null\">name = #{name}</if></where></select>\n");
+        File outputFile = new File(classes, "META-INF/sqlhelper/instrumented-sql.snapshot");
+
+        newMojo(classes, outputFile).execute();
+
+        InstrumentedSqlSnapshot snapshot = InstrumentedSqlSnapshot.load(outputFile, getConfigKey());
+        Assert.assertNotNull(snapshot);
+        // the dynamic sql is not instrumented
+        Assert.assertEquals(1, snapshot.size());
+        InstrumentedStatement statement = snapshot.get(STATIC_SQL);
+        Assert.assertNotNull(statement);
+        Assert.assertEquals(Collections.singleton("user"), statement.getTableNames());
+    }
+
+    @Test(expected = MojoFailureException.class)
+    public void testFailOnUnparseableSql() throws Exception {
+        File classes = folder.newFolder("classes");
+        writeMapper(new File(classes, "UserMapper.xml"), ""
+                + "<select id=\"selectBroken\" resultType=\"map\">select id from where</select>\n");
+        newMojo(classes, new File(classes, "instrumented-sql.snapshot")).execute();
+    }
+
+    @Test
+    public void testSkip() throws Exception {
+        File classes = folder.newFolder("classes");
+        writeMapper(new File(classes, "UserMapper.xml"), ""
+                + "<select id=\"selectBroken\" resultType=\"map\">select id from where</select>\n");
+        File outputFile = new File(classes, "instrumented-sql.snapshot");
+        InstrumentSqlMojo mojo = newMojo(classes, outputFile);
+        set(mojo, "skip", true);
+        mojo.execute();
+        Assert.assertFalse(outputFile.exists());
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.micrometer;
+
+import com.jn.langx.util.Preconditions;
+import com.jn.sqlhelper.dialect.metrics.Gauge;
+import com.jn.sqlhelper.dialect.metrics.MetricTable;
+import com.jn.sqlhelper.dialect.metrics.MetricsRecorder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Records the metrics with a micrometer {@link MeterRegistry}, the tags are "statement" and "dialect",
+ * a gauge is tagged with its "id".
+ * <p>
+ * It is found by the {@link java.util.ServiceLoader} when this jar is in the classpath, then the metrics are recorded in
+ * the {@link Metrics#globalRegistry}, which the spring boot registry is added into by default.
+ * Use {@link com.jn.sqlhelper.dialect.metrics.SqlHelperMetrics#setRecorder(MetricsRecorder)} to record them in another registry.
+ */
+public class MicrometerMetricsRecorder implements MetricsRecorder {
+    private static final String NONE = "none";
+    private static final String TAG_STATEMENT = "statement";
+    private static final String TAG_DIALECT = "dialect";
+    private static final String TAG_ID = "id";
+
+    private final MeterRegistry registry;
+    private final MetricTable<Counter> counters = new MetricTable<Counter>();
+    private final MetricTable<Timer> timers = new MetricTable<Timer>();
+    /**
+     * a micrometer gauge keeps a weak reference only
+     */
+    private final ConcurrentMap<Gauge, Boolean> gauges = new ConcurrentHashMap<Gauge, Boolean>();
+
+    public MicrometerMetricsRecorder() {
+        this(Metrics.globalRegistry);
+    }
+
+    public MicrometerMetricsRecorder(MeterRegistry registry) {
+        Preconditions.checkNotNull(registry);
+        this.registry = registry;
+    }
+
+    @Override
+    public void count(String name, String statementId, String dialect, long amount) {
+        Counter counter = counters.get(name, statementId, dialect);
+        if (counter == null) {
+            counter = Counter.builder(name)
+                    .tag(TAG_STATEMENT, statementId == null ? NONE : statementId)
+                    .tag(TAG_DIALECT, dialect == null ? NONE : dialect)
+                    .register(registry);
+            counter = counters.putIfAbsent(name, statementId, dialect, counter);
+        }
+        counter.increment(amount);
+    }
+
+    @Override
+    public void time(String name, String statementId, String dialect, long nanos) {
+        Timer timer = timers.get(name, statementId, dialect);
+        if (timer == null) {
+            timer = Timer.builder(name)
+                    .tag(TAG_STATEMENT, statementId == null ? NONE : statementId)
+                    .tag(TAG_DIALECT, dialect == null ? NONE : dialect)
+                    .register(registry);
+            timer = timers.putIfAbsent(name, statementId, dialect, timer);
+        }
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void gauge(String name, String id, Gauge gauge) {
+        if (gauges.putIfAbsent(gauge, Boolean.TRUE) == null) {
+            io.micrometer.core.instrument.Gauge.builder(name, gauge, new ToDoubleFunction<Gauge>() {
+                @Override
+                public double applyAsDouble(Gauge value) {
+                    return value.get();
+                }
+            }).tag(TAG_ID, id == null ? NONE : id).register(registry);
+        }
+    }
+}
@@ -27,14 +27,18 @@ import org.mybatis.spring.boot.autoconfigure.ConfigurationCustomizer;
 import org.mybatis.spring.boot.autoconfigure.MybatisAutoConfiguration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 @org.springframework.context.annotation.Configuration
 @AutoConfigureBefore(MybatisAutoConfiguration.class)
-public class SqlHelperMybatisAutoConfiguration implements ConfigurationCustomizer {
+public class SqlHelperMybatisAutoConfiguration implements ConfigurationCustomizer, SmartInitializingSingleton {
     private static final Logger logger = LoggerFactory.getLogger(SqlHelperMybatisAutoConfiguration.class);
 
     @Bean
@@ -64,6 +68,10 @@ public class SqlHelperMybatisAutoConfiguration implements ConfigurationCustomize
     }
 
     private SqlHelperMybatisProperties sqlHelperMybatisProperties;
+    /**
+     * the customized configurations and their plugins, they are warmed up when all the mappers are loaded
+     */
+    private final Map<Configuration, SqlHelperMybatisPlugin> plugins = new LinkedHashMap<Configuration, SqlHelperMybatisPlugin>();
 
     @Autowired
     public void setSqlHelperMybatisProperties(SqlHelperMybatisProperties sqlHelperMybatisProperties) {
@@ -83,6 +91,14 @@ public class SqlHelperMybatisAutoConfiguration implements ConfigurationCustomize
         logger.info("Add interceptor {} to mybatis configuration", plugin);
         logger.info("The properties of the mybatis plugin [{}] is: {}", Reflects.getFQNClassName(SqlHelperMybatisPlugin.class), sqlHelperMybatisProperties);
         configuration.addInterceptor(plugin);
+        plugins.put(configuration, plugin);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (Map.Entry<Configuration, SqlHelperMybatisPlugin> entry : plugins.entrySet()) {
+            entry.getValue().warmUp(entry.getKey());
+        }
     }
 
 
@@ -22,8 +22,10 @@ import com.jn.sqlhelper.dialect.instrument.SQLStatementInstrumentor;
 import com.jn.sqlhelper.dialect.SqlRequest;
 import com.jn.sqlhelper.dialect.SqlRequestContext;
 import com.jn.sqlhelper.dialect.SqlRequestContextHolder;
+import org.apache.ibatis.builder.StaticSqlSource;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.mapping.*;
+import org.apache.ibatis.scripting.defaults.RawSqlSource;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.session.SqlSessionFactory;
@@ -31,6 +33,7 @@ import org.apache.ibatis.transaction.Transaction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.sql.DataSource;
 import java.sql.Connection;
 import java.util.Map;
 
@@ -66,6 +69,15 @@ public class MybatisUtils {
         return statement.getStatementType() == StatementType.PREPARED || statement.getStatementType() == StatementType.CALLABLE;
     }
 
+    /**
+     * @return whether the statement is a select whose sql is fixed when the mapper is loaded, so it can be instrumented before it is executed
+     */
+    public static boolean isStaticQueryStatement(@NonNull final MappedStatement statement) {
+        SqlSource sqlSource = statement.getSqlSource();
+        return isQueryStatement(statement) && isPreparedStatement(statement)
+                && (sqlSource instanceof StaticSqlSource || sqlSource instanceof RawSqlSource);
+    }
+
     public static boolean isCallableStatement(@NonNull final MappedStatement statement) {
         return statement.getStatementType() == StatementType.CALLABLE;
     }
@@ -99,8 +111,10 @@ public class MybatisUtils {
         if (Emptys.isEmpty(databaseId) && executor != null) {
             Transaction tx = executor.getTransaction();
             try {
+                Environment environment = ms.getConfiguration().getEnvironment();
+                DataSource dataSource = environment == null ? null : environment.getDataSource();
                 Connection connection = tx.getConnection();
-                Dialect dialect = instrumentor.getDialect(connection.getMetaData());
+                Dialect dialect = instrumentor.getDialect(dataSource, connection);
                 return dialect.getDatabaseId();
             } catch (Throwable ex) {
                 logger.error(ex.getMessage(), ex);
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.mybatis.plugins;
+
+import com.jn.langx.util.Emptys;
+import com.jn.langx.util.Preconditions;
+import com.jn.sqlhelper.dialect.Dialect;
+import com.jn.sqlhelper.dialect.instrument.SQLStatementInstrumentor;
+import com.jn.sqlhelper.mybatis.MybatisUtils;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Warm up the select statements whose sql is fixed when the mapper is loaded ({@link MybatisUtils#isStaticQueryStatement(MappedStatement)}):
+ * the sqls are parsed, and their count sqls and limit sqls are generated in the executor.
+ * The dynamic sqls are skipped, they are known only when the parameters are bound.
+ *
+ * @see SQLStatementInstrumentor#warmUp(Dialect, String)
+ */
+public class MappedStatementWarmer {
+    private static final Logger logger = LoggerFactory.getLogger(MappedStatementWarmer.class);
+    private final SQLStatementInstrumentor instrumentor;
+    private final ExecutorService executor;
+
+    public MappedStatementWarmer(SQLStatementInstrumentor instrumentor, ExecutorService executor) {
+        Preconditions.checkNotNull(instrumentor);
+        Preconditions.checkNotNull(executor);
+        this.instrumentor = instrumentor;
+        this.executor = executor;
+    }
+
+    /**
+     * It returns after all the statements are warmed up, a statement which fails is logged and skipped.
+     *
+     * @return the count of the sqls which are warmed up
+     */
+    public int warmUp(Configuration configuration) {
+        if (!instrumentor.isWarmUpEnabled()) {
+            return 0;
+        }
+        long startTime = System.currentTimeMillis();
+        final Map<String, Dialect> sqls = findStaticSqls(configuration);
+        final int total = sqls.size();
+        if (total == 0) {
+            return 0;
+        }
+        logger.info("Start to warm up {} static sqls of the mybatis configuration", total);
+        final int step = Math.max(total / 10, 1);
+        final AtomicInteger done = new AtomicInteger();
+        final AtomicInteger warmed = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<Future<?>>(total);
+        for (final Map.Entry<String, Dialect> entry : sqls.entrySet()) {
+            futures.add(executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        if (instrumentor.warmUp(entry.getValue(), entry.getKey())) {
+                            warmed.incrementAndGet();
+                        }
+                    } catch (Throwable ex) {
+                        logger.warn("error occur when warm up the sql: {}, error: {}", entry.getKey(), ex.getMessage());
+                    }
+                    int count = done.incrementAndGet();
+                    if (count % step == 0 || count == total) {
+                        logger.info("Warmed up {}/{} static sqls", count, total);
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                logger.warn("The warm up is interrupted, {}/{} static sqls are warmed up", done.get(), total);
+                return warmed.get();
+            } catch (Throwable ex) {
+                // the task catches all the errors
+            }
+        }
+        logger.info("Finish to warm up the static sqls in {}ms, {} of {} sqls are parsed, the others are instrumented as strings", System.currentTimeMillis() - startTime, warmed.get(), total);
+        return warmed.get();
+    }
+
+    /**
+     * @return sql -> dialect, the dialect is null if it can't be found before a connection is opened
+     */
+    private Map<String, Dialect> findStaticSqls(Configuration configuration) {
+        Map<String, Dialect> sqls = new LinkedHashMap<String, Dialect>();
+        Collection<?> statements;
+        try {
+            statements = configuration.getMappedStatements();
+        } catch (Throwable ex) {
+            logger.warn("Can't find the mapped statements to warm up, error: {}", ex.getMessage());
+            return sqls;
+        }
+        Dialect defaultDialect = null;
+        boolean defaultDialectResolved = false;
+        for (Object object : statements) {
+            // an ambiguous short name is stored as a place holder in the statements map
+            if (!(object instanceof MappedStatement)) {
+                continue;
+            }
+            MappedStatement statement = (MappedStatement) object;
+            if (!MybatisUtils.isStaticQueryStatement(statement)) {
+                continue;
+            }
+            String sql;
+            try {
+                sql = statement.getBoundSql(null).getSql();
+            } catch (Throwable ex) {
+                logger.debug("Can't get the sql of the statement {}, error: {}", statement.getId(), ex.getMessage());
+                continue;
+            }
+            if (sqls.containsKey(sql)) {
+                continue;
+            }
+            String databaseId = MybatisUtils.getDatabaseId(null, instrumentor, statement, null);
+            Dialect dialect = Emptys.isEmpty(databaseId) ? null : instrumentor.getDialectRegistry().getDialectByName(databaseId);
+            if (dialect == null) {
+                if (!defaultDialectResolved) {
+                    Environment environment = configuration.getEnvironment();
+                    DataSource dataSource = environment == null ? null : environment.getDataSource();
+                    defaultDialect = instrumentor.getDialect(dataSource, null);
+                    defaultDialectResolved = true;
+                }
+                dialect = defaultDialect;
+            }
+            sqls.put(sql, dialect);
+        }
+        return sqls;
+    }
+}
@@ -27,4 +27,10 @@ public class MybatisSqlRequestContextKeys {
     public static final String LIKE_ESCAPE_PARAMETERS_INDEXES = "LIKE_ESCAPE_PARAMETERS_INDEXES";
 
     public static final String LIKE_ESCAPER = "LIKE_ESCAPER";
+
+    // value: InlineCountStrategy, it is set only when the page query is executing
+    public static final String INLINE_COUNT_STRATEGY = "INLINE_COUNT_STRATEGY";
+
+    // value: Long, the total returned by the page query
+    public static final String INLINE_COUNT_TOTAL = "INLINE_COUNT_TOTAL";
 }
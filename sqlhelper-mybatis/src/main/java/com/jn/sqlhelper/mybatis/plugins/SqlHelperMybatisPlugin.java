@@ -20,6 +20,7 @@ import com.jn.langx.pipeline.*;
 import com.jn.langx.text.properties.PropertiesAccessor;
 import com.jn.langx.util.ClassLoaders;
 import com.jn.langx.util.collection.Collects;
+import com.jn.langx.util.concurrent.CommonThreadFactory;
 import com.jn.langx.util.reflect.Reflects;
 import com.jn.sqlhelper.dialect.SqlRequestContextHolder;
 import com.jn.sqlhelper.dialect.instrument.SQLInstrumentorConfig;
@@ -27,28 +28,39 @@ import com.jn.sqlhelper.dialect.instrument.SQLStatementInstrumentor;
 import com.jn.sqlhelper.dialect.pagination.PagingRequestContext;
 import com.jn.sqlhelper.dialect.pagination.PagingRequestContextHolder;
 import com.jn.sqlhelper.mybatis.plugins.likeescape.LikeParameterEscapeHandler;
+import com.jn.sqlhelper.mybatis.plugins.pagination.CountResultCacheInvalidationHandler;
+import com.jn.sqlhelper.mybatis.plugins.pagination.InlineCountResultSetHandler;
 import com.jn.sqlhelper.mybatis.plugins.pagination.PaginationConfig;
 import com.jn.sqlhelper.mybatis.plugins.pagination.PaginationHandler;
 import org.apache.ibatis.cache.CacheKey;
 import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.resultset.ResultSetHandler;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.plugin.*;
+import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.sql.Statement;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Intercepts({
         @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
         @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class}),
         @Signature(type = Executor.class, method = "queryCursor", args = {MappedStatement.class, Object.class, RowBounds.class}),
-        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class})
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "commit", args = {boolean.class}),
+        @Signature(type = Executor.class, method = "rollback", args = {boolean.class}),
+        @Signature(type = Executor.class, method = "close", args = {boolean.class}),
+        @Signature(type = ResultSetHandler.class, method = "handleResultSets", args = {Statement.class})
 })
 public class SqlHelperMybatisPlugin implements Interceptor, Initializable {
     private static final Logger logger = LoggerFactory.getLogger(SqlHelperMybatisPlugin.class);
@@ -56,6 +68,9 @@ public class SqlHelperMybatisPlugin implements Interceptor, Initializable {
     private static SQLStatementInstrumentor instrumentor = new SQLStatementInstrumentor();
     private boolean inited = false;
     private Map<String, Handler> handlerRegistry = new HashMap<String, Handler>();
+    private InlineCountResultSetHandler inlineCountResultSetHandler = new InlineCountResultSetHandler();
+    private ExecutorService countExecutor;
+    private ExecutorService prefetchExecutor;
 
     @Override
     public void init() throws InitializationException {
@@ -67,8 +82,16 @@ public class SqlHelperMybatisPlugin implements Interceptor, Initializable {
             handlerRegistry.put("likeEscape", likeParameterEscapeHandler);
             PaginationHandler paginationHandler = new PaginationHandler();
             paginationHandler.setPaginationConfig(this.paginationConfig);
+            paginationHandler.setCountExecutor(this.countExecutor);
+            paginationHandler.setPrefetchExecutor(this.prefetchExecutor);
             paginationHandler.init();
             handlerRegistry.put("pagination", paginationHandler);
+            if (paginationHandler.getCountResultCache() != null || paginationHandler.getPrefetchCache() != null) {
+                CountResultCacheInvalidationHandler countResultCacheInvalidationHandler = new CountResultCacheInvalidationHandler();
+                countResultCacheInvalidationHandler.setCountResultCache(paginationHandler.getCountResultCache());
+                countResultCacheInvalidationHandler.setPrefetchCache(paginationHandler.getPrefetchCache());
+                handlerRegistry.put("countResultCacheInvalidation", countResultCacheInvalidationHandler);
+            }
             if (paginationConfig.isPageHelperCompatible()) {
                 try {
                     Class<Handler> pageHelperHandlerClass = ClassLoaders.loadClass(paginationConfig.getPageHelperHandlerClass(), SqlHelperMybatisPlugin.class);
@@ -88,6 +111,12 @@ public class SqlHelperMybatisPlugin implements Interceptor, Initializable {
 
     @Override
     public Object intercept(Invocation invocation) throws Throwable {
+        if (invocation.getTarget() instanceof ResultSetHandler) {
+            return inlineCountResultSetHandler.intercept(invocation);
+        }
+        if (isTransactionEnd(invocation)) {
+            return endTransaction(invocation);
+        }
         ExecutorInvocation executorInvocation = new ExecutorInvocation(invocation);
         try {
             Pipeline<ExecutorInvocation> pipeline = createPipeline(executorInvocation);
@@ -103,6 +132,26 @@ public class SqlHelperMybatisPlugin implements Interceptor, Initializable {
         }
     }
 
+    private static boolean isTransactionEnd(Invocation invocation) {
+        String methodName = invocation.getMethod().getName();
+        return "commit".equals(methodName) || "rollback".equals(methodName) || "close".equals(methodName);
+    }
+
+    /**
+     * The tables written in the transaction are invalidated after it is committed or rolled back,
+     * a session closed without a commit rolls back its changes also.
+     */
+    private Object endTransaction(Invocation invocation) throws Throwable {
+        try {
+            return invocation.proceed();
+        } finally {
+            CountResultCacheInvalidationHandler countResultCacheInvalidationHandler = (CountResultCacheInvalidationHandler) handlerRegistry.get("countResultCacheInvalidation");
+            if (countResultCacheInvalidationHandler != null) {
+                countResultCacheInvalidationHandler.endTransaction((Executor) invocation.getTarget());
+            }
+        }
+    }
+
     private Pipeline<ExecutorInvocation> createPipeline(ExecutorInvocation executorInvocation) {
         Handler debugHandler = handlerRegistry.get("debug");
         Handler sinkHandler = handlerRegistry.get("sink");
@@ -120,6 +169,14 @@ public class SqlHelperMybatisPlugin implements Interceptor, Initializable {
                     }
                 }
             }
+        } else if ("queryCursor".equals(executorInvocation.getMethodName())) {
+            handlers.add(handlerRegistry.get("likeEscape"));
+            handlers.add(handlerRegistry.get("pagination"));
+        } else if ("update".equals(executorInvocation.getMethodName())) {
+            Handler countResultCacheInvalidationHandler = handlerRegistry.get("countResultCacheInvalidation");
+            if (countResultCacheInvalidationHandler != null) {
+                handlers.add(countResultCacheInvalidationHandler);
+            }
         }
 
         DefaultPipeline<ExecutorInvocation> pipeline = Pipelines.newPipeline(debugHandler, sinkHandler, handlers);
@@ -135,6 +192,9 @@ public class SqlHelperMybatisPlugin implements Interceptor, Initializable {
             }
             return Plugin.wrap(target, this);
         }
+        if (target instanceof ResultSetHandler && paginationConfig.isInlineCount()) {
+            return Plugin.wrap(target, this);
+        }
         return target;
     }
 
@@ -155,6 +215,46 @@ public class SqlHelperMybatisPlugin implements Interceptor, Initializable {
         this.paginationConfig = config;
     }
 
+    /**
+     * @param countExecutor the executor of the count queries if the pagination.parallelCount is enabled,
+     *                      the default executor is used if it is not set before {@link #init()}
+     */
+    public void setCountExecutor(ExecutorService countExecutor) {
+        this.countExecutor = countExecutor;
+    }
+
+    /**
+     * @param prefetchExecutor the executor of the prefetched pages, the default executor is used if it is not set before {@link #init()}
+     * @see com.jn.sqlhelper.dialect.pagination.PagingRequest#setPrefetch(Boolean)
+     */
+    public void setPrefetchExecutor(ExecutorService prefetchExecutor) {
+        this.prefetchExecutor = prefetchExecutor;
+    }
+
+    /**
+     * Warm up the static select statements of the configuration if the pagination.warmUp is enabled.
+     * It should be called after all the mappers are loaded, the spring boot starter calls it when all the beans are created.
+     *
+     * @see MappedStatementWarmer
+     */
+    public void warmUp(Configuration configuration) {
+        if (!paginationConfig.isWarmUp()) {
+            return;
+        }
+        if (!instrumentor.isWarmUpEnabled()) {
+            logger.info("Skip to warm up the static sqls, neither the instrumented sql cache nor the parsed sql cache is enabled");
+            return;
+        }
+        int parallelism = paginationConfig.getWarmUpParallelism() > 0 ? paginationConfig.getWarmUpParallelism() : Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, CommonThreadFactory.create("sqlhelper-warmup", true));
+        try {
+            new MappedStatementWarmer(instrumentor, executor).warmUp(configuration);
+        } finally {
+            // the queued statements are dropped if the warm up is interrupted
+            executor.shutdownNow();
+        }
+    }
+
     public void setInstrumentorConfig(SQLInstrumentorConfig config) {
         instrumentor.setConfig(config);
     }
@@ -172,11 +272,19 @@ public class SqlHelperMybatisPlugin implements Interceptor, Initializable {
         paginationConfig.setCountCacheExpireInSeconds(accessor.getInteger(paginationPluginConfigPrefix + "countCacheExpireInSeconds", paginationConfig.getCountCacheExpireInSeconds()));
         paginationConfig.setCountCacheInitCapacity(accessor.getInteger(paginationPluginConfigPrefix + "countCacheInitCapacity", paginationConfig.getCountCacheInitCapacity()));
         paginationConfig.setCountCacheMaxCapacity(accessor.getInteger(paginationPluginConfigPrefix + "countCacheMaxCapacity", paginationConfig.getCountCacheMaxCapacity()));
+        paginationConfig.setCountResultCacheExpireInSeconds(accessor.getInteger(paginationPluginConfigPrefix + "countResultCacheExpireInSeconds", paginationConfig.getCountResultCacheExpireInSeconds()));
+        paginationConfig.setCountResultCacheMaxCapacity(accessor.getInteger(paginationPluginConfigPrefix + "countResultCacheMaxCapacity", paginationConfig.getCountResultCacheMaxCapacity()));
+        paginationConfig.setPrefetchCacheExpireInSeconds(accessor.getInteger(paginationPluginConfigPrefix + "prefetchCacheExpireInSeconds", paginationConfig.getPrefetchCacheExpireInSeconds()));
+        paginationConfig.setPrefetchCacheMaxCapacity(accessor.getInteger(paginationPluginConfigPrefix + "prefetchCacheMaxCapacity", paginationConfig.getPrefetchCacheMaxCapacity()));
         paginationConfig.setCountSuffix(accessor.getString(paginationPluginConfigPrefix + "countSuffix", paginationConfig.getCountSuffix()));
         paginationConfig.setDefaultPageSize(accessor.getInteger(paginationPluginConfigPrefix + "defaultPageSize", paginationConfig.getDefaultPageSize()));
         paginationConfig.setUseLastPageIfPageOut(accessor.getBoolean(paginationPluginConfigPrefix + "useLastPageIfPageOut", accessor.getBoolean(paginationPluginConfigPrefix + "useLastPageIfPageNoOut", paginationConfig.isUseLastPageIfPageOut())));
+        paginationConfig.setInlineCount(accessor.getBoolean(paginationPluginConfigPrefix + "inlineCount", paginationConfig.isInlineCount()));
+        paginationConfig.setParallelCount(accessor.getBoolean(paginationPluginConfigPrefix + "parallelCount", paginationConfig.isParallelCount()));
         paginationConfig.setPageHelperCompatible(accessor.getBoolean(paginationPluginConfigPrefix + "pageHelperCompatible", paginationConfig.isPageHelperCompatible()));
         paginationConfig.setPageHelperHandlerClass(accessor.getString(paginationPluginConfigPrefix + "pageHelperHandlerClass", paginationConfig.getPageHelperHandlerClass()));
+        paginationConfig.setWarmUp(accessor.getBoolean(paginationPluginConfigPrefix + "warmUp", paginationConfig.isWarmUp()));
+        paginationConfig.setWarmUpParallelism(accessor.getInteger(paginationPluginConfigPrefix + "warmUpParallelism", paginationConfig.getWarmUpParallelism()));
 
         return paginationConfig;
     }
@@ -191,6 +299,19 @@ public class SqlHelperMybatisPlugin implements Interceptor, Initializable {
         instrumentConfig.setInstrumentation(accessor.getString(instrumentorConfigPrefix + "instrumentation", instrumentConfig.getInstrumentation()));
         instrumentConfig.setDialectClassName(accessor.getString(instrumentorConfigPrefix + "dialectClassName", instrumentConfig.getDialectClassName()));
         instrumentConfig.setCacheInstrumentedSql(accessor.getBoolean(instrumentorConfigPrefix + "cacheInstruemtedSql", false));
+        instrumentConfig.setCacheMaxCapacity(accessor.getInteger(instrumentorConfigPrefix + "cacheMaxCapacity", instrumentConfig.getCacheMaxCapacity()));
+        instrumentConfig.setCacheMaxWeight(accessor.getLong(instrumentorConfigPrefix + "cacheMaxWeight", instrumentConfig.getCacheMaxWeight()));
+        instrumentConfig.setCacheExpireAfterRead(accessor.getInteger(instrumentorConfigPrefix + "cacheExpireAfterRead", instrumentConfig.getCacheExpireAfterRead()));
+        instrumentConfig.setTransformCountSql(accessor.getBoolean(instrumentorConfigPrefix + "transformCountSql", instrumentConfig.isTransformCountSql()));
+        instrumentConfig.setCountSqlRemoveUnreferencedLeftJoins(accessor.getBoolean(instrumentorConfigPrefix + "countSqlRemoveUnreferencedLeftJoins", instrumentConfig.isCountSqlRemoveUnreferencedLeftJoins()));
+        instrumentConfig.setDeferredJoinOffsetThreshold(accessor.getLong(instrumentorConfigPrefix + "deferredJoinOffsetThreshold", instrumentConfig.getDeferredJoinOffsetThreshold()));
+        instrumentConfig.setCacheParsedSql(accessor.getBoolean(instrumentorConfigPrefix + "cacheParsedSql", instrumentConfig.isCacheParsedSql()));
+        instrumentConfig.setParsedSqlCacheMaxCapacity(accessor.getInteger(instrumentorConfigPrefix + "parsedSqlCacheMaxCapacity", instrumentConfig.getParsedSqlCacheMaxCapacity()));
+        instrumentConfig.setUnparseableSqlCacheMaxCapacity(accessor.getInteger(instrumentorConfigPrefix + "unparseableSqlCacheMaxCapacity", instrumentConfig.getUnparseableSqlCacheMaxCapacity()));
+        instrumentConfig.setMaxParseSqlLength(accessor.getInteger(instrumentorConfigPrefix + "maxParseSqlLength", instrumentConfig.getMaxParseSqlLength()));
+        instrumentConfig.setParseTimeBudget(accessor.getLong(instrumentorConfigPrefix + "parseTimeBudget", instrumentConfig.getParseTimeBudget()));
+        instrumentConfig.setSnapshotFile(accessor.getString(instrumentorConfigPrefix + "snapshotFile", instrumentConfig.getSnapshotFile()));
+        instrumentConfig.setSnapshotResource(accessor.getString(instrumentorConfigPrefix + "snapshotResource", instrumentConfig.getSnapshotResource()));
         return instrumentConfig;
     }
 }
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.mybatis.plugins.pagination;
+
+import com.jn.langx.pipeline.AbstractHandler;
+import com.jn.langx.pipeline.HandlerContext;
+import com.jn.langx.pipeline.Pipelines;
+import com.jn.sqlhelper.dialect.pagination.CountResultCache;
+import com.jn.sqlhelper.dialect.pagination.PrefetchCache;
+import com.jn.sqlhelper.mybatis.plugins.ExecutorInvocation;
+import com.jn.sqlhelper.mybatis.plugins.SqlHelperMybatisPlugin;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * {@link org.apache.ibatis.executor.Executor#update(MappedStatement, Object)}
+ * <p>
+ * Invalidate the cached totals and the prefetched pages of the tables which are written by the statement, after the statement is executed.
+ * If the statement is executed in a transaction, another session may cache the old total before the transaction is committed,
+ * so the tables are invalidated again when the transaction ends, see {@link #endTransaction(Executor)}.
+ *
+ * @see PaginationConfig#getCountResultCacheExpireInSeconds()
+ * @see PaginationConfig#getPrefetchCacheExpireInSeconds()
+ */
+public class CountResultCacheInvalidationHandler extends AbstractHandler {
+    private CountResultCache<?> countResultCache;
+    private PrefetchCache<?, ?> prefetchCache;
+    /**
+     * the tables written in the open transactions, the executor is a session, it is removed when the session is collected
+     */
+    private final Map<Executor, PendingTables> pendingTablesMap = Collections.synchronizedMap(new WeakHashMap<Executor, PendingTables>());
+
+    public void setCountResultCache(CountResultCache<?> countResultCache) {
+        this.countResultCache = countResultCache;
+    }
+
+    public void setPrefetchCache(PrefetchCache<?, ?> prefetchCache) {
+        this.prefetchCache = prefetchCache;
+    }
+
+    @Override
+    public void outbound(HandlerContext ctx) throws Throwable {
+        ExecutorInvocation executorInvocation = (ExecutorInvocation) ctx.getPipeline().getTarget();
+        String sql = executorInvocation.getBoundSql().getSql();
+        // all of them are invalidated if the tables are unknown
+        Set<String> tables = SqlHelperMybatisPlugin.getInstrumentor().getTableNames(sql);
+        invalidate(tables);
+        if (isInTransaction(executorInvocation.getExecutor())) {
+            synchronized (pendingTablesMap) {
+                PendingTables pendingTables = pendingTablesMap.get(executorInvocation.getExecutor());
+                if (pendingTables == null) {
+                    pendingTables = new PendingTables();
+                    pendingTablesMap.put(executorInvocation.getExecutor(), pendingTables);
+                }
+                pendingTables.add(tables);
+            }
+        }
+        Pipelines.outbound(ctx);
+    }
+
+    /**
+     * Invalidate the tables written in the transaction of the executor, it is called after the transaction is committed or rolled back.
+     */
+    public void endTransaction(Executor executor) {
+        PendingTables pendingTables = pendingTablesMap.remove(executor);
+        if (pendingTables != null) {
+            invalidate(pendingTables.all ? null : pendingTables.tables);
+        }
+    }
+
+    private void invalidate(Set<String> tables) {
+        if (countResultCache != null) {
+            countResultCache.invalidate(tables);
+        }
+        if (prefetchCache != null) {
+            prefetchCache.invalidate(tables);
+        }
+    }
+
+    private static boolean isInTransaction(Executor executor) {
+        try {
+            return !executor.getTransaction().getConnection().getAutoCommit();
+        } catch (SQLException ex) {
+            return true;
+        }
+    }
+
+    private static class PendingTables {
+        private final Set<String> tables = new HashSet<String>();
+        /**
+         * the tables of a statement are unknown
+         */
+        private boolean all = false;
+
+        void add(Set<String> tables) {
+            if (tables == null) {
+                this.all = true;
+            } else {
+                this.tables.addAll(tables);
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.mybatis.plugins.pagination;
+
+import com.jn.sqlhelper.dialect.pagination.InlineCountResultSet;
+import com.jn.sqlhelper.dialect.pagination.InlineCountStrategy;
+import com.jn.sqlhelper.dialect.pagination.PagingRequestContext;
+import com.jn.sqlhelper.dialect.pagination.PagingRequestContextHolder;
+import com.jn.sqlhelper.mybatis.plugins.MybatisSqlRequestContextKeys;
+import org.apache.ibatis.plugin.Invocation;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * {@link org.apache.ibatis.executor.resultset.ResultSetHandler#handleResultSets(Statement)}
+ * <p>
+ * Read the total of a page query which is instrumented by an {@link InlineCountStrategy}.
+ * The total is read only when the page query is really executed, it is not there if the rows come from the mybatis cache.
+ *
+ * @see PaginationHandler
+ */
+public class InlineCountResultSetHandler {
+    private static final PagingRequestContextHolder PAGING_CONTEXT = PagingRequestContextHolder.getContext();
+
+    public Object intercept(Invocation invocation) throws Throwable {
+        PagingRequestContext context = PAGING_CONTEXT.get();
+        InlineCountStrategy strategy = context == null ? null : (InlineCountStrategy) context.get(MybatisSqlRequestContextKeys.INLINE_COUNT_STRATEGY);
+        if (strategy == null) {
+            return invocation.proceed();
+        }
+        // the nested queries of the result maps are executed when handling the result sets
+        context.set(MybatisSqlRequestContextKeys.INLINE_COUNT_STRATEGY, null);
+
+        Statement statement = (Statement) invocation.getArgs()[0];
+        Object result;
+        long total;
+        if (strategy == InlineCountStrategy.WINDOW_FUNCTION) {
+            Statement wrapped = InlineCountResultSet.wrap(statement);
+            invocation.getArgs()[0] = wrapped;
+            result = invocation.proceed();
+            total = InlineCountResultSet.getTotal(wrapped);
+        } else {
+            result = invocation.proceed();
+            total = foundRows(statement);
+        }
+        context.set(MybatisSqlRequestContextKeys.INLINE_COUNT_TOTAL, total);
+        return result;
+    }
+
+    private static long foundRows(Statement pageStatement) throws SQLException {
+        Statement statement = null;
+        ResultSet resultSet = null;
+        try {
+            statement = pageStatement.getConnection().createStatement();
+            resultSet = statement.executeQuery(InlineCountStrategy.FOUND_ROWS_SQL);
+            return resultSet.next() ? resultSet.getLong(1) : -1;
+        } finally {
+            if (resultSet != null) {
+                resultSet.close();
+            }
+            if (statement != null) {
+                statement.close();
+            }
+        }
+    }
+}
@@ -8,13 +8,44 @@ public class PaginationConfig extends PaginationProperties {
     private int countCacheMaxCapacity = 1000;
     private String countSuffix = "_COUNT";
     private int countCacheExpireInSeconds = 5;
+    /**
+     * the ttl of the cached totals, the totals are not cached if it is not greater than 0.
+     * A cached total is invalidated when any of its tables is written by an update statement of mybatis,
+     * the writes out of mybatis are only seen after the ttl.
+     */
+    private int countResultCacheExpireInSeconds = 0;
+    private int countResultCacheMaxCapacity = 1000;
+    /**
+     * the ttl of the prefetched pages of the requests whose prefetch is true, the pages are not prefetched if it is not greater than 0.
+     */
+    private int prefetchCacheExpireInSeconds = 10;
+    private int prefetchCacheMaxCapacity = 100;
 
     public boolean enableCountCache() {
         return this.countCacheMaxCapacity > 0;
     }
 
+    public boolean enableCountResultCache() {
+        return this.countResultCacheExpireInSeconds > 0 && this.countResultCacheMaxCapacity > 0;
+    }
+
+    public boolean enablePrefetchCache() {
+        return this.prefetchCacheExpireInSeconds > 0 && this.prefetchCacheMaxCapacity > 0;
+    }
+
     private boolean pageHelperCompatible = true;
     private String pageHelperHandlerClass = "com.github.pagehelper.PageHelperHandler";
+    /**
+     * parse the static select statements, and generate their count sqls and limit sqls when the mybatis configuration is ready,
+     * so the first requests after a restart don't pay for them
+     *
+     * @see com.jn.sqlhelper.mybatis.plugins.SqlHelperMybatisPlugin#warmUp(org.apache.ibatis.session.Configuration)
+     */
+    private boolean warmUp = false;
+    /**
+     * the threads of the warm up, 0: the count of the processors
+     */
+    private int warmUpParallelism = 0;
 
     @Override
     public String toString() {
@@ -53,6 +84,38 @@ public class PaginationConfig extends PaginationProperties {
         this.countCacheExpireInSeconds = countCacheExpireInSeconds;
     }
 
+    public int getCountResultCacheExpireInSeconds() {
+        return countResultCacheExpireInSeconds;
+    }
+
+    public void setCountResultCacheExpireInSeconds(int countResultCacheExpireInSeconds) {
+        this.countResultCacheExpireInSeconds = countResultCacheExpireInSeconds;
+    }
+
+    public int getCountResultCacheMaxCapacity() {
+        return countResultCacheMaxCapacity;
+    }
+
+    public void setCountResultCacheMaxCapacity(int countResultCacheMaxCapacity) {
+        this.countResultCacheMaxCapacity = countResultCacheMaxCapacity;
+    }
+
+    public int getPrefetchCacheExpireInSeconds() {
+        return prefetchCacheExpireInSeconds;
+    }
+
+    public void setPrefetchCacheExpireInSeconds(int prefetchCacheExpireInSeconds) {
+        this.prefetchCacheExpireInSeconds = prefetchCacheExpireInSeconds;
+    }
+
+    public int getPrefetchCacheMaxCapacity() {
+        return prefetchCacheMaxCapacity;
+    }
+
+    public void setPrefetchCacheMaxCapacity(int prefetchCacheMaxCapacity) {
+        this.prefetchCacheMaxCapacity = prefetchCacheMaxCapacity;
+    }
+
     public boolean isPageHelperCompatible() {
         return pageHelperCompatible;
     }
@@ -68,4 +131,22 @@ public class PaginationConfig extends PaginationProperties {
     public void setPageHelperHandlerClass(String pageHelperHandlerClass) {
         this.pageHelperHandlerClass = pageHelperHandlerClass;
     }
+
+    public boolean isWarmUp() {
+        return warmUp;
+    }
+
+    public void setWarmUp(boolean warmUp) {
+        this.warmUp = warmUp;
+    }
+
+    public int getWarmUpParallelism() {
+        return warmUpParallelism;
+    }
+
+    public void setWarmUpParallelism(int warmUpParallelism) {
+        if (warmUpParallelism >= 0) {
+            this.warmUpParallelism = warmUpParallelism;
+        }
+    }
 }
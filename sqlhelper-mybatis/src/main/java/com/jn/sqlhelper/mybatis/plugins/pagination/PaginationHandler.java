@@ -10,31 +10,58 @@ import com.jn.langx.pipeline.Pipelines;
 import com.jn.langx.util.*;
 import com.jn.langx.util.collection.Collects;
 import com.jn.sqlhelper.dialect.pagination.RowSelection;
+import com.jn.sqlhelper.dialect.Dialect;
+import com.jn.sqlhelper.dialect.estimate.RowCountEstimator;
 import com.jn.sqlhelper.dialect.instrument.SQLStatementInstrumentor;
+import com.jn.sqlhelper.dialect.metrics.MetricNames;
+import com.jn.sqlhelper.dialect.metrics.SqlHelperMetrics;
 import com.jn.sqlhelper.dialect.orderby.OrderBy;
 import com.jn.sqlhelper.dialect.pagination.*;
 import com.jn.sqlhelper.mybatis.MybatisUtils;
 import com.jn.sqlhelper.mybatis.plugins.*;
 import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.Environment;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
 import org.apache.ibatis.mapping.ResultMap;
 import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.transaction.Transaction;
+import org.apache.ibatis.type.TypeHandlerRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * {@link org.apache.ibatis.executor.Executor#query(MappedStatement, Object, RowBounds, ResultHandler)}
  * {@link org.apache.ibatis.executor.Executor#query(MappedStatement, Object, RowBounds, ResultHandler, CacheKey, BoundSql)} )}
+ * {@link org.apache.ibatis.executor.Executor#queryCursor(MappedStatement, Object, RowBounds)}
  */
 @SuppressWarnings({"rawtypes", "unchecked", "unused"})
 public class PaginationHandler extends AbstractHandler implements Initializable {
@@ -49,7 +76,18 @@ public class PaginationHandler extends AbstractHandler implements Initializable
     private Cache<String, MappedStatement> countStatementCache;
     private String countSuffix = "_COUNT";
     private static final String ORDER_BY_SUFFIX = "_orderBy";
+    private static final String PREFETCH_PARAMETER_PREFIX = "__prefetch_";
     private boolean inited = false;
+    private ExecutorService countExecutor;
+    /**
+     * the totals of the count queries, the key is the cache key of the count statement
+     */
+    private CountResultCache<CacheKey> countResultCache;
+    private ExecutorService prefetchExecutor;
+    /**
+     * the pages which are fetched before they are requested, the key is the cache key of the statement and the page
+     */
+    private PrefetchCache<CacheKey, List> prefetchCache;
 
 
     @Override
@@ -70,6 +108,12 @@ public class PaginationHandler extends AbstractHandler implements Initializable
                         .maxCapacity(paginationConfig.getCountCacheMaxCapacity()).build();
                 this.countSuffix = (Strings.isBlank(paginationConfig.getCountSuffix()) ? "_COUNT" : paginationConfig.getCountSuffix().trim());
             }
+            if (paginationConfig.enableCountResultCache()) {
+                this.countResultCache = new CountResultCache<CacheKey>(paginationConfig.getCountResultCacheMaxCapacity(), paginationConfig.getCountResultCacheExpireInSeconds() * 1000L);
+            }
+            if (paginationConfig.enablePrefetchCache()) {
+                this.prefetchCache = new PrefetchCache<CacheKey, List>(paginationConfig.getPrefetchCacheMaxCapacity(), paginationConfig.getPrefetchCacheExpireInSeconds() * 1000L);
+            }
             inited = true;
         }
     }
@@ -78,6 +122,36 @@ public class PaginationHandler extends AbstractHandler implements Initializable
         this.paginationConfig = config;
     }
 
+    /**
+     * @param countExecutor the executor of the count queries in the parallel count mode
+     * @see PaginationConfig#isParallelCount()
+     */
+    public void setCountExecutor(ExecutorService countExecutor) {
+        this.countExecutor = countExecutor;
+    }
+
+    /**
+     * @param prefetchExecutor the executor of the prefetched pages
+     * @see PagingRequest#setPrefetch(Boolean)
+     */
+    public void setPrefetchExecutor(ExecutorService prefetchExecutor) {
+        this.prefetchExecutor = prefetchExecutor;
+    }
+
+    /**
+     * @return the prefetched pages with the hit and waste metrics, null if it is disabled
+     */
+    public PrefetchCache<CacheKey, List> getPrefetchCache() {
+        return prefetchCache;
+    }
+
+    /**
+     * @return the cache of the totals, null if it is disabled
+     */
+    public CountResultCache<CacheKey> getCountResultCache() {
+        return countResultCache;
+    }
+
     private boolean isUseLastPageIfPageOut(@NonNull PagingRequest request) {
         Preconditions.checkNotNull(request);
         if (request.isUseLastPageIfPageOut() == null) {
@@ -91,6 +165,8 @@ public class PaginationHandler extends AbstractHandler implements Initializable
         ExecutorInvocation executorInvocation = (ExecutorInvocation) ctx.getPipeline().getTarget();
         if (MybatisUtils.isQueryStatement(executorInvocation.getMappedStatement()) && executorInvocation.getMethodName().equals("query")) {
             intercept(ctx);
+        } else if (MybatisUtils.isQueryStatement(executorInvocation.getMappedStatement()) && executorInvocation.getMethodName().equals("queryCursor")) {
+            interceptCursor(ctx);
         } else {
             if (!MybatisUtils.isQueryStatement(executorInvocation.getMappedStatement()) && isPagingRequest(executorInvocation.getMappedStatement())) {
                 logger.warn("The sql {} is not a select statement, but the PagingRequest was supplied . Please check your usage", MybatisUtils.getSql(executorInvocation.getBoundSql()));
@@ -170,16 +246,41 @@ public class PaginationHandler extends AbstractHandler implements Initializable
 
                 if (this.beginIfSupportsLimit(ms, executorInvocation)) {
                     boolean needQuery = true;
+                    String inlineCountSql = null;
+                    Future<Integer> countFuture = null;
+                    CountQuery countQuery = null;
+                    CountResultKey countResultKey = null;
+                    CacheKey prefetchKey = null;
                     try {
-                        if (this.needCount(request)) {
-                            final int count = this.executeCount(ms, parameter, rowBounds, resultHandler, executor, boundSql);
+                        prefetchKey = isPrefetchRequest(request, resultHandler) ? createPrefetchKey(ms, parameter, executor, boundSql, request, request.getPageNo()) : null;
+                        boolean needCount = this.needCount(request);
+                        // the count sql is built once, it is used by both the key of the count result and the count query
+                        countQuery = needCount ? createCountQuery(ms, parameter, boundSql, request) : null;
+                        countResultKey = needCount ? getCountResultKey(countQuery, parameter, executor) : null;
+                        long cachedCount = countResultKey == null ? -1 : countResultCache.get(countResultKey.cacheKey);
+                        boolean executeCount = needCount && cachedCount < 0;
+                        inlineCountSql = executeCount ? getInlineCountSql(ms, boundSql, request) : null;
+                        countFuture = executeCount && inlineCountSql == null ? submitCount(ms, countQuery, parameter, executor, request) : null;
+                        long estimated = executeCount && inlineCountSql == null && countFuture == null ? estimateCount(ms, parameter, executor, boundSql, request) : -1;
+                        if (inlineCountSql != null || countFuture != null) {
+                            // the total is returned by the page query, or it is counted in parallel
+                        } else if (estimated >= 0) {
+                            // the estimate may be less than the real count, so the page is queried anyway
+                            result.setTotal(estimated).setEstimated(true);
+                        } else if (needCount) {
+                            final int count = cachedCount >= 0 ? (int) cachedCount : this.executeCount(ms, countQuery, parameter, resultHandler, executor, boundSql);
+                            if (cachedCount < 0) {
+                                putCountResult(countResultKey, count);
+                            }
                             if (count == 0) {
                                 needQuery = false;
                             }
                             result.setTotal(count);
                             int maxPageCount = result.getMaxPage();
-                            if (maxPageCount >= 0) {
+                            // the page no is not used by a keyset paging request
+                            if (maxPageCount >= 0 && !request.isKeysetRequest()) {
                                 if (requestPageNo > maxPageCount) {
+                                    SqlHelperMetrics.count(MetricNames.PAGINATION_PAGE_OUT, ms.getId(), getDialectTag(), 1);
                                     if (isUseLastPageIfPageOut(request)) {
                                         request.setPageNo(maxPageCount);
                                         result.setPageNo(maxPageCount);
@@ -195,14 +296,38 @@ public class PaginationHandler extends AbstractHandler implements Initializable
                         logger.error(ex.getMessage(), ex);
                     } finally {
                         if (needQuery) {
-                            List rows = this.executeQuery(ms, parameter, rowBounds, resultHandler, executor, boundSql, cacheKey);
+                            List rows = takePrefetchedPage(prefetchKey, request);
+                            if (rows == null) {
+                                rows = this.executeQuery(ms, parameter, rowBounds, resultHandler, executor, boundSql, cacheKey, inlineCountSql);
+                            }
                             if (rows != null) {
                                 items.addAll(rows);
                             }
+                            if (inlineCountSql != null) {
+                                result.setTotal(getInlineCount(ms, countQuery, parameter, resultHandler, executor, boundSql, items));
+                                putCountResult(countResultKey, result.getTotal());
+                            }
+                        }
+                        if (countFuture != null) {
+                            try {
+                                result.setTotal(CountExecutors.get(countFuture));
+                                putCountResult(countResultKey, result.getTotal());
+                                int maxPageCount = result.getMaxPage();
+                                // the page query has been executed, so the items are dropped if the page is out of the range
+                                if (maxPageCount >= 0 && !request.isKeysetRequest() && requestPageNo > maxPageCount) {
+                                    SqlHelperMetrics.count(MetricNames.PAGINATION_PAGE_OUT, ms.getId(), getDialectTag(), 1);
+                                    items.clear();
+                                }
+                            } catch (Throwable ex) {
+                                logger.error(ex.getMessage(), ex);
+                            }
                         }
                     }
                     request.setPageNo(requestPageNo);
                     result.setPageNo(request.getPageNo());
+                    if (needQuery && prefetchKey != null) {
+                        prefetchNextPage(ms, parameter, executor, boundSql, request, result);
+                    }
                     rs = items;
                     executorInvocation.setResult(rs);
                 } else {
@@ -232,6 +357,74 @@ public class PaginationHandler extends AbstractHandler implements Initializable
         }
     }
 
+    /**
+     * A cursor query is instrumented like a list query, but it is not counted, the rows are read from the result set when the cursor is iterated.
+     * The fetch size of the statement is {@link com.jn.sqlhelper.dialect.Dialect#getStreamingFetchSize()} if the statement has not a fetch size.
+     */
+    private void interceptCursor(final HandlerContext ctx) {
+        ExecutorInvocation executorInvocation = (ExecutorInvocation) ctx.getPipeline().getTarget();
+        final MappedStatement ms = executorInvocation.getMappedStatement();
+        final Object parameter = executorInvocation.getParameter();
+        final Executor executor = executorInvocation.getExecutor();
+        final BoundSql boundSql = executorInvocation.getBoundSql();
+
+        setPagingRequestBasedRowBounds(executorInvocation.getRowBounds());
+        SQLStatementInstrumentor instrumentor = SqlHelperMybatisPlugin.getInstrumentor();
+        try {
+            if (NestedStatements.isNestedStatement(ms)) {
+                Pipelines.skipHandler(ctx, true);
+                return;
+            }
+            final PagingRequest request = isPagingRequest(ms) ? PAGING_CONTEXT.getPagingRequest() : null;
+            if (request != null && request.isEmptyRequest()) {
+                executorInvocation.setResult(EmptyCursor.INSTANCE);
+                return;
+            }
+            String sql;
+            if (request != null && !request.isGetAllRequest() && this.beginIfSupportsLimit(ms, executorInvocation)) {
+                final RowSelection rowSelection = rowSelectionBuilder.build(request);
+                PAGING_CONTEXT.setRowSelection(rowSelection);
+                sql = instrumentPageSql(executor, boundSql, null, rowSelection);
+            } else if (PAGING_CONTEXT.isOrderByRequest()) {
+                sql = instrumentor.instrumentOrderBySql(boundSql.getSql(), PAGING_CONTEXT.getPagingRequest().getOrderBy());
+            } else if (executorInvocation.isBoundSqlChanged()) {
+                // the like escape
+                sql = boundSql.getSql();
+            } else {
+                Pipelines.skipHandler(ctx, true);
+                return;
+            }
+            BoundSql cursorBoundSql = MybatisUtils.rebuildBoundSql(sql, ms.getConfiguration(), boundSql);
+            String databaseId = MybatisUtils.getDatabaseId(PAGING_CONTEXT, instrumentor, ms, executor);
+            Dialect dialect = Strings.isEmpty(databaseId) ? null : instrumentor.getDialectRegistry().getDialectByName(databaseId);
+            MappedStatement cursorStatement = customCursorStatement(ms, cursorBoundSql, dialect);
+            executorInvocation.setResult(executor.queryCursor(cursorStatement, parameter, RowBounds.DEFAULT));
+        } catch (Throwable ex) {
+            logger.error(ex.getMessage(), ex);
+            throw Throwables.wrapAsRuntimeException(ex);
+        } finally {
+            invalidatePagingRequest(false);
+            instrumentor.finish();
+        }
+    }
+
+    /**
+     * a copy of the statement, whose sql is the instrumented sql
+     */
+    private MappedStatement customCursorStatement(final MappedStatement ms, final BoundSql boundSql, final Dialect dialect) {
+        SqlSource sqlSource = new SqlSource() {
+            @Override
+            public BoundSql getBoundSql(Object parameterObject) {
+                return boundSql;
+            }
+        };
+        Integer fetchSize = ms.getFetchSize();
+        if (fetchSize == null && dialect != null) {
+            fetchSize = dialect.getStreamingFetchSize();
+        }
+        return copyStatement(ms, ms.getId(), sqlSource, fetchSize);
+    }
+
     private void setPagingRequestBasedRowBounds(RowBounds rowBounds) {
         if (MybatisUtils.isPagingRowBounds(rowBounds)) {
             PagingRequest request = new PagingRequest();
@@ -282,11 +475,54 @@ public class PaginationHandler extends AbstractHandler implements Initializable
     }
 
 
-    private List executeQuery(final MappedStatement ms, final Object parameter, final RowBounds rowBounds, final ResultHandler resultHandler, final Executor executor, final BoundSql boundSql, final CacheKey cacheKey) throws SQLException {
+    /**
+     * @param inlineCountSql the sql which returns the total with the rows, it is used as the page sql if not null
+     */
+    private List executeQuery(final MappedStatement ms, final Object parameter, final RowBounds rowBounds, final ResultHandler resultHandler, final Executor executor, final BoundSql boundSql, final CacheKey cacheKey, final String inlineCountSql) throws SQLException {
+        long startTime = SqlHelperMetrics.startTimer();
+        List rows = doExecuteQuery(ms, parameter, resultHandler, executor, boundSql, cacheKey, inlineCountSql);
+        if (SqlHelperMetrics.isEnabled()) {
+            String dialect = getDialectTag();
+            SqlHelperMetrics.stopTimer(MetricNames.PAGINATION_PAGE, ms.getId(), dialect, startTime);
+            SqlHelperMetrics.count(MetricNames.PAGINATION_ROWS, ms.getId(), dialect, rows == null ? 0 : rows.size());
+        }
+        return rows;
+    }
+
+    private List doExecuteQuery(final MappedStatement ms, final Object parameter, final ResultHandler resultHandler, final Executor executor, final BoundSql boundSql, final CacheKey cacheKey, final String inlineCountSql) throws SQLException {
         final PagingRequest request = PAGING_CONTEXT.getPagingRequest();
         final RowSelection rowSelection = rowSelectionBuilder.build(request);
         PAGING_CONTEXT.setRowSelection(rowSelection);
 
+        String pageSql = instrumentPageSql(executor, boundSql, inlineCountSql, rowSelection);
+        final BoundSql pageBoundSql = MybatisUtils.rebuildBoundSql(pageSql, ms.getConfiguration(), boundSql);
+        SQLStatementInstrumentor instrumentor = SqlHelperMybatisPlugin.getInstrumentor();
+        cacheKey.update(request.getPageNo());
+        cacheKey.update(request.getPageSize());
+        if (rowSelection.isKeyset()) {
+            for (Object value : rowSelection.getAfter()) {
+                cacheKey.update(value);
+            }
+        }
+        if (inlineCountSql == null) {
+            return executor.query(ms, parameter, RowBounds.DEFAULT, resultHandler, cacheKey, pageBoundSql);
+        }
+        PagingRequestContext ctx = PAGING_CONTEXT.get();
+        ctx.set(MybatisSqlRequestContextKeys.INLINE_COUNT_TOTAL, null);
+        ctx.set(MybatisSqlRequestContextKeys.INLINE_COUNT_STRATEGY, InlineCountStrategy.of(instrumentor.getCurrentDialect()));
+        try {
+            return executor.query(ms, parameter, RowBounds.DEFAULT, resultHandler, cacheKey, pageBoundSql);
+        } finally {
+            ctx.set(MybatisSqlRequestContextKeys.INLINE_COUNT_STRATEGY, null);
+        }
+    }
+
+    /**
+     * @param inlineCountSql the sql which returns the total with the rows, it is instrumented rather than the bound sql if not null
+     * @return the sql of the page, the limit parameters are bound with the row selection
+     */
+    private String instrumentPageSql(final Executor executor, final BoundSql boundSql, final String inlineCountSql, final RowSelection rowSelection) throws SQLException {
+        final PagingRequest request = PAGING_CONTEXT.getPagingRequest();
         String pageSql;
 
         boolean subQueryPagination = false;
@@ -298,11 +534,16 @@ public class PaginationHandler extends AbstractHandler implements Initializable
                 subQueryPagination = true;
             }
         }
+        if (!subQueryPagination && instrumentor.getConfig().getDeferredJoinOffsetThreshold() > 0) {
+            instrumentor.resolvePrimaryKeys(instrumentor.getCurrentDialect(), executor.getTransaction().getConnection(), boundSql.getSql(), rowSelection);
+        }
         if (!subQueryPagination) {
-            if (PAGING_CONTEXT.isOrderByRequest()) {
-                pageSql = instrumentor.instrumentOrderByLimitSql(boundSql.getSql(), PAGING_CONTEXT.getPagingRequest().getOrderBy(), rowSelection);
+            if (rowSelection.isKeyset()) {
+                pageSql = instrumentor.instrumentKeysetSql(boundSql.getSql(), rowSelection);
+            } else if (PAGING_CONTEXT.isOrderByRequest()) {
+                pageSql = instrumentor.instrumentOrderByLimitSql(inlineCountSql != null ? inlineCountSql : boundSql.getSql(), PAGING_CONTEXT.getPagingRequest().getOrderBy(), rowSelection);
             } else {
-                pageSql = instrumentor.instrumentLimitSql(boundSql.getSql(), rowSelection);
+                pageSql = instrumentor.instrumentLimitSql(inlineCountSql != null ? inlineCountSql : boundSql.getSql(), rowSelection);
             }
             PagingRequestContext ctx = PAGING_CONTEXT.get();
             ctx.setInteger(PagingRequestContext.BEFORE_SUBQUERY_PARAMETERS_COUNT, 0);
@@ -323,11 +564,38 @@ public class PaginationHandler extends AbstractHandler implements Initializable
             ctx.setInteger(PagingRequestContext.BEFORE_SUBQUERY_PARAMETERS_COUNT, SqlPaginations.findPlaceholderParameterCount(beforeSubqueryPartition));
             ctx.setInteger(PagingRequestContext.AFTER_SUBQUERY_PARAMETERS_COUNT, SqlPaginations.findPlaceholderParameterCount(afterSubqueryPartition));
         }
+        return pageSql;
+    }
 
-        final BoundSql pageBoundSql = MybatisUtils.rebuildBoundSql(pageSql, ms.getConfiguration(), boundSql);
-        cacheKey.update(request.getPageNo());
-        cacheKey.update(request.getPageSize());
-        return executor.query(ms, parameter, RowBounds.DEFAULT, resultHandler, cacheKey, pageBoundSql);
+    /**
+     * @return the page sql which returns the total with the rows, null if the inline count is not used for the request
+     */
+    private String getInlineCountSql(final MappedStatement ms, final BoundSql boundSql, final PagingRequest request) {
+        if (!paginationConfig.isInlineCount() || request.getCountMode().isEstimate() || request.isKeysetRequest() || SqlPaginations.isSubqueryPagingRequest(request)) {
+            return null;
+        }
+        // a custom count statement is always used
+        if (this.extractCountStatementFromConfiguration(ms.getConfiguration(), this.getCountStatementId(request, ms.getId())) != null) {
+            return null;
+        }
+        SQLStatementInstrumentor instrumentor = SqlHelperMybatisPlugin.getInstrumentor();
+        return instrumentor.instrumentInlineCountSql(instrumentor.getCurrentDialect(), boundSql.getSql());
+    }
+
+    /**
+     * The total is read by the {@link InlineCountResultSetHandler}. A count query is executed if the total is unknown,
+     * the rows come from the cache or the page out of the range.
+     */
+    private int getInlineCount(final MappedStatement ms, final CountQuery countQuery, final Object parameter, final ResultHandler resultHandler, final Executor executor, final BoundSql boundSql, final List items) throws Throwable {
+        Long total = (Long) PAGING_CONTEXT.get().get(MybatisSqlRequestContextKeys.INLINE_COUNT_TOTAL);
+        if (total != null && total >= 0) {
+            return total.intValue();
+        }
+        RowSelection rowSelection = PAGING_CONTEXT.getRowSelection();
+        if (items.isEmpty() && (rowSelection == null || !rowSelection.hasOffset())) {
+            return 0;
+        }
+        return this.executeCount(ms, countQuery, parameter, resultHandler, executor, boundSql);
     }
 
     private String getOrderById(final MappedStatement ms, final OrderBy orderBy) {
@@ -344,9 +612,13 @@ public class PaginationHandler extends AbstractHandler implements Initializable
     }
 
     private MappedStatement customOrderByStatement(final MappedStatement ms, final String orderByStatementId) {
-        final MappedStatement.Builder builder = new MappedStatement.Builder(ms.getConfiguration(), orderByStatementId, ms.getSqlSource(), ms.getSqlCommandType());
+        return copyStatement(ms, orderByStatementId, ms.getSqlSource(), ms.getFetchSize());
+    }
+
+    private MappedStatement copyStatement(final MappedStatement ms, final String statementId, final SqlSource sqlSource, final Integer fetchSize) {
+        final MappedStatement.Builder builder = new MappedStatement.Builder(ms.getConfiguration(), statementId, sqlSource, ms.getSqlCommandType());
         builder.resource(ms.getResource());
-        builder.fetchSize(ms.getFetchSize());
+        builder.fetchSize(fetchSize);
         builder.statementType(ms.getStatementType());
         builder.keyGenerator(ms.getKeyGenerator());
         if (Emptys.isNotEmpty(ms.getKeyProperties())) {
@@ -364,6 +636,8 @@ public class PaginationHandler extends AbstractHandler implements Initializable
         builder.cache(ms.getCache());
         builder.flushCacheRequired(ms.isFlushCacheRequired());
         builder.useCache(ms.isUseCache());
+        builder.databaseId(ms.getDatabaseId());
+        builder.lang(ms.getLang());
         return builder.build();
     }
 
@@ -378,41 +652,28 @@ public class PaginationHandler extends AbstractHandler implements Initializable
     }
 
 
-    private int executeCount(final MappedStatement ms, final Object parameter, final RowBounds rowBounds, final ResultHandler resultHandler, final Executor executor, final BoundSql boundSql) throws Throwable {
+    private int executeCount(final MappedStatement ms, final CountQuery countQuery, final Object parameter, final ResultHandler resultHandler, final Executor executor, final BoundSql boundSql) throws Throwable {
+        long startTime = SqlHelperMetrics.startTimer();
+        int count = doExecuteCount(countQuery, parameter, resultHandler, executor, boundSql);
+        SqlHelperMetrics.stopTimer(MetricNames.PAGINATION_COUNT, ms.getId(), getDialectTag(), startTime);
+        return count;
+    }
+
+    private int doExecuteCount(final CountQuery countQuery, final Object parameter, final ResultHandler resultHandler, final Executor executor, final BoundSql boundSql) throws Throwable {
         final PagingRequestContext requestContext = PAGING_CONTEXT.get();
         final PagingRequest request = PAGING_CONTEXT.getPagingRequest();
-        final String countStatementId = this.getCountStatementId(request, ms.getId());
+        final MappedStatement countStatement = countQuery.statement;
+        final BoundSql countBoundSql = countQuery.boundSql;
         int count;
-        BoundSql countBoundSql = null;
         try {
-            MappedStatement countStatement = this.extractCountStatementFromConfiguration(ms.getConfiguration(), countStatementId);
-            if (countStatement != null) {
-                final CacheKey countKey = executor.createCacheKey(countStatement, parameter, RowBounds.DEFAULT, boundSql);
-                countKey.update(request.getPageNo());
-                countKey.update(request.getPageSize());
-                countBoundSql = countStatement.getBoundSql(parameter);
-                requestContext.set(MybatisSqlRequestContextKeys.COUNT_SQL, countBoundSql);
-                final Object countResultList = executor.query(countStatement, parameter, RowBounds.DEFAULT, resultHandler, countKey, countBoundSql);
-                count = ((Number) ((List) countResultList).get(0)).intValue();
-            } else {
-                String querySql = boundSql.getSql();
-                SQLStatementInstrumentor instrumentor = SqlHelperMybatisPlugin.getInstrumentor();
-                final String countSql = instrumentor.countSql(querySql, request.getCountColumn());
-                countStatement = this.customCountStatement(ms, countStatementId, querySql, request);
-
-                final CacheKey countKey2 = executor.createCacheKey(countStatement, parameter, RowBounds.DEFAULT, boundSql);
-                countKey2.update(request.getPageNo());
-                countKey2.update(request.getPageSize());
-
-                countBoundSql = MybatisUtils.rebuildBoundSql(countSql, countStatement.getConfiguration(), boundSql);
-                requestContext.set(MybatisSqlRequestContextKeys.COUNT_SQL, countBoundSql);
-                final Object countResultList2 = executor.query(countStatement, parameter, RowBounds.DEFAULT, resultHandler, countKey2, countBoundSql);
-                count = ((Number) ((List) countResultList2).get(0)).intValue();
-            }
+            final CacheKey countKey = executor.createCacheKey(countStatement, parameter, RowBounds.DEFAULT, boundSql);
+            countKey.update(request.getPageNo());
+            countKey.update(request.getPageSize());
+            requestContext.set(MybatisSqlRequestContextKeys.COUNT_SQL, countBoundSql);
+            final Object countResultList = executor.query(countStatement, parameter, RowBounds.DEFAULT, resultHandler, countKey, countBoundSql);
+            count = ((Number) ((List) countResultList).get(0)).intValue();
         } catch (Throwable ex) {
-            if (countBoundSql != null) {
-                logger.error("error occur when execute count sql [{}], error: {}", countBoundSql.getSql(), ex.getMessage(), ex);
-            }
+            logger.error("error occur when execute count sql [{}], error: {}", countBoundSql.getSql(), ex.getMessage(), ex);
             throw ex;
         } finally {
             requestContext.set(MybatisSqlRequestContextKeys.COUNT_SQL, null);
@@ -420,6 +681,354 @@ public class PaginationHandler extends AbstractHandler implements Initializable
         return count;
     }
 
+    /**
+     * Execute the count query in another connection of the data source of the environment.
+     *
+     * @return the future of the count, null if the count query can't be executed in parallel
+     */
+    private Future<Integer> submitCount(final MappedStatement ms, final CountQuery countQuery, final Object parameter, final Executor executor, final PagingRequest request) throws SQLException {
+        if (!paginationConfig.isParallelCount() || request.getCountMode().isEstimate() || isUseLastPageIfPageOut(request)) {
+            return null;
+        }
+        Environment environment = ms.getConfiguration().getEnvironment();
+        if (environment == null || environment.getDataSource() == null) {
+            return null;
+        }
+        // the count query in another connection can't see the uncommitted changes
+        if (!executor.getTransaction().getConnection().getAutoCommit()) {
+            return null;
+        }
+        final DataSource dataSource = environment.getDataSource();
+        final MappedStatement countStatement = countQuery.statement;
+        final BoundSql countBoundSql = countQuery.boundSql;
+
+        // the parameters are set in the current thread
+        final RecordedParameters parameters = new RecordedParameters();
+        final PagingRequestContext requestContext = PAGING_CONTEXT.get();
+        requestContext.set(MybatisSqlRequestContextKeys.COUNT_SQL, countBoundSql);
+        try {
+            countStatement.getConfiguration().newParameterHandler(countStatement, parameter, countBoundSql).setParameters(parameters.getRecorder());
+        } catch (Throwable ex) {
+            logger.debug("can't execute the count sql in parallel: {}, error: {}", countBoundSql.getSql(), ex.getMessage());
+            return null;
+        } finally {
+            requestContext.set(MybatisSqlRequestContextKeys.COUNT_SQL, null);
+        }
+
+        final Integer timeout = countStatement.getTimeout();
+        final String dialect = getDialectTag();
+        return getCountExecutor().submit(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                long startTime = SqlHelperMetrics.startTimer();
+                Connection connection = dataSource.getConnection();
+                try {
+                    PreparedStatement statement = connection.prepareStatement(countBoundSql.getSql());
+                    try {
+                        if (timeout != null) {
+                            statement.setQueryTimeout(timeout);
+                        }
+                        parameters.replay(statement);
+                        ResultSet resultSet = statement.executeQuery();
+                        try {
+                            return resultSet.next() ? resultSet.getInt(1) : 0;
+                        } finally {
+                            resultSet.close();
+                        }
+                    } finally {
+                        statement.close();
+                    }
+                } finally {
+                    connection.close();
+                    SqlHelperMetrics.stopTimer(MetricNames.PAGINATION_COUNT, ms.getId(), dialect, startTime);
+                }
+            }
+        });
+    }
+
+    private static String getDialectTag() {
+        return SqlHelperMetrics.getDialectTag(SqlHelperMybatisPlugin.getInstrumentor().getCurrentDialect());
+    }
+
+    private boolean isPrefetchRequest(final PagingRequest request, final ResultHandler resultHandler) {
+        // the after values of the next keyset page are unknown,
+        // and the rows of a prefetched page are never passed to the result handler of the caller
+        return prefetchCache != null && Boolean.TRUE.equals(request.getPrefetch()) && !request.isKeysetRequest()
+                && resultHandler == Executor.NO_RESULT_HANDLER;
+    }
+
+    private CacheKey createPrefetchKey(final MappedStatement ms, final Object parameter, final Executor executor, final BoundSql boundSql, final PagingRequest request, int pageNo) {
+        CacheKey prefetchKey = executor.createCacheKey(ms, parameter, RowBounds.DEFAULT, boundSql);
+        prefetchKey.update(pageNo);
+        prefetchKey.update(request.getPageSize());
+        prefetchKey.update(request.getOrderByAsString());
+        return prefetchKey;
+    }
+
+    /**
+     * @return the rows of the prefetched page, null if the page is not prefetched
+     */
+    private List takePrefetchedPage(final CacheKey prefetchKey, final PagingRequest request) {
+        // the first page is never prefetched
+        if (prefetchKey == null || request.getPageNo() <= 1) {
+            return null;
+        }
+        Future<List> page = prefetchCache.take(prefetchKey);
+        if (page == null) {
+            return null;
+        }
+        try {
+            return CountExecutors.get(page);
+        } catch (Throwable ex) {
+            logger.warn("Can't fetch the page in background, it will be queried again, error: {}", ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Fetch the next page in another connection of the data source of the environment with a new executor,
+     * so it is paged by the plugin as the current page.
+     * It is skipped if the current page is the last page, or in a transaction, because the next page can't see the uncommitted changes.
+     * The caller may change or reuse the parameter object after the current page is returned, so the next page is queried with a snapshot of the parameter values.
+     */
+    private void prefetchNextPage(final MappedStatement ms, final Object parameter, final Executor executor, final BoundSql boundSql, final PagingRequest request, final PagingResult result) {
+        if (result.getItems().size() < request.getPageSize()) {
+            return;
+        }
+        if (result.getTotal() >= 0 && !result.isEstimated() && result.getPageNo() >= result.getMaxPage()) {
+            return;
+        }
+        final Configuration configuration = ms.getConfiguration();
+        final Environment environment = configuration.getEnvironment();
+        if (environment == null || environment.getDataSource() == null) {
+            return;
+        }
+        try {
+            if (!executor.getTransaction().getConnection().getAutoCommit()) {
+                return;
+            }
+            Set<String> tables = SqlHelperMybatisPlugin.getInstrumentor().getTableNames(boundSql.getSql());
+            if (tables == null) {
+                // it can't be invalidated
+                return;
+            }
+            // the bound sql of the executor invocation may be changed by the other handlers, e.g. the like escape handler
+            final BoundSql snapshotBoundSql = snapshotBoundSql(configuration, ms.getBoundSql(parameter));
+            if (snapshotBoundSql == null) {
+                return;
+            }
+            final int nextPageNo = result.getPageNo() + 1;
+            final PagingRequest nextRequest = nextPageRequest(request, nextPageNo);
+            CacheKey prefetchKey = createPrefetchKey(ms, parameter, executor, boundSql, request, nextPageNo);
+            long stamp = prefetchCache.stamp();
+            Future<List> page = getPrefetchExecutor().submit(new Callable<List>() {
+                @Override
+                public List call() throws Exception {
+                    Transaction transaction = environment.getTransactionFactory().newTransaction(environment.getDataSource(), null, true);
+                    Executor prefetchExecutor = null;
+                    try {
+                        prefetchExecutor = configuration.newExecutor(transaction, ExecutorType.SIMPLE);
+                        PAGING_CONTEXT.setPagingRequest(nextRequest);
+                        Object snapshotParameter = snapshotBoundSql.getParameterObject();
+                        CacheKey cacheKey = prefetchExecutor.createCacheKey(ms, snapshotParameter, RowBounds.DEFAULT, snapshotBoundSql);
+                        return prefetchExecutor.query(ms, snapshotParameter, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER, cacheKey, snapshotBoundSql);
+                    } finally {
+                        PAGING_CONTEXT.remove();
+                        if (prefetchExecutor != null) {
+                            // the transaction is closed by the executor
+                            prefetchExecutor.close(false);
+                        } else {
+                            transaction.close();
+                        }
+                    }
+                }
+            });
+            prefetchCache.put(prefetchKey, page, tables, stamp);
+        } catch (RejectedExecutionException ex) {
+            logger.debug("The next page is not prefetched, all the prefetch threads are busy");
+        } catch (Throwable ex) {
+            logger.warn("Can't prefetch the next page of the statement {}, error: {}", ms.getId(), ex.getMessage());
+        }
+    }
+
+    /**
+     * The values of the parameters are resolved in the current thread as the parameter handler of mybatis does,
+     * and they are bound to the new bound sql as additional parameters.
+     *
+     * @return the bound sql which never reads the parameter object, null if it has an output parameter
+     */
+    private BoundSql snapshotBoundSql(final Configuration configuration, final BoundSql boundSql) {
+        final Object parameterObject = boundSql.getParameterObject();
+        final TypeHandlerRegistry typeHandlerRegistry = configuration.getTypeHandlerRegistry();
+        final List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
+        final List<ParameterMapping> snapshotMappings = new ArrayList<ParameterMapping>(parameterMappings.size());
+        final Map<String, Object> values = new HashMap<String, Object>();
+        MetaObject metaObject = null;
+        for (int i = 0; i < parameterMappings.size(); i++) {
+            ParameterMapping parameterMapping = parameterMappings.get(i);
+            if (parameterMapping.getMode() != ParameterMode.IN) {
+                return null;
+            }
+            String propertyName = parameterMapping.getProperty();
+            Object value;
+            if (boundSql.hasAdditionalParameter(propertyName)) {
+                value = boundSql.getAdditionalParameter(propertyName);
+            } else if (parameterObject == null) {
+                value = null;
+            } else if (typeHandlerRegistry.hasTypeHandler(parameterObject.getClass())) {
+                value = parameterObject;
+            } else {
+                if (metaObject == null) {
+                    metaObject = configuration.newMetaObject(parameterObject);
+                }
+                value = metaObject.getValue(propertyName);
+            }
+            // the property names are flat, so a null value is kept as an additional parameter too
+            String snapshotName = PREFETCH_PARAMETER_PREFIX + i;
+            values.put(snapshotName, value);
+            snapshotMappings.add(new ParameterMapping.Builder(configuration, snapshotName, parameterMapping.getTypeHandler())
+                    .javaType(parameterMapping.getJavaType())
+                    .jdbcType(parameterMapping.getJdbcType())
+                    .jdbcTypeName(parameterMapping.getJdbcTypeName())
+                    .numericScale(parameterMapping.getNumericScale())
+                    .build());
+        }
+        BoundSql snapshot = new BoundSql(configuration, boundSql.getSql(), snapshotMappings, values);
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            snapshot.setAdditionalParameter(entry.getKey(), entry.getValue());
+        }
+        return snapshot;
+    }
+
+    /**
+     * the request of the next page, it is not counted
+     */
+    private PagingRequest nextPageRequest(final PagingRequest request, int nextPageNo) {
+        PagingRequest nextRequest = new PagingRequest()
+                .limit(nextPageNo, request.getPageSize())
+                .setCount(false)
+                .setCondition(request.getCondition())
+                .setPrimaryKeys(request.getPrimaryKeys());
+        nextRequest.setDialect(request.getDialect());
+        nextRequest.setEscapeLikeParameter(request.isEscapeLikeParameter());
+        nextRequest.setLikeEscaper(request.getLikeEscaper());
+        if (request.isSubqueryPaging()) {
+            nextRequest.subqueryPaging(request.getSubqueryPagingStartFlag(), request.getSubqueryPagingEndFlag());
+        }
+        nextRequest.setOrderBy(request.getOrderBy());
+        nextRequest.setTimeout(request.getTimeout());
+        return nextRequest;
+    }
+
+    private ExecutorService getPrefetchExecutor() {
+        return prefetchExecutor == null ? CountExecutors.getPrefetchExecutor() : prefetchExecutor;
+    }
+
+    /**
+     * Estimate the row count of the query sql in the connection of the executor, the parameters of the query are used.
+     *
+     * @return the estimated total if it is accepted by the count mode of the request, else -1
+     */
+    private long estimateCount(final MappedStatement ms, final Object parameter, final Executor executor, final BoundSql boundSql, final PagingRequest request) throws SQLException {
+        CountMode countMode = request.getCountMode();
+        if (!countMode.isEstimate()) {
+            return -1;
+        }
+        SQLStatementInstrumentor instrumentor = SqlHelperMybatisPlugin.getInstrumentor();
+        RowCountEstimator estimator = instrumentor.getCurrentDialect().getRowCountEstimator();
+        String estimateSql = estimator == null ? null : estimator.getEstimateSql(boundSql.getSql());
+        if (estimateSql == null) {
+            return -1;
+        }
+        BoundSql estimateBoundSql = MybatisUtils.rebuildBoundSql(estimateSql, ms.getConfiguration(), boundSql);
+        final PagingRequestContext requestContext = PAGING_CONTEXT.get();
+        long estimated;
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+        try {
+            statement = executor.getTransaction().getConnection().prepareStatement(estimateSql);
+            if (ms.getTimeout() != null) {
+                statement.setQueryTimeout(ms.getTimeout());
+            }
+            // the limit parameters are not bound for a count sql
+            requestContext.set(MybatisSqlRequestContextKeys.COUNT_SQL, estimateBoundSql);
+            ms.getConfiguration().newParameterHandler(ms, parameter, estimateBoundSql).setParameters(statement);
+            resultSet = statement.executeQuery();
+            estimated = estimator.getEstimatedRowCount(resultSet);
+        } catch (SQLException ex) {
+            logger.warn("Can't estimate the row count, the count query will be used, sql: {}, error: {}", estimateSql, ex.getMessage());
+            return -1;
+        } finally {
+            requestContext.set(MybatisSqlRequestContextKeys.COUNT_SQL, null);
+            if (resultSet != null) {
+                resultSet.close();
+            }
+            if (statement != null) {
+                statement.close();
+            }
+        }
+        return countMode.accept(estimated) ? estimated : -1;
+    }
+
+    /**
+     * The count statement is the custom count statement in the configuration if it exists,
+     * else the count sql is generated from the query sql.
+     */
+    private CountQuery createCountQuery(final MappedStatement ms, final Object parameter, final BoundSql boundSql, final PagingRequest request) {
+        final String countStatementId = this.getCountStatementId(request, ms.getId());
+        MappedStatement countStatement = this.extractCountStatementFromConfiguration(ms.getConfiguration(), countStatementId);
+        BoundSql countBoundSql;
+        if (countStatement != null) {
+            countBoundSql = countStatement.getBoundSql(parameter);
+            return new CountQuery(countStatement, countBoundSql, countBoundSql.getSql());
+        }
+        String querySql = boundSql.getSql();
+        String countSql = SqlHelperMybatisPlugin.getInstrumentor().countSql(querySql, request.getCountColumn());
+        countStatement = this.customCountStatement(ms, countStatementId, querySql, request);
+        countBoundSql = MybatisUtils.rebuildBoundSql(countSql, countStatement.getConfiguration(), boundSql);
+        // the generated count sql reads the tables of the query sql, they are cached in the instrumented statement of the query sql
+        return new CountQuery(countStatement, countBoundSql, querySql);
+    }
+
+    /**
+     * The stamp of the cache is taken here, so it must be called before the count query.
+     * The total is neither read nor cached in a transaction.
+     *
+     * @return the key of the total in the count result cache, null if the total is not cached for the request
+     */
+    private CountResultKey getCountResultKey(final CountQuery countQuery, final Object parameter, final Executor executor) {
+        PagingRequest request = PAGING_CONTEXT.getPagingRequest();
+        if (countResultCache == null || Boolean.FALSE.equals(request.getCacheCount())) {
+            return null;
+        }
+        try {
+            // a total counted in a transaction may contain the uncommitted rows, it is not shared with the other sessions
+            if (!executor.getTransaction().getConnection().getAutoCommit()) {
+                return null;
+            }
+        } catch (SQLException ex) {
+            return null;
+        }
+        long stamp = countResultCache.stamp();
+        Set<String> tables = SqlHelperMybatisPlugin.getInstrumentor().getTableNames(countQuery.tablesSql);
+        if (tables == null) {
+            // it can't be invalidated
+            return null;
+        }
+        CacheKey cacheKey = executor.createCacheKey(countQuery.statement, parameter, RowBounds.DEFAULT, countQuery.boundSql);
+        return new CountResultKey(cacheKey, tables, stamp);
+    }
+
+    private void putCountResult(CountResultKey countResultKey, long total) {
+        if (countResultKey != null) {
+            countResultCache.put(countResultKey.cacheKey, total, countResultKey.tables, countResultKey.stamp);
+        }
+    }
+
+    private ExecutorService getCountExecutor() {
+        return countExecutor == null ? CountExecutors.getDefault() : countExecutor;
+    }
+
     private boolean needCount(final PagingRequest request) {
         if (request.needCount() == null) {
             return paginationConfig.isCount();
@@ -484,4 +1093,61 @@ public class PaginationHandler extends AbstractHandler implements Initializable
         return countStatement;
     }
 
+    /**
+     * the cursor of an empty paging request
+     */
+    private static class EmptyCursor implements Cursor<Object> {
+        private static final EmptyCursor INSTANCE = new EmptyCursor();
+
+        @Override
+        public boolean isOpen() {
+            return false;
+        }
+
+        @Override
+        public boolean isConsumed() {
+            return true;
+        }
+
+        @Override
+        public int getCurrentIndex() {
+            return -1;
+        }
+
+        @Override
+        public Iterator<Object> iterator() {
+            return Collections.emptyList().iterator();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static class CountQuery {
+        private final MappedStatement statement;
+        private final BoundSql boundSql;
+        /**
+         * the sql whose tables are read by the count query
+         */
+        private final String tablesSql;
+
+        private CountQuery(MappedStatement statement, BoundSql boundSql, String tablesSql) {
+            this.statement = statement;
+            this.boundSql = boundSql;
+            this.tablesSql = tablesSql;
+        }
+    }
+
+    private static class CountResultKey {
+        private final CacheKey cacheKey;
+        private final Set<String> tables;
+        private final long stamp;
+
+        private CountResultKey(CacheKey cacheKey, Set<String> tables, long stamp) {
+            this.cacheKey = cacheKey;
+            this.tables = tables;
+            this.stamp = stamp;
+        }
+    }
 }
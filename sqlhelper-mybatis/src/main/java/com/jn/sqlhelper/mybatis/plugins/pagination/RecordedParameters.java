@@ -0,0 +1,67 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the LGPL, Version 3.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at  http://www.gnu.org/licenses/lgpl-3.0.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.jn.sqlhelper.mybatis.plugins.pagination;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Record the parameters which are set by a {@link org.apache.ibatis.executor.parameter.ParameterHandler},
+ * and replay them on a statement in another thread.
+ * <p>
+ * The parameter handler depends on the thread bound request context (the like escape, the count sql flag),
+ * so the parameters must be set in the thread of the request.
+ * Only the setXxx methods can be recorded, the others throw an {@link UnsupportedOperationException}.
+ */
+class RecordedParameters implements InvocationHandler {
+    private final List<Method> methods = new ArrayList<Method>();
+    private final List<Object[]> arguments = new ArrayList<Object[]>();
+
+    PreparedStatement getRecorder() {
+        return (PreparedStatement) Proxy.newProxyInstance(RecordedParameters.class.getClassLoader(), new Class[]{PreparedStatement.class}, this);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        if (method.getName().startsWith("set") && method.getReturnType() == void.class) {
+            methods.add(method);
+            arguments.add(args);
+            return null;
+        }
+        throw new UnsupportedOperationException(method.getName());
+    }
+
+    void replay(PreparedStatement statement) throws SQLException {
+        for (int i = 0; i < methods.size(); i++) {
+            try {
+                methods.get(i).invoke(statement, arguments.get(i));
+            } catch (IllegalAccessException ex) {
+                throw new SQLException(ex);
+            } catch (InvocationTargetException ex) {
+                Throwable cause = ex.getTargetException();
+                if (cause instanceof SQLException) {
+                    throw (SQLException) cause;
+                }
+                throw new SQLException(cause);
+            }
+        }
+    }
+}
@@ -8,9 +8,12 @@ import com.jn.langx.util.reflect.Reflects;
 import com.jn.sqlhelper.common.utils.SQLs;
 import com.jn.sqlhelper.dialect.pagination.PagedPreparedParameterSetter;
 import com.jn.sqlhelper.dialect.pagination.RowSelection;
+import com.jn.sqlhelper.dialect.estimate.RowCountEstimator;
 import com.jn.sqlhelper.dialect.instrument.SQLInstrumentorProvider;
 import com.jn.sqlhelper.dialect.instrument.SQLStatementInstrumentor;
 import com.jn.sqlhelper.dialect.instrument.SQLInstrumentorConfig;
+import com.jn.sqlhelper.dialect.metrics.MetricNames;
+import com.jn.sqlhelper.dialect.metrics.SqlHelperMetrics;
 import com.jn.sqlhelper.dialect.pagination.*;
 import com.jn.sqlhelper.springjdbc.resultset.SelectCountRSExtractor;
 import com.jn.sqlhelper.springjdbc.statement.NamedParameterPreparedStatementCreator;
@@ -24,14 +27,19 @@ import org.springframework.jdbc.UncategorizedSQLException;
 import org.springframework.jdbc.core.*;
 import org.springframework.jdbc.datasource.DataSourceUtils;
 import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 public class JdbcTemplate extends org.springframework.jdbc.core.JdbcTemplate {
     private static final Logger LOGGER = LoggerFactory.getLogger(JdbcTemplate.class);
@@ -40,6 +48,7 @@ public class JdbcTemplate extends org.springframework.jdbc.core.JdbcTemplate {
 
     private JdbcTemplatePaginationProperties paginationConfig = new JdbcTemplatePaginationProperties();
     private SQLInstrumentorConfig instrumentConfig;
+    private ExecutorService countExecutor;
 
     public JdbcTemplate() {
         super();
@@ -71,6 +80,14 @@ public class JdbcTemplate extends org.springframework.jdbc.core.JdbcTemplate {
         this.paginationConfig = paginationConfig;
     }
 
+    /**
+     * @param countExecutor the executor of the count queries in the parallel count mode
+     * @see PaginationProperties#isParallelCount()
+     */
+    public void setCountExecutor(ExecutorService countExecutor) {
+        this.countExecutor = countExecutor;
+    }
+
     public void setInstrumentConfig(SQLInstrumentorConfig instrumentConfig) {
         if (instrumentConfig == null) {
             instrumentConfig = SQLInstrumentorConfig.DEFAULT;
@@ -140,18 +157,46 @@ public class JdbcTemplate extends org.springframework.jdbc.core.JdbcTemplate {
 
             Preconditions.checkNotNull(instrumentor);
             try {
-                if (instrumentor.beginIfSupportsLimit(conn.getMetaData())) {
+                if (instrumentor.beginIfSupportsLimit(dataSource(), conn)) {
                     boolean needQuery = true;
-                    if (needCountInPagingRequest(request)) {
+                    boolean needCount = needCountInPagingRequest(request);
+                    final String inlineCountSql = needCount ? getInlineCountSql(instrumentor, sql, request) : null;
+                    Future<Integer> countFuture = null;
+                    if (needCount && inlineCountSql == null && isParallelCount(conn, request)) {
+                        final String countSql = instrumentor.countSql(sql, request.getCountColumn());
+                        final String dialect = SqlHelperMetrics.getDialectTag(instrumentor.getCurrentDialect());
+                        countFuture = getCountExecutor().submit(new Callable<Integer>() {
+                            @Override
+                            public Integer call() {
+                                long startTime = SqlHelperMetrics.startTimer();
+                                try {
+                                    return JdbcTemplate.super.query(countSql, new SelectCountRSExtractor());
+                                } finally {
+                                    SqlHelperMetrics.stopTimer(MetricNames.PAGINATION_COUNT, null, dialect, startTime);
+                                }
+                            }
+                        });
+                    }
+                    long estimated = needCount && inlineCountSql == null && countFuture == null ? estimateCount(instrumentor, sql, request, null) : -1;
+                    if (inlineCountSql != null || countFuture != null) {
+                        // the total is returned by the page query, or it is counted in parallel
+                    } else if (estimated >= 0) {
+                        // the estimate may be less than the real count, so the page is queried anyway
+                        result.setTotal(estimated).setEstimated(true);
+                    } else if (needCount) {
                         String countSql = instrumentor.countSql(sql, request.getCountColumn());
+                        long startTime = SqlHelperMetrics.startTimer();
                         int count = super.query(countSql, new SelectCountRSExtractor());
+                        SqlHelperMetrics.stopTimer(MetricNames.PAGINATION_COUNT, null, SqlHelperMetrics.getDialectTag(instrumentor.getCurrentDialect()), startTime);
                         if (count <= 0) {
                             needQuery = false;
                         }
                         result.setTotal(count);
                         int maxPageCount = result.getMaxPage();
-                        if (maxPageCount >= 0) {
+                        // the page no is not used by a keyset paging request
+                        if (maxPageCount >= 0 && !request.isKeysetRequest()) {
                             if (requestPageNo > maxPageCount) {
+                                SqlHelperMetrics.count(MetricNames.PAGINATION_PAGE_OUT, null, SqlHelperMetrics.getDialectTag(instrumentor.getCurrentDialect()), 1);
                                 if (isUseLastPageIfPageNoOut(request)) {
                                     request.setPageNo(maxPageCount);
                                     result.setPageNo(maxPageCount);
@@ -167,6 +212,7 @@ public class JdbcTemplate extends org.springframework.jdbc.core.JdbcTemplate {
                     if (needQuery) {
                         applyStatementSettingsInPaginationRequest(request);
                         RowSelection rowSelection = rowSelectionBuilder.build(request);
+                        instrumentor.resolvePrimaryKeys(instrumentor.getCurrentDialect(), conn, sql, rowSelection);
 
 
                         String paginationSql = sql;
@@ -180,10 +226,13 @@ public class JdbcTemplate extends org.springframework.jdbc.core.JdbcTemplate {
                         }
 
                         if (!subqueryPagination) {
-                            if (PAGING_CONTEXT.isOrderByRequest()) {
-                                paginationSql = instrumentor.instrumentOrderByLimitSql(sql, PAGING_CONTEXT.getPagingRequest().getOrderBy(), rowSelection);
+                            String baseSql = inlineCountSql != null ? inlineCountSql : sql;
+                            if (rowSelection.isKeyset()) {
+                                paginationSql = instrumentor.instrumentKeysetSql(sql, rowSelection);
+                            } else if (PAGING_CONTEXT.isOrderByRequest()) {
+                                paginationSql = instrumentor.instrumentOrderByLimitSql(baseSql, PAGING_CONTEXT.getPagingRequest().getOrderBy(), rowSelection);
                             } else {
-                                paginationSql = instrumentor.instrumentLimitSql(sql, rowSelection);
+                                paginationSql = instrumentor.instrumentLimitSql(baseSql, rowSelection);
                             }
                         } else {
                             String startFlag = SqlPaginations.getSubqueryPaginationStartFlag(request, instrumentor);
@@ -212,14 +261,29 @@ public class JdbcTemplate extends org.springframework.jdbc.core.JdbcTemplate {
                         // DO execute
                         ResultSet resultSet = null;
                         try {
+                            long startTime = SqlHelperMetrics.startTimer();
                             resultSet = ps.executeQuery();
+                            if (inlineCountSql != null) {
+                                resultSet = wrapInlineCountResultSet(instrumentor, resultSet);
+                            }
                             List rows = (List) rse.extractData(resultSet);
                             items.addAll(rows);
+                            recordPage(instrumentor, startTime, rows);
+                            if (inlineCountSql != null) {
+                                int count = getInlineCount(instrumentor, conn, resultSet, rowSelection);
+                                if (count < 0) {
+                                    count = super.query(instrumentor.countSql(sql, request.getCountColumn()), new SelectCountRSExtractor());
+                                }
+                                result.setTotal(count);
+                            }
                         } finally {
                             JdbcUtils.closeResultSet(resultSet);
                         }
                         handleWarnings(ps);
                     }
+                    if (countFuture != null) {
+                        applyParallelCount(instrumentor, request, result, CountExecutors.get(countFuture), requestPageNo);
+                    }
 
                     request.setPageNo(requestPageNo);
                     result.setPageNo(request.getPageNo());
@@ -289,18 +353,47 @@ public class JdbcTemplate extends org.springframework.jdbc.core.JdbcTemplate {
 
             Connection conn = DataSourceUtils.getConnection(dataSource());
             try {
-                if (instrumentor.beginIfSupportsLimit(conn.getMetaData())) {
+                if (instrumentor.beginIfSupportsLimit(dataSource(), conn)) {
                     boolean needQuery = true;
-                    if (needCountInPagingRequest(request)) {
+                    boolean needCount = needCountInPagingRequest(request);
+                    final String inlineCountSql = needCount ? getInlineCountSql(instrumentor, sql, request) : null;
+                    final PreparedStatementSetter countSetter = pss == null && (psc instanceof NamedParameterPreparedStatementCreator) ? (NamedParameterPreparedStatementCreator) psc : pss;
+                    Future<Integer> countFuture = null;
+                    if (needCount && inlineCountSql == null && isParallelCount(conn, request)) {
+                        final String countSql = instrumentor.countSql(sql, request.getCountColumn());
+                        final String dialect = SqlHelperMetrics.getDialectTag(instrumentor.getCurrentDialect());
+                        countFuture = getCountExecutor().submit(new Callable<Integer>() {
+                            @Override
+                            public Integer call() {
+                                long startTime = SqlHelperMetrics.startTimer();
+                                try {
+                                    return JdbcTemplate.super.query(new SimplePreparedStatementCreator(countSql), countSetter, new SelectCountRSExtractor());
+                                } finally {
+                                    SqlHelperMetrics.stopTimer(MetricNames.PAGINATION_COUNT, null, dialect, startTime);
+                                }
+                            }
+                        });
+                    }
+                    long estimated = needCount && inlineCountSql == null && countFuture == null ? estimateCount(instrumentor, sql, request, countSetter) : -1;
+                    if (inlineCountSql != null || countFuture != null) {
+                        // the total is returned by the page query, or it is counted in parallel
+                    } else if (estimated >= 0) {
+                        // the estimate may be less than the real count, so the page is queried anyway
+                        result.setTotal(estimated).setEstimated(true);
+                    } else if (needCount) {
                         String countSql = instrumentor.countSql(sql, request.getCountColumn());
-                        int count = super.query(new SimplePreparedStatementCreator(countSql), pss == null && (psc instanceof NamedParameterPreparedStatementCreator) ? (NamedParameterPreparedStatementCreator) psc : pss, new SelectCountRSExtractor());
+                        long startTime = SqlHelperMetrics.startTimer();
+                        int count = super.query(new SimplePreparedStatementCreator(countSql), countSetter, new SelectCountRSExtractor());
+                        SqlHelperMetrics.stopTimer(MetricNames.PAGINATION_COUNT, null, SqlHelperMetrics.getDialectTag(instrumentor.getCurrentDialect()), startTime);
                         if (count <= 0) {
                             needQuery = false;
                         }
                         result.setTotal(count);
                         int maxPageCount = result.getMaxPage();
-                        if (maxPageCount >= 0) {
+                        // the page no is not used by a keyset paging request
+                        if (maxPageCount >= 0 && !request.isKeysetRequest()) {
                             if (requestPageNo > maxPageCount) {
+                                SqlHelperMetrics.count(MetricNames.PAGINATION_PAGE_OUT, null, SqlHelperMetrics.getDialectTag(instrumentor.getCurrentDialect()), 1);
                                 if (isUseLastPageIfPageNoOut(request)) {
                                     request.setPageNo(maxPageCount);
                                     result.setPageNo(maxPageCount);
@@ -316,6 +409,7 @@ public class JdbcTemplate extends org.springframework.jdbc.core.JdbcTemplate {
                     if (needQuery) {
                         applyStatementSettingsInPaginationRequest(request);
                         RowSelection rowSelection = rowSelectionBuilder.build(request);
+                        instrumentor.resolvePrimaryKeys(instrumentor.getCurrentDialect(), conn, sql, rowSelection);
 
                         String paginationSql = sql;
                         boolean subqueryPagination = false;
@@ -331,10 +425,13 @@ public class JdbcTemplate extends org.springframework.jdbc.core.JdbcTemplate {
                         int afterSubqueryParametersCount = 0;
 
                         if (!subqueryPagination) {
-                            if (PAGING_CONTEXT.isOrderByRequest()) {
-                                paginationSql = instrumentor.instrumentOrderByLimitSql(sql, PAGING_CONTEXT.getPagingRequest().getOrderBy(), rowSelection);
+                            String baseSql = inlineCountSql != null ? inlineCountSql : sql;
+                            if (rowSelection.isKeyset()) {
+                                paginationSql = instrumentor.instrumentKeysetSql(sql, rowSelection);
+                            } else if (PAGING_CONTEXT.isOrderByRequest()) {
+                                paginationSql = instrumentor.instrumentOrderByLimitSql(baseSql, PAGING_CONTEXT.getPagingRequest().getOrderBy(), rowSelection);
                             } else {
-                                paginationSql = instrumentor.instrumentLimitSql(sql, rowSelection);
+                                paginationSql = instrumentor.instrumentLimitSql(baseSql, rowSelection);
                             }
                         } else {
                             String startFlag = SqlPaginations.getSubqueryPaginationStartFlag(request, instrumentor);
@@ -395,9 +492,21 @@ public class JdbcTemplate extends org.springframework.jdbc.core.JdbcTemplate {
                         // DO execute
                         ResultSet resultSet = null;
                         try {
+                            long startTime = SqlHelperMetrics.startTimer();
                             resultSet = ps.executeQuery();
+                            if (inlineCountSql != null) {
+                                resultSet = wrapInlineCountResultSet(instrumentor, resultSet);
+                            }
                             List rows = (List) rse.extractData(resultSet);
                             items.addAll(rows);
+                            recordPage(instrumentor, startTime, rows);
+                            if (inlineCountSql != null) {
+                                int count = getInlineCount(instrumentor, conn, resultSet, rowSelection);
+                                if (count < 0) {
+                                    count = super.query(new SimplePreparedStatementCreator(instrumentor.countSql(sql, request.getCountColumn())), countSetter, new SelectCountRSExtractor());
+                                }
+                                result.setTotal(count);
+                            }
                         } finally {
                             JdbcUtils.closeResultSet(resultSet);
                             if (pss instanceof ParameterDisposer) {
@@ -406,6 +515,9 @@ public class JdbcTemplate extends org.springframework.jdbc.core.JdbcTemplate {
                         }
                         handleWarnings(ps);
                     }
+                    if (countFuture != null) {
+                        applyParallelCount(instrumentor, request, result, CountExecutors.get(countFuture), requestPageNo);
+                    }
 
                     request.setPageNo(requestPageNo);
                     result.setPageNo(request.getPageNo());
@@ -453,6 +565,110 @@ public class JdbcTemplate extends org.springframework.jdbc.core.JdbcTemplate {
     }
 
 
+    /**
+     * @return the page sql which returns the total with the rows, null if the inline count is not used for the request
+     */
+    private String getInlineCountSql(SQLStatementInstrumentor instrumentor, String sql, PagingRequest request) {
+        if (!paginationConfig.isInlineCount() || request.getCountMode().isEstimate() || request.isKeysetRequest() || SqlPaginations.isSubqueryPagingRequest(request)) {
+            return null;
+        }
+        return instrumentor.instrumentInlineCountSql(instrumentor.getCurrentDialect(), sql);
+    }
+
+    private ResultSet wrapInlineCountResultSet(SQLStatementInstrumentor instrumentor, ResultSet resultSet) throws SQLException {
+        if (InlineCountStrategy.of(instrumentor.getCurrentDialect()) == InlineCountStrategy.WINDOW_FUNCTION) {
+            return InlineCountResultSet.wrap(resultSet);
+        }
+        return resultSet;
+    }
+
+    /**
+     * @return the total returned by the page query, -1 if it is unknown (the page has no any row)
+     */
+    private int getInlineCount(SQLStatementInstrumentor instrumentor, Connection conn, ResultSet resultSet, RowSelection rowSelection) throws SQLException {
+        long total;
+        if (InlineCountStrategy.of(instrumentor.getCurrentDialect()) == InlineCountStrategy.FOUND_ROWS) {
+            total = -1;
+            Statement statement = null;
+            ResultSet foundRows = null;
+            try {
+                statement = conn.createStatement();
+                foundRows = statement.executeQuery(InlineCountStrategy.FOUND_ROWS_SQL);
+                if (foundRows.next()) {
+                    total = foundRows.getLong(1);
+                }
+            } finally {
+                JdbcUtils.closeResultSet(foundRows);
+                JdbcUtils.closeStatement(statement);
+            }
+        } else {
+            total = InlineCountResultSet.getTotal(resultSet);
+        }
+        if (total < 0 && !rowSelection.hasOffset()) {
+            // the first page is empty
+            total = 0;
+        }
+        return (int) total;
+    }
+
+    /**
+     * @return the estimated total if it is accepted by the count mode of the request, else -1
+     */
+    private long estimateCount(SQLStatementInstrumentor instrumentor, String sql, PagingRequest request, PreparedStatementSetter setter) {
+        CountMode countMode = request.getCountMode();
+        RowCountEstimator estimator = countMode.isEstimate() ? instrumentor.getCurrentDialect().getRowCountEstimator() : null;
+        String estimateSql = estimator == null ? null : estimator.getEstimateSql(sql);
+        if (estimateSql == null) {
+            return -1;
+        }
+        final RowCountEstimator rowCountEstimator = estimator;
+        long estimated;
+        try {
+            estimated = super.query(new SimplePreparedStatementCreator(estimateSql), setter, new ResultSetExtractor<Long>() {
+                @Override
+                public Long extractData(ResultSet rs) throws SQLException {
+                    return rowCountEstimator.getEstimatedRowCount(rs);
+                }
+            });
+        } catch (DataAccessException ex) {
+            LOGGER.warn("Can't estimate the row count, the count query will be used, sql: {}, error: {}", estimateSql, ex.getMessage());
+            return -1;
+        }
+        return countMode.accept(estimated) ? estimated : -1;
+    }
+
+    private boolean isParallelCount(Connection conn, PagingRequest request) throws SQLException {
+        if (!paginationConfig.isParallelCount() || request.getCountMode().isEstimate() || isUseLastPageIfPageNoOut(request)) {
+            return false;
+        }
+        // the count query in another connection can't see the uncommitted changes
+        return !TransactionSynchronizationManager.isActualTransactionActive() && conn.getAutoCommit();
+    }
+
+    private ExecutorService getCountExecutor() {
+        return countExecutor == null ? CountExecutors.getDefault() : countExecutor;
+    }
+
+    /**
+     * the page query has been executed, so the items are dropped if the page is out of the range
+     */
+    private static void recordPage(SQLStatementInstrumentor instrumentor, long startTime, List rows) {
+        if (SqlHelperMetrics.isEnabled()) {
+            String dialect = SqlHelperMetrics.getDialectTag(instrumentor.getCurrentDialect());
+            SqlHelperMetrics.stopTimer(MetricNames.PAGINATION_PAGE, null, dialect, startTime);
+            SqlHelperMetrics.count(MetricNames.PAGINATION_ROWS, null, dialect, rows == null ? 0 : rows.size());
+        }
+    }
+
+    private void applyParallelCount(SQLStatementInstrumentor instrumentor, PagingRequest request, PagingResult result, int count, int requestPageNo) {
+        result.setTotal(count);
+        int maxPageCount = result.getMaxPage();
+        if (maxPageCount >= 0 && !request.isKeysetRequest() && requestPageNo > maxPageCount) {
+            SqlHelperMetrics.count(MetricNames.PAGINATION_PAGE_OUT, null, SqlHelperMetrics.getDialectTag(instrumentor.getCurrentDialect()), 1);
+            result.getItems().clear();
+        }
+    }
+
     private boolean needCountInPagingRequest(PagingRequest request) {
         if (request.needCount() == null) {
             return paginationConfig.isCount();